@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.GridType;
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.Size;
+import uk.ac.rdg.resc.edal.dataset.DataReadingStrategy;
+import uk.ac.rdg.resc.edal.dataset.Domain2DMapper;
+import uk.ac.rdg.resc.edal.dataset.GridDataSource;
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Benchmarks each {@link DataReadingStrategy} reading a map from an in-memory
+ * global grid. Since no I/O is involved, this measures the overhead of each
+ * strategy itself: the number and size of reads it makes and the cost of
+ * copying the values into the target array.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataReadingStrategyBenchmark {
+    @Param({ "SCANLINE", "BOUNDING_BOX", "PIXEL_BY_PIXEL", "STRIDED" })
+    public DataReadingStrategy strategy;
+
+    @Param({ "SMALL", "LARGE" })
+    public Size size;
+
+    @Param({ TargetGrids.CRS84, TargetGrids.MERCATOR })
+    public String crs;
+
+    private GridDataSource dataSource;
+    private Domain2DMapper tileMapper;
+    private Domain2DMapper globalMapper;
+
+    /**
+     * A {@link GridDataSource} which reads from an array of the synthetic
+     * field
+     */
+    private static class InMemoryGridDataSource implements GridDataSource {
+        private final float[] values;
+        private final int nx;
+
+        InMemoryGridDataSource(int nx, int ny) {
+            this.nx = nx;
+            values = new float[nx * ny];
+            for (int j = 0; j < ny; j++) {
+                for (int i = 0; i < nx; i++) {
+                    values[j * nx + i] = SyntheticData.getValue(-180 + 360.0 * (i + 0.5) / nx,
+                            -90 + 180.0 * (j + 0.5) / ny, 0);
+                }
+            }
+        }
+
+        @Override
+        public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax,
+                int ymin, int ymax, int xmin, int xmax) throws IOException, DataReadingException {
+            /*
+             * Copy the values, as reading from a file would
+             */
+            int width = xmax - xmin + 1;
+            int height = ymax - ymin + 1;
+            float[] data = new float[width * height];
+            for (int j = 0; j < height; j++) {
+                System.arraycopy(values, (ymin + j) * nx + xmin, data, j * width, width);
+            }
+            return new Array4D<Number>(1, 1, height, width) {
+                @Override
+                public Number get(int... coords) {
+                    float value = data[coords[2] * width + coords[3]];
+                    return value == -999f ? null : value;
+                }
+
+                @Override
+                public void set(Number value, int... coords) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws DataReadingException {
+        }
+    }
+
+    @Setup
+    public void setup() {
+        int[] shape = GridType.REGULAR.getShape(size);
+        dataSource = new InMemoryGridDataSource(shape[0], shape[1]);
+        HorizontalGrid sourceGrid = new RegularGridImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS(), shape[0], shape[1]);
+        tileMapper = Domain2DMapper.forGrid(sourceGrid,
+                TargetGrids.getTargetGrid(new DefaultGeographicBoundingBox(-10, 10, 40, 60), crs,
+                        TargetGrids.TILE_SIZE, TargetGrids.TILE_SIZE));
+        globalMapper = Domain2DMapper.forGrid(sourceGrid,
+                TargetGrids.getTargetGrid(TargetGrids.GLOBAL, crs, 1024, 768));
+    }
+
+    @Benchmark
+    public Array2D<Number> readTile() throws IOException {
+        return strategy.readMapData(dataSource, SyntheticData.VARIABLE, 0, 0, tileMapper);
+    }
+
+    @Benchmark
+    public Array2D<Number> readGlobal() throws IOException {
+        return strategy.readMapData(dataSource, SyntheticData.VARIABLE, 0, 0, globalMapper);
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.GridType;
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.Size;
+import uk.ac.rdg.resc.edal.cache.EdalCache;
+import uk.ac.rdg.resc.edal.dataset.Domain2DMapper;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.LookUpTableGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Benchmarks {@link Domain2DMapper#forGrid(HorizontalGrid, HorizontalGrid)},
+ * which finds the source grid point for each pixel of an image, from regular
+ * and curvilinear source grids
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainMapperBenchmark {
+    @Param({ "REGULAR", "CURVILINEAR" })
+    public GridType gridType;
+
+    @Param({ "SMALL", "LARGE" })
+    public Size size;
+
+    @Param({ TargetGrids.CRS84, TargetGrids.MERCATOR })
+    public String crs;
+
+    private HorizontalGrid sourceGrid;
+    private RegularGrid tile;
+    private RegularGrid wholeGrid;
+
+    @Setup
+    public void setup() {
+        int[] shape = gridType.getShape(size);
+        if (gridType == GridType.REGULAR) {
+            sourceGrid = new RegularGridImpl(-180, -90, 180, 90, GISUtils.defaultGeographicCRS(),
+                    shape[0], shape[1]);
+        } else {
+            sourceGrid = LookUpTableGrid.generate(
+                    SyntheticData.getCurvilinearLons(shape[0], shape[1]),
+                    SyntheticData.getCurvilinearLats(shape[0], shape[1]));
+        }
+        GeographicBoundingBox bbox = sourceGrid.getGeographicBoundingBox();
+        double lonCentre = (bbox.getWestBoundLongitude() + bbox.getEastBoundLongitude()) / 2;
+        double latCentre = (bbox.getSouthBoundLatitude() + bbox.getNorthBoundLatitude()) / 2;
+        tile = TargetGrids.getTargetGrid(new DefaultGeographicBoundingBox(lonCentre - 5,
+                lonCentre + 5, latCentre - 5, latCentre + 5), crs, TargetGrids.TILE_SIZE,
+                TargetGrids.TILE_SIZE);
+        wholeGrid = TargetGrids.getTargetGrid(bbox, crs, 1024, 768);
+    }
+
+    /**
+     * Mappings are cached, so the cache must be cleared before each
+     * invocation to measure the calculation
+     */
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        EdalCache.cacheManager.clearAll();
+    }
+
+    @Benchmark
+    public Domain2DMapper mapTile() {
+        return Domain2DMapper.forGrid(sourceGrid, tile);
+    }
+
+    @Benchmark
+    public Domain2DMapper mapWholeGrid() {
+        return Domain2DMapper.forGrid(sourceGrid, wholeGrid);
+    }
+}
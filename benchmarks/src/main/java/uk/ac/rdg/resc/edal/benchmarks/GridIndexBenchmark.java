@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.GridType;
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.Size;
+import uk.ac.rdg.resc.edal.grid.kdtree.KDTree;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.util.CurvilinearCoords;
+import uk.ac.rdg.resc.edal.util.LookUpTable;
+
+/**
+ * Benchmarks building and querying the spatial indices used to find points
+ * in non-rectilinear grids: the {@link LookUpTable} used for curvilinear
+ * grids and the {@link KDTree} used for unstructured meshes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridIndexBenchmark {
+    private static final int N_QUERIES = 10000;
+
+    @Param({ "SMALL", "LARGE" })
+    public Size size;
+
+    private CurvilinearCoords curvilinearCoords;
+    private double lutResolution;
+    private LookUpTable lut;
+    private List<HorizontalPosition> meshPoints;
+    private KDTree kdTree;
+    private double[] queryLons;
+    private double[] queryLats;
+
+    @Setup
+    public void setup() {
+        int[] shape = GridType.CURVILINEAR.getShape(size);
+        curvilinearCoords = new CurvilinearCoords(
+                SyntheticData.getCurvilinearLons(shape[0], shape[1]),
+                SyntheticData.getCurvilinearLats(shape[0], shape[1]));
+        /* The same resolution as LookUpTableGrid uses */
+        lutResolution = Math.sqrt(curvilinearCoords.getMeanCellArea()) / 3.0;
+        lut = new LookUpTable(curvilinearCoords, lutResolution);
+
+        /*
+         * Mesh points on a jittered lattice, as in the synthetic UGRID
+         * datasets
+         */
+        shape = GridType.UGRID.getShape(size);
+        Random random = new Random(42L);
+        meshPoints = new ArrayList<>();
+        for (int j = 0; j < shape[1]; j++) {
+            for (int i = 0; i < shape[0]; i++) {
+                meshPoints.add(new HorizontalPosition(
+                        -20 + 30.0 * (i + random.nextDouble() - 0.5) / shape[0],
+                        45 + 20.0 * (j + random.nextDouble() - 0.5) / shape[1]));
+            }
+        }
+        kdTree = new KDTree(meshPoints);
+        kdTree.buildTree();
+
+        queryLons = new double[N_QUERIES];
+        queryLats = new double[N_QUERIES];
+        for (int i = 0; i < N_QUERIES; i++) {
+            queryLons[i] = -20 + 30 * random.nextDouble();
+            queryLats[i] = 45 + 20 * random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public LookUpTable buildLookUpTable() {
+        return new LookUpTable(curvilinearCoords, lutResolution);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void queryLookUpTable(Blackhole blackhole) {
+        for (int i = 0; i < N_QUERIES; i++) {
+            blackhole.consume(lut.getGridCoordinates(queryLons[i], queryLats[i]));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public KDTree buildKDTree() {
+        KDTree tree = new KDTree(meshPoints);
+        tree.buildTree();
+        return tree;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void queryKDTree(Blackhole blackhole) {
+        for (int i = 0; i < N_QUERIES; i++) {
+            blackhole.consume(
+                    kdTree.nearestNeighbour(new HorizontalPosition(queryLons[i], queryLats[i])));
+        }
+    }
+}
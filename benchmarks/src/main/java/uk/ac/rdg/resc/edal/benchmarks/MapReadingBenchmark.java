@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.GridType;
+import uk.ac.rdg.resc.edal.benchmarks.SyntheticData.Size;
+import uk.ac.rdg.resc.edal.dataset.Dataset;
+import uk.ac.rdg.resc.edal.dataset.HorizontallyDiscreteDataset;
+import uk.ac.rdg.resc.edal.dataset.cdm.CdmGridDatasetFactory;
+import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.util.CollectionUtils;
+
+/**
+ * Benchmarks extracting map features from the synthetic NetCDF datasets. This
+ * covers the whole read path for each type of grid: mapping the image grid
+ * onto the source grid, the {@link uk.ac.rdg.resc.edal.dataset.DataReadingStrategy}
+ * chosen for the file, and reading from NetCDF.
+ * 
+ * The mapping from the source grid is cached between invocations, as it is
+ * when the same tile is requested repeatedly. {@link DomainMapperBenchmark}
+ * measures the cost of calculating it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapReadingBenchmark {
+    @Param({ "REGULAR", "CURVILINEAR", "STAGGERED", "UGRID" })
+    public GridType gridType;
+
+    @Param({ "SMALL", "LARGE" })
+    public Size size;
+
+    @Param({ TargetGrids.CRS84, TargetGrids.MERCATOR })
+    public String crs;
+
+    private HorizontallyDiscreteDataset<?> dataset;
+    private Set<String> varIds;
+    private MapDomain tile;
+    private MapDomain wholeDataset;
+
+    @Setup
+    public void setup() throws Exception {
+        Dataset dataset = new CdmGridDatasetFactory().createDataset(gridType + "-" + size,
+                SyntheticData.getDataFile(gridType, size).getPath());
+        this.dataset = (HorizontallyDiscreteDataset<?>) dataset;
+
+        /*
+         * The variable ID of staggered variables is modified by the dataset
+         */
+        String varId = null;
+        for (String id : dataset.getVariableIds()) {
+            if (id.startsWith(SyntheticData.VARIABLE)
+                    && (varId == null || id.length() < varId.length())) {
+                varId = id;
+            }
+        }
+        varIds = CollectionUtils.setOf(varId);
+
+        /*
+         * A tile covering the centre of the dataset, and an image covering the
+         * whole dataset
+         */
+        GeographicBoundingBox bbox = dataset.getVariableMetadata(varId).getHorizontalDomain()
+                .getGeographicBoundingBox();
+        double lonCentre = (bbox.getWestBoundLongitude() + bbox.getEastBoundLongitude()) / 2;
+        double latCentre = (bbox.getSouthBoundLatitude() + bbox.getNorthBoundLatitude()) / 2;
+        tile = new MapDomain(TargetGrids.getTargetGrid(new DefaultGeographicBoundingBox(
+                lonCentre - 5, lonCentre + 5, latCentre - 5, latCentre + 5), crs,
+                TargetGrids.TILE_SIZE, TargetGrids.TILE_SIZE), null, null);
+        wholeDataset = new MapDomain(TargetGrids.getTargetGrid(bbox, crs, 1024, 768), null,
+                null);
+    }
+
+    @Benchmark
+    public List<MapFeature> readTile() {
+        return dataset.extractMapFeatures(varIds, tile);
+    }
+
+    @Benchmark
+    public List<MapFeature> readWholeDataset() {
+        return dataset.extractMapFeatures(varIds, wholeDataset);
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.graphics.formats.ImageFormat;
+import uk.ac.rdg.resc.edal.graphics.formats.SimpleFormat;
+import uk.ac.rdg.resc.edal.graphics.style.ColourScheme;
+import uk.ac.rdg.resc.edal.graphics.style.MapImage;
+import uk.ac.rdg.resc.edal.graphics.style.RasterLayer;
+import uk.ac.rdg.resc.edal.graphics.style.ScaleRange;
+import uk.ac.rdg.resc.edal.graphics.style.SegmentColourScheme;
+import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.util.Array2D;
+
+/**
+ * Benchmarks rendering a map which has already been read: colouring values
+ * with a {@link ColourScheme}, drawing a {@link RasterLayer} (as ARGB and as
+ * indexed colours), and encoding the results as PNG
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderingBenchmark {
+    @Param({ "256", "1024" })
+    public int imageSize;
+
+    @Param({ TargetGrids.CRS84, TargetGrids.MERCATOR })
+    public String crs;
+
+    private Number[] values;
+    private ColourScheme colourScheme;
+    private MapImage mapImage;
+    private PlottingDomainParams params;
+    private FeatureCatalogue catalogue;
+    private SimpleFormat pngFormat;
+    private BufferedImage argbImage;
+    private BufferedImage indexedImage;
+
+    @Setup
+    public void setup() throws IOException {
+        RegularGrid imageGrid = TargetGrids.getTargetGrid(TargetGrids.GLOBAL, crs, imageSize,
+                imageSize);
+        MapFeature feature = SyntheticData.readMapFeature(imageGrid);
+
+        Array2D<Number> featureValues = feature.getValues(SyntheticData.VARIABLE);
+        values = new Number[imageSize * imageSize];
+        int i = 0;
+        for (Number value : featureValues) {
+            values[i++] = value;
+        }
+
+        colourScheme = new SegmentColourScheme(new ScaleRange(270f, 305f, false), null, null,
+                new Color(0, true), "default", 250);
+        mapImage = new MapImage();
+        mapImage.getLayers().add(new RasterLayer(SyntheticData.VARIABLE, colourScheme));
+        params = new PlottingDomainParams(imageGrid, null, null, null, null, null);
+        catalogue = new FeatureCatalogue() {
+            @Override
+            public FeaturesAndMemberName getFeaturesForLayer(String layerName,
+                    PlottingDomainParams params) {
+                return new FeaturesAndMemberName(feature, SyntheticData.VARIABLE);
+            }
+        };
+
+        pngFormat = (SimpleFormat) ImageFormat.get("image/png");
+        argbImage = mapImage.drawImage(params, catalogue);
+        indexedImage = mapImage.drawIndexedImage(params, catalogue);
+    }
+
+    @Benchmark
+    public void getColours(Blackhole blackhole) {
+        for (Number value : values) {
+            blackhole.consume(colourScheme.getColor(value));
+        }
+    }
+
+    @Benchmark
+    public BufferedImage drawImage() {
+        return mapImage.drawImage(params, catalogue);
+    }
+
+    @Benchmark
+    public BufferedImage drawIndexedImage() {
+        return mapImage.drawIndexedImage(params, catalogue);
+    }
+
+    @Benchmark
+    public void encodeArgbPng() throws IOException {
+        pngFormat.writeImage(Collections.singletonList(argbImage),
+                OutputStream.nullOutputStream(), null);
+    }
+
+    @Benchmark
+    public void encodeIndexedPng() throws IOException {
+        pngFormat.writeImage(Collections.singletonList(indexedImage),
+                OutputStream.nullOutputStream(), null);
+    }
+}
@@ -0,0 +1,524 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import ucar.ma2.ArrayFloat;
+import ucar.ma2.ArrayInt;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.NetcdfFileWriter.Version;
+import ucar.nc2.Variable;
+import uk.ac.rdg.resc.edal.dataset.Dataset;
+import uk.ac.rdg.resc.edal.dataset.HorizontallyDiscreteDataset;
+import uk.ac.rdg.resc.edal.dataset.cdm.CdmGridDatasetFactory;
+import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.CollectionUtils;
+import uk.ac.rdg.resc.edal.util.ValuesArray2D;
+
+/**
+ * Generates the synthetic NetCDF datasets which the benchmarks read. This
+ * follows the approach of the CreateSyntheticData example, but the fields are
+ * entirely analytic (including a "land" mask), so that no input data is
+ * needed and datasets of any size can be generated.
+ * 
+ * Generating the larger datasets takes a while, so they are written once to
+ * the directory given by the system property
+ * <code>edal.benchmarks.dataDir</code> (by default
+ * <code>edal-benchmarks</code> in the system temporary directory) and reused
+ * by subsequent runs.
+ */
+public class SyntheticData {
+    /**
+     * The types of grid which the synthetic datasets can use. Each has a
+     * small and a large size, chosen to be typical of real datasets of that
+     * type.
+     */
+    public enum GridType {
+        /** A global lat-lon grid: 1/4 degree and 1/12 degree */
+        REGULAR(1440, 720, 4320, 2160),
+        /** A regional curvilinear ocean model grid */
+        CURVILINEAR(720, 540, 1440, 1080),
+        /** An SGRID dataset with data on the faces of a curvilinear grid */
+        STAGGERED(720, 540, 1440, 1080),
+        /**
+         * A UGRID triangular mesh. The sizes are the dimensions of the lattice
+         * of nodes, giving around 130,000 and 1,000,000 faces
+         */
+        UGRID(256, 256, 724, 724);
+
+        private final int[] small;
+        private final int[] large;
+
+        private GridType(int smallX, int smallY, int largeX, int largeY) {
+            small = new int[] { smallX, smallY };
+            large = new int[] { largeX, largeY };
+        }
+
+        /**
+         * @return The x and y sizes of the grid (or the lattice of mesh
+         *         nodes) for the given {@link Size}
+         */
+        public int[] getShape(Size size) {
+            return size == Size.SMALL ? small : large;
+        }
+    }
+
+    public enum Size {
+        SMALL, LARGE
+    }
+
+    /** The name of the data variable in every synthetic dataset */
+    public static final String VARIABLE = "temperature";
+    /** The number of time steps in every synthetic dataset */
+    public static final int N_TIMES = 4;
+
+    private static final float FILL_VALUE = -999f;
+
+    /**
+     * Gets a synthetic dataset, generating it if it does not already exist
+     * 
+     * @param type
+     *            The {@link GridType} of the dataset
+     * @param size
+     *            The {@link Size} of the dataset
+     * @return The location of the NetCDF file
+     */
+    public static synchronized File getDataFile(GridType type, Size size) throws IOException {
+        File dataDir = new File(System.getProperty("edal.benchmarks.dataDir",
+                new File(System.getProperty("java.io.tmpdir"), "edal-benchmarks").getPath()));
+        File dataFile = new File(dataDir, type.name().toLowerCase(Locale.ROOT) + "-"
+                + size.name().toLowerCase(Locale.ROOT) + ".nc");
+        if (dataFile.exists()) {
+            return dataFile;
+        }
+        dataDir.mkdirs();
+
+        /*
+         * Write to a temporary file first so that an interrupted run doesn't
+         * leave a truncated dataset behind
+         */
+        File tmpFile = new File(dataDir, dataFile.getName() + ".tmp");
+        int[] shape = type.getShape(size);
+        try {
+            switch (type) {
+            case REGULAR:
+                writeRegular(tmpFile, shape[0], shape[1]);
+                break;
+            case CURVILINEAR:
+                writeCurvilinear(tmpFile, shape[0], shape[1]);
+                break;
+            case STAGGERED:
+                writeStaggered(tmpFile, shape[0], shape[1]);
+                break;
+            case UGRID:
+                writeUgrid(tmpFile, shape[0], shape[1]);
+                break;
+            }
+        } catch (InvalidRangeException e) {
+            throw new IOException("Problem writing synthetic data to " + tmpFile, e);
+        }
+        Files.move(tmpFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return dataFile;
+    }
+
+    /**
+     * Reads a map of the small regular synthetic dataset, for benchmarks which
+     * need a realistic {@link MapFeature} to work on
+     * 
+     * @param grid
+     *            The grid to read the map on to
+     * @return The {@link MapFeature} of the synthetic data variable
+     */
+    public static MapFeature readMapFeature(RegularGrid grid) throws IOException {
+        Dataset dataset = new CdmGridDatasetFactory().createDataset("regular",
+                getDataFile(GridType.REGULAR, Size.SMALL).getPath());
+        return ((HorizontallyDiscreteDataset<?>) dataset).extractMapFeatures(
+                CollectionUtils.setOf(VARIABLE), new MapDomain(grid, null, null)).get(0);
+    }
+
+    /**
+     * The synthetic field: a temperature-like field which decreases towards
+     * the poles and varies slowly with time, with a "land" mask covering
+     * around a quarter of the globe
+     */
+    static float getValue(double lon, double lat, int t) {
+        double lonRad = Math.toRadians(lon);
+        double latRad = Math.toRadians(lat);
+        if (Math.sin(3 * lonRad) * Math.cos(2 * latRad) > 0.5) {
+            return FILL_VALUE;
+        }
+        double cosLat = Math.cos(latRad);
+        return (float) (278 + 25 * cosLat * cosLat + Math.sin(5 * lonRad + t * 0.3)
+                * Math.cos(7 * latRad) - t * 0.2);
+    }
+
+    /**
+     * @return The longitude of a point on the synthetic curvilinear grid. This
+     *         is a sheared and curved grid over the North Atlantic.
+     */
+    static double getCurvilinearLon(int i, int j, int nx, int ny) {
+        double iFrac = (double) i / (nx - 1);
+        double jFrac = (double) j / (ny - 1);
+        return -70 + 90 * iFrac + 15 * jFrac + 5 * Math.sin(Math.PI * jFrac);
+    }
+
+    /**
+     * @return The latitude of a point on the synthetic curvilinear grid
+     */
+    static double getCurvilinearLat(int i, int j, int nx, int ny) {
+        double iFrac = (double) i / (nx - 1);
+        double jFrac = (double) j / (ny - 1);
+        return 5 + 65 * jFrac - 10 * iFrac + 4 * Math.sin(Math.PI * iFrac);
+    }
+
+    /**
+     * @return The longitudes of the synthetic curvilinear grid of the given
+     *         size, indexed as (j, i)
+     */
+    public static Array2D<Number> getCurvilinearLons(int nx, int ny) {
+        Array2D<Number> lons = new ValuesArray2D(ny, nx);
+        for (int j = 0; j < ny; j++) {
+            for (int i = 0; i < nx; i++) {
+                lons.set(getCurvilinearLon(i, j, nx, ny), j, i);
+            }
+        }
+        return lons;
+    }
+
+    /**
+     * @return The latitudes of the synthetic curvilinear grid of the given
+     *         size, indexed as (j, i)
+     */
+    public static Array2D<Number> getCurvilinearLats(int nx, int ny) {
+        Array2D<Number> lats = new ValuesArray2D(ny, nx);
+        for (int j = 0; j < ny; j++) {
+            for (int i = 0; i < nx; i++) {
+                lats.set(getCurvilinearLat(i, j, nx, ny), j, i);
+            }
+        }
+        return lats;
+    }
+
+    private static NetcdfFileWriter create(File file) throws IOException {
+        NetcdfFileWriter writer = NetcdfFileWriter.createNew(Version.netcdf3, file.getPath());
+        writer.setLargeFile(true);
+        writer.addGlobalAttribute(new Attribute("Conventions", "CF-1.6"));
+        return writer;
+    }
+
+    private static Variable addTime(NetcdfFileWriter writer, Dimension timeDim) {
+        Variable timeVar = writer.addVariable(timeDim.getFullName(), DataType.INT,
+                Arrays.asList(timeDim));
+        timeVar.addAttribute(new Attribute("units", "days since 2000-01-01 00:00:00"));
+        timeVar.addAttribute(new Attribute("standard_name", "time"));
+        timeVar.addAttribute(new Attribute("calendar", "gregorian"));
+        return timeVar;
+    }
+
+    private static void writeTime(NetcdfFileWriter writer, Variable timeVar)
+            throws IOException, InvalidRangeException {
+        ArrayInt.D1 timeData = new ArrayInt.D1(N_TIMES, false);
+        for (int t = 0; t < N_TIMES; t++) {
+            timeData.setInt(t, t);
+        }
+        writer.write(timeVar, timeData);
+    }
+
+    private static Variable addCoordinate(NetcdfFileWriter writer, String name, boolean lon,
+            Dimension... dims) {
+        Variable var = writer.addVariable(name, DataType.FLOAT, Arrays.asList(dims));
+        var.addAttribute(new Attribute("units", lon ? "degrees_east" : "degrees_north"));
+        var.addAttribute(new Attribute("standard_name", lon ? "longitude" : "latitude"));
+        var.addAttribute(new Attribute("_CoordinateAxisType", lon ? "Lon" : "Lat"));
+        return var;
+    }
+
+    private static Variable addData(NetcdfFileWriter writer, Dimension... dims) {
+        Variable var = writer.addVariable(VARIABLE, DataType.FLOAT, Arrays.asList(dims));
+        var.addAttribute(new Attribute("units", "K"));
+        var.addAttribute(new Attribute("standard_name", "sea_water_potential_temperature"));
+        var.addAttribute(new Attribute("_FillValue", FILL_VALUE));
+        return var;
+    }
+
+    private static void writeRegular(File file, int nx, int ny)
+            throws IOException, InvalidRangeException {
+        NetcdfFileWriter writer = create(file);
+        Dimension timeDim = writer.addDimension("time", N_TIMES);
+        Dimension latDim = writer.addDimension("lat", ny);
+        Dimension lonDim = writer.addDimension("lon", nx);
+        Variable timeVar = addTime(writer, timeDim);
+        Variable latVar = addCoordinate(writer, "lat", false, latDim);
+        Variable lonVar = addCoordinate(writer, "lon", true, lonDim);
+        Variable dataVar = addData(writer, timeDim, latDim, lonDim);
+        writer.create();
+
+        writeTime(writer, timeVar);
+        /* Cell centres of a global grid */
+        ArrayFloat.D1 lats = new ArrayFloat.D1(ny);
+        for (int j = 0; j < ny; j++) {
+            lats.set(j, -90f + 180f * (j + 0.5f) / ny);
+        }
+        ArrayFloat.D1 lons = new ArrayFloat.D1(nx);
+        for (int i = 0; i < nx; i++) {
+            lons.set(i, -180f + 360f * (i + 0.5f) / nx);
+        }
+        writer.write(latVar, lats);
+        writer.write(lonVar, lons);
+
+        ArrayFloat.D3 data = new ArrayFloat.D3(1, ny, nx);
+        for (int t = 0; t < N_TIMES; t++) {
+            for (int j = 0; j < ny; j++) {
+                for (int i = 0; i < nx; i++) {
+                    data.set(0, j, i, getValue(lons.get(i), lats.get(j), t));
+                }
+            }
+            writer.write(dataVar, new int[] { t, 0, 0 }, data);
+        }
+        writer.close();
+    }
+
+    private static void writeCurvilinear(File file, int nx, int ny)
+            throws IOException, InvalidRangeException {
+        NetcdfFileWriter writer = create(file);
+        Dimension timeDim = writer.addDimension("time", N_TIMES);
+        Dimension jDim = writer.addDimension("j", ny);
+        Dimension iDim = writer.addDimension("i", nx);
+        Variable timeVar = addTime(writer, timeDim);
+        Variable latVar = addCoordinate(writer, "lat", false, jDim, iDim);
+        Variable lonVar = addCoordinate(writer, "lon", true, jDim, iDim);
+        Variable dataVar = addData(writer, timeDim, jDim, iDim);
+        dataVar.addAttribute(new Attribute("coordinates", "lon lat"));
+        writer.create();
+
+        writeTime(writer, timeVar);
+        writeCurvilinearCoordinates(writer, lonVar, latVar, nx, ny);
+
+        ArrayFloat.D3 data = new ArrayFloat.D3(1, ny, nx);
+        for (int t = 0; t < N_TIMES; t++) {
+            for (int j = 0; j < ny; j++) {
+                for (int i = 0; i < nx; i++) {
+                    data.set(0, j, i, getValue(getCurvilinearLon(i, j, nx, ny),
+                            getCurvilinearLat(i, j, nx, ny), t));
+                }
+            }
+            writer.write(dataVar, new int[] { t, 0, 0 }, data);
+        }
+        writer.close();
+    }
+
+    private static void writeCurvilinearCoordinates(NetcdfFileWriter writer, Variable lonVar,
+            Variable latVar, int nx, int ny) throws IOException, InvalidRangeException {
+        ArrayFloat.D2 lons = new ArrayFloat.D2(ny, nx);
+        ArrayFloat.D2 lats = new ArrayFloat.D2(ny, nx);
+        for (int j = 0; j < ny; j++) {
+            for (int i = 0; i < nx; i++) {
+                lons.set(j, i, (float) getCurvilinearLon(i, j, nx, ny));
+                lats.set(j, i, (float) getCurvilinearLat(i, j, nx, ny));
+            }
+        }
+        writer.write(lonVar, lons);
+        writer.write(latVar, lats);
+    }
+
+    /**
+     * Writes an SGRID dataset in the style of a ROMS model: the curvilinear
+     * grid is defined on the nodes ("psi" points) and the data are on the
+     * faces ("rho" points), which are padded on both sides
+     */
+    private static void writeStaggered(File file, int nx, int ny)
+            throws IOException, InvalidRangeException {
+        NetcdfFileWriter writer = create(file);
+        Dimension timeDim = writer.addDimension("time", N_TIMES);
+        Dimension etaPsiDim = writer.addDimension("eta_psi", ny);
+        Dimension xiPsiDim = writer.addDimension("xi_psi", nx);
+        Dimension etaRhoDim = writer.addDimension("eta_rho", ny + 1);
+        Dimension xiRhoDim = writer.addDimension("xi_rho", nx + 1);
+        Variable timeVar = addTime(writer, timeDim);
+        Variable latVar = addCoordinate(writer, "lat_psi", false, etaPsiDim, xiPsiDim);
+        Variable lonVar = addCoordinate(writer, "lon_psi", true, etaPsiDim, xiPsiDim);
+
+        Variable gridVar = writer.addVariable("grid", DataType.INT, new ArrayList<Dimension>());
+        gridVar.addAttribute(new Attribute("cf_role", "grid_topology"));
+        gridVar.addAttribute(new Attribute("topology_dimension", 2));
+        gridVar.addAttribute(new Attribute("node_dimensions", "xi_psi eta_psi"));
+        gridVar.addAttribute(new Attribute("face_dimensions",
+                "xi_rho: xi_psi (padding: both) eta_rho: eta_psi (padding: both)"));
+        gridVar.addAttribute(new Attribute("node_coordinates", "lon_psi lat_psi"));
+
+        Variable dataVar = addData(writer, timeDim, etaRhoDim, xiRhoDim);
+        dataVar.addAttribute(new Attribute("grid", "grid"));
+        dataVar.addAttribute(new Attribute("location", "face"));
+        writer.create();
+
+        writeTime(writer, timeVar);
+        writeCurvilinearCoordinates(writer, lonVar, latVar, nx, ny);
+
+        /*
+         * Face centres are half way between the nodes, extrapolated by half a
+         * cell at the edges
+         */
+        ArrayFloat.D3 data = new ArrayFloat.D3(1, ny + 1, nx + 1);
+        for (int t = 0; t < N_TIMES; t++) {
+            for (int j = 0; j <= ny; j++) {
+                for (int i = 0; i <= nx; i++) {
+                    double lon = (getCurvilinearLon(i, j, nx, ny)
+                            + getCurvilinearLon(i - 1, j - 1, nx, ny)) / 2;
+                    double lat = (getCurvilinearLat(i, j, nx, ny)
+                            + getCurvilinearLat(i - 1, j - 1, nx, ny)) / 2;
+                    data.set(0, j, i, getValue(lon, lat, t));
+                }
+            }
+            writer.write(dataVar, new int[] { t, 0, 0 }, data);
+        }
+        writer.close();
+    }
+
+    /**
+     * Writes a UGRID dataset of triangles on a jittered lattice of nodes over
+     * the north-west European shelf, with the data on the faces
+     */
+    private static void writeUgrid(File file, int nx, int ny)
+            throws IOException, InvalidRangeException {
+        int nNodes = nx * ny;
+        int nFaces = 2 * (nx - 1) * (ny - 1);
+
+        NetcdfFileWriter writer = create(file);
+        Dimension timeDim = writer.addDimension("time", N_TIMES);
+        Dimension nodeDim = writer.addDimension("nMesh_node", nNodes);
+        Dimension faceDim = writer.addDimension("nMesh_face", nFaces);
+        Dimension threeDim = writer.addDimension("three", 3);
+        Variable timeVar = addTime(writer, timeDim);
+
+        Variable meshVar = writer.addVariable("mesh", DataType.INT, new ArrayList<Dimension>());
+        meshVar.addAttribute(new Attribute("cf_role", "mesh_topology"));
+        meshVar.addAttribute(new Attribute("topology_dimension", 2));
+        meshVar.addAttribute(new Attribute("node_coordinates", "mesh_node_x mesh_node_y"));
+        meshVar.addAttribute(new Attribute("face_node_connectivity", "mesh_face_nodes"));
+        meshVar.addAttribute(new Attribute("face_coordinates", "mesh_face_x mesh_face_y"));
+
+        Variable nodeXVar = addMeshCoordinate(writer, "mesh_node_x", true, nodeDim);
+        Variable nodeYVar = addMeshCoordinate(writer, "mesh_node_y", false, nodeDim);
+        Variable faceXVar = addMeshCoordinate(writer, "mesh_face_x", true, faceDim);
+        Variable faceYVar = addMeshCoordinate(writer, "mesh_face_y", false, faceDim);
+
+        Variable faceNodesVar = writer.addVariable("mesh_face_nodes", DataType.INT,
+                Arrays.asList(faceDim, threeDim));
+        faceNodesVar.addAttribute(new Attribute("cf_role", "face_node_connectivity"));
+        faceNodesVar.addAttribute(new Attribute("start_index", 0));
+
+        Variable dataVar = addData(writer, timeDim, faceDim);
+        dataVar.addAttribute(new Attribute("mesh", "mesh"));
+        dataVar.addAttribute(new Attribute("location", "face"));
+        dataVar.addAttribute(new Attribute("coordinates", "mesh_face_x mesh_face_y"));
+        writer.create();
+
+        writeTime(writer, timeVar);
+
+        /*
+         * Nodes are jittered by up to a quarter of the lattice spacing, which
+         * keeps the triangles valid
+         */
+        Random random = new Random(42L);
+        double dx = 30.0 / (nx - 1);
+        double dy = 20.0 / (ny - 1);
+        ArrayFloat.D1 nodeX = new ArrayFloat.D1(nNodes);
+        ArrayFloat.D1 nodeY = new ArrayFloat.D1(nNodes);
+        for (int j = 0; j < ny; j++) {
+            for (int i = 0; i < nx; i++) {
+                int node = j * nx + i;
+                nodeX.set(node, (float) (-20 + i * dx + (random.nextDouble() - 0.5) * dx / 2));
+                nodeY.set(node, (float) (45 + j * dy + (random.nextDouble() - 0.5) * dy / 2));
+            }
+        }
+
+        /* Two triangles per lattice cell */
+        ArrayInt.D2 faceNodes = new ArrayInt.D2(nFaces, 3, false);
+        ArrayFloat.D1 faceX = new ArrayFloat.D1(nFaces);
+        ArrayFloat.D1 faceY = new ArrayFloat.D1(nFaces);
+        int face = 0;
+        for (int j = 0; j < ny - 1; j++) {
+            for (int i = 0; i < nx - 1; i++) {
+                int a = j * nx + i;
+                int b = a + 1;
+                int c = a + nx;
+                int d = c + 1;
+                for (int[] triangle : new int[][] { { a, b, d }, { a, d, c } }) {
+                    float x = 0;
+                    float y = 0;
+                    for (int k = 0; k < 3; k++) {
+                        faceNodes.set(face, k, triangle[k]);
+                        x += nodeX.get(triangle[k]) / 3;
+                        y += nodeY.get(triangle[k]) / 3;
+                    }
+                    faceX.set(face, x);
+                    faceY.set(face, y);
+                    face++;
+                }
+            }
+        }
+        writer.write(nodeXVar, nodeX);
+        writer.write(nodeYVar, nodeY);
+        writer.write(faceXVar, faceX);
+        writer.write(faceYVar, faceY);
+        writer.write(faceNodesVar, faceNodes);
+
+        ArrayFloat.D2 data = new ArrayFloat.D2(1, nFaces);
+        for (int t = 0; t < N_TIMES; t++) {
+            for (int f = 0; f < nFaces; f++) {
+                data.set(0, f, getValue(faceX.get(f), faceY.get(f), t));
+            }
+            writer.write(dataVar, new int[] { t, 0 }, data);
+        }
+        writer.close();
+    }
+
+    private static Variable addMeshCoordinate(NetcdfFileWriter writer, String name, boolean lon,
+            Dimension dim) {
+        Variable var = writer.addVariable(name, DataType.FLOAT, Arrays.asList(dim));
+        var.addAttribute(new Attribute("units", lon ? "degrees_east" : "degrees_north"));
+        var.addAttribute(new Attribute("standard_name", lon ? "longitude" : "latitude"));
+        return var;
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.benchmarks;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Creates the image grids which the benchmarks map data onto
+ */
+class TargetGrids {
+    /** The size of a typical WMS tile */
+    static final int TILE_SIZE = 256;
+
+    /** The CRS codes which the benchmarks target */
+    static final String CRS84 = "CRS:84";
+    static final String MERCATOR = "EPSG:3857";
+
+    /** The global bounding box */
+    static final GeographicBoundingBox GLOBAL = new DefaultGeographicBoundingBox(-180, 180, -90,
+            90);
+
+    /**
+     * Gets a grid in the given CRS which covers a geographic bounding box
+     * 
+     * @param bbox
+     *            The area to cover
+     * @param crsCode
+     *            The code of the CRS of the target grid. For EPSG:3857, this
+     *            is limited to 85 degrees north and south.
+     * @param width
+     *            The width of the target grid
+     * @param height
+     *            The height of the target grid
+     * @return The target grid
+     */
+    static RegularGrid getTargetGrid(GeographicBoundingBox bbox, String crsCode, int width,
+            int height) {
+        CoordinateReferenceSystem crs = GISUtils.getCrs(crsCode);
+        double maxLat = MERCATOR.equals(crsCode) ? 85 : 90;
+        HorizontalPosition lowerLeft = GISUtils.transformPosition(
+                new HorizontalPosition(bbox.getWestBoundLongitude(),
+                        Math.max(bbox.getSouthBoundLatitude(), -maxLat)),
+                crs);
+        HorizontalPosition upperRight = GISUtils.transformPosition(
+                new HorizontalPosition(bbox.getEastBoundLongitude(),
+                        Math.min(bbox.getNorthBoundLatitude(), maxLat)),
+                crs);
+        return new RegularGridImpl(new BoundingBoxImpl(lowerLeft.getX(), lowerLeft.getY(),
+                upperRight.getX(), upperRight.getY(), crs), width, height);
+    }
+}
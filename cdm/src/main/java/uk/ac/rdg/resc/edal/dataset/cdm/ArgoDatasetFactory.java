@@ -63,7 +63,7 @@ import uk.ac.rdg.resc.edal.dataset.DatasetFactory;
 import uk.ac.rdg.resc.edal.dataset.DiscreteFeatureReader;
 import uk.ac.rdg.resc.edal.dataset.FeatureIndexer;
 import uk.ac.rdg.resc.edal.dataset.FeatureIndexer.FeatureBounds;
-import uk.ac.rdg.resc.edal.dataset.PRTreeFeatureIndexer;
+import uk.ac.rdg.resc.edal.dataset.PackedFeatureIndexer;
 import uk.ac.rdg.resc.edal.dataset.PointDataset;
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.domain.SimpleHorizontalDomain;
@@ -219,6 +219,7 @@ public class ArgoDatasetFactory extends DatasetFactory {
          * write that.
          */
         File spatialIndexFile = new File(workingDir, id + ".index.ser");
+        File packedIndexFile = new File(workingDir, id + ".index.packed");
         boolean readExistingSpatialIndex = false;
         ObjectInputStream in = null;
         FileInputStream fileIn = null;
@@ -233,7 +234,10 @@ public class ArgoDatasetFactory extends DatasetFactory {
              * The horizontal domain
              * The vertical domain
              * The time domain
-             * The spatial indexer
+             * The map of IDs to files
+             *
+             * The spatial indexer itself is in a separate file, which is
+             * memory-mapped rather than read onto the heap.
              */
             try {
                 fileIn = new FileInputStream(spatialIndexFile);
@@ -268,7 +272,7 @@ public class ArgoDatasetFactory extends DatasetFactory {
         /*
          * The spatial indexer to use
          */
-        FeatureIndexer indexer = null;
+        PackedFeatureIndexer indexer = null;
 
         if (readExistingSpatialIndex) {
             try {
@@ -276,7 +280,7 @@ public class ArgoDatasetFactory extends DatasetFactory {
                 zDomain = (SimpleVerticalDomain) in.readObject();
                 tDomain = (SimpleTemporalDomain) in.readObject();
                 id2File = (HashMap<Integer, File>) in.readObject();
-                indexer = (PRTreeFeatureIndexer) in.readObject();
+                indexer = PackedFeatureIndexer.open(packedIndexFile);
 
                 log.debug("Successfully read spatial index from file");
             } catch (ClassNotFoundException | IOException | ClassCastException e) {
@@ -309,13 +313,16 @@ public class ArgoDatasetFactory extends DatasetFactory {
                  */
                 spatialIndexFile.delete();
             }
+            if (packedIndexFile.exists()) {
+                packedIndexFile.delete();
+            }
 
             /*
              * Now loop through all files, read the profile domains and IDs and
              * create the spatial index.
              */
-            indexer = new PRTreeFeatureIndexer();
-            List<PRTreeFeatureIndexer.FeatureBounds> featureBounds = new ArrayList<>();
+            indexer = new PackedFeatureIndexer();
+            List<FeatureBounds> featureBounds = new ArrayList<>();
             int totalProfiles = 0;
 
             /*
@@ -527,9 +534,9 @@ public class ArgoDatasetFactory extends DatasetFactory {
                 out.writeObject(zDomain);
                 out.writeObject(tDomain);
                 out.writeObject(id2File);
-                out.writeObject(indexer);
                 out.close();
                 fileOut.close();
+                indexer.writeTo(packedIndexFile);
                 log.debug("Serialised spatial index to file");
             } catch (IOException e) {
                 log.warn("Unable to serialise spatial index to file", e);
@@ -622,10 +629,10 @@ public class ArgoDatasetFactory extends DatasetFactory {
 
         @Override
         public List<PointFeature> extractMapFeatures(Set<String> varIds, BoundingBox hExtent,
-                Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent, DateTime targetT)
-                throws DataReadingException {
+                Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent, DateTime targetT,
+                int width, int height) throws DataReadingException {
             List<PointFeature> mapFeatures = super.extractMapFeatures(varIds, hExtent, zExtent,
-                    targetZ, tExtent, targetT);
+                    targetZ, tExtent, targetT, width, height);
             /*
              * Ensure that we only include each unique profile once. The profile
              * ID is stored in the feature name.
@@ -733,7 +740,8 @@ public class ArgoDatasetFactory extends DatasetFactory {
                  */
                 nc = NetcdfDatasetAggregator
                         .getDataset(fileAndProfileNumber.file.getAbsolutePath());
-                profileFeature = doRead(id, nc, fileAndProfileNumber.profileNumber, variableIds);
+                profileFeature = doRead(id, nc, fileAndProfileNumber.profileNumber, variableIds,
+                        false, null);
             } catch (IOException e) {
                 log.debug("readFeature throwing exception");
                 throw new DataReadingException("Problem reading profile data", e);
@@ -760,6 +768,21 @@ public class ArgoDatasetFactory extends DatasetFactory {
         @Override
         public List<ProfileFeature> readFeatures(Collection<String> ids, Set<String> variableIds)
                 throws DataReadingException {
+            return readFeatures(ids, variableIds, false, null);
+        }
+
+        /**
+         * Reads only the level of each profile which will be drawn on a map,
+         * rather than every level of every variable
+         */
+        @Override
+        public List<ProfileFeature> readFeaturesAtLevel(Collection<String> ids,
+                Set<String> variableIds, Double targetZ) throws DataReadingException {
+            return readFeatures(ids, variableIds, true, targetZ);
+        }
+
+        private List<ProfileFeature> readFeatures(Collection<String> ids, Set<String> variableIds,
+                boolean singleLevel, Double targetZ) throws DataReadingException {
             log.debug("IN readFeatures Reading multiple features");
             List<ProfileFeature> ret = new ArrayList<ProfileFeature>();
             if (variableIds == null) {
@@ -802,7 +825,7 @@ public class ArgoDatasetFactory extends DatasetFactory {
                             + file.getAbsolutePath());
                     for (FeatureAndProfileId featureProfileId : featureProfileIds) {
                         ProfileFeature profileFeature = doRead(featureProfileId.featureId, nc,
-                                featureProfileId.profileId, variableIds);
+                                featureProfileId.profileId, variableIds, singleLevel, targetZ);
                         if (profileFeature != null) {
                             ret.add(profileFeature);
                         }
@@ -832,14 +855,21 @@ public class ArgoDatasetFactory extends DatasetFactory {
          * @param variableIds
          *            The variables to read from the file - may not be
          *            <code>null</code>
-         * @return The desired {@link ProfileFeature}
+         * @param singleLevel
+         *            Whether to read only the level given by
+         *            {@link PointDataset#getProfileLevelIndex(uk.ac.rdg.resc.edal.grid.VerticalAxis, Double)}
+         * @param targetZ
+         *            The target depth, if only reading a single level
+         * @return The desired {@link ProfileFeature}, or <code>null</code> if
+         *         it cannot be read or has no data at the desired level
          * @throws IOException
          *             If there is a problem reading data from the
          *             {@link NetcdfDataset}
          * @throws InvalidRangeException
          */
         private synchronized ProfileFeature doRead(String id, NetcdfDataset nc, int profNum,
-                Set<String> variableIds) throws IOException, InvalidRangeException {
+                Set<String> variableIds, boolean singleLevel, Double targetZ)
+                throws IOException, InvalidRangeException {
             /*
              * This method is synchronized because Variable objects can be
              * shared between instances which leads to Bad Things
@@ -963,6 +993,24 @@ public class ArgoDatasetFactory extends DatasetFactory {
              */
             int trueNumLevels = zValues.size();
 
+            List<Range> dataRanges = allDepthsOnePlatform;
+            if (singleLevel) {
+                /*
+                 * Only the level which will be plotted is needed, so only read
+                 * that from each variable
+                 */
+                int zIndex = PointDataset.getProfileLevelIndex(domain, targetZ);
+                if (zIndex < 0) {
+                    return null;
+                }
+                domain = new VerticalAxisImpl("Depth axis of profile",
+                        Collections.singletonList(zValues.get(zIndex)), VERTICAL_CRS);
+                trueNumLevels = 1;
+                dataRanges = new ArrayList<Range>();
+                dataRanges.add(profileNumRange);
+                dataRanges.add(new Range(zIndex, zIndex));
+            }
+
             Map<String, Array1D<Number>> values = new HashMap<String, Array1D<Number>>();
             /*
              * Read all of the actual data
@@ -970,7 +1018,7 @@ public class ArgoDatasetFactory extends DatasetFactory {
             Map<String, Parameter> parameters = new HashMap<String, Parameter>();
 
             for (String varId : variableIds) {
-                Array varArray = nc.findVariable(varId).read(allDepthsOnePlatform);
+                Array varArray = nc.findVariable(varId).read(dataRanges);
 
                 Array1D<Number> varValues = new ValuesArray1D(trueNumLevels);
                 for (int i = 0; i < trueNumLevels; i++) {
@@ -48,6 +48,8 @@ import ucar.nc2.dt.GridDataset;
 import ucar.nc2.dt.GridDatatype;
 import uk.ac.rdg.resc.edal.dataset.GridDataSource;
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
 import uk.ac.rdg.resc.edal.util.Array4D;
 import uk.ac.rdg.resc.edal.util.cdm.CdmUtils;
 
@@ -147,6 +149,21 @@ final class CdmGridDataSource implements GridDataSource {
     @Override
     public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax, int ymin, int ymax, int xmin,
             int xmax) throws IOException, DataReadingException {
+        return read(variableId, tmin, tmax, zmin, zmax, ymin, ymax, 1, xmin, xmax, 1);
+    }
+
+    /**
+     * Reads strided data directly, using {@link ucar.ma2.Range}s with a stride, so that
+     * the points between the requested ones are never read into memory.
+     */
+    @Override
+    public Array4D<Number> readStrided(String variableId, int tIndex, int zIndex, int ymin, int ymax, int ystride,
+            int xmin, int xmax, int xstride) throws IOException, DataReadingException {
+        return read(variableId, tIndex, tIndex, zIndex, zIndex, ymin, ymax, ystride, xmin, xmax, xstride);
+    }
+
+    private Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax, int ymin, int ymax,
+            int ystride, int xmin, int xmax, int xstride) throws IOException, DataReadingException {
         /*
          * Get hold of the variable from which we want to read data
          */
@@ -196,8 +213,8 @@ final class CdmGridDataSource implements GridDataSource {
          */
         int tSize = tmax - tmin + 1;
         int zSize = zmax - zmin + 1;
-        int ySize = ymax - ymin + 1;
-        int xSize = xmax - xmin + 1;
+        int ySize = (ymax - ymin) / ystride + 1;
+        int xSize = (xmax - xmin) / xstride + 1;
 
         /*
          * Note that this could be increased by forcing a garbage collection.
@@ -220,8 +237,8 @@ final class CdmGridDataSource implements GridDataSource {
          */
         rangesList.setTRange(tmin, tmax);
         rangesList.setZRange(zmin, zmax);
-        rangesList.setYRange(ymin, ymax);
-        rangesList.setXRange(xmin, xmax);
+        rangesList.setYRange(ymin, ymax, ystride);
+        rangesList.setXRange(xmin, xmax, xstride);
 
         /*
          * If we have no t or z data, or we definitely have enough memory, read all data
@@ -234,13 +251,16 @@ final class CdmGridDataSource implements GridDataSource {
                 /*
                  * See definition of syncObj for explanation of synchronization
                  */
+                long lockStart = System.nanoTime();
                 synchronized (syncObj) {
+                    RequestMetrics.record(Stage.LOCK_WAIT, System.nanoTime() - lockStart);
                     /* We read from the enhanced variable */
                     arr = var.read(rangesList.getRanges());
                 }
+                RequestMetrics.addBytesRead(arr.getSizeBytes());
             } catch (InvalidRangeException ire) {
-                log.error("Problem reading data - invalid range:\n" + "x: " + xmin + " -> " + xmax + "y: " + ymin
-                        + " -> " + ymax + "z: " + zmin + " -> " + zmax + "t: " + tmin + " -> " + tmax);
+                log.error("Problem reading data - invalid range:\n" + "x: " + xmin + " -> " + xmax + ":" + xstride
+                        + "y: " + ymin + " -> " + ymax + ":" + ystride + "z: " + zmin + " -> " + zmax + "t: " + tmin + " -> " + tmax);
                 throw new DataReadingException("Cannot read data - invalid range specified", ire);
             } catch (ArrayIndexOutOfBoundsException e) {
                 log.error(this + " caused out of bounds");
@@ -30,10 +30,13 @@ package uk.ac.rdg.resc.edal.dataset.cdm;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import ucar.ma2.Array;
+import ucar.ma2.DataType;
 import ucar.ma2.Index;
 import ucar.ma2.InvalidRangeException;
 import ucar.ma2.Range;
@@ -42,6 +45,12 @@ import ucar.nc2.dataset.NetcdfDataset;
 import uk.ac.rdg.resc.edal.dataset.GridDataSource;
 import uk.ac.rdg.resc.edal.dataset.HZTDataSource;
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.DoubleArray1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
+import uk.ac.rdg.resc.edal.util.ValuesArray1D;
 
 /**
  * Implementation of {@link GridDataSource} using the Unidata Common Data Model
@@ -52,31 +61,32 @@ import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
  */
 final class CdmMeshDataSource implements HZTDataSource {
     /*
-     * This is used to synchronize the actual reading. This is necessary because
-     * we have the following model:
-     * 
+     * If the span of the requested horizontal indices is no more than this
+     * many times the number of distinct indices, they are read as a single
+     * contiguous range. Otherwise they are read as a set of separate runs.
+     */
+    private static final int DENSITY_FACTOR = 4;
+    /*
+     * When reading separate runs, runs which are separated by no more than
+     * this many unwanted indices are merged into a single read.
+     */
+    private static final int MAX_GAP = 64;
+
+    /*
      * There is a single NetcdfDataset object per dataset, which gets cached,
      * and closed when the cache becomes full. This is because the overhead of
      * creating a NetcdfDataset is high.
      * 
      * Each time CfHorizontalMesh4dDataset.openGridDataSource() is called, a
-     * *new* CdmMeshDataSource is created. We can't keep the individual
-     * CdmMeshDataSource objects in memory because it's not predictable as to
-     * when the underlying NetcdfDataset will be closed. The overhead of
-     * creating a new CdmMeshDataSource is very low compared to the creation of
-     * a NetcdfDataset.
-     * 
-     * When read() is called on separate instances of CdmMeshDataSource which
-     * refer to the same location, something happens which causes the array
+     * *new* CdmMeshDataSource is created, but separate instances which refer
+     * to the same location share the same NetcdfDataset. Reads on a
+     * NetcdfDataset are not thread-safe (concurrent reads cause the array
      * indices to be set incorrectly, and we get an
-     * ArrayIndexOutOfBoundsException. We can't synchronize on a non-static
-     * object, because these are all separate instances.
-     * 
-     * This could also have been solved by removing NetcdfDataset caching. I
-     * think that this would have a bigger effect on the speed, although that
-     * may depend on the use case.
+     * ArrayIndexOutOfBoundsException), so the actual reads are synchronized
+     * on the NetcdfDataset itself. This means that reads from different
+     * datasets can proceed concurrently, and only the I/O is done whilst
+     * holding the lock.
      */
-    private static Object syncObj = new Object();
     private NetcdfDataset nc;
     private Map<String, int[]> varId2hztIndices;
 
@@ -88,127 +98,222 @@ final class CdmMeshDataSource implements HZTDataSource {
     @Override
     public List<Number> read(String variableId, List<MeshCoordinates3D> coordsToRead)
             throws DataReadingException {
+        int size = coordsToRead.size();
+        int[] hs = new int[size];
+        int[] zs = new int[size];
+        int[] ts = new int[size];
+        for (int i = 0; i < size; i++) {
+            MeshCoordinates3D coords = coordsToRead.get(i);
+            hs[i] = coords.h;
+            zs[i] = coords.z;
+            ts[i] = coords.t;
+        }
+        /*
+         * Values are returned with the type of the underlying data, and
+         * missing points as null
+         */
+        List<Number> ret = new ArrayList<>(Collections.nCopies(size, (Number) null));
+        readValues(variableId, hs, zs, ts,
+                (i, array, index) -> ret.set(i, readNumber(array, index)));
+        return ret;
+    }
+
+    @Override
+    public Array1D<Number> read(String variableId, int[] hs, int[] zs, int[] ts)
+            throws DataReadingException {
+        /*
+         * Float and double data are stored in primitive arrays of the same
+         * type. Anything else keeps its own type.
+         */
+        DataType dataType;
+        synchronized (nc) {
+            Variable var = nc.findVariable(variableId);
+            if (var == null) {
+                throw new DataReadingException("Variable " + variableId + " not found");
+            }
+            dataType = var.getDataType();
+        }
+        if (dataType == DataType.FLOAT) {
+            FloatArray1D ret = new FloatArray1D(hs.length);
+            readValues(variableId, hs, zs, ts,
+                    (i, array, index) -> ret.setFloat(i, array.getFloat(index)));
+            return ret;
+        } else if (dataType == DataType.DOUBLE) {
+            DoubleArray1D ret = new DoubleArray1D(hs.length);
+            readValues(variableId, hs, zs, ts,
+                    (i, array, index) -> ret.setDouble(i, array.getDouble(index)));
+            return ret;
+        } else {
+            Array1D<Number> ret = new ValuesArray1D(hs.length);
+            readValues(variableId, hs, zs, ts,
+                    (i, array, index) -> ret.set(readNumber(array, index), i));
+            return ret;
+        }
+    }
+
+    /*
+     * Receives each value which is read by readValues()
+     */
+    private interface ValueReceiver {
+        void receive(int i, Array array, Index index);
+    }
+
+    /**
+     * Reads the values at a set of co-ordinates, passing each of them to the
+     * given {@link ValueReceiver}. Points which have a negative index or
+     * which are not numeric are not passed on.
+     */
+    private void readValues(String variableId, int[] hs, int[] zs, int[] ts,
+            ValueReceiver receiver) throws DataReadingException {
         int[] hztIndices = varId2hztIndices.get(variableId);
 
         /*
-         * First find the range of co-ordinates to read
+         * First find the range of z and t co-ordinates to read, and the
+         * distinct horizontal indices
          */
-        int minH = Integer.MAX_VALUE;
-        int maxH = -1;
         int minZ = Integer.MAX_VALUE;
         int maxZ = -1;
         int minT = Integer.MAX_VALUE;
         int maxT = -1;
-        boolean[] hztRangesSet = new boolean[] { false, false, false };
-        for (MeshCoordinates3D coords : coordsToRead) {
-            if (hztIndices[0] >= 0) {
-                if (coords.h < minH && coords.h >= 0) {
-                    minH = coords.h;
-                    hztRangesSet[0] = true;
-                }
-                if (coords.h > maxH) {
-                    maxH = coords.h;
-                    hztRangesSet[0] = true;
-                }
-            }
-            if (hztIndices[1] >= 0) {
-                if (coords.z < minZ && coords.z >= 0) {
-                    minZ = coords.z;
-                    hztRangesSet[1] = true;
-                }
-                if (coords.z > maxZ) {
-                    maxZ = coords.z;
-                    hztRangesSet[1] = true;
-                }
+        int[] uniqueHs = new int[hs.length];
+        int nValid = 0;
+        for (int i = 0; i < hs.length; i++) {
+            if (hs[i] < 0 || zs[i] < 0 || ts[i] < 0) {
+                continue;
             }
-            if (hztIndices[2] >= 0) {
-                if (coords.t < minT && coords.t >= 0) {
-                    minT = coords.t;
-                    hztRangesSet[2] = true;
-                }
-                if (coords.t > maxT) {
-                    maxT = coords.t;
-                    hztRangesSet[2] = true;
-                }
+            uniqueHs[nValid++] = hs[i];
+            minZ = Math.min(minZ, zs[i]);
+            maxZ = Math.max(maxZ, zs[i]);
+            minT = Math.min(minT, ts[i]);
+            maxT = Math.max(maxT, ts[i]);
+        }
+        if (nValid == 0) {
+            /*
+             * We don't have any data at all in this area.
+             */
+            return;
+        }
+        Arrays.sort(uniqueHs, 0, nValid);
+        int nUnique = 1;
+        for (int i = 1; i < nValid; i++) {
+            if (uniqueHs[i] != uniqueHs[nUnique - 1]) {
+                uniqueHs[nUnique++] = uniqueHs[i];
             }
         }
 
-        List<Number> ret = new ArrayList<>();
-        boolean rangeSet = (hztIndices[0] < 0 || hztRangesSet[0])
-                && (hztIndices[1] < 0 || hztRangesSet[1]) && (hztIndices[2] < 0 || hztRangesSet[2]);
-        if (!rangeSet) {
+        /*
+         * Now split the horizontal indices into runs which will each be read
+         * with a single call
+         */
+        int[] runStarts = new int[nUnique];
+        int[] runEnds = new int[nUnique];
+        int nRuns;
+        if (hztIndices[0] < 0 || (long) uniqueHs[nUnique - 1] - uniqueHs[0]
+                + 1 <= (long) nUnique * DENSITY_FACTOR) {
             /*
-             * If we have not set a valid range, then it means we don't have any
-             * data at all in this area. Fill the return list with nulls
+             * Dense enough (or no horizontal dimension) - do a contiguous read
              */
-            for (int i = 0; i < coordsToRead.size(); i++) {
-                ret.add(null);
-            }
+            runStarts[0] = uniqueHs[0];
+            runEnds[0] = uniqueHs[nUnique - 1];
+            nRuns = 1;
         } else {
             /*
-             * Find the dimensionality of this variable
+             * Sparse - gather the indices into runs, merging runs which are
+             * close together
              */
-            int numDims = 0;
-            for (int hztIndex : hztIndices) {
-                if (hztIndex >= 0) {
-                    numDims++;
+            runStarts[0] = uniqueHs[0];
+            runEnds[0] = uniqueHs[0];
+            nRuns = 1;
+            for (int i = 1; i < nUnique; i++) {
+                if (uniqueHs[i] - runEnds[nRuns - 1] - 1 <= MAX_GAP) {
+                    runEnds[nRuns - 1] = uniqueHs[i];
+                } else {
+                    runStarts[nRuns] = uniqueHs[i];
+                    runEnds[nRuns] = uniqueHs[i];
+                    nRuns++;
                 }
             }
+        }
+
+        /*
+         * Find the dimensionality of this variable
+         */
+        int numDims = 0;
+        for (int hztIndex : hztIndices) {
+            if (hztIndex >= 0) {
+                numDims++;
+            }
+        }
 
+        Array[] arrays = new Array[nRuns];
+        try {
             List<Range> ranges = new ArrayList<>();
             for (int i = 0; i < numDims; i++) {
                 ranges.add(null);
             }
+            if (hztIndices[1] >= 0) {
+                ranges.set(hztIndices[1], new Range(minZ, maxZ));
+            }
+            if (hztIndices[2] >= 0) {
+                ranges.set(hztIndices[2], new Range(minT, maxT));
+            }
 
-            try {
-                if (hztIndices[0] >= 0) {
-                    ranges.set(hztIndices[0], new Range(minH, maxH));
-                }
-
-                if (hztIndices[1] >= 0) {
-                    ranges.set(hztIndices[1], new Range(minZ, maxZ));
-                }
-
-                if (hztIndices[2] >= 0) {
-                    ranges.set(hztIndices[2], new Range(minT, maxT));
+            /*
+             * See comment above the fields for an explanation of the
+             * synchronization
+             */
+            long lockStart = System.nanoTime();
+            synchronized (nc) {
+                RequestMetrics.record(Stage.LOCK_WAIT, System.nanoTime() - lockStart);
+                Variable var = nc.findVariable(variableId);
+                for (int r = 0; r < nRuns; r++) {
+                    if (hztIndices[0] >= 0) {
+                        ranges.set(hztIndices[0], new Range(runStarts[r], runEnds[r]));
+                    }
+                    arrays[r] = var.read(ranges);
+                    RequestMetrics.addBytesRead(arrays[r].getSizeBytes());
                 }
+            }
+        } catch (IOException | InvalidRangeException e) {
+            throw new DataReadingException("Problem reading data from data source", e);
+        }
 
-                /*
-                 * See definition of syncObj for explanation of synchronization
-                 */
-                synchronized (syncObj) {
-                    Variable var = nc.findVariable(variableId);
-                    Array arr = var.read(ranges);
-
-                    for (MeshCoordinates3D coords : coordsToRead) {
-                        if (coords.h < 0 || coords.z < 0 || coords.t < 0) {
-                            ret.add(null);
-                            continue;
-                        }
-                        Index index = arr.getIndex();
-                        if (hztIndices[2] >= 0) {
-                            index.setDim(hztIndices[2], coords.t - minT);
-                        }
-                        if (hztIndices[1] >= 0) {
-                            index.setDim(hztIndices[1], coords.z - minZ);
-                        }
-                        if (hztIndices[0] >= 0) {
-                            try {
-                                index.setDim(hztIndices[0], coords.h - minH);
-                            } catch (ArrayIndexOutOfBoundsException e) {
-                                e.printStackTrace();
-                            }
-                        }
-
-                        ret.add(readNumber(arr, index));
-                    }
+        /*
+         * Extract the values from the read arrays, reusing a single Index per
+         * array
+         */
+        Index[] indices = new Index[nRuns];
+        for (int r = 0; r < nRuns; r++) {
+            if (arrays[r].getDataType().isNumeric()) {
+                indices[r] = arrays[r].getIndex();
+            }
+        }
+        for (int i = 0; i < hs.length; i++) {
+            if (hs[i] < 0 || zs[i] < 0 || ts[i] < 0) {
+                continue;
+            }
+            int r = 0;
+            if (nRuns > 1) {
+                r = Arrays.binarySearch(runStarts, 0, nRuns, hs[i]);
+                if (r < 0) {
+                    r = -r - 2;
                 }
-            } catch (ArrayIndexOutOfBoundsException | IOException | InvalidRangeException e) {
-                e.printStackTrace();
-                throw new DataReadingException("Problem reading data from data source", e);
             }
+            Index index = indices[r];
+            if (index == null) {
+                continue;
+            }
+            if (hztIndices[2] >= 0) {
+                index.setDim(hztIndices[2], ts[i] - minT);
+            }
+            if (hztIndices[1] >= 0) {
+                index.setDim(hztIndices[1], zs[i] - minZ);
+            }
+            if (hztIndices[0] >= 0) {
+                index.setDim(hztIndices[0], hs[i] - runStarts[r]);
+            }
+            receiver.receive(i, arrays[r], index);
         }
-        return ret;
     }
 
     private Number readNumber(Array arr, Index index) {
@@ -173,6 +173,10 @@ final class RangesList {
         setRange(xAxisIndex, xmin, xmax);
     }
 
+    public void setXRange(int xmin, int xmax, int xstride) {
+        setRange(xAxisIndex, xmin, xmax, xstride);
+    }
+
     public Range getXRange() {
         return getRange(xAxisIndex);
     }
@@ -181,6 +185,10 @@ final class RangesList {
         setRange(yAxisIndex, ymin, ymax);
     }
 
+    public void setYRange(int ymin, int ymax, int ystride) {
+        setRange(yAxisIndex, ymin, ymax, ystride);
+    }
+
     public Range getYRange() {
         return getRange(yAxisIndex);
     }
@@ -202,9 +210,13 @@ final class RangesList {
     }
 
     private void setRange(int index, int min, int max) {
+        setRange(index, min, max, 1);
+    }
+
+    private void setRange(int index, int min, int max, int stride) {
         if (index >= 0 && min >= 0 && max >= 0) {
             try {
-                ranges.set(index, new Range(min, max));
+                ranges.set(index, new Range(min, max, stride));
             } catch (InvalidRangeException ire) {
                 /*
                  * This is a programming error, so is wrapped as a runtime
@@ -59,7 +59,7 @@ import uk.ac.rdg.resc.edal.dataset.DatasetFactory;
 import uk.ac.rdg.resc.edal.dataset.DiscreteFeatureReader;
 import uk.ac.rdg.resc.edal.dataset.FeatureIndexer;
 import uk.ac.rdg.resc.edal.dataset.FeatureIndexer.FeatureBounds;
-import uk.ac.rdg.resc.edal.dataset.PRTreeFeatureIndexer;
+import uk.ac.rdg.resc.edal.dataset.PackedFeatureIndexer;
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.domain.HorizontalDomain;
 import uk.ac.rdg.resc.edal.domain.SimpleHorizontalDomain;
@@ -197,7 +197,7 @@ public class WaterMLDatasetFactory extends DatasetFactory {
                         .getIntersectionOfTemporalDomains(tDomains.get(p).toArray(
                                 new TemporalDomain[0]))));
             }
-            FeatureIndexer featureIndexer = new PRTreeFeatureIndexer();
+            FeatureIndexer featureIndexer = new PackedFeatureIndexer();
             List<FeatureBounds> featureBounds = new ArrayList<>();
             for (PointSeriesFeature feature : features) {
                 featureBounds.add(FeatureBounds.fromPointSeriesFeature(feature));
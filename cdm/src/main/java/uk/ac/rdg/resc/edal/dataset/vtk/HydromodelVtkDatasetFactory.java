@@ -68,7 +68,6 @@ import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
 import uk.ac.rdg.resc.edal.grid.HorizontalMesh;
 import uk.ac.rdg.resc.edal.grid.ReferenceableAxisImpl;
 import uk.ac.rdg.resc.edal.grid.TimeAxis;
-import uk.ac.rdg.resc.edal.grid.TimeAxisImpl;
 import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
 import uk.ac.rdg.resc.edal.grid.cdm.CdmTransformedGrid;
 import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
@@ -77,6 +76,7 @@ import uk.ac.rdg.resc.edal.metadata.Parameter;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
 import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.TimeAxes;
 import uk.ac.rdg.resc.edal.util.cdm.CdmUtils;
 
 public class HydromodelVtkDatasetFactory extends DatasetFactory {
@@ -254,7 +254,7 @@ public class HydromodelVtkDatasetFactory extends DatasetFactory {
                             fileData.varSuffix, fillValues);
                 });
 
-        TimeAxis tAxis = new TimeAxisImpl("time", tVals);
+        TimeAxis tAxis = TimeAxes.newTimeAxis("time", tVals);
 
         if (isGrid) {
             /*
@@ -29,128 +29,61 @@
 package uk.ac.rdg.resc.edal.dataset.vtk;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.zip.DataFormatException;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamConstants;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import net.sf.ehcache.Cache;
-import net.sf.ehcache.Element;
-import net.sf.ehcache.config.CacheConfiguration;
-import net.sf.ehcache.config.PersistenceConfiguration;
-import net.sf.ehcache.config.CacheConfiguration.TransactionalMode;
-import net.sf.ehcache.config.PersistenceConfiguration.Strategy;
-import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
-import uk.ac.rdg.resc.edal.cache.EdalCache;
+import uk.ac.rdg.resc.edal.cache.WeighedCache;
 import uk.ac.rdg.resc.edal.dataset.DataSource;
 import uk.ac.rdg.resc.edal.dataset.vtk.HydromodelVtkDatasetFactory.TimestepInfo;
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
 
 public class OnDemandVtkDataSource implements DataSource {
     private static Logger log = LoggerFactory.getLogger(OnDemandVtkDataSource.class);
-    private XMLInputFactory xmlif;
-    
+
     public OnDemandVtkDataSource() {
-        xmlif = XMLInputFactory.newInstance();
     }
-    
-    protected Number[] getData1D(TimestepInfo timestepInfo, String variableId) throws FileNotFoundException, IOException {
+
+    protected VtkArray getData1D(TimestepInfo timestepInfo, String variableId)
+            throws DataReadingException {
         /*
-         * Get 1D data from cache if it is present
+         * Get 1D data from cache if it is present, otherwise read it straight
+         * from the file.
          */
-        Number[] data1d;
-        DataCacheKey key = new DataCacheKey(timestepInfo.file, variableId);
-        if (vtkGridDatasetCache.isKeyInCache(key)) {
-            log.debug("Getting timestep data from cache");
-            data1d = (Number[]) vtkGridDatasetCache.get(key).getObjectValue();
-        } else {
+        DataCacheKey key = new DataCacheKey(new FileKey(timestepInfo.file), variableId);
+        return vtkDataCache.get(key, () -> {
             log.debug("Data not in cache, reading from VTK file: "
                     + timestepInfo.file.getAbsolutePath());
-            try (FileInputStream fis = new FileInputStream(timestepInfo.file)) {
-                XMLStreamReader xmlr = xmlif.createXMLStreamReader(fis);
-
-                String dataStr = null;
-                String dataType = null;
-                String dataFormat = null;
-                /*
-                 * Go through the XML as a stream
-                 */
-                while (xmlr.hasNext()) {
-                    int elType = xmlr.next();
-                    if (elType == XMLStreamConstants.START_ELEMENT) {
-                        /*
-                         * We have a start element
-                         */
-                        String elementType = xmlr.getLocalName();
-                        if (elementType.equalsIgnoreCase("DataArray")) {
-                            /*
-                             * We have a <DataArray>
-                             */
-                            String varName = null;
-                            /*
-                             * Fetch the values for Name, type and
-                             * format attributes if they are present
-                             */
-                            for (int i = 0; i < xmlr.getAttributeCount(); i++) {
-                                if (xmlr.getAttributeLocalName(i)
-                                        .equalsIgnoreCase("Name")) {
-                                    varName = xmlr.getAttributeValue(i);
-                                } else if (xmlr.getAttributeLocalName(i)
-                                        .equalsIgnoreCase("type")) {
-                                    dataType = xmlr.getAttributeValue(i);
-                                } else if (xmlr.getAttributeLocalName(i)
-                                        .equalsIgnoreCase("format")) {
-                                    dataFormat = xmlr.getAttributeValue(i);
-                                }
-                            }
-
-                            if (varName != null && dataType != null && dataFormat != null) {
-                                /*
-                                 * We have all of the required
-                                 * information for a variable.
-                                 * 
-                                 * Check that it's the one we're after
-                                 */
-                                if (varName.startsWith(variableId)) {
-                                    /*
-                                     * We have <DataArray
-                                     * Name="VARID...">
-                                     */
-                                    dataStr = xmlr.getElementText();
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                /*
-                 * Finished parsing file
-                 */
-
-                if (dataStr != null) {
-                    data1d = VtkUtils.parseDataString(dataStr, dataFormat, dataType,
-                            timestepInfo.fillValues);
-                    vtkGridDatasetCache.put(new Element(key, data1d));
-                } else {
+            try {
+                VtkArray data1d = getFileIndex(timestepInfo.file).readArray(variableId,
+                        timestepInfo.fillValues);
+                if (data1d == null) {
                     throw new DataReadingException("No data for variable " + variableId
                             + " found in file: " + timestepInfo.file);
                 }
-
-            } catch (XMLStreamException | DataFormatException e) {
+                return data1d;
+            } catch (IOException | DataFormatException e) {
                 throw new DataReadingException("Problem reading data", e);
             }
-        }
-        return data1d;
+        });
     }
-    
+
+    private static VtkFileIndex getFileIndex(File file) {
+        /*
+         * The index is cheap to keep, and means we only need to scan each file
+         * once to find where its arrays are.
+         */
+        return fileIndexCache.get(new FileKey(file), () -> {
+            try {
+                return VtkFileIndex.read(file);
+            } catch (IOException | DataFormatException e) {
+                throw new DataReadingException("Problem indexing VTK file: " + file, e);
+            }
+        });
+    }
+
     @Override
     public void close() throws DataReadingException {
         /*
@@ -158,41 +91,81 @@ public class OnDemandVtkDataSource implements DataSource {
          * resources when read() is called.
          */
     }
-    
+
     /*
-     * Cache management - maximum 50 cached data arrays
+     * Cache management. Data arrays are bounded by the memory they use, and
+     * file indices by number.
      */
     private static final String CACHE_NAME = "vtkDataCache";
-    private static final int MAX_HEAP_ENTRIES = 50;
-    private static final MemoryStoreEvictionPolicy EVICTION_POLICY = MemoryStoreEvictionPolicy.LFU;
-    private static final Strategy PERSISTENCE_STRATEGY = Strategy.NONE;
-    private static final TransactionalMode TRANSACTIONAL_MODE = TransactionalMode.OFF;
-    private static Cache vtkGridDatasetCache = null;
-
-    static {
-        if (EdalCache.cacheManager.cacheExists(CACHE_NAME) == false) {
-            /*
-             * Configure cache
-             */
-            log.debug(
-                    "Creating vtkDataCache, with maximum " + MAX_HEAP_ENTRIES + " entries");
-            CacheConfiguration config = new CacheConfiguration(CACHE_NAME, MAX_HEAP_ENTRIES)
-                    .eternal(true).memoryStoreEvictionPolicy(EVICTION_POLICY)
-                    .persistence(new PersistenceConfiguration().strategy(PERSISTENCE_STRATEGY))
-                    .transactionalMode(TRANSACTIONAL_MODE);
-            vtkGridDatasetCache = new Cache(config);
-            EdalCache.cacheManager.addCache(vtkGridDatasetCache);
-        } else {
-            log.debug("Loading existing vtkGridDatasetCache");
-            vtkGridDatasetCache = EdalCache.cacheManager.getCache(CACHE_NAME);
+    private static final long MAX_CACHE_BYTES = 512L * 1024L * 1024L;
+    private static final String INDEX_CACHE_NAME = "vtkFileIndexCache";
+    private static final long MAX_INDEX_ENTRIES = 10000L;
+    private static final WeighedCache<DataCacheKey, VtkArray> vtkDataCache = new WeighedCache<>(
+            CACHE_NAME, MAX_CACHE_BYTES, 0L, VtkArray::getSizeBytes);
+    private static final WeighedCache<FileKey, VtkFileIndex> fileIndexCache = new WeighedCache<>(
+            INDEX_CACHE_NAME, MAX_INDEX_ENTRIES, 0L, index -> 1L);
+
+    /**
+     * @return The cache of data arrays read from VTK files. This can be used
+     *         to obtain cache statistics or to change its size.
+     */
+    public static WeighedCache<?, ?> getDataCache() {
+        return vtkDataCache;
+    }
+
+    /**
+     * Identifies a particular version of a file, so that cached indices and
+     * data are not used once the file has been rewritten.
+     */
+    private static class FileKey {
+        private File file;
+        private long lastModified;
+        private long length;
+
+        public FileKey(File file) {
+            super();
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((file == null) ? 0 : file.hashCode());
+            result = prime * result + (int) (lastModified ^ (lastModified >>> 32));
+            result = prime * result + (int) (length ^ (length >>> 32));
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            FileKey other = (FileKey) obj;
+            if (file == null) {
+                if (other.file != null)
+                    return false;
+            } else if (!file.equals(other.file))
+                return false;
+            if (lastModified != other.lastModified)
+                return false;
+            if (length != other.length)
+                return false;
+            return true;
         }
     }
 
     private static class DataCacheKey {
-        private File file;
+        private FileKey file;
         private String varId;
 
-        public DataCacheKey(File file, String varId) {
+        public DataCacheKey(FileKey file, String varId) {
             super();
             this.file = file;
             this.varId = varId;
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset.vtk;
+
+/**
+ * A 1D array of values read from a VTK &lt;DataArray&gt;, stored in a
+ * primitive array. Fill values and missing data are stored as NaN and returned
+ * as <code>null</code>.
+ */
+public final class VtkArray {
+    private final float[] floatValues;
+    private final double[] doubleValues;
+
+    /**
+     * Creates a {@link VtkArray} backed by single-precision values
+     */
+    public VtkArray(float[] values) {
+        this.floatValues = values;
+        this.doubleValues = null;
+    }
+
+    /**
+     * Creates a {@link VtkArray} backed by double-precision values
+     */
+    public VtkArray(double[] values) {
+        this.floatValues = null;
+        this.doubleValues = values;
+    }
+
+    /**
+     * @param index
+     *            The index of the value to get
+     * @return The value at the given index, or <code>null</code> if it is
+     *         missing
+     */
+    public Number get(int index) {
+        if (floatValues != null) {
+            float value = floatValues[index];
+            return Float.isNaN(value) ? null : value;
+        } else {
+            double value = doubleValues[index];
+            return Double.isNaN(value) ? null : value;
+        }
+    }
+
+    /**
+     * @return The number of values in this array
+     */
+    public int size() {
+        return floatValues != null ? floatValues.length : doubleValues.length;
+    }
+
+    /**
+     * @return The approximate number of bytes of memory used by this array
+     */
+    public long getSizeBytes() {
+        return floatValues != null ? 4L * floatValues.length : 8L * doubleValues.length;
+    }
+}
@@ -0,0 +1,555 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset.vtk;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An index of the &lt;DataArray&gt; elements in a VTK XML file, recording
+ * where in the file the data for each array is stored. This is created by a
+ * single pass over the bytes of the file without building an XML tree, after
+ * which the data for any array can be read directly into a primitive
+ * {@link VtkArray}.
+ * 
+ * Supports "ascii" and "binary" (base64) inline data, as well as "appended"
+ * data with raw encoding, which is memory-mapped. Binary data may optionally
+ * be compressed with zlib. The "header_type" and "byte_order" attributes of
+ * the &lt;VTKFile&gt; element are respected.
+ * 
+ * Supported data types are "Float32", "Float64", "Int32" and "Int64". Integer
+ * arrays are stored at double precision so that they are represented exactly.
+ */
+public final class VtkFileIndex {
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern
+            .compile("([\\w:]+)\\s*=\\s*[\"']([^\"']*)[\"']");
+    private static final String ZLIB_COMPRESSOR = "vtkZLibDataCompressor";
+
+    /**
+     * The location of a single &lt;DataArray&gt; in the file
+     */
+    private static final class ArrayInfo {
+        private final String name;
+        private final String type;
+        private final String format;
+        /* The offset into the appended data, for appended arrays */
+        private final long offset;
+        /* The byte range of the element content, for inline arrays */
+        private final long contentStart;
+        private long contentEnd = -1;
+
+        private ArrayInfo(Map<String, String> attributes, long contentStart) {
+            this.name = attributes.get("name");
+            this.type = attributes.get("type");
+            this.format = attributes.get("format");
+            String offsetStr = attributes.get("offset");
+            this.offset = offsetStr == null ? -1 : Long.parseLong(offsetStr.trim());
+            this.contentStart = contentStart;
+        }
+    }
+
+    private final File file;
+    private final List<ArrayInfo> arrays;
+    private final ByteOrder byteOrder;
+    private final boolean uint64Header;
+    private final boolean compressed;
+    /* The position of the first byte of raw appended data, or -1 */
+    private final long appendedDataStart;
+
+    private VtkFileIndex(File file, List<ArrayInfo> arrays, ByteOrder byteOrder,
+            boolean uint64Header, boolean compressed, long appendedDataStart) {
+        this.file = file;
+        this.arrays = arrays;
+        this.byteOrder = byteOrder;
+        this.uint64Header = uint64Header;
+        this.compressed = compressed;
+        this.appendedDataStart = appendedDataStart;
+    }
+
+    /**
+     * Indexes a VTK XML file
+     * 
+     * @param file
+     *            The file to index
+     * @return A {@link VtkFileIndex} describing where each array is stored
+     * @throws IOException
+     *             If there is a problem reading the file
+     * @throws DataFormatException
+     *             If the file uses an unsupported encoding
+     */
+    public static VtkFileIndex read(File file) throws IOException, DataFormatException {
+        List<ArrayInfo> arrays = new ArrayList<>();
+        ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
+        boolean uint64Header = false;
+        boolean compressed = false;
+        long appendedDataStart = -1;
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            long pos = 0;
+            ArrayInfo currentArray = null;
+            StringBuilder tag = new StringBuilder();
+            int b;
+            while ((b = in.read()) >= 0) {
+                pos++;
+                if (b != '<') {
+                    continue;
+                }
+                long tagStart = pos - 1;
+                tag.setLength(0);
+                while ((b = in.read()) >= 0) {
+                    pos++;
+                    if (b == '>') {
+                        break;
+                    }
+                    tag.append((char) b);
+                }
+                if (tag.length() == 0 || tag.charAt(0) == '?' || tag.charAt(0) == '!') {
+                    continue;
+                }
+                if (tag.charAt(0) == '/') {
+                    /*
+                     * An end tag. If it closes a <DataArray>, we now know
+                     * where its content ends.
+                     */
+                    if (currentArray != null) {
+                        currentArray.contentEnd = tagStart;
+                        currentArray = null;
+                    }
+                    continue;
+                }
+
+                String tagName = tag.toString().split("[\\s/]", 2)[0];
+                boolean selfClosing = tag.charAt(tag.length() - 1) == '/';
+                Map<String, String> attributes = parseAttributes(tag);
+                if (tagName.equalsIgnoreCase("VTKFile")) {
+                    if ("BigEndian".equalsIgnoreCase(attributes.get("byte_order"))) {
+                        byteOrder = ByteOrder.BIG_ENDIAN;
+                    }
+                    uint64Header = "UInt64".equalsIgnoreCase(attributes.get("header_type"));
+                    String compressor = attributes.get("compressor");
+                    if (compressor != null && !compressor.isEmpty()) {
+                        if (!ZLIB_COMPRESSOR.equals(compressor)) {
+                            throw new DataFormatException(
+                                    "Unsupported VTK compressor: " + compressor);
+                        }
+                        compressed = true;
+                    }
+                } else if (tagName.equalsIgnoreCase("DataArray")) {
+                    ArrayInfo array = new ArrayInfo(attributes, pos);
+                    arrays.add(array);
+                    if (!selfClosing) {
+                        currentArray = array;
+                    }
+                } else if (tagName.equalsIgnoreCase("AppendedData")) {
+                    String encoding = attributes.get("encoding");
+                    if (encoding != null && !encoding.equalsIgnoreCase("raw")) {
+                        throw new DataFormatException(
+                                "Only raw encoding is supported for appended VTK data");
+                    }
+                    /*
+                     * The data starts immediately after the underscore. We
+                     * don't need to read any further.
+                     */
+                    while ((b = in.read()) >= 0) {
+                        pos++;
+                        if (b == '_') {
+                            appendedDataStart = pos;
+                            break;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return new VtkFileIndex(file, arrays, byteOrder, uint64Header, compressed,
+                appendedDataStart);
+    }
+
+    /**
+     * Reads the first &lt;DataArray&gt; whose name starts with the given
+     * prefix
+     * 
+     * @param namePrefix
+     *            The prefix of the array name
+     * @param fillValues
+     *            Values which should be treated as missing data
+     * @return The array, or <code>null</code> if no matching array exists
+     * @throws IOException
+     *             If there is a problem reading the file
+     * @throws DataFormatException
+     *             If the array data is not in a supported format
+     */
+    public VtkArray readArray(String namePrefix, float[] fillValues)
+            throws IOException, DataFormatException {
+        for (ArrayInfo array : arrays) {
+            if (array.name != null && array.type != null && array.format != null
+                    && array.name.startsWith(namePrefix)) {
+                return readArray(array, fillValues);
+            }
+        }
+        return null;
+    }
+
+    private VtkArray readArray(ArrayInfo array, float[] fillValues)
+            throws IOException, DataFormatException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer data;
+            if (array.format.equalsIgnoreCase("appended")) {
+                if (appendedDataStart < 0 || array.offset < 0) {
+                    throw new DataFormatException(
+                            "No appended data found for DataArray " + array.name);
+                }
+                data = readAppended(channel, appendedDataStart + array.offset);
+            } else {
+                ByteBuffer content = channel.map(MapMode.READ_ONLY, array.contentStart,
+                        array.contentEnd - array.contentStart);
+                if (array.format.equalsIgnoreCase("ascii")) {
+                    return parseAscii(content, array.type, fillValues);
+                } else if (array.format.equalsIgnoreCase("binary")) {
+                    data = decodeInlineBinary(content);
+                } else {
+                    throw new DataFormatException("Unsupported DataArray format: " + array.format);
+                }
+            }
+            return decode(data.order(byteOrder), array.type, fillValues);
+        }
+    }
+
+    private ByteBuffer readAppended(FileChannel channel, long start)
+            throws IOException, DataFormatException {
+        int headerSize = uint64Header ? 8 : 4;
+        if (compressed) {
+            ByteBuffer nBlocksBuffer = channel.map(MapMode.READ_ONLY, start, headerSize)
+                    .order(byteOrder);
+            int nBlocks = (int) readHeaderValue(nBlocksBuffer);
+            ByteBuffer header = channel
+                    .map(MapMode.READ_ONLY, start, (long) (3 + nBlocks) * headerSize)
+                    .order(byteOrder);
+            long[] compressedSizes = new long[nBlocks];
+            long totalCompressedSize = 0;
+            readHeaderValue(header);
+            long blockSize = readHeaderValue(header);
+            long lastBlockSize = readHeaderValue(header);
+            for (int i = 0; i < nBlocks; i++) {
+                compressedSizes[i] = readHeaderValue(header);
+                totalCompressedSize += compressedSizes[i];
+            }
+            ByteBuffer compressedData = channel.map(MapMode.READ_ONLY,
+                    start + (long) (3 + nBlocks) * headerSize, totalCompressedSize);
+            return inflate(compressedData, nBlocks, blockSize, lastBlockSize, compressedSizes);
+        } else {
+            ByteBuffer header = channel.map(MapMode.READ_ONLY, start, headerSize)
+                    .order(byteOrder);
+            long nBytes = readHeaderValue(header);
+            return channel.map(MapMode.READ_ONLY, start + headerSize, nBytes);
+        }
+    }
+
+    private ByteBuffer decodeInlineBinary(ByteBuffer content) throws DataFormatException {
+        /*
+         * Strip any whitespace from the base64 data
+         */
+        byte[] chars = new byte[content.remaining()];
+        int nChars = 0;
+        while (content.hasRemaining()) {
+            byte c = content.get();
+            if (!Character.isWhitespace(c)) {
+                chars[nChars++] = c;
+            }
+        }
+
+        if (!compressed) {
+            /*
+             * The header may be encoded either separately or together with
+             * the data. If it is separate, its encoding will be padded.
+             */
+            int headerSize = uint64Header ? 8 : 4;
+            int headerChars = 4 * ((headerSize + 2) / 3);
+            try {
+                ByteBuffer data;
+                long nBytes;
+                if (nChars > headerChars && chars[headerChars - 1] == '=') {
+                    nBytes = readHeaderValue(ByteBuffer
+                            .wrap(decodeBase64(chars, 0, headerChars)).order(byteOrder));
+                    data = ByteBuffer
+                            .wrap(decodeBase64(chars, headerChars, nChars - headerChars));
+                } else {
+                    byte[] decoded = decodeBase64(chars, 0, nChars);
+                    if (decoded.length < headerSize) {
+                        throw new DataFormatException("Binary DataArray is too short");
+                    }
+                    nBytes = readHeaderValue(ByteBuffer.wrap(decoded).order(byteOrder));
+                    data = ByteBuffer.wrap(decoded, headerSize, decoded.length - headerSize)
+                            .slice();
+                }
+                if (nBytes == data.remaining()) {
+                    return data;
+                }
+            } catch (DataFormatException e) {
+                /*
+                 * Not valid uncompressed data. Try decompressing it below.
+                 */
+            }
+            /*
+             * Some writers compress inline data without declaring a
+             * compressor. If the header doesn't describe the data, treat it as
+             * compressed.
+             */
+        }
+        return decodeCompressedInlineBinary(chars, nChars);
+    }
+
+    private ByteBuffer decodeCompressedInlineBinary(byte[] chars, int nChars)
+            throws DataFormatException {
+        /*
+         * The header is encoded separately from the data, and its size depends
+         * on the number of blocks, which is its first value
+         */
+        int headerSize = uint64Header ? 8 : 4;
+        int firstValueChars = 4 * ((headerSize + 2) / 3);
+        if (nChars < firstValueChars) {
+            throw new DataFormatException("Binary DataArray is too short");
+        }
+        ByteBuffer firstValue = ByteBuffer.wrap(decodeBase64(chars, 0, firstValueChars))
+                .order(byteOrder);
+        int nBlocks = (int) readHeaderValue(firstValue);
+        int headerBytes = (3 + nBlocks) * headerSize;
+        int headerChars = 4 * ((headerBytes + 2) / 3);
+        if (nBlocks < 0 || headerChars > nChars) {
+            throw new DataFormatException("Invalid header in compressed DataArray");
+        }
+        ByteBuffer header = ByteBuffer.wrap(decodeBase64(chars, 0, headerChars))
+                .order(byteOrder);
+        readHeaderValue(header);
+        long blockSize = readHeaderValue(header);
+        long lastBlockSize = readHeaderValue(header);
+        long[] compressedSizes = new long[nBlocks];
+        for (int i = 0; i < nBlocks; i++) {
+            compressedSizes[i] = readHeaderValue(header);
+        }
+        ByteBuffer compressedData = ByteBuffer
+                .wrap(decodeBase64(chars, headerChars, nChars - headerChars));
+        return inflate(compressedData, nBlocks, blockSize, lastBlockSize, compressedSizes);
+    }
+
+    private static byte[] decodeBase64(byte[] chars, int offset, int length)
+            throws DataFormatException {
+        byte[] encoded = new byte[length];
+        System.arraycopy(chars, offset, encoded, 0, length);
+        try {
+            return Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            throw new DataFormatException("Invalid base64 data in DataArray");
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer compressedData, int nBlocks, long blockSize,
+            long lastBlockSize, long[] compressedSizes) throws DataFormatException {
+        if (nBlocks == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        if (lastBlockSize == 0) {
+            lastBlockSize = blockSize;
+        }
+        long totalSize = (nBlocks - 1) * blockSize + lastBlockSize;
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new DataFormatException("VTK data array is too large to read");
+        }
+        ByteBuffer output = ByteBuffer.allocate((int) totalSize);
+        Inflater inflater = new Inflater();
+        try {
+            int position = compressedData.position();
+            for (int i = 0; i < nBlocks; i++) {
+                ByteBuffer block = compressedData.duplicate();
+                block.position(position);
+                block.limit(position + (int) compressedSizes[i]);
+                position += (int) compressedSizes[i];
+
+                long uncompressedSize = i == nBlocks - 1 ? lastBlockSize : blockSize;
+                ByteBuffer blockOutput = output.duplicate();
+                blockOutput.limit((int) (output.position() + uncompressedSize));
+
+                inflater.reset();
+                inflater.setInput(block);
+                while (blockOutput.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(blockOutput) == 0 && inflater.needsInput()) {
+                        throw new DataFormatException("Truncated compressed VTK data");
+                    }
+                }
+                output.position(blockOutput.position());
+            }
+        } finally {
+            inflater.end();
+        }
+        output.flip();
+        return output;
+    }
+
+    private long readHeaderValue(ByteBuffer buffer) {
+        return uint64Header ? buffer.getLong() : (buffer.getInt() & 0xFFFFFFFFL);
+    }
+
+    private static VtkArray decode(ByteBuffer data, String type, float[] fillValues)
+            throws DataFormatException {
+        if (type.equalsIgnoreCase("Float32")) {
+            float[] values = new float[data.remaining() / 4];
+            data.asFloatBuffer().get(values);
+            return new VtkArray(applyFillValues(values, fillValues));
+        } else if (type.equalsIgnoreCase("Float64")) {
+            double[] values = new double[data.remaining() / 8];
+            data.asDoubleBuffer().get(values);
+            return new VtkArray(applyFillValues(values, fillValues));
+        } else if (type.equalsIgnoreCase("Int32")) {
+            /*
+             * Not every int fits in a float, but they all fit in a double
+             */
+            int[] ints = new int[data.remaining() / 4];
+            data.asIntBuffer().get(ints);
+            double[] values = new double[ints.length];
+            for (int i = 0; i < ints.length; i++) {
+                values[i] = ints[i];
+            }
+            return new VtkArray(applyFillValues(values, fillValues));
+        } else if (type.equalsIgnoreCase("Int64")) {
+            long[] longs = new long[data.remaining() / 8];
+            data.asLongBuffer().get(longs);
+            double[] values = new double[longs.length];
+            for (int i = 0; i < longs.length; i++) {
+                values[i] = longs[i];
+            }
+            return new VtkArray(applyFillValues(values, fillValues));
+        } else {
+            throw new DataFormatException("Unsupported DataArray type: " + type);
+        }
+    }
+
+    private static VtkArray parseAscii(ByteBuffer content, String type, float[] fillValues)
+            throws DataFormatException {
+        boolean doublePrecision = type.equalsIgnoreCase("Float64")
+                || type.equalsIgnoreCase("Int32") || type.equalsIgnoreCase("Int64");
+        if (!doublePrecision && !type.equalsIgnoreCase("Float32")) {
+            throw new DataFormatException("Unsupported DataArray type: " + type);
+        }
+        double[] values = new double[1024];
+        int nValues = 0;
+        byte[] token = new byte[64];
+        int tokenLength = 0;
+        while (true) {
+            boolean end = !content.hasRemaining();
+            byte c = end ? (byte) ' ' : content.get();
+            if (Character.isWhitespace(c)) {
+                if (tokenLength > 0) {
+                    if (nValues == values.length) {
+                        double[] newValues = new double[values.length * 2];
+                        System.arraycopy(values, 0, newValues, 0, nValues);
+                        values = newValues;
+                    }
+                    try {
+                        values[nValues++] = Double.parseDouble(
+                                new String(token, 0, tokenLength, StandardCharsets.US_ASCII));
+                    } catch (NumberFormatException e) {
+                        throw new DataFormatException("Invalid value in ascii DataArray");
+                    }
+                    tokenLength = 0;
+                }
+                if (end) {
+                    break;
+                }
+            } else if (tokenLength < token.length) {
+                token[tokenLength++] = c;
+            }
+        }
+        if (doublePrecision) {
+            double[] ret = new double[nValues];
+            System.arraycopy(values, 0, ret, 0, nValues);
+            return new VtkArray(applyFillValues(ret, fillValues));
+        } else {
+            float[] ret = new float[nValues];
+            for (int i = 0; i < nValues; i++) {
+                ret[i] = (float) values[i];
+            }
+            return new VtkArray(applyFillValues(ret, fillValues));
+        }
+    }
+
+    private static float[] applyFillValues(float[] values, float[] fillValues) {
+        if (fillValues != null && fillValues.length > 0) {
+            for (int i = 0; i < values.length; i++) {
+                for (float fill : fillValues) {
+                    if (values[i] == fill) {
+                        values[i] = Float.NaN;
+                        break;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static double[] applyFillValues(double[] values, float[] fillValues) {
+        if (fillValues != null && fillValues.length > 0) {
+            for (int i = 0; i < values.length; i++) {
+                for (float fill : fillValues) {
+                    if ((float) values[i] == fill) {
+                        values[i] = Double.NaN;
+                        break;
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static Map<String, String> parseAttributes(CharSequence tag) {
+        Map<String, String> attributes = new HashMap<>();
+        Matcher matcher = ATTRIBUTE_PATTERN.matcher(tag);
+        while (matcher.find()) {
+            attributes.put(matcher.group(1).toLowerCase(), matcher.group(2));
+        }
+        return attributes;
+    }
+}
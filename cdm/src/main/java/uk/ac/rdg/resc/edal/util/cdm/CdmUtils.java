@@ -37,7 +37,6 @@ import java.util.List;
 
 import org.apache.oro.io.GlobFilenameFilter;
 import org.joda.time.Chronology;
-import org.joda.time.DateTime;
 import org.joda.time.chrono.GregorianChronology;
 import org.joda.time.chrono.ISOChronology;
 import org.joda.time.chrono.JulianChronology;
@@ -71,7 +70,6 @@ import uk.ac.rdg.resc.edal.grid.RegularAxisImpl;
 import uk.ac.rdg.resc.edal.grid.RegularGrid;
 import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
 import uk.ac.rdg.resc.edal.grid.TimeAxis;
-import uk.ac.rdg.resc.edal.grid.TimeAxisImpl;
 import uk.ac.rdg.resc.edal.grid.VerticalAxis;
 import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
 import uk.ac.rdg.resc.edal.grid.cdm.CdmTransformedGrid;
@@ -81,6 +79,7 @@ import uk.ac.rdg.resc.edal.util.Array2D;
 import uk.ac.rdg.resc.edal.util.CollectionUtils;
 import uk.ac.rdg.resc.edal.util.Extents;
 import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.TimeAxes;
 import uk.ac.rdg.resc.edal.util.chronologies.AllLeapChronology;
 import uk.ac.rdg.resc.edal.util.chronologies.NoLeapChronology;
 import uk.ac.rdg.resc.edal.util.chronologies.ThreeSixtyDayChronology;
@@ -130,9 +129,10 @@ public final class CdmUtils {
      * NetcdfDataset. Essentially, if the data are remote (e.g. OPeNDAP) or
      * compressed, this will return {@link DataReadingStrategy#BOUNDING_BOX},
      * which makes a single i/o call, minimizing the overhead. If the data are
-     * local and uncompressed this will return
-     * {@link DataReadingStrategy#SCANLINE}, which reduces the amount of data
-     * read.
+     * local and uncompressed (or the grids are too large to read into memory)
+     * this will return {@link DataReadingStrategy#STRIDED}, which reads only
+     * the rows and columns which are needed. This matters most for zoomed-out
+     * maps of high-resolution grids.
      *
      * @param nc
      *            The NetcdfDataset from which data will be read.
@@ -141,7 +141,7 @@ public final class CdmUtils {
     public static DataReadingStrategy getOptimumDataReadingStrategy(NetcdfDataset nc) {
         String fileType = nc.getFileTypeId();
         if ("netCDF".equalsIgnoreCase(fileType) || "HDF4".equalsIgnoreCase(fileType)) {
-            return DataReadingStrategy.SCANLINE;
+            return DataReadingStrategy.STRIDED;
         } else {
             try {
                 GridDataset gridDataset = getGridDataset(nc);
@@ -152,7 +152,7 @@ public final class CdmUtils {
                     long totalsize = hGrid.size() * dt.getSize();
                     /*
                      * If the size of the largest grid is greater than a
-                     * fraction of the maximum amount of memory, use a SCANLINE
+                     * fraction of the maximum amount of memory, use a STRIDED
                      * strategy.
                      * 
                      * Here, we set the multiplier for the maximum memory.
@@ -166,7 +166,7 @@ public final class CdmUtils {
                      */
                     double multiplier = 0.5;
                     if (totalsize > multiplier * Runtime.getRuntime().maxMemory()) {
-                        return DataReadingStrategy.SCANLINE;
+                        return DataReadingStrategy.STRIDED;
                     }
                 }
             } catch (DataReadingException | IOException e) {
@@ -306,11 +306,15 @@ public final class CdmUtils {
             throw new IllegalArgumentException("The calendar system " + cal.getStringValue()
                     + " cannot be handled");
         }
-        List<DateTime> timesteps = new ArrayList<DateTime>();
-        for (CalendarDate date : timeAxis.getCalendarDates()) {
-            timesteps.add(new DateTime(date.getMillis(), chron));
+        List<CalendarDate> dates = timeAxis.getCalendarDates();
+        long[] timesteps = new long[dates.size()];
+        for (int i = 0; i < timesteps.length; i++) {
+            timesteps[i] = dates.get(i).getMillis();
         }
-        return new TimeAxisImpl("time", timesteps);
+        /*
+         * Many variables share the same time axis, so we intern it
+         */
+        return TimeAxes.newTimeAxis("time", timesteps, chron);
     }
 
     /*
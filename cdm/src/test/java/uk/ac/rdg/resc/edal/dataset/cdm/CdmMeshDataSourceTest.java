@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset.cdm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.NetcdfFileWriter.Version;
+import ucar.nc2.Variable;
+import uk.ac.rdg.resc.edal.dataset.HZTDataSource.MeshCoordinates3D;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
+
+/**
+ * Test class for {@link CdmMeshDataSource}.
+ */
+public class CdmMeshDataSourceTest {
+    private static final int NT = 2;
+    private static final int NH = 400;
+    private static final int NAN_INDEX = 300;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String location;
+    private Map<String, int[]> varId2hztIndices;
+
+    @Before
+    public void setUp() throws Exception {
+        /*
+         * Write a small unstructured file with a single (time, node) variable,
+         * with one NaN value in each timestep
+         */
+        location = new File(folder.getRoot(), "mesh.nc").getAbsolutePath();
+        NetcdfFileWriter writer = NetcdfFileWriter.createNew(Version.netcdf3, location);
+        Dimension timeDim = writer.addDimension("time", NT);
+        Dimension nodeDim = writer.addDimension("node", NH);
+        Variable temp = writer.addVariable("temp", DataType.FLOAT,
+                Arrays.asList(timeDim, nodeDim));
+        writer.create();
+        float[] values = new float[NT * NH];
+        for (int t = 0; t < NT; t++) {
+            for (int h = 0; h < NH; h++) {
+                values[t * NH + h] = h == NAN_INDEX ? Float.NaN : expected(h, t);
+            }
+        }
+        writer.write(temp, Array.factory(DataType.FLOAT, new int[] { NT, NH }, values));
+        writer.close();
+
+        varId2hztIndices = new HashMap<>();
+        varId2hztIndices.put("temp", new int[] { 1, -1, 0 });
+    }
+
+    private static float expected(int h, int t) {
+        return 1000 * t + h;
+    }
+
+    @Test
+    public void testReadListKeepsTypeAndNaN() throws Exception {
+        int[] hs = new int[] { 0, 5, NAN_INDEX, 301, 399, -1 };
+        int[] ts = new int[] { 0, 1, 1, 0, 1, 0 };
+        List<MeshCoordinates3D> coords = new ArrayList<>();
+        for (int i = 0; i < hs.length; i++) {
+            coords.add(new MeshCoordinates3D(hs[i], 0, ts[i]));
+        }
+
+        try (CdmMeshDataSource dataSource = new CdmMeshDataSource(
+                NetcdfDatasetAggregator.getDataset(location), varId2hztIndices)) {
+            List<Number> values = dataSource.read("temp", coords);
+            assertEquals(hs.length, values.size());
+            for (int i = 0; i < hs.length; i++) {
+                Number value = values.get(i);
+                if (hs[i] < 0) {
+                    /* Points without data are null */
+                    assertNull(value);
+                } else if (hs[i] == NAN_INDEX) {
+                    /* NaN values in the data are returned as they are */
+                    assertTrue(value instanceof Float);
+                    assertTrue(Float.isNaN(value.floatValue()));
+                } else {
+                    assertTrue(value instanceof Float);
+                    assertEquals(expected(hs[i], ts[i]), value.floatValue(), 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadArrayKeepsFloatType() throws Exception {
+        int[] hs = new int[] { 0, 17, NAN_INDEX, 399 };
+        int[] zs = new int[hs.length];
+        int[] ts = new int[] { 0, 1, 0, 1 };
+
+        try (CdmMeshDataSource dataSource = new CdmMeshDataSource(
+                NetcdfDatasetAggregator.getDataset(location), varId2hztIndices)) {
+            /*
+             * Float data should neither be widened to doubles nor boxed
+             */
+            Array1D<Number> values = dataSource.read("temp", hs, zs, ts);
+            assertTrue(values instanceof FloatArray1D);
+            for (int i = 0; i < hs.length; i++) {
+                if (hs[i] == NAN_INDEX) {
+                    assertNull(values.get(i));
+                } else {
+                    assertTrue(values.get(i) instanceof Float);
+                    assertEquals(expected(hs[i], ts[i]), values.get(i).floatValue(), 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadArrayMatchesList() throws Exception {
+        int[] hs = new int[] { 399, 0, 1, NAN_INDEX, 2, -1, 200 };
+        int[] zs = new int[hs.length];
+        int[] ts = new int[] { 1, 0, 0, 0, 1, 1, 1 };
+        List<MeshCoordinates3D> coords = new ArrayList<>();
+        for (int i = 0; i < hs.length; i++) {
+            coords.add(new MeshCoordinates3D(hs[i], zs[i], ts[i]));
+        }
+
+        try (CdmMeshDataSource dataSource = new CdmMeshDataSource(
+                NetcdfDatasetAggregator.getDataset(location), varId2hztIndices)) {
+            Array1D<Number> values = dataSource.read("temp", hs, zs, ts);
+            List<Number> listValues = dataSource.read("temp", coords);
+            for (int i = 0; i < hs.length; i++) {
+                Number listValue = listValues.get(i);
+                if (listValue == null || Float.isNaN(listValue.floatValue())) {
+                    /* Points without data and NaNs are both missing */
+                    assertNull(values.get(i));
+                } else {
+                    assertEquals(listValue, values.get(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset.vtk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.rdg.resc.edal.dataset.vtk.HydromodelVtkDatasetFactory.TimestepInfo;
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+
+/**
+ * Tests reading data arrays with {@link VtkFileIndex} in each of the supported
+ * encodings, and the caching of arrays by {@link OnDemandVtkDataSource}.
+ */
+public class VtkFileIndexTest {
+    private static final float[] VALUES = new float[] { 1.5f, -2.25f, 999f, 4f, 1e10f };
+    private static final float FILL_VALUE = 999f;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeFile(byte[]... parts) throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            for (byte[] part : parts) {
+                out.write(part);
+            }
+        }
+        return file;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String header(String extraAttributes) {
+        return "<?xml version=\"1.0\"?>\n<VTKFile type=\"UnstructuredGrid\" version=\"1.0\" "
+                + extraAttributes + ">\n<UnstructuredGrid><Piece><PointData>\n";
+    }
+
+    private static final String FOOTER = "</PointData></Piece></UnstructuredGrid>\n";
+
+    private static byte[] floatBytes(float[] values, ByteOrder order) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * values.length).order(order);
+        buffer.asFloatBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static void checkValues(VtkArray array) {
+        assertEquals(VALUES.length, array.size());
+        for (int i = 0; i < VALUES.length; i++) {
+            if (VALUES[i] == FILL_VALUE) {
+                assertNull(array.get(i));
+            } else {
+                assertEquals(VALUES[i], array.get(i).floatValue(), 0f);
+            }
+        }
+    }
+
+    @Test
+    public void testAscii() throws Exception {
+        StringBuilder values = new StringBuilder();
+        for (float value : VALUES) {
+            values.append(value).append('\n');
+        }
+        File file = writeFile(ascii(header("") + "<DataArray type=\"Float32\" Name=\"other\" "
+                + "format=\"ascii\">0 0 0 0 0</DataArray>\n"
+                + "<DataArray type=\"Float32\" Name=\"depth_1\" format=\"ascii\">\n" + values
+                + "</DataArray>\n" + FOOTER + "</VTKFile>\n"));
+        VtkFileIndex index = VtkFileIndex.read(file);
+        checkValues(index.readArray("depth", new float[] { FILL_VALUE }));
+        assertNull(index.readArray("missing", null));
+    }
+
+    @Test
+    public void testInlineBinary() throws Exception {
+        byte[] data = floatBytes(VALUES, ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer encoded = ByteBuffer.allocate(4 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        encoded.putInt(data.length).put(data);
+        File file = writeFile(ascii(header("byte_order=\"LittleEndian\"")
+                + "<DataArray type=\"Float32\" Name=\"depth\" format=\"binary\">\n"
+                + Base64.getEncoder().encodeToString(encoded.array()) + "\n</DataArray>\n"
+                + FOOTER + "</VTKFile>\n"));
+        checkValues(VtkFileIndex.read(file).readArray("depth", new float[] { FILL_VALUE }));
+    }
+
+    @Test
+    public void testInlineCompressedBinary() throws Exception {
+        byte[] data = floatBytes(VALUES, ByteOrder.LITTLE_ENDIAN);
+        byte[] compressed = compress(data);
+        /* A single block, with the header encoded separately */
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(1).putInt(data.length).putInt(data.length).putInt(compressed.length);
+        File file = writeFile(ascii(header("compressor=\"vtkZLibDataCompressor\"")
+                + "<DataArray type=\"Float32\" Name=\"depth\" format=\"binary\">"
+                + Base64.getEncoder().encodeToString(header.array())
+                + Base64.getEncoder().encodeToString(compressed) + "</DataArray>\n" + FOOTER
+                + "</VTKFile>\n"));
+        checkValues(VtkFileIndex.read(file).readArray("depth", new float[] { FILL_VALUE }));
+    }
+
+    @Test
+    public void testAppendedRaw() throws Exception {
+        /*
+         * Big-endian data with 64-bit headers, following another array
+         */
+        byte[] first = floatBytes(new float[] { 0f, 0f }, ByteOrder.BIG_ENDIAN);
+        byte[] data = floatBytes(VALUES, ByteOrder.BIG_ENDIAN);
+        ByteBuffer appended = ByteBuffer.allocate(16 + first.length + data.length)
+                .order(ByteOrder.BIG_ENDIAN);
+        appended.putLong(first.length).put(first).putLong(data.length).put(data);
+        File file = writeFile(
+                ascii(header("byte_order=\"BigEndian\" header_type=\"UInt64\"")
+                        + "<DataArray type=\"Float32\" Name=\"other\" format=\"appended\" "
+                        + "offset=\"0\"/>\n<DataArray type=\"Float32\" Name=\"depth\" "
+                        + "format=\"appended\" offset=\"" + (8 + first.length) + "\"/>\n"
+                        + FOOTER + "<AppendedData encoding=\"raw\">\n_"),
+                appended.array(), ascii("\n</AppendedData>\n</VTKFile>\n"));
+        checkValues(VtkFileIndex.read(file).readArray("depth", new float[] { FILL_VALUE }));
+    }
+
+    @Test
+    public void testDataSourceCachesArrays() throws Exception {
+        File file = writeFile(ascii(header("") + "<DataArray type=\"Float64\" Name=\"depth\" "
+                + "format=\"ascii\">1 2 3</DataArray>\n" + FOOTER + "</VTKFile>\n"));
+        OnDemandVtkDataSource dataSource = new OnDemandVtkDataSource();
+        TimestepInfo timestep = new TimestepInfo(file, "");
+        VtkArray array = dataSource.getData1D(timestep, "depth");
+        assertEquals(3, array.size());
+        assertEquals(2.0, array.get(1).doubleValue(), 0.0);
+        assertEquals(24L, array.getSizeBytes());
+
+        /*
+         * The array should now be cached, including by other data sources
+         */
+        assertSame(array, dataSource.getData1D(timestep, "depth"));
+        assertSame(array, new OnDemandVtkDataSource().getData1D(timestep, "depth"));
+
+        OnDemandVtkDataSource.getDataCache().clear();
+        VtkArray reread = dataSource.getData1D(timestep, "depth");
+        assertNotSame(array, reread);
+        assertEquals(3, reread.size());
+    }
+
+    @Test
+    public void testInt32() throws Exception {
+        /*
+         * 2^24 + 1 cannot be represented exactly as a float
+         */
+        int[] ints = new int[] { 16777217, -3, 999 };
+        ByteBuffer data = ByteBuffer.allocate(4 + 4 * ints.length).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(4 * ints.length);
+        for (int value : ints) {
+            data.putInt(value);
+        }
+        File file = writeFile(ascii(header("") + "<DataArray type=\"Int32\" Name=\"binary\" "
+                + "format=\"binary\">" + Base64.getEncoder().encodeToString(data.array())
+                + "</DataArray>\n<DataArray type=\"Int32\" Name=\"ascii\" format=\"ascii\">"
+                + "16777217 -3 999</DataArray>\n" + FOOTER + "</VTKFile>\n"));
+        VtkFileIndex index = VtkFileIndex.read(file);
+        for (String name : new String[] { "binary", "ascii" }) {
+            VtkArray array = index.readArray(name, new float[] { FILL_VALUE });
+            assertEquals(16777217L, array.get(0).longValue());
+            assertEquals(-3L, array.get(1).longValue());
+            assertNull(array.get(2));
+        }
+    }
+
+    @Test
+    public void testDataSourceRereadsModifiedFiles() throws Exception {
+        File file = writeFile(ascii(header("") + "<DataArray type=\"Float64\" Name=\"depth\" "
+                + "format=\"ascii\">1 2 3</DataArray>\n" + FOOTER + "</VTKFile>\n"));
+        TimestepInfo timestep = new TimestepInfo(file, "");
+        OnDemandVtkDataSource dataSource = new OnDemandVtkDataSource();
+        assertEquals(3, dataSource.getData1D(timestep, "depth").size());
+
+        /*
+         * Rewrite the file in place. Neither the cached index nor the cached
+         * data should be used for the new version.
+         */
+        long lastModified = file.lastModified();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(ascii(header("") + "<DataArray type=\"Float64\" Name=\"extra\" "
+                    + "format=\"ascii\">0</DataArray>\n<DataArray type=\"Float64\" "
+                    + "Name=\"depth\" format=\"ascii\">4 5 6 7</DataArray>\n" + FOOTER
+                    + "</VTKFile>\n"));
+        }
+        file.setLastModified(lastModified + 2000L);
+        VtkArray array = dataSource.getData1D(timestep, "depth");
+        assertEquals(4, array.size());
+        assertEquals(4.0, array.get(0).doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testDataSourceMissingVariable() throws Exception {
+        File file = writeFile(ascii(header("") + "<DataArray type=\"Float32\" Name=\"depth\" "
+                + "format=\"ascii\">1 2 3</DataArray>\n" + FOOTER + "</VTKFile>\n"));
+        try {
+            new OnDemandVtkDataSource().getData1D(new TimestepInfo(file, ""), "velocity");
+            fail("Reading a missing variable should fail");
+        } catch (DataReadingException e) {
+            /* Expected */
+        }
+    }
+}
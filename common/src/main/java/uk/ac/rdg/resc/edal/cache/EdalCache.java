@@ -46,18 +46,13 @@ public class EdalCache {
      * The maxDepth property specified the maximum number of object references
      * to count before a warning is given.
      * 
-     * Now, we are generally caching 2 things:
-     * 
-     * 1) Gridded map features which will generally have 256*256 ~= 65,000
-     * values, but could easily be bigger
-     * 
-     * 2) Collections of point features. A year's worth of EN3 data could
-     * typically contain >15,000 features, each with a number of properties
-     * 
-     * These can need to count a very large number of object references.
-     * However, this calculation is actually pretty quick. Setting the max depth
-     * to 4,000,000 seems to suppress the vast majority of warnings, and doesn't
-     * impact performance noticeably.
+     * Extracted features (gridded map features and collections of point
+     * features) are not cached here - they would need a very large number of
+     * object references to be counted. They are held in a WeighedCache, which
+     * weighs each entry explicitly rather than walking its object graph. The
+     * caches here are generally bounded by number of entries, but caches
+     * defined in an external ehcache.xml may still be bounded by size, so we
+     * keep a generous max depth to suppress warnings.
      * 
      * Cache configuration specified in resources/ehcache.xml
      */
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+package uk.ac.rdg.resc.edal.cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import uk.ac.rdg.resc.edal.feature.DiscreteFeature;
+import uk.ac.rdg.resc.edal.util.Array;
+import uk.ac.rdg.resc.edal.util.DoubleArray1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
+import uk.ac.rdg.resc.edal.util.SingleValueImmutableArray1D;
+
+/**
+ * A {@link WeighedCache.Weigher} for collections of {@link DiscreteFeature}s.
+ * 
+ * The weight of a feature is an estimate of the heap used by its values, plus
+ * a fixed per-feature allowance for its domain, metadata and identifiers.
+ * Values held in primitive arrays are weighed exactly. Values held as boxed
+ * {@link Number}s are weighed as a reference plus a boxed object whose size
+ * is estimated from the first few values, so weighing is cheap regardless of
+ * how many values a feature has. Since the domain allowance and the sizes of
+ * the boxed objects are estimates, the maximum size of a cache using this is
+ * approximate rather than a strict bound on memory.
+ */
+public class FeatureWeigher implements WeighedCache.Weigher<Collection<? extends DiscreteFeature<?, ?>>> {
+    /*
+     * Allowance for the feature object itself, its domain, parameters and
+     * properties
+     */
+    private static final long BYTES_PER_FEATURE = 512;
+    /*
+     * A (possibly compressed) object reference
+     */
+    private static final long BYTES_PER_REFERENCE = 8;
+    /*
+     * Boxed Longs and Doubles (12 byte header + 8 bytes, padded to 8 bytes),
+     * and all other boxed Numbers (12 byte header + at most 4 bytes)
+     */
+    private static final long BYTES_PER_BOXED_WIDE = 24;
+    private static final long BYTES_PER_BOXED_NARROW = 16;
+    /*
+     * The number of values used to estimate the size of boxed values
+     */
+    private static final int SAMPLE_SIZE = 16;
+
+    @Override
+    public long weigh(Collection<? extends DiscreteFeature<?, ?>> features) {
+        long weight = 0L;
+        for (DiscreteFeature<?, ?> feature : features) {
+            weight += weigh(feature);
+        }
+        return weight;
+    }
+
+    /**
+     * @param feature
+     *            The {@link DiscreteFeature} to weigh
+     * @return The estimated weight of a single feature, in bytes
+     */
+    public static long weigh(DiscreteFeature<?, ?> feature) {
+        long weight = BYTES_PER_FEATURE;
+        for (String variableId : feature.getVariableIds()) {
+            Array<Number> values = feature.getValues(variableId);
+            if (values != null) {
+                weight += weigh(values);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @param values
+     *            An {@link Array} of values
+     * @return The estimated weight of the values, in bytes
+     */
+    static long weigh(Array<Number> values) {
+        if (values instanceof DoubleArray1D) {
+            return values.size() * Double.BYTES;
+        } else if (values instanceof FloatArray1D) {
+            return values.size() * Float.BYTES;
+        } else if (values instanceof SingleValueImmutableArray1D) {
+            return BYTES_PER_REFERENCE + BYTES_PER_BOXED_WIDE;
+        }
+        /*
+         * Boxed values. Estimate the mean size of each from a sample (missing
+         * values are just a null reference).
+         */
+        long sampled = 0;
+        long sampledBytes = 0;
+        Iterator<Number> iterator = values.iterator();
+        while (sampled < SAMPLE_SIZE && iterator.hasNext()) {
+            Number value = iterator.next();
+            if (value instanceof Double || value instanceof Long) {
+                sampledBytes += BYTES_PER_BOXED_WIDE;
+            } else if (value != null) {
+                sampledBytes += BYTES_PER_BOXED_NARROW;
+            }
+            sampled++;
+        }
+        long boxedBytes = sampled == 0 ? 0 : sampledBytes * values.size() / sampled;
+        return values.size() * BYTES_PER_REFERENCE + boxedBytes;
+    }
+}
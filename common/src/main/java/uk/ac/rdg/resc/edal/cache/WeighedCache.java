@@ -0,0 +1,431 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+
+/**
+ * An in-memory, least-recently-used cache whose size is bounded by the total
+ * weight (in bytes) of its entries, rather than by the number of entries or by
+ * walking object graphs. The weight of each entry is calculated exactly once,
+ * when it is added, by a {@link Weigher}.
+ * 
+ * This cache has no explicit invalidation by key pattern. Instead, clients
+ * should include a generation number (or similar) in their keys and change it
+ * when the underlying data changes: stale entries then simply become
+ * unreachable and are evicted as the cache fills.
+ * 
+ * Hit, miss, load and eviction statistics are recorded, and are available
+ * through JMX by registering this object as a {@link WeighedCacheMXBean}.
+ * 
+ * This class is thread-safe.
+ * 
+ * @param <K>
+ *            The type of the keys. These must implement
+ *            {@link Object#hashCode()} and {@link Object#equals(Object)}
+ *            correctly
+ * @param <V>
+ *            The type of the cached values
+ */
+public class WeighedCache<K, V> implements WeighedCacheMXBean {
+    /**
+     * Calculates the weight of a value to be cached
+     */
+    public interface Weigher<V> {
+        /**
+         * @param value
+         *            The value to weigh
+         * @return The size of the value, in bytes
+         */
+        public long weigh(V value);
+    }
+
+    /**
+     * Loads a value which is not present in the cache
+     */
+    public interface Loader<V> {
+        public V load() throws EdalException;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+        final long createdMillis;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+            this.createdMillis = System.currentTimeMillis();
+        }
+    }
+
+    private final String name;
+    private final Weigher<? super V> weigher;
+    /* Access-ordered, so that iteration starts with the least-recently used */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /* Values currently being loaded, so that each is only loaded once */
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    private long maxWeight;
+    private long timeToLiveMillis;
+    private long totalWeight = 0L;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new {@link WeighedCache}
+     * 
+     * @param name
+     *            The name of the cache
+     * @param maxWeight
+     *            The maximum total weight of all entries, in bytes
+     * @param timeToLiveSeconds
+     *            The time after which entries expire, or 0 if they never
+     *            expire
+     * @param weigher
+     *            The {@link Weigher} used to calculate the weight of each entry
+     */
+    public WeighedCache(String name, long maxWeight, long timeToLiveSeconds,
+            Weigher<? super V> weigher) {
+        if (weigher == null) {
+            throw new IllegalArgumentException("A weigher must be supplied");
+        }
+        this.name = name;
+        this.weigher = weigher;
+        setMaxWeight(maxWeight);
+        setTimeToLiveSeconds(timeToLiveSeconds);
+    }
+
+    /**
+     * Gets a value from the cache
+     * 
+     * @param key
+     *            The key of the value
+     * @return The cached value, or <code>null</code> if it is not present or
+     *         has expired
+     */
+    public V get(K key) {
+        V value = lookup(key);
+        if (value == null) {
+            misses.increment();
+            RequestMetrics.recordCacheLookup(false);
+        } else {
+            hits.increment();
+            RequestMetrics.recordCacheLookup(true);
+        }
+        return value;
+    }
+
+    /**
+     * Gets a value from the cache, loading and caching it if it is not
+     * present. The load happens outside of any lock, but concurrent requests
+     * for the same missing key wait for a single load rather than each loading
+     * the value.
+     * 
+     * @param key
+     *            The key of the value
+     * @param loader
+     *            A {@link Loader} to use if the value is not cached
+     * @return The value
+     * @throws EdalException
+     *             If the {@link Loader} throws an exception
+     */
+    public V get(K key, Loader<? extends V> loader) throws EdalException {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inProgress = loading.putIfAbsent(key, future);
+        if (inProgress != null) {
+            return await(inProgress);
+        }
+        try {
+            /*
+             * Another load may have finished between the lookup and
+             * registering this one
+             */
+            value = lookup(key);
+            if (value == null) {
+                long start = System.nanoTime();
+                value = loader.load();
+                loadTimeNanos.add(System.nanoTime() - start);
+                loads.increment();
+                if (value != null) {
+                    put(key, value);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EdalException("Interrupted whilst waiting for a value to load", e);
+        } catch (ExecutionException e) {
+            /*
+             * The loader can only throw unchecked exceptions, so rethrow them
+             * as they are
+             */
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EdalException("Problem loading value", cause);
+        }
+    }
+
+    /**
+     * Adds a value to the cache, evicting the least-recently used entries if
+     * necessary. Values which are heavier than the maximum weight of this cache
+     * are not stored.
+     * 
+     * @param key
+     *            The key of the value
+     * @param value
+     *            The value to cache. Must not be <code>null</code>
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot cache null values");
+        }
+        long weight = weigher.weigh(value);
+        synchronized (entries) {
+            removeEntry(key);
+            if (weight > maxWeight) {
+                return;
+            }
+            entries.put(key, new Entry<V>(value, weight));
+            totalWeight += weight;
+            evictToWeight(maxWeight);
+        }
+    }
+
+    /**
+     * Removes a value from the cache
+     * 
+     * @param key
+     *            The key of the value to remove
+     */
+    public void remove(K key) {
+        synchronized (entries) {
+            removeEntry(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0L;
+        }
+    }
+
+    /**
+     * Sets the maximum total weight of this cache, evicting entries if
+     * necessary
+     * 
+     * @param maxWeight
+     *            The new maximum weight, in bytes
+     */
+    public void setMaxWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight must not be negative");
+        }
+        synchronized (entries) {
+            this.maxWeight = maxWeight;
+            evictToWeight(maxWeight);
+        }
+    }
+
+    /**
+     * Sets the lifetime of entries in this cache
+     * 
+     * @param timeToLiveSeconds
+     *            The time after which entries expire, or 0 if they never
+     *            expire
+     */
+    public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        if (timeToLiveSeconds < 0) {
+            throw new IllegalArgumentException("Time to live must not be negative");
+        }
+        synchronized (entries) {
+            this.timeToLiveMillis = timeToLiveSeconds * 1000L;
+        }
+    }
+
+    @Override
+    public long getTimeToLiveSeconds() {
+        synchronized (entries) {
+            return timeToLiveMillis / 1000L;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getMaxWeight() {
+        synchronized (entries) {
+            return maxWeight;
+        }
+    }
+
+    @Override
+    public long getWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    @Override
+    public long getTotalLoadTimeMillis() {
+        return loadTimeNanos.sum() / 1_000_000L;
+    }
+
+    @Override
+    public double getAverageLoadTimeMillis() {
+        long loadCount = loads.sum();
+        return loadCount == 0 ? 0.0 : loadTimeNanos.sum() / (1_000_000.0 * loadCount);
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        loads.reset();
+        loadTimeNanos.reset();
+        evictions.reset();
+    }
+
+    /*
+     * Gets an unexpired value without recording any statistics
+     */
+    private V lookup(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                removeEntry(key);
+                entry = null;
+            }
+            return entry == null ? null : entry.value;
+        }
+    }
+
+    /*
+     * Must be called whilst holding the lock on entries
+     */
+    private boolean isExpired(Entry<V> entry) {
+        return timeToLiveMillis > 0
+                && System.currentTimeMillis() - entry.createdMillis > timeToLiveMillis;
+    }
+
+    /*
+     * Must be called whilst holding the lock on entries
+     */
+    private void removeEntry(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+    /*
+     * Must be called whilst holding the lock on entries
+     */
+    private void evictToWeight(long targetWeight) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (totalWeight > targetWeight && iterator.hasNext()) {
+            Entry<V> eldest = iterator.next().getValue();
+            iterator.remove();
+            totalWeight -= eldest.weight;
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.cache;
+
+/**
+ * Management interface exposing the configuration and statistics of a
+ * {@link WeighedCache} through JMX.
+ */
+public interface WeighedCacheMXBean {
+    public String getName();
+
+    /**
+     * @return The number of entries currently in the cache
+     */
+    public int getSize();
+
+    /**
+     * @return The total weight of the entries currently in the cache, in bytes
+     */
+    public long getWeight();
+
+    /**
+     * @return The maximum total weight of the cache, in bytes
+     */
+    public long getMaxWeight();
+
+    /**
+     * @return The lifetime of cache entries, or 0 if they never expire
+     */
+    public long getTimeToLiveSeconds();
+
+    public long getHitCount();
+
+    public long getMissCount();
+
+    /**
+     * @return The fraction of lookups which were hits
+     */
+    public double getHitRatio();
+
+    /**
+     * @return The number of values which have been loaded on a cache miss
+     */
+    public long getLoadCount();
+
+    /**
+     * @return The total time spent loading values on cache misses
+     */
+    public long getTotalLoadTimeMillis();
+
+    public double getAverageLoadTimeMillis();
+
+    /**
+     * @return The number of entries which have been evicted to keep the cache
+     *         within its maximum weight
+     */
+    public long getEvictionCount();
+
+    /**
+     * Resets all hit, miss, load and eviction statistics to zero
+     */
+    public void resetStatistics();
+
+    /**
+     * Removes all entries from the cache
+     */
+    public void clear();
+}
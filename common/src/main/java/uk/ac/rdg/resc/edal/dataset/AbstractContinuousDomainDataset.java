@@ -113,10 +113,30 @@ public abstract class AbstractContinuousDomainDataset extends AbstractDataset im
         List<DiscreteFeature<?, ?>> features = new ArrayList<>();
         Collection<String> featureIds = featureIndexer.findFeatureIds(hExtent, zExtent, tExtent,
                 varIds);
-        features.addAll(getFeatureReader().readFeatures(featureIds, varIds));
+        features.addAll(readMapFeatures(featureIds, varIds, targetZ));
         return features;
     }
 
+    /**
+     * Reads the features to be included in a call to
+     * {@link AbstractContinuousDomainDataset#extractMapFeatures(Set, BoundingBox, Extent, Double, Extent, DateTime)}.
+     * This default implementation reads the complete features.
+     * 
+     * @param featureIds
+     *            The IDs of the features to read
+     * @param varIds
+     *            The variables to read
+     * @param targetZ
+     *            The target elevation of the map
+     * @return The features
+     * @throws DataReadingException
+     *             If there is a problem reading the underlying data
+     */
+    protected List<? extends DiscreteFeature<?, ?>> readMapFeatures(Collection<String> featureIds,
+            Set<String> varIds, Double targetZ) throws DataReadingException {
+        return getFeatureReader().readFeatures(featureIds, varIds);
+    }
+
     @Override
     public List<? extends ProfileFeature> extractProfileFeatures(Set<String> varIds,
             BoundingBox bbox, Extent<Double> zExtent, Extent<DateTime> tExtent,
@@ -42,4 +42,23 @@ public interface ContinuousDomainDataset {
     public List<? extends DiscreteFeature<?, ?>> extractMapFeatures(Set<String> varIds,
             BoundingBox hExtent, Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent,
             DateTime targetT) throws DataReadingException;
+
+    /**
+     * Extracts features to be drawn on a map image of a given size.
+     * Implementations may thin out features which would be drawn at the same
+     * pixel, returning only one representative for each pixel. This default
+     * implementation returns all features, as
+     * {@link ContinuousDomainDataset#extractMapFeatures(Set, BoundingBox, Extent, Double, Extent, DateTime)}
+     * does.
+     * 
+     * @param width
+     *            The width of the image, in pixels
+     * @param height
+     *            The height of the image, in pixels
+     */
+    public default List<? extends DiscreteFeature<?, ?>> extractMapFeatures(Set<String> varIds,
+            BoundingBox hExtent, Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent,
+            DateTime targetT, int width, int height) throws DataReadingException {
+        return extractMapFeatures(varIds, hExtent, zExtent, targetZ, tExtent, targetT);
+    }
 }
@@ -28,6 +28,8 @@
 package uk.ac.rdg.resc.edal.dataset;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -112,6 +114,20 @@ import uk.ac.rdg.resc.edal.util.ValuesArray2D;
  * </p>
  * <img src="doc-files/pixelmap_scanline.png">
  * 
+ * <h3>Strategy 4: Read only the used rows and columns</h3>
+ * <p>
+ * When the target domain is much coarser than the source grid (e.g. a
+ * zoomed-out view of a high-resolution dataset), only a small, usually
+ * regularly-spaced, subset of the rows and columns in the bounding box are
+ * used. The {@link #STRIDED strided} strategy finds the i and j indices which
+ * are used ({@link DomainMapper#getUsedIIndices()} and
+ * {@link DomainMapper#getUsedJIndices()}), splits each into a few ranges with a
+ * constant step, and reads each combination of ranges with a strided read.
+ * Where every combination of used i and j indices is needed (as is the case
+ * between grids with orthogonal axes in the same CRS) this reads no unused
+ * data points at all, using a handful of read operations.
+ * </p>
+ * 
  * @author Jon
  * @author Guy Griffiths
  */
@@ -186,6 +202,33 @@ public enum DataReadingStrategy {
         }
     },
 
+    /**
+     * Reads only the rows and columns of data which are used, with strided
+     * reads. Recommended when the target domain is often much coarser than
+     * the source grid and the overhead of a data-reading operation is low,
+     * e.g. for local, high-resolution files. Where this cannot avoid reading
+     * unused data without a large number of read operations, it reads no more
+     * data than the {@link #SCANLINE scanline} strategy, and never makes more
+     * than a fixed number of reads beyond the one per row which that makes.
+     */
+    STRIDED {
+        @Override
+        public Array2D<Number> readMapData(GridDataSource dataSource, String varId, int tIndex,
+                int zIndex, Domain2DMapper domainMapper) throws IOException, DataReadingException {
+            Array2D<Number> ret = new ValuesArray2D(domainMapper.getTargetYSize(),
+                    domainMapper.getTargetXSize());
+            if (domainMapper.isEmpty()) {
+                return ret;
+            }
+            if (domainMapper.isSeparable()) {
+                readUsedRowsAndColumns(dataSource, varId, tIndex, zIndex, domainMapper, ret);
+            } else {
+                readUsedPointsInRows(dataSource, varId, tIndex, zIndex, domainMapper, ret);
+            }
+            return ret;
+        }
+    },
+
     /**
      * Reads each data point individually. Only efficient if the overhead of
      * reading a single point is not large.
@@ -209,7 +252,143 @@ public enum DataReadingStrategy {
         }
     };
 
+    /*
+     * The maximum number of reads the STRIDED strategy will make for a map.
+     * For maps whose points are not separable into rows and columns, this is
+     * the maximum number of reads in addition to one per row, and no single
+     * row is split into more than MAX_STRIDED_READS_PER_ROW reads.
+     */
+    private static final int MAX_STRIDED_READS = 256;
+    private static final int MAX_STRIDED_READS_PER_ROW = 4;
+
     abstract public Array2D<Number> readMapData(GridDataSource dataSource, String varId,
             int tIndex, int zIndex, Domain2DMapper domainMapper) throws IOException,
             DataReadingException;
+
+    /*
+     * Reads every combination of the used i and j indices, where these are
+     * exactly the points needed
+     */
+    private static void readUsedRowsAndColumns(GridDataSource dataSource, String varId,
+            int tIndex, int zIndex, Domain2DMapper domainMapper, Array2D<Number> ret)
+            throws IOException, DataReadingException {
+        int[] usedIs = domainMapper.getUsedIIndices();
+        int[] usedJs = domainMapper.getUsedJIndices();
+        List<StridedRange> iRanges = StridedRange.decompose(usedIs);
+        List<StridedRange> jRanges = StridedRange.decompose(usedJs);
+        if ((long) iRanges.size() * jRanges.size() > MAX_STRIDED_READS) {
+            /*
+             * Too many reads. Read a superset of the points along whichever
+             * axis is less regular (or both).
+             */
+            if (jRanges.size() <= MAX_STRIDED_READS) {
+                iRanges = Collections.singletonList(StridedRange.enclosing(usedIs));
+            } else if (iRanges.size() <= MAX_STRIDED_READS) {
+                jRanges = Collections.singletonList(StridedRange.enclosing(usedJs));
+            } else {
+                iRanges = Collections.singletonList(StridedRange.enclosing(usedIs));
+                jRanges = Collections.singletonList(StridedRange.enclosing(usedJs));
+            }
+        }
+
+        int minI = usedIs[0];
+        int minJ = usedJs[0];
+        int[] iPositions = positionsOf(usedIs);
+        int[] jPositions = positionsOf(usedJs);
+        Number[][] values = new Number[usedJs.length][usedIs.length];
+        for (StridedRange jRange : jRanges) {
+            for (StridedRange iRange : iRanges) {
+                Array4D<Number> data = dataSource.readStrided(varId, tIndex, zIndex, jRange.first,
+                        jRange.last(), jRange.stride, iRange.first, iRange.last(),
+                        iRange.stride);
+                for (int y = 0; y < jRange.count; y++) {
+                    int jPosition = jPositions[jRange.first + y * jRange.stride - minJ];
+                    if (jPosition < 0) {
+                        continue;
+                    }
+                    for (int x = 0; x < iRange.count; x++) {
+                        int iPosition = iPositions[iRange.first + x * iRange.stride - minI];
+                        if (iPosition >= 0) {
+                            values[jPosition][iPosition] = data.get(0, 0, y, x);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (DomainMapperEntry<int[]> dme : domainMapper) {
+            Number value = values[jPositions[dme.getSourceGridJIndex() - minJ]][iPositions[dme
+                    .getSourceGridIIndex() - minI]];
+            for (int[] targetPoint : dme.getTargetIndices()) {
+                ret.set(value, new int[] { targetPoint[1], targetPoint[0] });
+            }
+        }
+    }
+
+    /*
+     * Reads the used points of each row, where the used i indices differ
+     * between rows
+     */
+    private static void readUsedPointsInRows(GridDataSource dataSource, String varId,
+            int tIndex, int zIndex, Domain2DMapper domainMapper, Array2D<Number> ret)
+            throws IOException, DataReadingException {
+        /*
+         * The number of reads made so far beyond one per row
+         */
+        int extraReads = 0;
+        Iterator<Scanline<int[]>> it = domainMapper.scanlineIterator();
+        while (it.hasNext()) {
+            Scanline<int[]> scanline = it.next();
+            List<DomainMapperEntry<int[]>> entries = scanline.getPixelMapEntries();
+            int j = scanline.getSourceGridJIndex();
+
+            /*
+             * Entries are sorted by i index, and there is one per source point
+             */
+            int[] usedIs = new int[entries.size()];
+            for (int k = 0; k < usedIs.length; k++) {
+                usedIs[k] = entries.get(k).getSourceGridIIndex();
+            }
+            List<StridedRange> iRanges = StridedRange.decompose(usedIs);
+            if (iRanges.size() > MAX_STRIDED_READS_PER_ROW
+                    || extraReads + iRanges.size() - 1 > MAX_STRIDED_READS) {
+                /*
+                 * Fall back to a single read of the row, as SCANLINE does
+                 * (but with a stride if the used points allow it)
+                 */
+                iRanges = Collections.singletonList(StridedRange.enclosing(usedIs));
+            }
+            extraReads += iRanges.size() - 1;
+
+            int minI = usedIs[0];
+            Number[] rowValues = new Number[usedIs[usedIs.length - 1] - minI + 1];
+            for (StridedRange iRange : iRanges) {
+                Array4D<Number> data = dataSource.readStrided(varId, tIndex, zIndex, j, j, 1,
+                        iRange.first, iRange.last(), iRange.stride);
+                for (int x = 0; x < iRange.count; x++) {
+                    rowValues[iRange.first + x * iRange.stride - minI] = data.get(0, 0, 0, x);
+                }
+            }
+
+            for (DomainMapperEntry<int[]> dme : entries) {
+                Number value = rowValues[dme.getSourceGridIIndex() - minI];
+                for (int[] targetPoint : dme.getTargetIndices()) {
+                    ret.set(value, new int[] { targetPoint[1], targetPoint[0] });
+                }
+            }
+        }
+    }
+
+    /*
+     * Maps each index in the range of the given ascending indices to its
+     * position in them, or -1 if it is not one of them
+     */
+    private static int[] positionsOf(int[] indices) {
+        int[] positions = new int[indices[indices.length - 1] - indices[0] + 1];
+        Arrays.fill(positions, -1);
+        for (int k = 0; k < indices.length; k++) {
+            positions[indices[k] - indices[0]] = k;
+        }
+        return positions;
+    }
 }
@@ -90,4 +90,34 @@ public interface DiscreteFeatureReader<F extends DiscreteFeature<?, ?>> {
      */
     public List<F> readFeatures(Collection<String> ids, Set<String> variableIds)
             throws DataReadingException;
+
+    /**
+     * Reads {@link DiscreteFeature}s from the underlying data source, for
+     * drawing on a map at a single elevation. Readers of
+     * {@link uk.ac.rdg.resc.edal.feature.ProfileFeature}s may override this to
+     * read only the vertical coordinate of each profile plus the single level
+     * which would be chosen by
+     * {@link PointDataset#getProfileLevelIndex(uk.ac.rdg.resc.edal.grid.VerticalAxis, Double)},
+     * returning profiles with a vertical domain of just that level. Features
+     * with no such level may be omitted.
+     * 
+     * The default implementation reads the complete features with
+     * {@link DiscreteFeatureReader#readFeatures(Collection, Set)}
+     * 
+     * @param ids
+     *            The identifier of the features within their collection.
+     * @param variableIds
+     *            The variables which must be included in the feature. If this
+     *            argument is <code>null</code> then all available variables
+     *            should be included
+     * @param targetZ
+     *            The target elevation, or <code>null</code> to choose the
+     *            level closest to the surface
+     * @return A {@link List} of {@link DiscreteFeature}s containing at least
+     *         the level nearest to the target elevation
+     */
+    public default List<F> readFeaturesAtLevel(Collection<String> ids, Set<String> variableIds,
+            Double targetZ) throws DataReadingException {
+        return readFeatures(ids, variableIds);
+    }
 }
@@ -40,7 +40,9 @@ import org.joda.time.DateTime;
 import uk.ac.rdg.resc.edal.domain.DiscreteHorizontalDomain;
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.dataset.plugins.VariablePlugin;
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.exceptions.IncorrectDomainException;
 import uk.ac.rdg.resc.edal.exceptions.VariableNotFoundException;
 import uk.ac.rdg.resc.edal.feature.MapFeature;
 import uk.ac.rdg.resc.edal.geometry.BoundingBox;
@@ -49,11 +51,14 @@ import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
 import uk.ac.rdg.resc.edal.grid.TimeAxis;
 import uk.ac.rdg.resc.edal.grid.VerticalAxis;
 import uk.ac.rdg.resc.edal.metadata.DiscreteLayeredVariableMetadata;
+import uk.ac.rdg.resc.edal.position.GeoPosition;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.position.VerticalPosition;
 import uk.ac.rdg.resc.edal.util.Array1D;
 import uk.ac.rdg.resc.edal.util.Array2D;
 import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.ValuesArray1D;
+import uk.ac.rdg.resc.edal.util.VerticalSection;
 
 /**
  * A partial implementation of an {@link HorizontallyDiscreteDataset} based on a
@@ -308,6 +313,105 @@ public abstract class DiscreteLayeredDataset<DS extends DataSource, VM extends D
         return extractPoint(metadata, t, z, hPos, dataSource);
     }
 
+    @Override
+    protected final Array1D<Number> readUnderlyingMultiplePointData(String varId,
+            List<GeoPosition> positions, DS dataSource) throws DataReadingException,
+            VariableNotFoundException {
+        VM metadata = getVariableMetadata(varId);
+        VerticalAxis verticalDomain = metadata.getVerticalDomain();
+        TimeAxis temporalDomain = metadata.getTemporalDomain();
+
+        int[] ts = new int[positions.size()];
+        int[] zs = new int[positions.size()];
+        List<HorizontalPosition> hPositions = new ArrayList<>(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            GeoPosition position = positions.get(i);
+            Double zVal = null;
+            if (position.getVerticalPosition() != null) {
+                zVal = position.getVerticalPosition().getZ();
+            }
+            zs[i] = getVerticalIndex(zVal, verticalDomain, varId);
+            ts[i] = getTimeIndex(position.getTime(), temporalDomain, varId);
+            hPositions.add(position.getHorizontalPosition());
+        }
+        return extractPoints(metadata, ts, zs, hPositions, dataSource);
+    }
+
+    /**
+     * Extracts a vertical section of a variable along a path. The whole
+     * section is read using a single open data source, and subclasses can read
+     * it in as few operations as their data allows.
+     * 
+     * @param varId
+     *            The ID of the variable to extract
+     * @param positions
+     *            The {@link HorizontalPosition}s along the path
+     * @param time
+     *            The time at which to extract the section. If this is
+     *            <code>null</code>, the time closest to the current time will
+     *            be used
+     * @return The {@link VerticalSection} along the path, covering the entire
+     *         vertical axis of the variable
+     * @throws DataReadingException
+     *             If there is a problem reading the underlying data
+     * @throws VariableNotFoundException
+     *             If the variable is not present in this {@link Dataset}
+     */
+    public final VerticalSection extractVerticalSection(String varId,
+            List<HorizontalPosition> positions, DateTime time) throws DataReadingException,
+            VariableNotFoundException {
+        VM metadata = getVariableMetadata(varId);
+        VerticalAxis zAxis = metadata.getVerticalDomain();
+        if (zAxis == null) {
+            throw new IncorrectDomainException("The variable " + varId
+                    + " has no vertical axis, so a vertical section cannot be extracted.");
+        }
+
+        float[] values;
+        try (DS dataSource = openDataSource()) {
+            VariablePlugin plugin = isDerivedVariable(varId);
+            if (plugin != null) {
+                /*
+                 * Read complete sections of each of the base variables, then
+                 * derive the values point-by-point
+                 */
+                String[] baseVariables = plugin.usesVariables();
+                float[][] baseData = new float[baseVariables.length][];
+                for (int i = 0; i < baseVariables.length; i++) {
+                    baseData[i] = readVerticalSectionData(baseVariables[i], zAxis, positions,
+                            time, dataSource);
+                }
+                values = new float[zAxis.size() * positions.size()];
+                Number[] baseValues = new Number[baseVariables.length];
+                for (int v = 0; v < values.length; v++) {
+                    for (int i = 0; i < baseVariables.length; i++) {
+                        float baseValue = baseData[i][v];
+                        baseValues[i] = Float.isNaN(baseValue) ? null : baseValue;
+                    }
+                    Number value = plugin.getValue(varId,
+                            positions.get(v % positions.size()), baseValues);
+                    values[v] = value == null ? Float.NaN : value.floatValue();
+                }
+            } else {
+                values = readVerticalSectionData(varId, zAxis, positions, time, dataSource);
+            }
+        }
+        return new VerticalSection(positions, zAxis, metadata.getParameter(), values);
+    }
+
+    private float[] readVerticalSectionData(String varId, VerticalAxis zAxis,
+            List<HorizontalPosition> positions, DateTime time, DS dataSource)
+            throws DataReadingException, VariableNotFoundException {
+        VM metadata = getVariableMetadata(varId);
+        VerticalAxis variableZAxis = metadata.getVerticalDomain();
+        if (variableZAxis == null || variableZAxis.size() != zAxis.size()) {
+            throw new IncorrectDomainException("The variable " + varId
+                    + " does not share the vertical axis of the section being extracted");
+        }
+        int tIndex = getTimeIndex(time, metadata.getTemporalDomain(), varId);
+        return extractVerticalSectionData(metadata, tIndex, positions, dataSource);
+    }
+
     /**
      * @param bbox
      *            The {@link BoundingBox} in which to select
@@ -447,4 +551,78 @@ public abstract class DiscreteLayeredDataset<DS extends DataSource, VM extends D
      */
     protected abstract Number extractPoint(VM metadata, int t, int z, HorizontalPosition hPos,
             DS dataSource) throws DataReadingException;
+
+    /**
+     * Extracts data for a number of points. This default implementation calls
+     * {@link DiscreteLayeredDataset#extractPoint(DiscreteLayeredVariableMetadata, int, int, HorizontalPosition, DataSource)}
+     * for each point. Subclasses should override it if their data sources can
+     * read several points more efficiently at once.
+     * 
+     * @param metadata
+     *            The {@link DiscreteLayeredVariableMetadata} representing the
+     *            variable
+     * @param ts
+     *            The underlying time index of each point
+     * @param zs
+     *            The underlying vertical index of each point
+     * @param hPositions
+     *            The {@link HorizontalPosition} of each point
+     * @param dataSource
+     *            The {@link DataSource} used to extract data
+     * @return An {@link Array1D} containing the value at each point
+     * @throws DataReadingException
+     *             If there is a problem reading the underlying data
+     */
+    protected Array1D<Number> extractPoints(VM metadata, int[] ts, int[] zs,
+            List<HorizontalPosition> hPositions, DS dataSource) throws DataReadingException {
+        Array1D<Number> data = new ValuesArray1D(hPositions.size());
+        for (int i = 0; i < hPositions.size(); i++) {
+            data.set(extractPoint(metadata, ts[i], zs[i], hPositions.get(i), dataSource), i);
+        }
+        return data;
+    }
+
+    /**
+     * Extracts the data for a vertical section covering the entire vertical
+     * axis of a variable. This default implementation extracts every point of
+     * the section with a single call to
+     * {@link DiscreteLayeredDataset#extractPoints(DiscreteLayeredVariableMetadata, int[], int[], List, DataSource)}
+     * 
+     * @param metadata
+     *            The {@link DiscreteLayeredVariableMetadata} representing the
+     *            variable
+     * @param tIndex
+     *            The time index at which to extract data
+     * @param hPositions
+     *            The {@link HorizontalPosition}s along the path
+     * @param dataSource
+     *            The {@link DataSource} used to extract data
+     * @return The values of the section, ordered by vertical level and then
+     *         by position as described in {@link VerticalSection}, with
+     *         missing values as {@link Float#NaN}
+     * @throws DataReadingException
+     *             If there is a problem reading the underlying data
+     */
+    protected float[] extractVerticalSectionData(VM metadata, int tIndex,
+            List<HorizontalPosition> hPositions, DS dataSource) throws DataReadingException {
+        int nPositions = hPositions.size();
+        int nLevels = metadata.getVerticalDomain().size();
+        int[] ts = new int[nLevels * nPositions];
+        int[] zs = new int[nLevels * nPositions];
+        List<HorizontalPosition> allPositions = new ArrayList<>(nLevels * nPositions);
+        for (int z = 0; z < nLevels; z++) {
+            for (int i = 0; i < nPositions; i++) {
+                ts[z * nPositions + i] = tIndex;
+                zs[z * nPositions + i] = z;
+            }
+            allPositions.addAll(hPositions);
+        }
+        Array1D<Number> points = extractPoints(metadata, ts, zs, allPositions, dataSource);
+        float[] values = new float[nLevels * nPositions];
+        for (int i = 0; i < values.length; i++) {
+            Number value = points.get(i);
+            values[i] = value == null ? Float.NaN : value.floatValue();
+        }
+        return values;
+    }
 }
@@ -42,6 +42,8 @@ import uk.ac.rdg.resc.edal.grid.GridCell2D;
 import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
 import uk.ac.rdg.resc.edal.grid.RectilinearGrid;
 import uk.ac.rdg.resc.edal.grid.ReferenceableAxis;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.util.Array;
 import uk.ac.rdg.resc.edal.util.GISUtils;
@@ -115,8 +117,20 @@ public class Domain2DMapper extends DomainMapper<int[]> {
     public static Domain2DMapper forGrid(HorizontalGrid sourceGrid, final HorizontalGrid targetGrid) {
         Domain2DMapperCacheKey key = new Domain2DMapperCacheKey(sourceGrid, targetGrid);
         if (domainMapperCache.isKeyInCache(key)) {
+            RequestMetrics.recordCacheLookup(true);
             return (Domain2DMapper) domainMapperCache.get(key).getObjectValue();
         }
+        RequestMetrics.recordCacheLookup(false);
+        Domain2DMapper ret;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DOMAIN_MAPPING)) {
+            ret = createMapper(sourceGrid, targetGrid);
+        }
+        domainMapperCache.put(new Element(key, ret));
+        return ret;
+    }
+
+    private static Domain2DMapper createMapper(HorizontalGrid sourceGrid,
+            HorizontalGrid targetGrid) {
         Domain2DMapper ret;
         if (sourceGrid instanceof RectilinearGrid
                 && targetGrid instanceof RectilinearGrid
@@ -140,7 +154,6 @@ public class Domain2DMapper extends DomainMapper<int[]> {
              */
             ret = forGeneralGrids(sourceGrid, targetGrid);
         }
-        domainMapperCache.put(new Element(key, ret));
         return ret;
     }
 
@@ -30,6 +30,7 @@ package uk.ac.rdg.resc.edal.dataset;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -131,6 +132,14 @@ public abstract class DomainMapper<T> implements Iterable<DomainMapper.DomainMap
     private int maxIIndex = -1;
     private int maxJIndex = -1;
 
+    /*
+     * The distinct i and j indices used by this mapper, calculated on first
+     * use by the STRIDED data reading strategy
+     */
+    private volatile int[] usedIIndices = null;
+    private volatile int[] usedJIndices = null;
+    private volatile int numUniqueSourceIndices = -1;
+
     protected DomainMapper(HorizontalGrid sourceGrid, long targetDomainSize) {
         if (targetDomainSize > Integer.MAX_VALUE) {
             throw new IllegalArgumentException("Cannot handle target domains"
@@ -402,6 +411,81 @@ public abstract class DomainMapper<T> implements Iterable<DomainMapper.DomainMap
         return (maxIIndex - minIIndex + 1) * (maxJIndex - minJIndex + 1);
     }
 
+    /**
+     * Gets the distinct i indices which are used by this mapper. For a mapper
+     * onto a target domain much coarser than the source grid, these are a
+     * small subset of the indices in the bounding box.
+     * 
+     * @return The i indices of all source grid points in this mapper, in
+     *         ascending order and without duplicates
+     */
+    public int[] getUsedIIndices() {
+        if (usedIIndices == null) {
+            findUsedIndices();
+        }
+        return usedIIndices;
+    }
+
+    /**
+     * Gets the distinct j indices which are used by this mapper.
+     * 
+     * @return The j indices of all source grid points in this mapper, in
+     *         ascending order and without duplicates
+     */
+    public int[] getUsedJIndices() {
+        if (usedJIndices == null) {
+            findUsedIndices();
+        }
+        return usedJIndices;
+    }
+
+    /**
+     * @return <code>true</code> if every combination of the
+     *         {@link #getUsedIIndices() used i indices} and the
+     *         {@link #getUsedJIndices() used j indices} is a source grid point
+     *         in this mapper. This is the case when mapping between grids with
+     *         orthogonal axes in the same CRS, and means that reading the data
+     *         at every such combination reads no unused points.
+     */
+    public boolean isSeparable() {
+        if (numUniqueSourceIndices < 0) {
+            findUsedIndices();
+        }
+        return (long) usedIIndices.length * usedJIndices.length == numUniqueSourceIndices;
+    }
+
+    private synchronized void findUsedIndices() {
+        if (numUniqueSourceIndices >= 0) {
+            return;
+        }
+        if (isEmpty()) {
+            usedIIndices = new int[0];
+            usedJIndices = new int[0];
+            numUniqueSourceIndices = 0;
+            return;
+        }
+        BitSet iIndices = new BitSet(maxIIndex - minIIndex + 1);
+        BitSet jIndices = new BitSet(maxJIndex - minJIndex + 1);
+        int numUnique = 0;
+        long lastSourceIndex = -1L;
+        for (int index = 0; index < sourceGridIndices.size(); index++) {
+            /*
+             * The source indices are sorted, so duplicates are adjacent
+             */
+            long sourceIndex = sourceGridIndices.getLong(index);
+            if (sourceIndex == lastSourceIndex) {
+                continue;
+            }
+            lastSourceIndex = sourceIndex;
+            numUnique++;
+            iIndices.set((int) (sourceIndex % sourceGridISize) - minIIndex);
+            jIndices.set((int) (sourceIndex / sourceGridISize) - minJIndex);
+        }
+        usedIIndices = iIndices.stream().map(i -> i + minIIndex).toArray();
+        usedJIndices = jIndices.stream().map(j -> j + minJIndex).toArray();
+        numUniqueSourceIndices = numUnique;
+    }
+
     /**
      * Returns an unmodifiable iterator over all the {@link DomainMapperEntry}s
      * in this PixelMap.
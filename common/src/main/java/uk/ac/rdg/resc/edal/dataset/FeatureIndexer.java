@@ -72,6 +72,32 @@ public interface FeatureIndexer extends Serializable {
             Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
             Collection<String> variableIds);
 
+    /**
+     * Finds the bounds of features with the given spatio-temporal constraints.
+     * This finds the same features as
+     * {@link FeatureIndexer#findFeatureIds(BoundingBox, Extent, Extent, Collection)},
+     * but allows callers to choose between features before reading them.
+     * 
+     * @param horizontalExtent
+     *            The {@link BoundingBox} which features must have positions in.
+     * @param verticalExtent
+     *            The vertical range which features must have positions in.
+     * @param timeExtent
+     *            The time range which features must have positions in.
+     * @param variableIds
+     *            The variable IDs which features must contain
+     * @return A {@link Collection} of {@link FeatureBounds} for features which
+     *         match all of the given constraints, or <code>null</code> if this
+     *         {@link FeatureIndexer} does not store the bounds of its
+     *         features. This default implementation returns
+     *         <code>null</code>
+     */
+    public default Collection<FeatureBounds> findFeatureBounds(BoundingBox horizontalExtent,
+            Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
+            Collection<String> variableIds) {
+        return null;
+    }
+
     /**
      * @return All feature IDs present in this {@link FeatureIndexer}
      */
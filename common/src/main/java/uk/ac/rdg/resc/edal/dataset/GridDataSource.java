@@ -75,4 +75,64 @@ public interface GridDataSource extends DataSource {
      */
     public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax,
             int ymin, int ymax, int xmin, int xmax) throws IOException, DataReadingException;
+
+    /**
+     * Read a strided 2D {@link Array4D} of data from the underlying data
+     * source at a single time and z index. This reads every
+     * <code>ystride</code>th row and every <code>xstride</code>th column of
+     * the given range, so that a subsampled grid can be read without reading
+     * the points in between.
+     * 
+     * This default implementation reads the whole range and subsamples it in
+     * memory. Data sources which can read strided data directly should
+     * override it.
+     * 
+     * @param variableId
+     *            The variable ID to read
+     * @param tIndex
+     *            The time index in the underlying data
+     * @param zIndex
+     *            The z index in the underlying data
+     * @param ymin
+     *            The minimum y index in the underlying data
+     * @param ymax
+     *            The maximum y index in the underlying data. This must be
+     *            <code>ymin</code> plus a multiple of <code>ystride</code>
+     * @param ystride
+     *            The step between the y indices to read
+     * @param xmin
+     *            The minimum x index in the underlying data
+     * @param xmax
+     *            The maximum x index in the underlying data. This must be
+     *            <code>xmin</code> plus a multiple of <code>xstride</code>
+     * @param xstride
+     *            The step between the x indices to read
+     * @return An {@link Array4D} of shape
+     *         <code>[1, 1, (ymax-ymin)/ystride+1, (xmax-xmin)/xstride+1]</code>
+     *         containing the data which was read
+     * @throws IOException
+     *             If there is an IO problem accessing the data
+     * @throws DataReadingException
+     *             If there is another issue reading the data
+     */
+    public default Array4D<Number> readStrided(String variableId, int tIndex, int zIndex, int ymin,
+            int ymax, int ystride, int xmin, int xmax, int xstride)
+            throws IOException, DataReadingException {
+        final Array4D<Number> data = read(variableId, tIndex, tIndex, zIndex, zIndex, ymin, ymax,
+                xmin, xmax);
+        if (ystride == 1 && xstride == 1) {
+            return data;
+        }
+        return new Array4D<Number>(1, 1, (ymax - ymin) / ystride + 1, (xmax - xmin) / xstride + 1) {
+            @Override
+            public Number get(int... coords) {
+                return data.get(coords[0], coords[1], coords[2] * ystride, coords[3] * xstride);
+            }
+
+            @Override
+            public void set(Number value, int... coords) {
+                throw new UnsupportedOperationException("This Array4D is immutable");
+            }
+        };
+    }
 }
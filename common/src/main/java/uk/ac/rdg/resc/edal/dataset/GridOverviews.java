@@ -0,0 +1,679 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RectilinearGrid;
+import uk.ac.rdg.resc.edal.grid.RectilinearGridImpl;
+import uk.ac.rdg.resc.edal.grid.ReferenceableAxis;
+import uk.ac.rdg.resc.edal.grid.ReferenceableAxisImpl;
+import uk.ac.rdg.resc.edal.grid.RegularAxis;
+import uk.ac.rdg.resc.edal.grid.RegularAxisImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.util.Array4D;
+
+/**
+ * Reduced-resolution copies ("overviews") of the variables in a
+ * {@link GriddedDataset}, stored in files alongside the dataset.
+ * 
+ * Each 2D slice (i.e. each variable at each time and elevation) of a
+ * rectilinear grid has overviews at 1/2, 1/4, 1/8... of the resolution, down
+ * to {@link GridOverviews#MIN_OVERVIEW_SIZE} points along the longer side.
+ * Each overview point is the mean of the block of source points it covers
+ * (or, for categorical variables, the most common value), so zoomed-out maps
+ * drawn from an overview are smoother than nearest-neighbour samples of the
+ * source, as well as much cheaper to read.
+ * 
+ * Overviews are stored in chunks of {@link GridOverviews#CHUNK_SIZE} square,
+ * one file per slice and level, and are read directly by
+ * {@link GriddedDataset#extractHorizontalData}, which picks the coarsest
+ * overview whose points are no larger than those of the target grid. Slices
+ * are identified by the time and elevation values rather than their indices,
+ * so {@link GridOverviews#build(GriddedDataset)} can be called each time a
+ * dataset is reloaded to build overviews for new timesteps only.
+ * 
+ * Each file records a stamp identifying the version of the source data, and a
+ * signature of the source grid. Files which don't match the current data (e.g.
+ * because existing data have changed, or the grid has been redefined) are
+ * ignored, and are rebuilt by the next call to
+ * {@link GridOverviews#build(GriddedDataset)}.
+ */
+public class GridOverviews {
+    private static final Logger log = LoggerFactory.getLogger(GridOverviews.class);
+
+    /** The minimum size of the longer side of an overview */
+    public static final int MIN_OVERVIEW_SIZE = 256;
+    /** The size of the square chunks overviews are stored in */
+    public static final int CHUNK_SIZE = 128;
+    private static final int MAX_LEVELS = 10;
+
+    private static final int MAGIC = 0x45444f56;
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final String EXTENSION = ".ovr";
+
+    private final File directory;
+    private final long sourceStamp;
+    /* The grids of each level of each source grid, keyed on the factor */
+    private final Map<HorizontalGrid, Map<Integer, RectilinearGrid>> levelGrids = new ConcurrentHashMap<>();
+    private final Map<HorizontalGrid, Long> gridSignatures = new ConcurrentHashMap<>();
+    /* Files whose headers have been found to match the source data */
+    private final Set<File> currentFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory
+     *            The directory in which to store the overviews of a single
+     *            dataset
+     * @param sourceStamp
+     *            A stamp identifying the version of the source data of the
+     *            dataset, which changes whenever the data do. Overviews built
+     *            with a different stamp are rebuilt.
+     */
+    public GridOverviews(File directory, long sourceStamp) {
+        this.directory = directory;
+        this.sourceStamp = sourceStamp;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Builds every overview of a dataset which does not yet exist. This can
+     * take a long time for large datasets, and stops early if the calling
+     * thread is interrupted.
+     * 
+     * @param dataset
+     *            The {@link GriddedDataset} to build overviews for
+     * @return The number of slices for which overviews were built
+     * @throws DataReadingException
+     *             If there is a problem reading the source data or writing
+     *             the overviews
+     */
+    public int build(GriddedDataset dataset) throws DataReadingException {
+        int nBuilt = 0;
+        try (GridDataSource dataSource = dataset.openDataSource()) {
+            for (String varId : dataset.getVariableIds()) {
+                if (dataset.isDerivedVariable(varId) != null) {
+                    continue;
+                }
+                GridVariableMetadata metadata = dataset.getVariableMetadata(varId);
+                int[] factors = getFactors(metadata.getHorizontalDomain());
+                if (!metadata.isScalar() || factors.length == 0) {
+                    continue;
+                }
+                boolean categorical = metadata.getParameter().getCategories() != null;
+                int nT = metadata.getTemporalDomain() == null ? 1
+                        : metadata.getTemporalDomain().size();
+                int nZ = metadata.getVerticalDomain() == null ? 1
+                        : metadata.getVerticalDomain().size();
+                for (int t = 0; t < nT; t++) {
+                    for (int z = 0; z < nZ; z++) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return nBuilt;
+                        }
+                        if (isCurrent(metadata, t, z, factors)) {
+                            continue;
+                        }
+                        buildSlice(dataSource, metadata, t, z, factors, categorical);
+                        nBuilt++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new DataReadingException("Problem building overviews of " + dataset.getId(),
+                    e);
+        }
+        if (nBuilt > 0) {
+            log.debug("Built overviews of " + nBuilt + " slices of " + dataset.getId());
+        }
+        return nBuilt;
+    }
+
+    /**
+     * Finds the coarsest overview of a slice which is still at least as fine
+     * as the target of a {@link Domain2DMapper}
+     * 
+     * @param metadata
+     *            The {@link GridVariableMetadata} of the variable
+     * @param tIndex
+     *            The time index of the slice
+     * @param zIndex
+     *            The vertical index of the slice
+     * @param sourceMapper
+     *            The {@link Domain2DMapper} from the full-resolution grid of
+     *            the variable to the target grid
+     * @return The overview to read from, or <code>null</code> if the full
+     *         resolution data should be used
+     */
+    public Overview findOverview(GridVariableMetadata metadata, int tIndex, int zIndex,
+            Domain2DMapper sourceMapper) {
+        int[] factors = getFactors(metadata.getHorizontalDomain());
+        if (factors.length == 0 || sourceMapper.isEmpty()) {
+            return null;
+        }
+        /*
+         * The average spacing (in source grid points) of the points which the
+         * target grid samples. An overview with a factor no larger than this
+         * has at least one point per target point.
+         */
+        double spacing = Math.min(getSpacing(sourceMapper.getUsedIIndices()),
+                getSpacing(sourceMapper.getUsedJIndices()));
+        for (int level = factors.length - 1; level >= 0; level--) {
+            if (factors[level] <= spacing) {
+                File file = getFile(metadata, tIndex, zIndex, factors[level]);
+                RectilinearGrid levelGrid = getLevelGrid(metadata.getHorizontalDomain(),
+                        factors[level]);
+                Header header = getHeader(metadata.getHorizontalDomain(), levelGrid);
+                if (isCurrent(file, header)) {
+                    return new Overview(file, levelGrid, header);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static double getSpacing(int[] usedIndices) {
+        if (usedIndices.length < 2) {
+            return Double.MAX_VALUE;
+        }
+        return (double) (usedIndices[usedIndices.length - 1] - usedIndices[0])
+                / (usedIndices.length - 1);
+    }
+
+    /**
+     * @return The factors by which the given grid is reduced in each of its
+     *         overviews, in ascending order. This is empty if overviews are
+     *         not supported for the grid, or it is too small to need them.
+     */
+    static int[] getFactors(HorizontalGrid grid) {
+        if (!(grid instanceof RectilinearGrid)) {
+            return new int[0];
+        }
+        int longerSide = Math.max(grid.getXSize(), grid.getYSize());
+        List<Integer> factors = new ArrayList<>();
+        for (int factor = 2; factors.size() < MAX_LEVELS
+                && (longerSide + factor - 1) / factor >= MIN_OVERVIEW_SIZE; factor *= 2) {
+            factors.add(factor);
+        }
+        return factors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the grid of an overview. Each point is at the mean of the
+     * positions of the source points it covers, and the last row and column
+     * may cover fewer source points than the others.
+     */
+    RectilinearGrid getLevelGrid(HorizontalGrid sourceGrid, int factor) {
+        return levelGrids.computeIfAbsent(sourceGrid, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(factor, f -> {
+                    RectilinearGrid grid = (RectilinearGrid) sourceGrid;
+                    return new RectilinearGridImpl(reduceAxis(grid.getXAxis(), f),
+                            reduceAxis(grid.getYAxis(), f), grid.getCoordinateReferenceSystem());
+                });
+    }
+
+    private static ReferenceableAxis<Double> reduceAxis(ReferenceableAxis<Double> axis,
+            int factor) {
+        int size = axis.size();
+        if (axis instanceof RegularAxis && size % factor == 0) {
+            RegularAxis regularAxis = (RegularAxis) axis;
+            double spacing = regularAxis.getCoordinateSpacing();
+            return new RegularAxisImpl(axis.getName(),
+                    axis.getCoordinateValue(0) + spacing * (factor - 1) / 2.0, spacing * factor,
+                    size / factor, axis.wraps());
+        }
+        List<Double> values = new ArrayList<>();
+        for (int start = 0; start < size; start += factor) {
+            int end = Math.min(size, start + factor);
+            double sum = 0.0;
+            for (int i = start; i < end; i++) {
+                sum += axis.getCoordinateValue(i);
+            }
+            values.add(sum / (end - start));
+        }
+        return new ReferenceableAxisImpl(axis.getName(), values, axis.wraps());
+    }
+
+    private boolean isCurrent(GridVariableMetadata metadata, int tIndex, int zIndex,
+            int[] factors) {
+        HorizontalGrid grid = metadata.getHorizontalDomain();
+        for (int factor : factors) {
+            if (!isCurrent(getFile(metadata, tIndex, zIndex, factor),
+                    getHeader(grid, getLevelGrid(grid, factor)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Whether an overview file exists and was built from the current source
+     * data. Files are only checked until they are found to be current, since
+     * they are only ever replaced by files with the same header.
+     */
+    private boolean isCurrent(File file, Header header) {
+        if (!file.exists()) {
+            currentFiles.remove(file);
+            return false;
+        }
+        if (currentFiles.contains(file)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            buffer.flip();
+            if (header.matches(buffer)) {
+                currentFiles.add(file);
+                return true;
+            }
+            log.debug("The overview " + file + " is out of date and will be rebuilt");
+        } catch (IOException e) {
+            log.debug("Could not read the header of the overview " + file, e);
+        }
+        return false;
+    }
+
+    private Header getHeader(HorizontalGrid sourceGrid, RectilinearGrid levelGrid) {
+        return new Header(sourceStamp,
+                gridSignatures.computeIfAbsent(sourceGrid, GridOverviews::getGridSignature),
+                levelGrid.getXSize(), levelGrid.getYSize());
+    }
+
+    /*
+     * A hash of the coordinates of a grid, so that overviews are rebuilt if a
+     * dataset's grid changes without its source data changing (e.g. if it is
+     * redefined by the dataset's configuration)
+     */
+    private static long getGridSignature(HorizontalGrid grid) {
+        long signature = 17L;
+        if (grid instanceof RectilinearGrid) {
+            RectilinearGrid rectilinearGrid = (RectilinearGrid) grid;
+            for (ReferenceableAxis<Double> axis : Arrays.asList(rectilinearGrid.getXAxis(),
+                    rectilinearGrid.getYAxis())) {
+                signature = 31L * signature + axis.size();
+                for (int i = 0; i < axis.size(); i++) {
+                    signature = 31L * signature
+                            + Double.doubleToLongBits(axis.getCoordinateValue(i));
+                }
+            }
+        }
+        return signature;
+    }
+
+    /*
+     * The header of an overview file
+     */
+    private static final class Header {
+        final long sourceStamp;
+        final long gridSignature;
+        final int nx;
+        final int ny;
+
+        Header(long sourceStamp, long gridSignature, int nx, int ny) {
+            this.sourceStamp = sourceStamp;
+            this.gridSignature = gridSignature;
+            this.nx = nx;
+            this.ny = ny;
+        }
+
+        ByteBuffer toBuffer() {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(sourceStamp).putLong(gridSignature)
+                    .putInt(nx).putInt(ny).flip();
+            return buffer;
+        }
+
+        boolean matches(ByteBuffer buffer) {
+            return buffer.getInt() == MAGIC && buffer.getInt() == VERSION
+                    && buffer.getLong() == sourceStamp && buffer.getLong() == gridSignature
+                    && buffer.getInt() == nx && buffer.getInt() == ny;
+        }
+    }
+
+    private File getFile(GridVariableMetadata metadata, int tIndex, int zIndex, int factor) {
+        TimeAxis tAxis = metadata.getTemporalDomain();
+        VerticalAxis zAxis = metadata.getVerticalDomain();
+        String tKey = tAxis == null ? "none"
+                : Long.toString(tAxis.getCoordinateValue(tIndex).getMillis());
+        String zKey = zAxis == null ? "none" : zAxis.getCoordinateValue(zIndex).toString();
+        try {
+            File variableDir = new File(directory, URLEncoder.encode(metadata.getId(), "UTF-8"));
+            return new File(new File(variableDir, Integer.toString(factor)),
+                    tKey + "_" + zKey + EXTENSION);
+        } catch (UnsupportedEncodingException e) {
+            /* UTF-8 is always supported */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Reads a slice in bands of rows and writes every overview of it
+     */
+    private void buildSlice(GridDataSource dataSource, GridVariableMetadata metadata, int tIndex,
+            int zIndex, int[] factors, boolean categorical) throws IOException,
+            DataReadingException {
+        HorizontalGrid grid = metadata.getHorizontalDomain();
+        int nx = grid.getXSize();
+        int ny = grid.getYSize();
+        /*
+         * Each band of rows is a whole number of blocks at every level
+         */
+        int bandHeight = factors[factors.length - 1];
+
+        ChunkWriter[] writers = new ChunkWriter[factors.length];
+        try {
+            for (int level = 0; level < factors.length; level++) {
+                int factor = factors[level];
+                writers[level] = new ChunkWriter(getFile(metadata, tIndex, zIndex, factor),
+                        getHeader(grid, getLevelGrid(grid, factor)));
+            }
+            float[] band = new float[bandHeight * nx];
+            float[] block = new float[bandHeight * bandHeight];
+            for (int y0 = 0; y0 < ny; y0 += bandHeight) {
+                int rows = Math.min(bandHeight, ny - y0);
+                Array4D<Number> data = dataSource.read(metadata.getId(), tIndex, tIndex, zIndex,
+                        zIndex, y0, y0 + rows - 1, 0, nx - 1);
+                for (int y = 0; y < rows; y++) {
+                    for (int x = 0; x < nx; x++) {
+                        Number value = data.get(0, 0, y, x);
+                        band[y * nx + x] = value == null ? Float.NaN : value.floatValue();
+                    }
+                }
+                for (int level = 0; level < factors.length; level++) {
+                    int factor = factors[level];
+                    ChunkWriter writer = writers[level];
+                    for (int by = 0; by < rows; by += factor) {
+                        float[] row = new float[writer.nx];
+                        for (int bx = 0; bx < writer.nx; bx++) {
+                            int n = 0;
+                            for (int y = by; y < Math.min(rows, by + factor); y++) {
+                                for (int x = bx * factor; x < Math.min(nx,
+                                        (bx + 1) * factor); x++) {
+                                    float value = band[y * nx + x];
+                                    if (!Float.isNaN(value)) {
+                                        block[n++] = value;
+                                    }
+                                }
+                            }
+                            row[bx] = categorical ? mode(block, n) : mean(block, n);
+                        }
+                        writer.addRow(row);
+                    }
+                }
+            }
+            for (ChunkWriter writer : writers) {
+                writer.finish();
+            }
+        } finally {
+            for (ChunkWriter writer : writers) {
+                if (writer != null) {
+                    writer.discard();
+                }
+            }
+        }
+    }
+
+    private static float mean(float[] values, int n) {
+        if (n == 0) {
+            return Float.NaN;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+        }
+        return (float) (sum / n);
+    }
+
+    private static float mode(float[] values, int n) {
+        if (n == 0) {
+            return Float.NaN;
+        }
+        Arrays.sort(values, 0, n);
+        float mode = values[0];
+        int modeCount = 0;
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || values[i] != values[runStart]) {
+                if (i - runStart > modeCount) {
+                    modeCount = i - runStart;
+                    mode = values[runStart];
+                }
+                runStart = i;
+            }
+        }
+        return mode;
+    }
+
+    /*
+     * Writes one overview to a temporary file, a row of chunks at a time, and
+     * moves it into place once it is complete
+     */
+    private static final class ChunkWriter {
+        private final File file;
+        private final File tempFile;
+        private final int nx;
+        private final int nChunkCols;
+        private final FileChannel channel;
+        private final float[] chunkRows;
+        private int nRows = 0;
+
+        ChunkWriter(File file, Header header) throws IOException {
+            this.file = file;
+            this.nx = header.nx;
+            file.getParentFile().mkdirs();
+            tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            nChunkCols = (nx + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            chunkRows = new float[CHUNK_SIZE * nChunkCols * CHUNK_SIZE];
+            Arrays.fill(chunkRows, Float.NaN);
+            channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+            writeFully(header.toBuffer());
+        }
+
+        void addRow(float[] row) throws IOException {
+            System.arraycopy(row, 0, chunkRows, (nRows % CHUNK_SIZE) * nChunkCols * CHUNK_SIZE,
+                    row.length);
+            nRows++;
+            if (nRows % CHUNK_SIZE == 0) {
+                flushChunkRow();
+            }
+        }
+
+        private void flushChunkRow() throws IOException {
+            int rowLength = nChunkCols * CHUNK_SIZE;
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE * CHUNK_SIZE * 4)
+                    .order(ByteOrder.BIG_ENDIAN);
+            for (int cc = 0; cc < nChunkCols; cc++) {
+                chunk.clear();
+                for (int r = 0; r < CHUNK_SIZE; r++) {
+                    for (int c = 0; c < CHUNK_SIZE; c++) {
+                        chunk.putFloat(chunkRows[r * rowLength + cc * CHUNK_SIZE + c]);
+                    }
+                }
+                chunk.flip();
+                writeFully(chunk);
+            }
+            Arrays.fill(chunkRows, Float.NaN);
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        void finish() throws IOException {
+            if (nRows % CHUNK_SIZE != 0) {
+                flushChunkRow();
+            }
+            channel.close();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        void discard() {
+            try {
+                channel.close();
+                Files.deleteIfExists(tempFile.toPath());
+            } catch (IOException e) {
+                log.debug("Could not remove temporary overview file " + tempFile, e);
+            }
+        }
+    }
+
+    /**
+     * A single overview of a slice of a variable. This is a
+     * {@link GridDataSource} containing a single time and elevation of a
+     * single variable, so the variable ID and the time and vertical indices
+     * passed to it are ignored.
+     */
+    public static final class Overview implements GridDataSource {
+        private final File file;
+        private final RectilinearGrid grid;
+        private final Header expectedHeader;
+        private FileChannel channel = null;
+
+        private Overview(File file, RectilinearGrid grid, Header expectedHeader) {
+            this.file = file;
+            this.grid = grid;
+            this.expectedHeader = expectedHeader;
+        }
+
+        /**
+         * @return The grid of this overview
+         */
+        public RectilinearGrid getGrid() {
+            return grid;
+        }
+
+        @Override
+        public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax,
+                int ymin, int ymax, int xmin, int xmax) throws IOException,
+                DataReadingException {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                if (!expectedHeader.matches(readFully(0L, HEADER_BYTES))) {
+                    /*
+                     * Replaced since it was found, e.g. by a build for data
+                     * which have since changed
+                     */
+                    throw new DataReadingException("The overview " + file
+                            + " does not match its variable");
+                }
+            }
+            final int xSize = xmax - xmin + 1;
+            final int ySize = ymax - ymin + 1;
+            final float[] values = new float[xSize * ySize];
+            int nChunkCols = (grid.getXSize() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            long chunkBytes = CHUNK_SIZE * CHUNK_SIZE * 4L;
+            for (int cr = ymin / CHUNK_SIZE; cr <= ymax / CHUNK_SIZE; cr++) {
+                for (int cc = xmin / CHUNK_SIZE; cc <= xmax / CHUNK_SIZE; cc++) {
+                    ByteBuffer chunk = readFully(
+                            HEADER_BYTES + (cr * (long) nChunkCols + cc) * chunkBytes,
+                            (int) chunkBytes);
+                    int y0 = Math.max(ymin, cr * CHUNK_SIZE);
+                    int y1 = Math.min(ymax, (cr + 1) * CHUNK_SIZE - 1);
+                    int x0 = Math.max(xmin, cc * CHUNK_SIZE);
+                    int x1 = Math.min(xmax, (cc + 1) * CHUNK_SIZE - 1);
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            values[(y - ymin) * xSize + x - xmin] = chunk.getFloat(
+                                    ((y - cr * CHUNK_SIZE) * CHUNK_SIZE + x - cc * CHUNK_SIZE)
+                                            * 4);
+                        }
+                    }
+                }
+            }
+            return new Array4D<Number>(1, 1, ySize, xSize) {
+                @Override
+                public Number get(int... coords) {
+                    float value = values[coords[2] * xSize + coords[3]];
+                    return Float.isNaN(value) ? null : value;
+                }
+
+                @Override
+                public void set(Number value, int... coords) {
+                    throw new UnsupportedOperationException("This Array4D is immutable");
+                }
+            };
+        }
+
+        private ByteBuffer readFully(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.BIG_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of overview file " + file);
+                }
+            }
+            RequestMetrics.addBytesRead(length);
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws DataReadingException {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    throw new DataReadingException("Could not close overview " + file, e);
+                }
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ package uk.ac.rdg.resc.edal.dataset;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -43,6 +44,7 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.ac.rdg.resc.edal.dataset.PointReadPlanner.BlockRead;
 import uk.ac.rdg.resc.edal.dataset.plugins.VariablePlugin;
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.domain.GridDomain;
@@ -69,10 +71,14 @@ import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
 import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
 import uk.ac.rdg.resc.edal.metadata.Parameter;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.util.Array1D;
 import uk.ac.rdg.resc.edal.util.Array2D;
 import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.DoubleArray1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
 import uk.ac.rdg.resc.edal.util.GridCoordinates2D;
 import uk.ac.rdg.resc.edal.util.ValuesArray1D;
 
@@ -87,10 +93,34 @@ public abstract class GriddedDataset extends DiscreteLayeredDataset<GridDataSour
     private static final Logger log = LoggerFactory.getLogger(GriddedDataset.class);
     private static final long serialVersionUID = 1L;
 
+    private transient volatile GridOverviews overviews = null;
+
     public GriddedDataset(String id, Collection<GridVariableMetadata> vars) {
         super(id, vars);
     }
 
+    /**
+     * Sets the reduced-resolution overviews of this dataset. When these are
+     * set, maps which are much coarser than the source grid are read from the
+     * coarsest suitable overview (where it has been built) rather than from
+     * the source data.
+     * 
+     * @param overviews
+     *            The {@link GridOverviews} of this dataset, or
+     *            <code>null</code> to always read the source data
+     */
+    public void setOverviews(GridOverviews overviews) {
+        this.overviews = overviews;
+    }
+
+    /**
+     * @return The {@link GridOverviews} of this dataset, or <code>null</code>
+     *         if it has none
+     */
+    public GridOverviews getOverviews() {
+        return overviews;
+    }
+
     @Override
     public Class<GridFeature> getFeatureType(String variableId) {
         /*
@@ -561,11 +591,33 @@ public abstract class GriddedDataset extends DiscreteLayeredDataset<GridDataSour
          */
         Domain2DMapper domainMapper = Domain2DMapper.forGrid(sourceGrid, targetGrid);
 
+        /*
+         * If the target grid is much coarser than the source, read from an
+         * overview instead. These are small, local files, so a single read of
+         * the bounding box is best.
+         */
+        GridOverviews overviews = this.overviews;
+        if (overviews != null) {
+            GridOverviews.Overview overview = overviews.findOverview(metadata, tIndex, zIndex,
+                    domainMapper);
+            if (overview != null) {
+                Domain2DMapper overviewMapper = Domain2DMapper.forGrid(overview.getGrid(),
+                        targetGrid);
+                try (GridOverviews.Overview overviewSource = overview;
+                        RequestMetrics.Timer timer = RequestMetrics.time(Stage.DATA_READ)) {
+                    return DataReadingStrategy.BOUNDING_BOX.readMapData(overviewSource,
+                            metadata.getId(), 0, 0, overviewMapper);
+                } catch (IOException | DataReadingException e) {
+                    log.warn("Problem reading overview.  Reading source data instead", e);
+                }
+            }
+        }
+
         /*
          * Now use the appropriate DataReadingStrategy to read data
          */
         Array2D<Number> data;
-        try {
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DATA_READ)) {
             data = getDataReadingStrategy().readMapData(dataSource, metadata.getId(), tIndex, zIndex, domainMapper);
         } catch (IOException e) {
             log.warn("Problem reading data", e);
@@ -650,5 +702,132 @@ public abstract class GriddedDataset extends DiscreteLayeredDataset<GridDataSour
         }
     }
 
+    /**
+     * Extracts data for a number of points, using a {@link PointReadPlanner}
+     * to combine nearby points into a small number of block reads. The
+     * values keep the type returned by the data source, as they do in
+     * {@link GriddedDataset#extractPoint}: {@link Float}s and {@link Double}s
+     * are stored in primitive arrays, and any other types are stored as they
+     * are.
+     */
+    @Override
+    protected Array1D<Number> extractPoints(GridVariableMetadata metadata, int[] ts, int[] zs,
+            List<HorizontalPosition> hPositions, GridDataSource dataSource)
+            throws DataReadingException {
+        HorizontalGrid hGrid = metadata.getHorizontalDomain();
+        int nPoints = hPositions.size();
+        int[] ys = new int[nPoints];
+        int[] xs = new int[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            GridCoordinates2D hIndices = hGrid.findIndexOf(hPositions.get(i));
+            if (hIndices == null) {
+                ys[i] = -1;
+                xs[i] = -1;
+            } else {
+                ys[i] = hIndices.getY();
+                xs[i] = hIndices.getX();
+            }
+        }
+
+        /*
+         * The type of the values isn't known until the first one is read
+         */
+        Array1D<Number> data = null;
+        for (BlockRead block : new PointReadPlanner().plan(ts, zs, ys, xs)) {
+            Array4D<Number> blockData;
+            try {
+                blockData = dataSource.read(metadata.getId(), block.t, block.t, block.z, block.z,
+                        block.ymin, block.ymax, block.xmin, block.xmax);
+            } catch (IOException e) {
+                throw new DataReadingException("Problem reading underlying data", e);
+            }
+            for (int i : block.points) {
+                Number value = blockData.get(0, 0, ys[i] - block.ymin, xs[i] - block.xmin);
+                if (value == null) {
+                    /*
+                     * All arrays start with every value missing
+                     */
+                    continue;
+                }
+                if (data == null) {
+                    data = newPointsArray(value, nPoints);
+                } else if ((data instanceof FloatArray1D && !(value instanceof Float))
+                        || (data instanceof DoubleArray1D && !(value instanceof Double))) {
+                    /*
+                     * The data source has returned mixed types, so keep them
+                     * all as they are
+                     */
+                    Array1D<Number> mixedData = new ValuesArray1D(nPoints);
+                    for (int j = 0; j < nPoints; j++) {
+                        mixedData.set(data.get(j), j);
+                    }
+                    data = mixedData;
+                }
+                data.set(value, i);
+            }
+        }
+        return data == null ? new ValuesArray1D(nPoints) : data;
+    }
+
+    private static Array1D<Number> newPointsArray(Number value, int size) {
+        if (value instanceof Float) {
+            return new FloatArray1D(size);
+        } else if (value instanceof Double) {
+            return new DoubleArray1D(size);
+        } else {
+            return new ValuesArray1D(size);
+        }
+    }
+
+    @Override
+    protected float[] extractVerticalSectionData(GridVariableMetadata metadata, int tIndex,
+            List<HorizontalPosition> hPositions, GridDataSource dataSource)
+            throws DataReadingException {
+        HorizontalGrid hGrid = metadata.getHorizontalDomain();
+        int nPositions = hPositions.size();
+        int nLevels = metadata.getVerticalDomain().size();
+        int[] ys = new int[nPositions];
+        int[] xs = new int[nPositions];
+        for (int i = 0; i < nPositions; i++) {
+            GridCoordinates2D hIndices = hGrid.findIndexOf(hPositions.get(i));
+            if (hIndices == null) {
+                ys[i] = -1;
+                xs[i] = -1;
+            } else {
+                ys[i] = hIndices.getY();
+                xs[i] = hIndices.getX();
+            }
+        }
+
+        float[] values = new float[nLevels * nPositions];
+        Arrays.fill(values, Float.NaN);
+        /*
+         * Plan the horizontal footprint of the path as a set of bounding
+         * boxes, then read the full depth of each box in one go. The cell
+         * limit for each read is shared between all of the levels.
+         */
+        PointReadPlanner planner = new PointReadPlanner(PointReadPlanner.DEFAULT_CELLS_PER_POINT,
+                Math.max(1, PointReadPlanner.DEFAULT_MAX_CELLS / nLevels));
+        int[] zeros = new int[nPositions];
+        for (BlockRead block : planner.plan(zeros, zeros, ys, xs)) {
+            Array4D<Number> blockData;
+            try {
+                blockData = dataSource.read(metadata.getId(), tIndex, tIndex, 0, nLevels - 1,
+                        block.ymin, block.ymax, block.xmin, block.xmax);
+            } catch (IOException e) {
+                throw new DataReadingException("Problem reading underlying data", e);
+            }
+            for (int z = 0; z < nLevels; z++) {
+                for (int i : block.points) {
+                    Number value = blockData.get(0, z, ys[i] - block.ymin, xs[i] - block.xmin);
+                    if (value != null) {
+                        values[z * nPositions + i] = value.floatValue();
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
     protected abstract DataReadingStrategy getDataReadingStrategy();
 }
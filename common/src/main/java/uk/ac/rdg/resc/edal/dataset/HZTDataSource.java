@@ -29,9 +29,14 @@
 package uk.ac.rdg.resc.edal.dataset;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.DoubleArray1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
+import uk.ac.rdg.resc.edal.util.ValuesArray1D;
 
 /**
  * A {@link DataSource} which reads data from a domain where the horizontal
@@ -55,6 +60,73 @@ public interface HZTDataSource extends DataSource {
     public List<Number> read(String variableId, List<MeshCoordinates3D> coordsToRead)
             throws DataReadingException;
 
+    /**
+     * Read the underlying data for a set of co-ordinates supplied as primitive
+     * index arrays. All arrays must be the same length, and the co-ordinates
+     * of the <code>i</code>th point are
+     * <code>(hs[i], zs[i], ts[i])</code>. A negative index denotes a point
+     * for which there is no data.
+     * 
+     * Values keep the type of the underlying data. {@link Float}s and
+     * {@link Double}s are stored in a {@link FloatArray1D} or a
+     * {@link DoubleArray1D} respectively, and any other types are stored as
+     * they are.
+     * 
+     * Implementations should override this to avoid creating a
+     * {@link MeshCoordinates3D} object and a boxed value per point. This
+     * default implementation delegates to
+     * {@link HZTDataSource#read(String, List)}.
+     * 
+     * @param variableId
+     *            The variable to read
+     * @param hs
+     *            The horizontal indices to read
+     * @param zs
+     *            The z-indices to read
+     * @param ts
+     *            The t-indices to read
+     * @return An {@link Array1D} of data corresponding to the provided
+     *         co-ordinates, with missing values returned as <code>null</code>
+     * @throws DataReadingException
+     *             If there is a problem reading the underlying data
+     */
+    public default Array1D<Number> read(String variableId, int[] hs, int[] zs, int[] ts)
+            throws DataReadingException {
+        List<MeshCoordinates3D> coordsToRead = new ArrayList<>(hs.length);
+        for (int i = 0; i < hs.length; i++) {
+            coordsToRead.add(new MeshCoordinates3D(hs[i], zs[i], ts[i]));
+        }
+        List<Number> values = read(variableId, coordsToRead);
+
+        /*
+         * Use a primitive array only if every value has the same type
+         */
+        Class<?> type = null;
+        for (Number value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (type == null) {
+                type = value.getClass();
+            } else if (type != value.getClass()) {
+                type = Number.class;
+                break;
+            }
+        }
+        Array1D<Number> ret;
+        if (type == Float.class) {
+            ret = new FloatArray1D(hs.length);
+        } else if (type == Double.class) {
+            ret = new DoubleArray1D(hs.length);
+        } else {
+            ret = new ValuesArray1D(hs.length);
+        }
+        for (int i = 0; i < hs.length; i++) {
+            ret.set(values.get(i), i);
+        }
+        return ret;
+    }
+
     /**
      * Class representing a set of 3 integer co-ordinates.
      * 
@@ -29,9 +29,8 @@
 package uk.ac.rdg.resc.edal.dataset;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -45,7 +44,6 @@ import net.sf.ehcache.config.PersistenceConfiguration;
 import net.sf.ehcache.config.PersistenceConfiguration.Strategy;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 import uk.ac.rdg.resc.edal.cache.EdalCache;
-import uk.ac.rdg.resc.edal.dataset.HZTDataSource.MeshCoordinates3D;
 import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
 import uk.ac.rdg.resc.edal.exceptions.VariableNotFoundException;
 import uk.ac.rdg.resc.edal.feature.DiscreteFeature;
@@ -55,11 +53,12 @@ import uk.ac.rdg.resc.edal.grid.GridCell2D;
 import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
 import uk.ac.rdg.resc.edal.grid.HorizontalMesh;
 import uk.ac.rdg.resc.edal.metadata.HorizontalMesh4dVariableMetadata;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.util.Array1D;
 import uk.ac.rdg.resc.edal.util.Array2D;
 import uk.ac.rdg.resc.edal.util.GridCoordinates2D;
-import uk.ac.rdg.resc.edal.util.ValuesArray1D;
 import uk.ac.rdg.resc.edal.util.ValuesArray2D;
 
 /**
@@ -106,47 +105,52 @@ public abstract class HorizontalMesh4dDataset
         HorizontalMesh grid = metadata.getHorizontalDomain();
 
         /*
-         * Create a list of coordinates to read to extract all of the horizontal
-         * data, and a corresponding list of 2D coordinates in which to store
-         * the output data
+         * Find the mesh index of every cell in the target grid, and the grid
+         * co-ordinates in which to store the corresponding output value
          */
-        List<GridCoordinates2D> outputCoords;
-        List<MeshCoordinates3D> coordsToRead;
         MeshDatasetCacheElement meshDatasetCacheElement;
-
         MeshCacheKey key = new MeshCacheKey(targetGrid, grid);
         if (meshDatasetCache.isKeyInCache(key)) {
             meshDatasetCacheElement = (MeshDatasetCacheElement) meshDatasetCache.get(key)
                     .getObjectValue();
-            outputCoords = meshDatasetCacheElement.getOutputCoords();
-            coordsToRead = meshDatasetCacheElement.getCoordsToRead();
         } else {
-            outputCoords = new ArrayList<>();
-            coordsToRead = new ArrayList<>();
+            int size = (int) targetGrid.size();
+            int[] hIndices = new int[size];
+            int[] outputXs = new int[size];
+            int[] outputYs = new int[size];
+            int i = 0;
             for (GridCell2D cell : targetGrid.getDomainObjects()) {
-                HorizontalPosition centre = cell.getCentre();
                 GridCoordinates2D coordinates = cell.getGridCoordinates();
-                int hIndex = grid.findIndexOf(centre);
-                MeshCoordinates3D meshCoords = new MeshCoordinates3D(hIndex, zIndex, tIndex);
-                outputCoords.add(coordinates);
-                coordsToRead.add(meshCoords);
+                hIndices[i] = grid.findIndexOf(cell.getCentre());
+                outputXs[i] = coordinates.getX();
+                outputYs[i] = coordinates.getY();
+                i++;
             }
-            meshDatasetCacheElement = new MeshDatasetCacheElement(outputCoords, coordsToRead);
+            meshDatasetCacheElement = new MeshDatasetCacheElement(hIndices, outputXs, outputYs);
             meshDatasetCache.put(new Element(key, meshDatasetCacheElement));
         }
+        int[] hIndices = meshDatasetCacheElement.getHIndices();
+        int[] outputXs = meshDatasetCacheElement.getOutputXs();
+        int[] outputYs = meshDatasetCacheElement.getOutputYs();
 
         /*
          * Now perform the actual read
          */
-        List<Number> dataVals = dataSource.read(metadata.getId(), coordsToRead);
+        Array1D<Number> dataVals;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DATA_READ)) {
+            dataVals = dataSource.read(metadata.getId(), hIndices,
+                    filled(hIndices.length, zIndex), filled(hIndices.length, tIndex));
+        }
 
         /*
          * And finally populate the output array with the read values
          */
         Array2D<Number> data = new ValuesArray2D(targetGrid.getYSize(), targetGrid.getXSize());
-        for (int i = 0; i < dataVals.size(); i++) {
-            GridCoordinates2D outputCoord = outputCoords.get(i);
-            data.set(dataVals.get(i), outputCoord.getY(), outputCoord.getX());
+        for (int i = 0; i < hIndices.length; i++) {
+            Number value = dataVals.get(i);
+            if (value != null) {
+                data.set(value, outputYs[i], outputXs[i]);
+            }
         }
         return data;
     }
@@ -159,27 +163,18 @@ public abstract class HorizontalMesh4dDataset
         int hIndex = hDomain.findIndexOf(hPos);
 
         /*
-         * Populate the list of coordinates to read
+         * Populate the indices to read
          */
-        List<MeshCoordinates3D> coordsToRead = new ArrayList<>();
-        for (Integer z : zs) {
-            coordsToRead.add(new MeshCoordinates3D(hIndex, z, tIndex));
+        int[] zIndices = new int[zs.size()];
+        for (int i = 0; i < zIndices.length; i++) {
+            zIndices[i] = zs.get(i);
         }
 
         /*
          * Do the reading
          */
-        List<Number> dataVals = dataSource.read(metadata.getId(), coordsToRead);
-
-        /*
-         * Populate the output array
-         */
-        int i = 0;
-        Array1D<Number> data = new ValuesArray1D(zs.size());
-        for (Number value : dataVals) {
-            data.set(value, new int[] { i++ });
-        }
-        return data;
+        return dataSource.read(metadata.getId(), filled(zIndices.length, hIndex), zIndices,
+                filled(zIndices.length, tIndex));
     }
 
     @Override
@@ -190,27 +185,18 @@ public abstract class HorizontalMesh4dDataset
         int hIndex = hDomain.findIndexOf(hPos);
 
         /*
-         * Populate the list of coordinates to read
+         * Populate the indices to read
          */
-        List<MeshCoordinates3D> coordsToRead = new ArrayList<>();
-        for (Integer t : ts) {
-            coordsToRead.add(new MeshCoordinates3D(hIndex, zIndex, t));
+        int[] tIndices = new int[ts.size()];
+        for (int i = 0; i < tIndices.length; i++) {
+            tIndices[i] = ts.get(i);
         }
 
         /*
          * Do the reading
          */
-        List<Number> dataVals = dataSource.read(metadata.getId(), coordsToRead);
-
-        /*
-         * Populate the output array
-         */
-        int i = 0;
-        Array1D<Number> data = new ValuesArray1D(ts.size());
-        for (Number value : dataVals) {
-            data.set(value, new int[] { i++ });
-        }
-        return data;
+        return dataSource.read(metadata.getId(), filled(tIndices.length, hIndex),
+                filled(tIndices.length, zIndex), tIndices);
     }
 
     @Override
@@ -221,8 +207,30 @@ public abstract class HorizontalMesh4dDataset
         if (hIndex == -1) {
             return null;
         }
-        return dataSource.read(metadata.getId(),
-                Collections.singletonList(new MeshCoordinates3D(hIndex, z, t))).get(0);
+        return dataSource.read(metadata.getId(), new int[] { hIndex }, new int[] { z },
+                new int[] { t }).get(0);
+    }
+
+    @Override
+    protected Array1D<Number> extractPoints(HorizontalMesh4dVariableMetadata metadata, int[] ts,
+            int[] zs, List<HorizontalPosition> hPositions, HZTDataSource dataSource)
+            throws DataReadingException {
+        /*
+         * Read all of the points in a single call. Points outside the mesh
+         * have a horizontal index of -1, and are returned as missing.
+         */
+        HorizontalMesh hGrid = metadata.getHorizontalDomain();
+        int[] hIndices = new int[hPositions.size()];
+        for (int i = 0; i < hIndices.length; i++) {
+            hIndices[i] = hGrid.findIndexOf(hPositions.get(i));
+        }
+        return dataSource.read(metadata.getId(), hIndices, zs, ts);
+    }
+
+    private static int[] filled(int size, int value) {
+        int[] ret = new int[size];
+        Arrays.fill(ret, value);
+        return ret;
     }
 
     /*
@@ -1243,21 +1243,63 @@ public abstract class HorizontallyDiscreteDataset<DS extends DataSource> extends
         }
     }
 
+    /**
+     * Reads the values of several variables at a single point, opening the
+     * underlying data source only once
+     * 
+     * @param variableIds
+     *            The IDs of the variables to read
+     * @param position
+     *            The {@link HorizontalPosition} to read at
+     * @param zVal
+     *            The elevation to read at
+     * @param time
+     *            The time to read at
+     * @return A {@link Map} of variable IDs to values. Values will be
+     *         <code>null</code> if there is no data at the given point.
+     */
+    public final Map<String, Number> readSinglePoint(Collection<String> variableIds,
+            HorizontalPosition position, Double zVal, DateTime time)
+            throws DataReadingException, VariableNotFoundException {
+        Map<String, Number> values = new LinkedHashMap<>();
+        try (DS dataSource = openDataSource()) {
+            for (String variableId : variableIds) {
+                values.put(variableId, readPointData(variableId, position, zVal, time,
+                        dataSource));
+            }
+        }
+        return values;
+    }
+
     private final Array1D<Number> readMultiplePointData(String variableId,
             List<GeoPosition> positions, DS dataSource) throws DataReadingException,
             VariableNotFoundException {
-        Array1D<Number> data = new ValuesArray1D(positions.size());
-        for (int i = 0; i < positions.size(); i++) {
-            GeoPosition position = positions.get(i);
-            Double z = null;
-            if (position.getVerticalPosition() != null) {
-                z = position.getVerticalPosition().getZ();
+        VariablePlugin plugin = isDerivedVariable(variableId);
+        if (plugin != null) {
+            /*
+             * We have a derived variable - read all of the required variables
+             * at every position first, then derive the values point-by-point.
+             */
+            String[] baseVariables = plugin.usesVariables();
+            @SuppressWarnings("unchecked")
+            Array1D<Number>[] baseData = new Array1D[baseVariables.length];
+            for (int i = 0; i < baseVariables.length; i++) {
+                baseData[i] = readUnderlyingMultiplePointData(baseVariables[i], positions,
+                        dataSource);
+            }
+            Array1D<Number> data = new ValuesArray1D(positions.size());
+            Number[] baseValues = new Number[baseVariables.length];
+            for (int p = 0; p < positions.size(); p++) {
+                for (int i = 0; i < baseVariables.length; i++) {
+                    baseValues[i] = baseData[i].get(p);
+                }
+                data.set(plugin.getValue(variableId, positions.get(p).getHorizontalPosition(),
+                        baseValues), p);
             }
-            Number value = readPointData(variableId, position.getHorizontalPosition(), z,
-                    position.getTime(), dataSource);
-            data.set(value, i);
+            return data;
+        } else {
+            return readUnderlyingMultiplePointData(variableId, positions, dataSource);
         }
-        return data;
     }
 
     private Number readPointData(String variableId, HorizontalPosition position, Double zVal,
@@ -1443,6 +1485,41 @@ public abstract class HorizontallyDiscreteDataset<DS extends DataSource> extends
             HorizontalPosition position, Double zVal, DateTime time, DS dataSource)
             throws DataReadingException, VariableNotFoundException;
 
+    /**
+     * Reads data for a non-derived variable at a number of positions. This
+     * default implementation reads each point separately - subclasses which
+     * can read points more efficiently in bulk should override it.
+     * 
+     * @param variableId
+     *            The ID of the variable to read
+     * @param positions
+     *            The {@link GeoPosition}s at which to read data
+     * @param dataSource
+     *            The {@link DataSource} to read from
+     * @return An {@link Array1D} containing a value for each position.
+     *         Positions with no data will have <code>null</code> values.
+     * @throws DataReadingException
+     *             If there is a problem reading the data
+     * @throws VariableNotFoundException
+     *             If the requested variable is not present in the
+     *             {@link Dataset}
+     */
+    protected Array1D<Number> readUnderlyingMultiplePointData(String variableId,
+            List<GeoPosition> positions, DS dataSource) throws DataReadingException,
+            VariableNotFoundException {
+        Array1D<Number> data = new ValuesArray1D(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            GeoPosition position = positions.get(i);
+            Double z = null;
+            if (position.getVerticalPosition() != null) {
+                z = position.getVerticalPosition().getZ();
+            }
+            data.set(readUnderlyingPointData(variableId, position.getHorizontalPosition(), z,
+                    position.getTime(), dataSource), i);
+        }
+        return data;
+    }
+
     /**
      * Reads horizontal data for a non-derived variable
      * 
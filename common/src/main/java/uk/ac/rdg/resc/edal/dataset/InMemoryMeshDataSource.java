@@ -62,7 +62,7 @@ public class InMemoryMeshDataSource implements HZTDataSource {
         }
         return ret;
     }
-    
+
     @Override
     public void close() throws DataReadingException {
     }
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sis.referencing.CRS;
+import org.apache.sis.referencing.CommonCRS;
+import org.joda.time.DateTime;
+import org.opengis.referencing.operation.MathTransform;
+
+import uk.ac.rdg.resc.edal.dataset.FeatureIndexer.FeatureBounds;
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Thins out the features to be drawn on a map image, before they are read, so
+ * that only one feature is kept for each pixel of the image. Within each pixel
+ * the feature nearest to the target time is kept, then the feature nearest to
+ * the target elevation. The other features in each pixel are kept in the same
+ * order, as fallbacks for features which turn out to have no data.
+ * 
+ * Features are placed at the centre of their indexed bounds, which must be in
+ * WGS84, as they are in a {@link PRTreeFeatureIndexer}. Features which cannot
+ * be placed on the image are always kept.
+ */
+final class MapFeatureDecimator {
+    private MapFeatureDecimator() {
+    }
+
+    /**
+     * Chooses one feature to represent each pixel of a map image
+     * 
+     * @param features
+     *            The bounds of the candidate features
+     * @param bbox
+     *            The {@link BoundingBox} of the image
+     * @param width
+     *            The width of the image, in pixels
+     * @param height
+     *            The height of the image, in pixels
+     * @param targetZ
+     *            The target elevation, or <code>null</code>
+     * @param targetT
+     *            The target time, or <code>null</code>
+     * @return The IDs of the features to read
+     */
+    static List<String> decimate(Collection<FeatureBounds> features, BoundingBox bbox, int width,
+            int height, Double targetZ, DateTime targetT) {
+        List<String> ids = new ArrayList<>();
+        for (List<String> candidates : rankCandidates(features, bbox, width, height, targetZ,
+                targetT)) {
+            ids.add(candidates.get(0));
+        }
+        return ids;
+    }
+
+    /**
+     * Groups the features to be drawn on a map image by the pixel they fall
+     * in, so that if the best feature for a pixel turns out to have no data,
+     * the next best can be read in its place.
+     * 
+     * @param features
+     *            The bounds of the candidate features
+     * @param bbox
+     *            The {@link BoundingBox} of the image
+     * @param width
+     *            The width of the image, in pixels
+     * @param height
+     *            The height of the image, in pixels
+     * @param targetZ
+     *            The target elevation, or <code>null</code>
+     * @param targetT
+     *            The target time, or <code>null</code>
+     * @return The IDs of the candidate features for each pixel, best first.
+     *         Each feature which cannot be placed on the image is returned as
+     *         a pixel of its own.
+     */
+    static List<List<String>> rankCandidates(Collection<FeatureBounds> features,
+            BoundingBox bbox, int width, int height, Double targetZ, DateTime targetT) {
+        int n = features.size();
+        FeatureBounds[] bounds = features.toArray(new FeatureBounds[n]);
+        double[] points = new double[2 * n];
+        for (int f = 0; f < n; f++) {
+            BoundingBox hBbox = bounds[f].hBbox;
+            points[2 * f] = 0.5 * (hBbox.getMinX() + hBbox.getMaxX());
+            points[2 * f + 1] = 0.5 * (hBbox.getMinY() + hBbox.getMaxY());
+        }
+        boolean wgs84 = GISUtils.isWgs84LonLat(bbox.getCoordinateReferenceSystem());
+        if (wgs84) {
+            for (int f = 0; f < n; f++) {
+                points[2 * f] = GISUtils.getNextEquivalentLongitude(bbox.getMinX(), points[2 * f]);
+            }
+        } else {
+            try {
+                MathTransform transform = CRS.findOperation(CommonCRS.WGS84.normalizedGeographic(),
+                        bbox.getCoordinateReferenceSystem(), null).getMathTransform();
+                transform.transform(points, 0, points, 0, n);
+            } catch (Exception e) {
+                /*
+                 * We can't place the features on the image, so don't thin them
+                 */
+                List<List<String>> ids = new ArrayList<>(n);
+                for (FeatureBounds feature : bounds) {
+                    ids.add(Collections.singletonList(feature.id));
+                }
+                return ids;
+            }
+        }
+
+        double xScale = width / bbox.getWidth();
+        double yScale = height / bbox.getHeight();
+
+        List<List<String>> ids = new ArrayList<>();
+        Map<Integer, List<FeatureBounds>> cells = new HashMap<>();
+        for (int f = 0; f < n; f++) {
+            double i = Math.floor((points[2 * f] - bbox.getMinX()) * xScale);
+            double j = Math.floor((points[2 * f + 1] - bbox.getMinY()) * yScale);
+            if (!(i >= 0 && i < width && j >= 0 && j < height)) {
+                ids.add(Collections.singletonList(bounds[f].id));
+                continue;
+            }
+            Integer cell = (int) j * width + (int) i;
+            List<FeatureBounds> candidates = cells.get(cell);
+            if (candidates == null) {
+                candidates = new ArrayList<>(1);
+                cells.put(cell, candidates);
+            }
+            candidates.add(bounds[f]);
+        }
+        Comparator<FeatureBounds> ranking = ranking(targetZ,
+                targetT == null ? null : targetT.getMillis());
+        for (List<FeatureBounds> candidates : cells.values()) {
+            candidates.sort(ranking);
+            List<String> cellIds = new ArrayList<>(candidates.size());
+            for (FeatureBounds feature : candidates) {
+                cellIds.add(feature.id);
+            }
+            ids.add(cellIds);
+        }
+        return ids;
+    }
+
+    /*
+     * Orders the features in a pixel, best representative first
+     */
+    private static Comparator<FeatureBounds> ranking(Double targetZ, Long targetT) {
+        return (candidate, current) -> {
+            if (targetT != null) {
+                int cmp = Long.compare(distance(candidate.timeExtent, targetT),
+                        distance(current.timeExtent, targetT));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            if (targetZ != null) {
+                int cmp = Double.compare(distance(candidate.verticalExtent, targetZ),
+                        distance(current.verticalExtent, targetZ));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            /*
+             * Break ties consistently, so that the same feature is chosen
+             * whatever order the index returns them in
+             */
+            return candidate.id.compareTo(current.id);
+        };
+    }
+
+    private static long distance(Extent<Long> extent, long target) {
+        if (target < extent.getLow()) {
+            return extent.getLow() - target;
+        } else if (target > extent.getHigh()) {
+            return target - extent.getHigh();
+        }
+        return 0L;
+    }
+
+    private static double distance(Extent<Double> extent, double target) {
+        if (target < extent.getLow()) {
+            return extent.getLow() - target;
+        } else if (target > extent.getHigh()) {
+            return target - extent.getHigh();
+        }
+        return 0.0;
+    }
+}
@@ -1,31 +1,35 @@
 package uk.ac.rdg.resc.edal.dataset;
 
-import uk.ac.rdg.resc.edal.util.GridCoordinates2D;
-
 import java.io.Serializable;
-import java.util.List;
 
 /**
- * Element used in {@link HorizontalMesh4dDataset} cache.
+ * Element used in {@link HorizontalMesh4dDataset} cache. This maps each cell
+ * of a target grid onto the index of the mesh node which contains it.
  *
  * @author Jesse Lopez
  */
 class MeshDatasetCacheElement implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+
+    int[] hIndices;
+    int[] outputXs;
+    int[] outputYs;
 
-    List<GridCoordinates2D> outputCoords;
-    List<HZTDataSource.MeshCoordinates3D> coordsToRead;
+    MeshDatasetCacheElement(int[] hIndices, int[] outputXs, int[] outputYs) {
+        this.hIndices = hIndices;
+        this.outputXs = outputXs;
+        this.outputYs = outputYs;
+    }
 
-    MeshDatasetCacheElement(List<GridCoordinates2D> outputCoords, List<HZTDataSource.MeshCoordinates3D> coordsToRead) {
-        this.outputCoords = outputCoords;
-        this.coordsToRead = coordsToRead;
+    int[] getHIndices() {
+        return hIndices;
     }
 
-    List<GridCoordinates2D> getOutputCoords() {
-        return outputCoords;
+    int[] getOutputXs() {
+        return outputXs;
     }
 
-    List<HZTDataSource.MeshCoordinates3D> getCoordsToRead() {
-        return coordsToRead;
+    int[] getOutputYs() {
+        return outputYs;
     }
 }
@@ -122,6 +122,19 @@ public class PRTreeFeatureIndexer
     public Collection<String> findFeatureIds(BoundingBox horizontalExtent,
             Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
             Collection<String> variableIds) {
+        Collection<FeatureBounds> features = findFeatureBounds(horizontalExtent, verticalExtent,
+                timeExtent, variableIds);
+        Collection<String> featureIds = new ArrayList<>(features.size());
+        for (FeatureBounds feature : features) {
+            featureIds.add(feature.id);
+        }
+        return featureIds;
+    }
+
+    @Override
+    public Collection<FeatureBounds> findFeatureBounds(BoundingBox horizontalExtent,
+            Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
+            Collection<String> variableIds) {
 
         if (!GISUtils.isWgs84LonLat(horizontalExtent.getCoordinateReferenceSystem())) {
             GeographicBoundingBox geographicBoundingBox = GISUtils
@@ -151,8 +164,7 @@ public class PRTreeFeatureIndexer
          * Check to see if we have a bounding box which crosses the date line.
          * If so, make 2 requests to the PRTree
          */
-        Collection<String> featureIds = new ArrayList<>();
-        Iterable<FeatureBounds> features;
+        Collection<FeatureBounds> matchingFeatures = new ArrayList<>();
         if (horizontalExtent.getMaxX() > 180) {
             if (horizontalExtent.getMaxX() > 540) {
                 /*
@@ -160,47 +172,48 @@ public class PRTreeFeatureIndexer
                  */
                 MBR mbr = new SimpleMBR(-180, 180, horizontalExtent.getMinY(),
                         horizontalExtent.getMaxY(), zLow, zHigh, tLow, tHigh);
-                features = prTree.find(mbr);
+                addMatchingFeatures(prTree.find(mbr), variableIds, null, matchingFeatures);
             } else {
-                MBR mbr = new SimpleMBR(horizontalExtent.getMinX(), 180, horizontalExtent.getMinY(),
-                        horizontalExtent.getMaxY(), zLow, zHigh, tLow, tHigh);
-                features = prTree.find(mbr);
-                for (FeatureBounds feature : features) {
-                    featureIds.add(feature.id);
-                }
+                MBR westMbr = new SimpleMBR(horizontalExtent.getMinX(), 180,
+                        horizontalExtent.getMinY(), horizontalExtent.getMaxY(), zLow, zHigh, tLow,
+                        tHigh);
+                addMatchingFeatures(prTree.find(westMbr), variableIds, null, matchingFeatures);
 
-                mbr = new SimpleMBR(-180,
+                MBR eastMbr = new SimpleMBR(-180,
                         GISUtils.constrainLongitude180(horizontalExtent.getMaxX()),
                         horizontalExtent.getMinY(), horizontalExtent.getMaxY(), zLow, zHigh, tLow,
                         tHigh);
-                features = prTree.find(mbr);
-            }
-            for (FeatureBounds feature : features) {
-                featureIds.add(feature.id);
+                /*
+                 * Features which span both parts have already been added
+                 */
+                addMatchingFeatures(prTree.find(eastMbr), variableIds, westMbr, matchingFeatures);
             }
         } else {
             MBR mbr = new SimpleMBR(horizontalExtent.getMinX(), horizontalExtent.getMaxX(),
                     horizontalExtent.getMinY(), horizontalExtent.getMaxY(), zLow, zHigh, tLow,
                     tHigh);
-            features = prTree.find(mbr);
-            for (FeatureBounds feature : features) {
-                /*
-                 * Make sure that the returned features contain all of the
-                 * required variables.
-                 */
-                boolean addFeature = true;
-                for (String varId : variableIds) {
-                    if (!feature.variableIds.contains(varId)) {
-                        addFeature = false;
-                        break;
-                    }
-                }
-                if (addFeature) {
-                    featureIds.add(feature.id);
-                }
+            addMatchingFeatures(prTree.find(mbr), variableIds, null, matchingFeatures);
+        }
+        return matchingFeatures;
+    }
+
+    /*
+     * Adds features which contain all of the required variables to the
+     * results, skipping any which intersect the excluded MBR (which has already
+     * been searched)
+     */
+    private void addMatchingFeatures(Iterable<FeatureBounds> features,
+            Collection<String> variableIds, MBR excluded, Collection<FeatureBounds> results) {
+        for (FeatureBounds feature : features) {
+            if (excluded != null && excluded.intersects(feature, this)) {
+                continue;
             }
+            if (variableIds != null && feature.variableIds != null
+                    && !feature.variableIds.containsAll(variableIds)) {
+                continue;
+            }
+            results.add(feature);
         }
-        return featureIds;
     }
 
     @Override
@@ -235,7 +248,7 @@ public class PRTreeFeatureIndexer
         case 0:
             return bounds.hBbox.getMinX();
         case 1:
-            return bounds.hBbox.getMaxY();
+            return bounds.hBbox.getMinY();
         case 2:
             return bounds.verticalExtent.getLow();
         case 3:
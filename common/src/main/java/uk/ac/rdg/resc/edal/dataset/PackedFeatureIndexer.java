@@ -0,0 +1,854 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.joda.time.DateTime;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * A {@link FeatureIndexer} which holds its features in packed, primitive
+ * arrays rather than as objects, so that large collections (millions of
+ * profiles) can be indexed in a small fraction of the memory needed by a
+ * {@link PRTreeFeatureIndexer}.
+ * 
+ * Features are sorted by start time and split into partitions of roughly equal
+ * size. Each partition is a static R-tree, bulk-loaded with the
+ * sort-tile-recursive algorithm, so queries only descend into partitions and
+ * nodes which overlap the requested time range. As with
+ * {@link PRTreeFeatureIndexer}, positions are stored in WGS84 with the minimum
+ * longitude of each feature in the range (-180:180], and queries which cross
+ * the date line are split in two.
+ * 
+ * The whole index is a single buffer, which can be written to a file with
+ * {@link PackedFeatureIndexer#writeTo(File)} and later memory-mapped with
+ * {@link PackedFeatureIndexer#open(File)}, so that it does not need to be held
+ * on the heap at all.
+ * 
+ * Queries do not lock and can run concurrently with each other and with
+ * {@link PackedFeatureIndexer#addFeatures(List)}, which builds a new index and
+ * then replaces the current one.
+ */
+public class PackedFeatureIndexer implements FeatureIndexer {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x45444649;
+    private static final int VERSION = 1;
+    /* The maximum number of children of each node */
+    private static final int NODE_SIZE = 16;
+    /* The target number of features in each time partition */
+    private static final int PARTITION_SIZE = 1 << 16;
+    /*
+     * Each box is stored as minX, maxX, minY, maxY, minZ, maxZ, minT, maxT
+     */
+    private static final int BOX = 8;
+
+    private transient volatile Index index;
+
+    /**
+     * Creates a new, empty {@link PackedFeatureIndexer}
+     */
+    public PackedFeatureIndexer() {
+        index = Index.build(new ArrayList<>());
+    }
+
+    private PackedFeatureIndexer(Index index) {
+        this.index = index;
+    }
+
+    /**
+     * Memory-maps an index which has been written by
+     * {@link PackedFeatureIndexer#writeTo(File)}
+     * 
+     * @param file
+     *            The file to map
+     * @return The mapped {@link PackedFeatureIndexer}
+     * @throws IOException
+     *             If the file cannot be read or is not a valid index
+     */
+    public static PackedFeatureIndexer open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new PackedFeatureIndexer(
+                    Index.parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        }
+    }
+
+    /**
+     * Writes this index to a file, so that it can be memory-mapped with
+     * {@link PackedFeatureIndexer#open(File)}
+     * 
+     * @param file
+     *            The file to write to. Any existing file is replaced
+     * @throws IOException
+     *             If the file cannot be written
+     */
+    public void writeTo(File file) throws IOException {
+        ByteBuffer data = index.data.duplicate();
+        data.clear();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addFeatures(List<FeatureBounds> features) {
+        Index current = index;
+        List<Entry> entries = new ArrayList<>(current.nFeatures + features.size());
+        for (int f = 0; f < current.nFeatures; f++) {
+            entries.add(current.getEntry(f));
+        }
+        for (FeatureBounds feature : features) {
+            entries.add(Entry.fromFeatureBounds(feature));
+        }
+        index = Index.build(entries);
+    }
+
+    @Override
+    public Collection<String> findFeatureIds(BoundingBox horizontalExtent,
+            Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
+            Collection<String> variableIds) {
+        Cursor cursor = query(horizontalExtent, verticalExtent, timeExtent, variableIds);
+        List<String> ids = new ArrayList<>(cursor.size());
+        while (cursor.next()) {
+            ids.add(cursor.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public Collection<FeatureBounds> findFeatureBounds(BoundingBox horizontalExtent,
+            Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
+            Collection<String> variableIds) {
+        Cursor cursor = query(horizontalExtent, verticalExtent, timeExtent, variableIds);
+        List<FeatureBounds> bounds = new ArrayList<>(cursor.size());
+        while (cursor.next()) {
+            bounds.add(cursor.index.getEntry(cursor.getFeature()).toFeatureBounds());
+        }
+        return bounds;
+    }
+
+    /**
+     * Finds the features with the given spatio-temporal constraints, as
+     * {@link FeatureIndexer#findFeatureIds(BoundingBox, Extent, Extent, Collection)}
+     * does, but without creating any objects for the matching features.
+     * 
+     * @param horizontalExtent
+     *            The {@link BoundingBox} which features must have positions in.
+     * @param verticalExtent
+     *            The vertical range which features must have positions in.
+     * @param timeExtent
+     *            The time range which features must have positions in.
+     * @param variableIds
+     *            The variable IDs which features must contain
+     * @return A {@link Cursor} over the matching features
+     */
+    public Cursor query(BoundingBox horizontalExtent, Extent<Double> verticalExtent,
+            Extent<DateTime> timeExtent, Collection<String> variableIds) {
+        Index current = index;
+        double[] query = new double[] { -180.0, 180.0, -90.0, 90.0, -Double.MAX_VALUE,
+                Double.MAX_VALUE, -Long.MAX_VALUE, Long.MAX_VALUE };
+        if (horizontalExtent != null) {
+            if (!GISUtils.isWgs84LonLat(horizontalExtent.getCoordinateReferenceSystem())) {
+                GeographicBoundingBox geographicBoundingBox = GISUtils
+                        .toGeographicBoundingBox(horizontalExtent);
+                horizontalExtent = new BoundingBoxImpl(
+                        geographicBoundingBox.getWestBoundLongitude(),
+                        geographicBoundingBox.getSouthBoundLatitude(),
+                        geographicBoundingBox.getEastBoundLongitude(),
+                        geographicBoundingBox.getNorthBoundLatitude(),
+                        GISUtils.defaultGeographicCRS());
+            }
+            double shift = longitudeShift(horizontalExtent.getMinX());
+            query[0] = horizontalExtent.getMinX() + shift;
+            query[1] = horizontalExtent.getMaxX() + shift;
+            query[2] = horizontalExtent.getMinY();
+            query[3] = horizontalExtent.getMaxY();
+        }
+        if (verticalExtent != null) {
+            query[4] = verticalExtent.getLow();
+            query[5] = verticalExtent.getHigh();
+        }
+        if (timeExtent != null) {
+            query[6] = timeExtent.getLow().getMillis();
+            query[7] = timeExtent.getHigh().getMillis();
+        }
+
+        long[] requiredVariables = current.getVariableMask(variableIds);
+        if (requiredVariables == null) {
+            /*
+             * At least one of the variables is not in the index
+             */
+            return new Cursor(current, new int[0], 0);
+        }
+
+        IntList results = new IntList();
+        if (query[1] > 540) {
+            /*
+             * The bounding box spans the date line at both ends
+             */
+            query[0] = -180.0;
+            query[1] = 180.0;
+            current.search(query, requiredVariables, null, results);
+        } else if (query[1] > 180) {
+            double[] east = query.clone();
+            east[0] = -180.0;
+            east[1] = GISUtils.constrainLongitude180(query[1]);
+            query[1] = 180.0;
+            current.search(query, requiredVariables, null, results);
+            /*
+             * Don't return features spanning both parts twice
+             */
+            current.search(east, requiredVariables, query, results);
+        } else {
+            current.search(query, requiredVariables, null, results);
+        }
+        return new Cursor(current, results.values, results.size);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * The IDs are not held in memory, so a new {@link Set} is created for each
+     * call.
+     */
+    @Override
+    public Set<String> getAllFeatureIds() {
+        Index current = index;
+        Set<String> ids = new HashSet<>();
+        for (int f = 0; f < current.nFeatures; f++) {
+            ids.add(current.getId(f));
+        }
+        return ids;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        ByteBuffer data = index.data.duplicate();
+        data.clear();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        index = Index.parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * A cursor over the results of a query. The features themselves are
+     * referred to by their position in the index, and their IDs are only
+     * decoded when requested.
+     */
+    public static final class Cursor {
+        private final Index index;
+        private final int[] features;
+        private final int size;
+        private int position = -1;
+
+        private Cursor(Index index, int[] features, int size) {
+            this.index = index;
+            this.features = features;
+            this.size = size;
+        }
+
+        /**
+         * @return The total number of features matched by the query
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Moves to the next matching feature
+         * 
+         * @return <code>false</code> if there are no more features
+         */
+        public boolean next() {
+            if (position + 1 >= size) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        /**
+         * @return The position of the current feature within the index
+         */
+        public int getFeature() {
+            return features[position];
+        }
+
+        /**
+         * @return The ID of the current feature
+         */
+        public String getId() {
+            return index.getId(features[position]);
+        }
+    }
+
+    /*
+     * The amount to shift a longitude by to move it into the range (-180:180]
+     */
+    private static double longitudeShift(double minX) {
+        double shift = 0.0;
+        while (minX + shift > 180) {
+            shift -= 360.0;
+        }
+        while (minX + shift <= -180) {
+            shift += 360.0;
+        }
+        return shift;
+    }
+
+    private static boolean intersects(double[] query, DoubleBuffer boxes, int offset) {
+        for (int d = 0; d < BOX; d += 2) {
+            if (boxes.get(offset + d) > query[d + 1] || boxes.get(offset + d + 1) < query[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[64];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /*
+     * A single feature, used whilst building an index
+     */
+    private static final class Entry {
+        final String id;
+        final double[] box;
+        final Collection<String> variableIds;
+
+        Entry(String id, double[] box, Collection<String> variableIds) {
+            this.id = id;
+            this.box = box;
+            this.variableIds = variableIds;
+        }
+
+        static Entry fromFeatureBounds(FeatureBounds feature) {
+            BoundingBox hBbox = feature.hBbox;
+            if (!GISUtils.isWgs84LonLat(hBbox.getCoordinateReferenceSystem())) {
+                hBbox = GISUtils.toWGS84BoundingBox(hBbox);
+            }
+            double shift = longitudeShift(hBbox.getMinX());
+            return new Entry(feature.id,
+                    new double[] { hBbox.getMinX() + shift, hBbox.getMaxX() + shift,
+                            hBbox.getMinY(), hBbox.getMaxY(), feature.verticalExtent.getLow(),
+                            feature.verticalExtent.getHigh(), feature.timeExtent.getLow(),
+                            feature.timeExtent.getHigh() },
+                    feature.variableIds);
+        }
+
+        FeatureBounds toFeatureBounds() {
+            Extent<DateTime> timeExtent = null;
+            if (box[6] > -Long.MAX_VALUE || box[7] < Long.MAX_VALUE) {
+                timeExtent = Extents.newExtent(new DateTime((long) box[6]),
+                        new DateTime((long) box[7]));
+            }
+            return new FeatureBounds(id,
+                    new BoundingBoxImpl(box[0], box[2], box[1], box[3],
+                            GISUtils.defaultGeographicCRS()),
+                    Extents.newExtent(box[4], box[5]), timeExtent, variableIds);
+        }
+    }
+
+    /*
+     * An immutable index, backed by a single buffer. The layout is a header,
+     * followed by (aligned to 8 bytes):
+     * 
+     * the boxes of each feature, ordered by partition and then by position in
+     * the partition's R-tree
+     * 
+     * the boxes of the R-tree nodes of each partition, level by level from the
+     * leaves up to the root
+     * 
+     * the variable masks of each feature
+     * 
+     * the offsets of each feature's ID within the ID bytes, followed by the
+     * length of the ID bytes
+     * 
+     * the UTF-8 bytes of all IDs
+     */
+    private static final class Index {
+        final ByteBuffer data;
+        final int nFeatures;
+        final String[] variables;
+        final Map<String, Integer> variableIndices;
+        final int maskWords;
+        final int[] partitionStarts;
+        final int[] partitionSizes;
+        final int[] partitionNodeStarts;
+        final double[] partitionTimes;
+        final DoubleBuffer featureBoxes;
+        final DoubleBuffer nodeBoxes;
+        final LongBuffer masks;
+        final IntBuffer idOffsets;
+        final ByteBuffer idBytes;
+
+        private Index(ByteBuffer data) throws IOException {
+            this.data = data;
+            ByteBuffer header = data.duplicate();
+            header.clear();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a valid feature index");
+            }
+            nFeatures = header.getInt();
+            int nVariables = header.getInt();
+            maskWords = header.getInt();
+            int nPartitions = header.getInt();
+            int nNodes = header.getInt();
+            int nIdBytes = header.getInt();
+
+            variables = new String[nVariables];
+            variableIndices = new HashMap<>();
+            for (int v = 0; v < nVariables; v++) {
+                byte[] name = new byte[header.getInt()];
+                header.get(name);
+                variables[v] = new String(name, StandardCharsets.UTF_8);
+                variableIndices.put(variables[v], v);
+            }
+            partitionStarts = new int[nPartitions];
+            partitionSizes = new int[nPartitions];
+            partitionNodeStarts = new int[nPartitions];
+            partitionTimes = new double[2 * nPartitions];
+            for (int p = 0; p < nPartitions; p++) {
+                partitionStarts[p] = header.getInt();
+                partitionSizes[p] = header.getInt();
+                partitionNodeStarts[p] = header.getInt();
+                partitionTimes[2 * p] = header.getDouble();
+                partitionTimes[2 * p + 1] = header.getDouble();
+            }
+
+            int offset = align(header.position());
+            featureBoxes = section(data, offset, 8 * BOX * nFeatures).asDoubleBuffer();
+            offset += 8 * BOX * nFeatures;
+            nodeBoxes = section(data, offset, 8 * BOX * nNodes).asDoubleBuffer();
+            offset += 8 * BOX * nNodes;
+            masks = section(data, offset, 8 * maskWords * nFeatures).asLongBuffer();
+            offset += 8 * maskWords * nFeatures;
+            idOffsets = section(data, offset, 4 * (nFeatures + 1)).asIntBuffer();
+            offset += 4 * (nFeatures + 1);
+            idBytes = section(data, offset, nIdBytes);
+        }
+
+        static Index parse(ByteBuffer data) throws IOException {
+            try {
+                return new Index(data);
+            } catch (RuntimeException e) {
+                throw new IOException("Not a valid feature index", e);
+            }
+        }
+
+        private static int align(int offset) {
+            return (offset + 7) & ~7;
+        }
+
+        private static ByteBuffer section(ByteBuffer data, int offset, int length) {
+            ByteBuffer section = data.duplicate();
+            section.clear();
+            section.position(offset);
+            section.limit(offset + length);
+            return section.slice();
+        }
+
+        static Index build(List<Entry> entries) {
+            /*
+             * Assign each variable a bit in the masks
+             */
+            TreeSet<String> variableSet = new TreeSet<>();
+            for (Entry entry : entries) {
+                if (entry.variableIds != null) {
+                    variableSet.addAll(entry.variableIds);
+                }
+            }
+            String[] variables = variableSet.toArray(new String[variableSet.size()]);
+            Map<String, Integer> variableIndices = new HashMap<>();
+            for (int v = 0; v < variables.length; v++) {
+                variableIndices.put(variables[v], v);
+            }
+            int maskWords = Math.max(1, (variables.length + 63) / 64);
+
+            /*
+             * Split into partitions of features which start at similar times,
+             * and then order the features within each partition for its R-tree
+             */
+            Entry[] sorted = entries.toArray(new Entry[entries.size()]);
+            Arrays.sort(sorted, Comparator.comparingDouble(e -> e.box[6]));
+            int nFeatures = sorted.length;
+            int nPartitions = (nFeatures + PARTITION_SIZE - 1) / PARTITION_SIZE;
+            int[] partitionNodeStarts = new int[nPartitions];
+            int nNodes = 0;
+            for (int p = 0; p < nPartitions; p++) {
+                int start = p * PARTITION_SIZE;
+                int end = Math.min(nFeatures, start + PARTITION_SIZE);
+                sortTileRecursive(sorted, start, end);
+                partitionNodeStarts[p] = nNodes;
+                nNodes += countNodes(end - start);
+            }
+
+            byte[][] ids = new byte[nFeatures][];
+            int nIdBytes = 0;
+            for (int f = 0; f < nFeatures; f++) {
+                ids[f] = sorted[f].id.getBytes(StandardCharsets.UTF_8);
+                nIdBytes += ids[f].length;
+            }
+            byte[][] variableNames = new byte[variables.length][];
+            int headerSize = 4 * 8 + nPartitions * (3 * 4 + 2 * 8);
+            for (int v = 0; v < variables.length; v++) {
+                variableNames[v] = variables[v].getBytes(StandardCharsets.UTF_8);
+                headerSize += 4 + variableNames[v].length;
+            }
+
+            long totalSize = (long) align(headerSize) + 8L * BOX * nFeatures + 8L * BOX * nNodes
+                    + 8L * maskWords * nFeatures + 4L * (nFeatures + 1) + nIdBytes;
+            if (totalSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many features to index");
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) totalSize);
+            data.putInt(MAGIC).putInt(VERSION).putInt(nFeatures).putInt(variables.length)
+                    .putInt(maskWords).putInt(nPartitions).putInt(nNodes).putInt(nIdBytes);
+            for (byte[] name : variableNames) {
+                data.putInt(name.length).put(name);
+            }
+            for (int p = 0; p < nPartitions; p++) {
+                int start = p * PARTITION_SIZE;
+                int end = Math.min(nFeatures, start + PARTITION_SIZE);
+                double minT = Double.POSITIVE_INFINITY;
+                double maxT = Double.NEGATIVE_INFINITY;
+                for (int f = start; f < end; f++) {
+                    minT = Math.min(minT, sorted[f].box[6]);
+                    maxT = Math.max(maxT, sorted[f].box[7]);
+                }
+                data.putInt(start).putInt(end - start).putInt(partitionNodeStarts[p])
+                        .putDouble(minT).putDouble(maxT);
+            }
+
+            data.position(align(data.position()));
+            for (Entry entry : sorted) {
+                for (double value : entry.box) {
+                    data.putDouble(value);
+                }
+            }
+            double[] nodes = new double[BOX * nNodes];
+            for (int p = 0; p < nPartitions; p++) {
+                int start = p * PARTITION_SIZE;
+                int end = Math.min(nFeatures, start + PARTITION_SIZE);
+                buildNodes(sorted, start, end, nodes, partitionNodeStarts[p]);
+            }
+            for (double value : nodes) {
+                data.putDouble(value);
+            }
+            for (Entry entry : sorted) {
+                long[] mask = new long[maskWords];
+                if (entry.variableIds == null) {
+                    /*
+                     * No variables given - this matches any query
+                     */
+                    Arrays.fill(mask, -1L);
+                } else {
+                    for (String variable : entry.variableIds) {
+                        int v = variableIndices.get(variable);
+                        mask[v / 64] |= 1L << (v % 64);
+                    }
+                }
+                for (long word : mask) {
+                    data.putLong(word);
+                }
+            }
+            int idOffset = 0;
+            for (byte[] id : ids) {
+                data.putInt(idOffset);
+                idOffset += id.length;
+            }
+            data.putInt(idOffset);
+            for (byte[] id : ids) {
+                data.put(id);
+            }
+
+            data.clear();
+            try {
+                return new Index(data);
+            } catch (IOException e) {
+                /*
+                 * We have just written this buffer, so this can't happen
+                 */
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /*
+         * The number of nodes in an R-tree containing the given number of
+         * features. There is always at least one level of nodes above the
+         * features.
+         */
+        private static int countNodes(int nFeatures) {
+            int total = 0;
+            int levelSize = nFeatures;
+            do {
+                levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+                total += levelSize;
+            } while (levelSize > 1);
+            return total;
+        }
+
+        /*
+         * Orders features so that consecutive runs of NODE_SIZE are close
+         * together: sort by x, cut into vertical slices, then sort each slice
+         * by y
+         */
+        private static void sortTileRecursive(Entry[] entries, int start, int end) {
+            int n = end - start;
+            int nLeaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+            int nSlices = (int) Math.ceil(Math.sqrt(nLeaves));
+            int sliceSize = nSlices * NODE_SIZE;
+            Arrays.sort(entries, start, end,
+                    Comparator.comparingDouble(e -> e.box[0] + e.box[1]));
+            for (int s = start; s < end; s += sliceSize) {
+                Arrays.sort(entries, s, Math.min(end, s + sliceSize),
+                        Comparator.comparingDouble(e -> e.box[2] + e.box[3]));
+            }
+        }
+
+        private static void buildNodes(Entry[] entries, int start, int end, double[] nodes,
+                int nodeStart) {
+            /*
+             * The lowest level of nodes bounds the features themselves
+             */
+            int levelSize = (end - start + NODE_SIZE - 1) / NODE_SIZE;
+            for (int k = 0; k < levelSize; k++) {
+                double[] box = emptyBox();
+                for (int f = start + k * NODE_SIZE; f < Math.min(end,
+                        start + (k + 1) * NODE_SIZE); f++) {
+                    union(box, entries[f].box, 0);
+                }
+                System.arraycopy(box, 0, nodes, BOX * (nodeStart + k), BOX);
+            }
+            /*
+             * Each subsequent level bounds the level below
+             */
+            int childStart = nodeStart;
+            int childSize = levelSize;
+            while (childSize > 1) {
+                int parentStart = childStart + childSize;
+                levelSize = (childSize + NODE_SIZE - 1) / NODE_SIZE;
+                for (int k = 0; k < levelSize; k++) {
+                    double[] box = emptyBox();
+                    for (int c = k * NODE_SIZE; c < Math.min(childSize, (k + 1) * NODE_SIZE); c++) {
+                        union(box, nodes, BOX * (childStart + c));
+                    }
+                    System.arraycopy(box, 0, nodes, BOX * (parentStart + k), BOX);
+                }
+                childStart = parentStart;
+                childSize = levelSize;
+            }
+        }
+
+        private static double[] emptyBox() {
+            double[] box = new double[BOX];
+            for (int d = 0; d < BOX; d += 2) {
+                box[d] = Double.POSITIVE_INFINITY;
+                box[d + 1] = Double.NEGATIVE_INFINITY;
+            }
+            return box;
+        }
+
+        private static void union(double[] box, double[] other, int offset) {
+            for (int d = 0; d < BOX; d += 2) {
+                box[d] = Math.min(box[d], other[offset + d]);
+                box[d + 1] = Math.max(box[d + 1], other[offset + d + 1]);
+            }
+        }
+
+        /*
+         * Gets the mask which features must contain, or null if any variable
+         * is not in this index
+         */
+        long[] getVariableMask(Collection<String> variableIds) {
+            long[] mask = new long[maskWords];
+            if (variableIds != null) {
+                for (String variable : variableIds) {
+                    Integer v = variableIndices.get(variable);
+                    if (v == null) {
+                        return null;
+                    }
+                    mask[v / 64] |= 1L << (v % 64);
+                }
+            }
+            return mask;
+        }
+
+        /*
+         * Adds the index of every feature intersecting the query to the
+         * results, skipping any which also intersect the excluded box
+         */
+        void search(double[] query, long[] requiredVariables, double[] excluded,
+                IntList results) {
+            int[] stack = new int[64];
+            for (int p = 0; p < partitionStarts.length; p++) {
+                if (partitionTimes[2 * p] > query[7] || partitionTimes[2 * p + 1] < query[6]) {
+                    continue;
+                }
+                int start = partitionStarts[p];
+                int n = partitionSizes[p];
+                int nodeStart = partitionNodeStarts[p];
+                /*
+                 * Find the start of each level of nodes. Level 0 is the
+                 * features themselves.
+                 */
+                int[] levelStarts = new int[32];
+                int[] levelSizes = new int[32];
+                int nLevels = 1;
+                levelSizes[0] = n;
+                int levelStart = nodeStart;
+                do {
+                    levelStarts[nLevels] = levelStart;
+                    levelSizes[nLevels] = (levelSizes[nLevels - 1] + NODE_SIZE - 1) / NODE_SIZE;
+                    levelStart += levelSizes[nLevels];
+                    nLevels++;
+                } while (levelSizes[nLevels - 1] > 1);
+
+                /*
+                 * Depth-first search from the root, holding (level, index)
+                 * pairs on the stack
+                 */
+                int top = 0;
+                stack[top++] = nLevels - 1;
+                stack[top++] = 0;
+                while (top > 0) {
+                    int k = stack[--top];
+                    int level = stack[--top];
+                    if (!intersects(query, nodeBoxes, BOX * (levelStarts[level] + k))) {
+                        continue;
+                    }
+                    int childEnd = Math.min(levelSizes[level - 1], (k + 1) * NODE_SIZE);
+                    for (int c = k * NODE_SIZE; c < childEnd; c++) {
+                        if (level > 1) {
+                            if (top + 2 > stack.length) {
+                                stack = Arrays.copyOf(stack, 2 * stack.length);
+                            }
+                            stack[top++] = level - 1;
+                            stack[top++] = c;
+                        } else {
+                            int f = start + c;
+                            if (intersects(query, featureBoxes, BOX * f)
+                                    && hasVariables(f, requiredVariables)
+                                    && (excluded == null
+                                            || !intersects(excluded, featureBoxes, BOX * f))) {
+                                results.add(f);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean hasVariables(int feature, long[] requiredVariables) {
+            for (int w = 0; w < maskWords; w++) {
+                long required = requiredVariables[w];
+                if ((masks.get(feature * maskWords + w) & required) != required) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String getId(int feature) {
+            int from = idOffsets.get(feature);
+            int to = idOffsets.get(feature + 1);
+            byte[] bytes = new byte[to - from];
+            ByteBuffer id = idBytes.duplicate();
+            id.position(from);
+            id.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Entry getEntry(int feature) {
+            double[] box = new double[BOX];
+            for (int d = 0; d < BOX; d++) {
+                box[d] = featureBoxes.get(BOX * feature + d);
+            }
+            List<String> variableIds = new ArrayList<>();
+            boolean all = true;
+            for (int w = 0; w < maskWords; w++) {
+                all &= masks.get(feature * maskWords + w) == -1L;
+            }
+            for (int v = 0; v < variables.length; v++) {
+                if ((masks.get(feature * maskWords + v / 64) & (1L << (v % 64))) != 0) {
+                    variableIds.add(variables[v]);
+                }
+            }
+            return new Entry(getId(feature), box, all ? null : variableIds);
+        }
+    }
+}
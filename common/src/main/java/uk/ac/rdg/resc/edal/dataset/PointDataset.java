@@ -47,6 +47,7 @@ import uk.ac.rdg.resc.edal.feature.PointSeriesFeature;
 import uk.ac.rdg.resc.edal.feature.ProfileFeature;
 import uk.ac.rdg.resc.edal.geometry.BoundingBox;
 import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
 import uk.ac.rdg.resc.edal.position.GeoPosition;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
@@ -73,6 +74,13 @@ import uk.ac.rdg.resc.edal.util.ImmutableArray1D;
 public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
         extends AbstractContinuousDomainDataset {
     private static final long serialVersionUID = 1L;
+    /**
+     * The maximum number of further reads made for the pixels of a map whose
+     * chosen features had no data. Each read covers all such pixels, so this
+     * bounds the extra work where no feature has data at the requested level.
+     */
+    public static final int MAX_FALLBACK_READS = 3;
+
     private BoundingBox bbox;
     private Extent<Double> zExtent;
     private Extent<DateTime> tExtent;
@@ -135,23 +143,37 @@ public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
     public List<PointFeature> extractMapFeatures(Set<String> varIds,
             BoundingBox hExtent, Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent,
             DateTime targetT) throws DataReadingException {
-        List<? extends DiscreteFeature<?, ?>> extractedMapFeatures = super.extractMapFeatures(
-                varIds, hExtent, zExtent, targetZ, tExtent, targetT);
+        return extractMapFeatures(varIds, hExtent, zExtent, targetZ, tExtent, targetT, 0, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * If the {@link FeatureIndexer} of this dataset can supply the bounds of
+     * its features, only one feature is read for each pixel of the image: the
+     * one nearest to the target time, and then to the target elevation. Where
+     * that feature has no data to draw, the next nearest feature in the pixel
+     * is read instead, up to {@link #MAX_FALLBACK_READS} times. If either
+     * dimension of the image is not positive, all features are read.
+     */
+    @Override
+    public List<PointFeature> extractMapFeatures(Set<String> varIds, BoundingBox hExtent,
+            Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent, DateTime targetT,
+            int width, int height) throws DataReadingException {
+        if (width > 0 && height > 0) {
+            List<PointFeature> pointFeatures = extractDecimatedFeatures(varIds, hExtent, zExtent,
+                    targetZ, tExtent, targetT, width, height);
+            if (pointFeatures != null) {
+                return pointFeatures;
+            }
+        }
 
         List<PointFeature> pointFeatures = new ArrayList<>();
-        for (DiscreteFeature<?, ?> feature : extractedMapFeatures) {
-            /*
-             * This conversion is safe because:
-             * 
-             * AbstractContinuousDomainDataset reads all features with
-             * getFeatureReader().readFeatures()
-             * 
-             * This class overrides getFeatureReader() to ensure that it returns
-             * features of type F
-             */
-            @SuppressWarnings("unchecked")
-            PointFeature pointFeature = convertFeature((F) feature, hExtent, zExtent, tExtent,
-                    targetZ, targetT);
+        for (DiscreteFeature<?, ?> feature : super.extractMapFeatures(varIds, hExtent, zExtent,
+                targetZ, tExtent, targetT)) {
+            PointFeature pointFeature = toPointFeature(feature, hExtent, zExtent, tExtent, targetZ,
+                    targetT);
             if (pointFeature != null) {
                 pointFeatures.add(pointFeature);
             }
@@ -159,6 +181,89 @@ public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
         return pointFeatures;
     }
 
+    /*
+     * Reads one feature for each pixel of the image, falling back to the next
+     * candidate for pixels whose feature has no data. Returns null if the
+     * feature indexer can't supply the bounds needed to choose them.
+     */
+    private List<PointFeature> extractDecimatedFeatures(Set<String> varIds, BoundingBox hExtent,
+            Extent<Double> zExtent, Double targetZ, Extent<DateTime> tExtent, DateTime targetT,
+            int width, int height) throws DataReadingException {
+        BoundingBox bbox = hExtent == null ? getDatasetBoundingBox() : hExtent;
+        Extent<Double> zRange = zExtent == null ? getDatasetVerticalExtent() : zExtent;
+        Extent<DateTime> tRange = tExtent == null ? getDatasetTimeExtent() : tExtent;
+        Collection<FeatureIndexer.FeatureBounds> candidates = featureIndexer
+                .findFeatureBounds(bbox, zRange, tRange, varIds);
+        if (candidates == null) {
+            return null;
+        }
+        List<List<String>> pixels = MapFeatureDecimator.rankCandidates(candidates, bbox, width,
+                height, targetZ, targetT);
+
+        List<PointFeature> pointFeatures = new ArrayList<>();
+        for (int attempt = 0; attempt <= MAX_FALLBACK_READS && !pixels.isEmpty(); attempt++) {
+            List<String> featureIds = new ArrayList<>(pixels.size());
+            for (List<String> pixel : pixels) {
+                featureIds.add(pixel.get(0));
+            }
+            Map<String, PointFeature> read = new HashMap<>();
+            for (DiscreteFeature<?, ?> feature : readMapFeatures(featureIds, varIds, targetZ)) {
+                read.put(feature.getId(), toPointFeature(feature, hExtent, zExtent, tExtent,
+                        targetZ, targetT));
+            }
+
+            List<List<String>> emptyPixels = new ArrayList<>();
+            for (List<String> pixel : pixels) {
+                PointFeature pointFeature = read.get(pixel.get(0));
+                if (hasData(pointFeature, varIds)) {
+                    pointFeatures.add(pointFeature);
+                } else if (pixel.size() > 1) {
+                    emptyPixels.add(pixel.subList(1, pixel.size()));
+                }
+            }
+            pixels = emptyPixels;
+        }
+        return pointFeatures;
+    }
+
+    /*
+     * Converts a feature read by the feature reader to a PointFeature
+     */
+    private PointFeature toPointFeature(DiscreteFeature<?, ?> feature, BoundingBox hExtent,
+            Extent<Double> zExtent, Extent<DateTime> tExtent, Double targetZ, DateTime targetT) {
+        /*
+         * This conversion is safe because:
+         * 
+         * AbstractContinuousDomainDataset reads all features with
+         * getFeatureReader().readFeatures()
+         * 
+         * This class overrides getFeatureReader() to ensure that it returns
+         * features of type F
+         */
+        @SuppressWarnings("unchecked")
+        F nativeFeature = (F) feature;
+        return convertFeature(nativeFeature, hExtent, zExtent, tExtent, targetZ, targetT);
+    }
+
+    /*
+     * Whether a PointFeature has a value for any of the requested variables
+     */
+    private static boolean hasData(PointFeature feature, Set<String> varIds) {
+        if (feature == null) {
+            return false;
+        }
+        for (String varId : varIds == null ? feature.getVariableIds() : varIds) {
+            if (!feature.getVariableIds().contains(varId)) {
+                continue;
+            }
+            Number value = feature.getValue(varId);
+            if (value != null && !Double.isNaN(value.doubleValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      * 
@@ -189,6 +294,20 @@ public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
 
     public abstract DiscreteFeatureReader<F> getFeatureReader();
 
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * Since only a single level of each feature is used to create the
+     * {@link PointFeature}s on a map, this reads features with
+     * {@link DiscreteFeatureReader#readFeaturesAtLevel(Collection, Set, Double)}
+     */
+    @Override
+    protected List<? extends DiscreteFeature<?, ?>> readMapFeatures(Collection<String> featureIds,
+            Set<String> varIds, Double targetZ) throws DataReadingException {
+        return getFeatureReader().readFeaturesAtLevel(featureIds, varIds, targetZ);
+    }
+
     /**
      * Convert a {@link DiscreteFeature} of type F to a {@link PointFeature}
      * 
@@ -230,19 +349,7 @@ public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
     public static PointFeature convertProfileFeature(ProfileFeature feature, Double targetZ) {
         HorizontalPosition position = feature.getHorizontalPosition();
 
-        /*
-         * Get the z-index of the target depth within the vertical domain
-         */
-        int zIndex;
-        if (targetZ == null) {
-            /*
-             * If no target z is provided, pick the value closest to the surface
-             */
-            zIndex = feature.getDomain()
-                    .findIndexOf(GISUtils.getClosestElevationToSurface(feature.getDomain()));
-        } else {
-            zIndex = GISUtils.getIndexOfClosestElevationTo(targetZ, feature.getDomain());
-        }
+        int zIndex = getProfileLevelIndex(feature.getDomain(), targetZ);
         if (zIndex < 0) {
             return null;
         }
@@ -267,6 +374,29 @@ public abstract class PointDataset<F extends DiscreteFeature<?, ?>>
         return ret;
     }
 
+    /**
+     * Gets the index of the level of a profile which should be used to
+     * represent it on a map
+     * 
+     * @param domain
+     *            The vertical domain of the profile
+     * @param targetZ
+     *            The target elevation, or <code>null</code> to use the level
+     *            closest to the surface
+     * @return The index of the level within the domain, or -1 if no level
+     *         should be used
+     */
+    public static int getProfileLevelIndex(VerticalAxis domain, Double targetZ) {
+        if (targetZ == null) {
+            /*
+             * If no target z is provided, pick the value closest to the surface
+             */
+            return domain.findIndexOf(GISUtils.getClosestElevationToSurface(domain));
+        } else {
+            return GISUtils.getIndexOfClosestElevationTo(targetZ, domain);
+        }
+    }
+
     /**
      * Convenience method to convert a {@link PointSeriesFeature} to a
      * {@link PointFeature}. Can be used by classes which only handle
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Plans the reading of a set of individual grid points, such as those making
+ * up a transect or trajectory, as a small number of block reads.
+ * 
+ * Points are sorted by their (t, z, y, x) indices and then grouped greedily
+ * into clusters which share a time and vertical index. A cluster's bounding
+ * box is only grown whilst the number of grid cells it covers stays within a
+ * fixed multiple of the number of points it contains, so that nearby points
+ * are read together but sparse points do not cause large amounts of unwanted
+ * data to be read.
+ */
+public class PointReadPlanner {
+    /** The default maximum number of grid cells read per point in a cluster */
+    public static final int DEFAULT_CELLS_PER_POINT = 64;
+    /** The default maximum number of grid cells in a single read */
+    public static final int DEFAULT_MAX_CELLS = 1 << 20;
+
+    private final int cellsPerPoint;
+    private final int maxCells;
+
+    /**
+     * Creates a {@link PointReadPlanner} with the default limits
+     */
+    public PointReadPlanner() {
+        this(DEFAULT_CELLS_PER_POINT, DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * @param cellsPerPoint
+     *            The maximum number of grid cells which may be read per point
+     *            in a cluster
+     * @param maxCells
+     *            The maximum number of grid cells in a single read
+     */
+    public PointReadPlanner(int cellsPerPoint, int maxCells) {
+        if (cellsPerPoint < 1 || maxCells < 1) {
+            throw new IllegalArgumentException("Read limits must be positive");
+        }
+        this.cellsPerPoint = cellsPerPoint;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * A single block read, and the points which it satisfies
+     */
+    public static class BlockRead {
+        public final int t;
+        public final int z;
+        public final int ymin;
+        public final int ymax;
+        public final int xmin;
+        public final int xmax;
+        /** The indices (in the original point arrays) of the points in this read */
+        public final int[] points;
+
+        private BlockRead(int t, int z, int ymin, int ymax, int xmin, int xmax, int[] points) {
+            this.t = t;
+            this.z = z;
+            this.ymin = ymin;
+            this.ymax = ymax;
+            this.xmin = xmin;
+            this.xmax = xmax;
+            this.points = points;
+        }
+    }
+
+    /**
+     * Plans the reads required for a set of points. All arrays must be of the
+     * same length. Points with a negative x or y index (i.e. those outside the
+     * grid) are not included in any read.
+     * 
+     * @param ts
+     *            The time indices of the points
+     * @param zs
+     *            The vertical indices of the points
+     * @param ys
+     *            The y indices of the points
+     * @param xs
+     *            The x indices of the points
+     * @return The {@link BlockRead}s which cover all of the points
+     */
+    public List<BlockRead> plan(final int[] ts, final int[] zs, final int[] ys, final int[] xs) {
+        int n = ts.length;
+        if (zs.length != n || ys.length != n || xs.length != n) {
+            throw new IllegalArgumentException("Index arrays must all be the same length");
+        }
+        List<Integer> order = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (ys[i] >= 0 && xs[i] >= 0) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.<Integer> comparingInt(i -> ts[i]).thenComparingInt(i -> zs[i])
+                .thenComparingInt(i -> ys[i]).thenComparingInt(i -> xs[i]));
+
+        List<BlockRead> reads = new ArrayList<>();
+        int[] cluster = new int[order.size()];
+        int clusterSize = 0;
+        int ymin = 0, ymax = 0, xmin = 0, xmax = 0;
+        for (int i : order) {
+            if (clusterSize > 0) {
+                int first = cluster[0];
+                if (ts[i] == ts[first] && zs[i] == zs[first]) {
+                    int newYmin = Math.min(ymin, ys[i]);
+                    int newYmax = Math.max(ymax, ys[i]);
+                    int newXmin = Math.min(xmin, xs[i]);
+                    int newXmax = Math.max(xmax, xs[i]);
+                    long cells = (long) (newYmax - newYmin + 1) * (newXmax - newXmin + 1);
+                    if (cells <= maxCells && cells <= (long) (clusterSize + 1) * cellsPerPoint) {
+                        ymin = newYmin;
+                        ymax = newYmax;
+                        xmin = newXmin;
+                        xmax = newXmax;
+                        cluster[clusterSize++] = i;
+                        continue;
+                    }
+                }
+                reads.add(new BlockRead(ts[first], zs[first], ymin, ymax, xmin, xmax,
+                        Arrays.copyOf(cluster, clusterSize)));
+                clusterSize = 0;
+            }
+            ymin = ymax = ys[i];
+            xmin = xmax = xs[i];
+            cluster[clusterSize++] = i;
+        }
+        if (clusterSize > 0) {
+            int first = cluster[0];
+            reads.add(new BlockRead(ts[first], zs[first], ymin, ymax, xmin, xmax,
+                    Arrays.copyOf(cluster, clusterSize)));
+        }
+        return reads;
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A range of indices along one axis of a source grid, with a constant step
+ * between them. These are used by {@link DataReadingStrategy#STRIDED} to read
+ * only the indices a {@link DomainMapper} uses.
+ */
+final class StridedRange {
+    /*
+     * The longest period of a repeating pattern of steps which will be
+     * recognised. A target axis with a resolution of p/q source cells per
+     * target cell picks out indices whose steps repeat every q cells.
+     */
+    private static final int MAX_PERIOD = 32;
+
+    final int first;
+    final int stride;
+    final int count;
+
+    StridedRange(int first, int stride, int count) {
+        this.first = first;
+        this.stride = count > 1 ? stride : 1;
+        this.count = count;
+    }
+
+    int last() {
+        return first + (count - 1) * stride;
+    }
+
+    /**
+     * Splits a set of indices into a small number of strided ranges which
+     * contain exactly those indices.
+     * 
+     * If the steps between the indices repeat with a period of q (for
+     * example, 16, 17, 17, 16, 17, 17, ...), the indices are the union of q
+     * ranges with the same stride, each starting from one of the first q
+     * indices. Otherwise they are split into runs which each have a constant
+     * step.
+     * 
+     * @param indices
+     *            The indices, in ascending order and without duplicates
+     * @return A {@link List} of {@link StridedRange}s which together contain
+     *         every one of the given indices and no others
+     */
+    static List<StridedRange> decompose(int[] indices) {
+        int n = indices.length;
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+        List<StridedRange> runs = constantStepRuns(indices);
+        for (int period = 1; period < n && period <= MAX_PERIOD
+                && period < runs.size(); period++) {
+            int stride = indices[period] - indices[0];
+            boolean periodic = true;
+            for (int k = 1; k + period < n; k++) {
+                if (indices[k + period] - indices[k] != stride) {
+                    periodic = false;
+                    break;
+                }
+            }
+            if (periodic) {
+                List<StridedRange> ranges = new ArrayList<>(period);
+                for (int offset = 0; offset < period; offset++) {
+                    ranges.add(new StridedRange(indices[offset], stride,
+                            (n - offset + period - 1) / period));
+                }
+                return ranges;
+            }
+        }
+        return runs;
+    }
+
+    /*
+     * Splits indices into runs which each have a constant step, starting each
+     * run as early as possible
+     */
+    private static List<StridedRange> constantStepRuns(int[] indices) {
+        int n = indices.length;
+        List<StridedRange> runs = new ArrayList<>();
+        int start = 0;
+        while (start < n) {
+            if (start == n - 1) {
+                runs.add(new StridedRange(indices[start], 1, 1));
+                break;
+            }
+            int stride = indices[start + 1] - indices[start];
+            int end = start + 1;
+            while (end + 1 < n && indices[end + 1] - indices[end] == stride) {
+                end++;
+            }
+            runs.add(new StridedRange(indices[start], stride, end - start + 1));
+            start = end + 1;
+        }
+        return runs;
+    }
+
+    /**
+     * Finds the single strided range with the largest stride that contains
+     * all of the given indices. This will generally contain other indices too,
+     * but never more than the contiguous range from the first to the last.
+     * 
+     * @param indices
+     *            The indices, in ascending order and without duplicates
+     * @return A {@link StridedRange} containing all of the indices
+     */
+    static StridedRange enclosing(int[] indices) {
+        int n = indices.length;
+        int stride = 0;
+        for (int k = 1; k < n; k++) {
+            stride = gcd(stride, indices[k] - indices[0]);
+        }
+        if (stride == 0) {
+            return new StridedRange(indices[0], 1, 1);
+        }
+        return new StridedRange(indices[0], stride,
+                (indices[n - 1] - indices[0]) / stride + 1);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public String toString() {
+        return first + ":" + last() + ":" + stride;
+    }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.grid;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.util.Extents;
+
+/**
+ * Partial implementation of a {@link TimeAxis} whose values are held as
+ * milliseconds since the epoch in a single {@link Chronology}. {@link DateTime}
+ * objects are only created when individual values are requested.
+ * 
+ * Two {@link AbstractTimeAxis} objects are equal if they have the same name,
+ * {@link Chronology} and values, regardless of how those values are stored.
+ */
+public abstract class AbstractTimeAxis extends AbstractReferenceableAxis<DateTime>
+        implements TimeAxis {
+    private static final long serialVersionUID = 1L;
+    protected final Chronology chronology;
+    /*
+     * Hash codes of long irregular axes are expensive to calculate, and these
+     * objects are used as keys when interning
+     */
+    private transient int hashCode = 0;
+
+    protected AbstractTimeAxis(String name, Chronology chronology) {
+        super(name);
+        this.chronology = chronology;
+    }
+
+    @Override
+    public abstract long getCoordinateMillis(int index);
+
+    /*
+     * Returns the value at the given position when the axis values are sorted
+     * into ascending order
+     */
+    private long getSortedMillis(int position) {
+        return getCoordinateMillis(toIndex(position));
+    }
+
+    /*
+     * Converts a position in ascending order into an axis index
+     */
+    private int toIndex(int position) {
+        return isAscending() ? position : size() - 1 - position;
+    }
+
+    @Override
+    public DateTime getCoordinateValue(int index) {
+        return new DateTime(getCoordinateMillis(index), chronology);
+    }
+
+    @Override
+    public int findIndexOf(DateTime value) {
+        if (value == null) {
+            return -1;
+        }
+        long millis = value.getMillis();
+        int low = 0;
+        int high = size() - 1;
+        if (millis < getSortedMillis(low) || millis > getSortedMillis(high)) {
+            return -1;
+        }
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midVal = getSortedMillis(mid);
+            if (midVal < millis) {
+                low = mid + 1;
+            } else if (midVal > millis) {
+                high = mid - 1;
+            } else {
+                return toIndex(mid);
+            }
+        }
+        /*
+         * The value lies between the values at positions low - 1 and low.
+         * Choose the closest, preferring the earlier value for ties.
+         */
+        if (getSortedMillis(low) - millis < millis - getSortedMillis(low - 1)) {
+            return toIndex(low);
+        } else {
+            return toIndex(low - 1);
+        }
+    }
+
+    @Override
+    public boolean wraps() {
+        /*
+         * The jury's still out on this one, but for practical purposes we
+         * assume that time is non-cyclical
+         */
+        return false;
+    }
+
+    @Override
+    public boolean contains(DateTime position) {
+        return getCoordinateExtent().contains(position);
+    }
+
+    @Override
+    protected DateTime extendFirstValue(DateTime firstVal, DateTime nextVal) {
+        long tVal = (long) (firstVal.getMillis()
+                - 0.5 * (nextVal.getMillis() - firstVal.getMillis()));
+        return new DateTime(tVal, chronology);
+    }
+
+    @Override
+    protected DateTime extendLastValue(DateTime lastVal, DateTime secondLastVal) {
+        return lastVal;
+    }
+
+    @Override
+    public Extent<DateTime> getExtent() {
+        return getCoordinateExtent();
+    }
+
+    @Override
+    public Chronology getChronology() {
+        return chronology;
+    }
+
+    @Override
+    public Extent<DateTime> getCoordinateBounds(int index) {
+        DateTime time = getCoordinateValue(index);
+        return Extents.newExtent(time, time);
+    }
+
+    @Override
+    public Extent<DateTime> getCoordinateExtent() {
+        return Extents.newExtent(new DateTime(getSortedMillis(0), chronology),
+                new DateTime(getSortedMillis(size() - 1), chronology));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hashCode;
+        if (result == 0) {
+            final int prime = 31;
+            result = super.hashCode();
+            result = prime * result
+                    + ((chronology == null) ? 0 : chronology.toString().hashCode());
+            for (int i = 0; i < size(); i++) {
+                result = prime * result + Long.hashCode(getCoordinateMillis(i));
+            }
+            hashCode = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof AbstractTimeAxis))
+            return false;
+        AbstractTimeAxis other = (AbstractTimeAxis) obj;
+        if (getName() == null) {
+            if (other.getName() != null)
+                return false;
+        } else if (!getName().equals(other.getName()))
+            return false;
+        if (chronology == null) {
+            if (other.chronology != null)
+                return false;
+        } else if (other.chronology == null
+                || !chronology.toString().equals(other.chronology.toString()))
+            return false;
+        if (size() != other.size())
+            return false;
+        for (int i = 0; i < size(); i++) {
+            if (getCoordinateMillis(i) != other.getCoordinateMillis(i))
+                return false;
+        }
+        return true;
+    }
+}
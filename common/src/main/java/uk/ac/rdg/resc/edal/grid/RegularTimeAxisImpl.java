@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.grid;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+
+/**
+ * An implementation of a {@link TimeAxis} whose values are evenly spaced in
+ * time. Only the first value, the spacing and the number of values are stored,
+ * so the size of the axis does not affect its memory footprint.
+ */
+public final class RegularTimeAxisImpl extends AbstractTimeAxis {
+    private static final long serialVersionUID = 1L;
+    private final long start;
+    private final long period;
+    private final int size;
+
+    /**
+     * Creates a new {@link RegularTimeAxisImpl}
+     * 
+     * @param name
+     *            The name of the axis
+     * @param start
+     *            The first value of the axis, in milliseconds since the epoch
+     * @param period
+     *            The spacing of the axis values, in milliseconds. Must be
+     *            positive.
+     * @param size
+     *            The number of values on the axis
+     * @param chronology
+     *            The {@link Chronology} of the axis values
+     */
+    public RegularTimeAxisImpl(String name, long start, long period, int size,
+            Chronology chronology) {
+        super(name, chronology);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Zero-length array");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Axis spacing must be positive");
+        }
+        this.start = start;
+        this.period = period;
+        this.size = size;
+    }
+
+    /**
+     * @return The spacing of the axis values, in milliseconds
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    @Override
+    public long getCoordinateMillis(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index " + index + " out of bounds for axis of size " + size);
+        }
+        return start + index * period;
+    }
+
+    @Override
+    public int findIndexOf(DateTime value) {
+        if (value == null) {
+            return -1;
+        }
+        long offset = value.getMillis() - start;
+        if (offset < 0 || offset > (size - 1L) * period) {
+            return -1;
+        }
+        /*
+         * Choose the closest value, preferring the earlier value for ties
+         */
+        int index = (int) (offset / period);
+        if (2 * (offset % period) > period) {
+            index++;
+        }
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isAscending() {
+        return true;
+    }
+}
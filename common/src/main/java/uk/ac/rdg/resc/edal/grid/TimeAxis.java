@@ -52,4 +52,18 @@ public interface TimeAxis extends ReferenceableAxis<DateTime>, TemporalDomain {
      */
     @Override
     public boolean isAscending();
+
+    /**
+     * Returns the value at the given index as milliseconds since the epoch.
+     * This allows searches over the axis values without creating a
+     * {@link DateTime} for each value.
+     * 
+     * @param index
+     *            The index of the value
+     * @return The value at the given index in milliseconds since
+     *         1970-01-01T00:00:00Z
+     */
+    public default long getCoordinateMillis(int index) {
+        return getCoordinateValue(index).getMillis();
+    }
 }
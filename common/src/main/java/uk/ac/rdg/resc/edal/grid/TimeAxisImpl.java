@@ -33,106 +33,84 @@ import java.util.List;
 import org.joda.time.Chronology;
 import org.joda.time.DateTime;
 
-import uk.ac.rdg.resc.edal.domain.Extent;
-import uk.ac.rdg.resc.edal.util.Extents;
-
 /**
- * An implementation of a {@link TimeAxis}
+ * An implementation of a {@link TimeAxis} with arbitrarily-spaced values,
+ * stored as milliseconds since the epoch.
+ * 
+ * @see RegularTimeAxisImpl
  * 
  * @author Guy
  * @author Jon
  * 
  */
-public final class TimeAxisImpl extends AbstractIrregularAxis<DateTime> implements TimeAxis {
+public final class TimeAxisImpl extends AbstractTimeAxis {
 
-    private static final long serialVersionUID = 1L;
-    private Chronology chronology;
+    private static final long serialVersionUID = 2L;
+    private final long[] millis;
 
     public TimeAxisImpl(String name, List<DateTime> axisValues) {
-        super(name, axisValues);
-        chronology = axisValues.get(0).getChronology();
-    }
-
-    @Override
-    public boolean wraps() {
-        /*
-         * The jury's still out on this one, but for practical purposes we
-         * assume that time is non-cyclical
-         */
-        return false;
-    }
-
-    @Override
-    public boolean contains(DateTime position) {
-        return getCoordinateExtent().contains(position);
-    }
-
-    @Override
-    protected DateTime extendFirstValue(DateTime firstVal, DateTime nextVal) {
-        long tVal = (long) (firstVal.getMillis() - 0.5 * (nextVal.getMillis() - firstVal
-                .getMillis()));
-        return new DateTime(tVal, chronology);
-    }
-
-    @Override
-    protected DateTime extendLastValue(DateTime lastVal, DateTime secondLastVal) {
-        return lastVal;
-    }
-
-    @Override
-    protected double difference(DateTime pos1, DateTime pos2) {
-        return pos1.getMillis() - pos2.getMillis();
-    }
-
-    @Override
-    protected DateTime getMidpoint(DateTime pos1, DateTime pos2) {
-        return new DateTime((long) (0.5 * (pos1.getMillis() + pos2.getMillis())), chronology);
+        this(name, toMillis(axisValues), axisValues.get(0).getChronology());
     }
 
-    @Override
-    public Extent<DateTime> getExtent() {
-        return Extents.newExtent(getFirstValue(), getLastValue());
+    /**
+     * Creates a new {@link TimeAxisImpl}
+     * 
+     * @param name
+     *            The name of the axis
+     * @param millis
+     *            The axis values, in milliseconds since the epoch. These must
+     *            either increase or decrease monotonically. This array is not
+     *            copied, and must not be modified after the axis is created.
+     * @param chronology
+     *            The {@link Chronology} of the axis values
+     */
+    public TimeAxisImpl(String name, long[] millis, Chronology chronology) {
+        super(name, chronology);
+        if (millis.length == 0) {
+            throw new IllegalArgumentException("Zero-length array");
+        }
+        this.millis = millis;
+        checkMonotonic();
     }
 
-    @Override
-    public Chronology getChronology() {
-        return chronology;
+    private static long[] toMillis(List<DateTime> axisValues) {
+        if (axisValues.isEmpty()) {
+            throw new IllegalArgumentException("Zero-length array");
+        }
+        long[] millis = new long[axisValues.size()];
+        int i = 0;
+        for (DateTime axisValue : axisValues) {
+            millis[i++] = axisValue.getMillis();
+        }
+        return millis;
     }
 
-    @Override
-    public Extent<DateTime> getCoordinateBounds(int index) {
-        DateTime time = getCoordinateValue(index);
-        return Extents.newExtent(time, time);
+    /**
+     * Checks that the axis values ascend or descend monotonically, throwing an
+     * IllegalArgumentException if not.
+     */
+    private void checkMonotonic() {
+        boolean ascending = isAscending();
+        for (int i = 1; i < millis.length; i++) {
+            if (ascending ? millis[i] <= millis[i - 1] : millis[i] >= millis[i - 1]) {
+                throw new IllegalArgumentException(
+                        "Coordinate values must increase or decrease monotonically");
+            }
+        }
     }
 
     @Override
-    public Extent<DateTime> getCoordinateExtent() {
-        return Extents.newExtent(getCoordinateValue(0), getCoordinateValue(size() - 1));
+    public long getCoordinateMillis(int index) {
+        return millis[index];
     }
 
     @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = super.hashCode();
-        result = prime * result + ((chronology == null) ? 0 : chronology.hashCode());
-        return result;
+    public int size() {
+        return millis.length;
     }
 
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (!super.equals(obj))
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        TimeAxisImpl other = (TimeAxisImpl) obj;
-        if (chronology == null) {
-            if (other.chronology != null)
-                return false;
-        } else if (!chronology.toString().equals(other.chronology.toString()))
-            return false;
-        return true;
+    public boolean isAscending() {
+        return millis.length < 2 || millis[1] > millis[0];
     }
-
 }
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where the time goes whilst a single request is being handled. A
+ * {@link RequestMetrics} is started by whatever is serving the request (e.g.
+ * a servlet) and is bound to the handling thread. Code further down the stack
+ * records against it through the static methods of this class, without
+ * needing to know whether any request is being measured: if none is, they do
+ * nothing. Tasks which are handed to other threads as part of the request
+ * should be wrapped with {@link RequestMetrics#wrap(Callable)} so that their
+ * time is attributed to the same request.
+ * 
+ * When the request has been handled, {@link RequestMetrics#finish(boolean)}
+ * adds its figures to the {@link RequestStatistics} for its request type and
+ * dataset.
+ * 
+ * Stages may be nested (for example, reading data happens whilst features are
+ * being extracted, which happens whilst layers are being drawn), and the time
+ * spent in each stage is summed over all of the threads working on the
+ * request, so the stage times of a request are not expected to add up to its
+ * total time.
+ */
+public final class RequestMetrics {
+    /**
+     * The stages of handling a request which are timed
+     */
+    public enum Stage {
+        /** Parsing and validating the request parameters */
+        PARSE,
+        /** Compiling the style into an image generator */
+        STYLE,
+        /** Extracting features from datasets */
+        EXTRACT,
+        /** Building mappings from source grids to target grids */
+        DOMAIN_MAPPING,
+        /** Reading data from the underlying data sources */
+        DATA_READ,
+        /** Waiting to acquire locks on data sources */
+        LOCK_WAIT,
+        /** Drawing the layers of images */
+        DRAW,
+        /** Encoding and writing the response */
+        ENCODE;
+
+        /**
+         * @return The name of this stage as used in metrics output
+         */
+        public String getLabel() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * Times a single stage. This should be used in a try-with-resources
+     * statement, so that the elapsed time is always recorded
+     */
+    public static final class Timer implements AutoCloseable {
+        private final RequestMetrics metrics;
+        private final Stage stage;
+        private final long start;
+
+        private Timer(RequestMetrics metrics, Stage stage) {
+            this.metrics = metrics;
+            this.stage = stage;
+            this.start = metrics == null ? 0L : System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (metrics != null) {
+                metrics.add(stage, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static final Timer NO_OP_TIMER = new Timer(null, null);
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private final String requestType;
+    private volatile String dataset = null;
+    private final long start;
+    private long elapsedNanos = -1L;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private RequestMetrics(String requestType) {
+        this.requestType = requestType;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts measuring a request, and binds it to the current thread
+     * 
+     * @param requestType
+     *            The type of the request (e.g. "GetMap"). Each distinct value
+     *            gets its own {@link RequestStatistics}, so this should come
+     *            from a small, fixed set of values
+     * @return The new {@link RequestMetrics}, which should be finished with
+     *         {@link RequestMetrics#finish(boolean)} once the request has
+     *         been handled
+     */
+    public static RequestMetrics start(String requestType) {
+        RequestMetrics metrics = new RequestMetrics(requestType);
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * @return The {@link RequestMetrics} bound to the current thread, or
+     *         <code>null</code> if no request is being measured
+     */
+    public static RequestMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts timing a stage of the current request
+     * 
+     * @param stage
+     *            The {@link Stage} to time
+     * @return A {@link Timer} which records the time when it is closed. If no
+     *         request is being measured, this does nothing.
+     */
+    public static Timer time(Stage stage) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return NO_OP_TIMER;
+        }
+        return new Timer(metrics, stage);
+    }
+
+    /**
+     * Records time spent in a stage of the current request, for cases where
+     * it cannot be measured with a {@link Timer}
+     * 
+     * @param stage
+     *            The {@link Stage}
+     * @param nanos
+     *            The time spent, in nanoseconds
+     */
+    public static void record(Stage stage, long nanos) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.add(stage, nanos);
+        }
+    }
+
+    /**
+     * Records bytes read from a data source for the current request
+     * 
+     * @param bytes
+     *            The number of bytes read
+     */
+    public static void addBytesRead(long bytes) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.bytesRead.add(bytes);
+        }
+    }
+
+    /**
+     * Records a cache lookup made for the current request
+     * 
+     * @param hit
+     *            Whether the value was found in the cache
+     */
+    public static void recordCacheLookup(boolean hit) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            if (hit) {
+                metrics.cacheHits.increment();
+            } else {
+                metrics.cacheMisses.increment();
+            }
+        }
+    }
+
+    /**
+     * Wraps a task so that, whichever thread runs it, anything it records is
+     * attributed to the request being measured on the calling thread
+     * 
+     * @param task
+     *            The task to wrap
+     * @return The wrapped task, or the original task if no request is being
+     *         measured
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        RequestMetrics metrics = CURRENT.get();
+        if (metrics == null) {
+            return task;
+        }
+        return () -> {
+            RequestMetrics previous = CURRENT.get();
+            CURRENT.set(metrics);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Sets the dataset which this request is for. Each distinct value gets its
+     * own {@link RequestStatistics}, so this should only be set to the ID of a
+     * dataset which is known to exist.
+     * 
+     * @param dataset
+     *            The ID of the dataset
+     */
+    public void setDataset(String dataset) {
+        this.dataset = dataset;
+    }
+
+    public String getRequestType() {
+        return requestType;
+    }
+
+    /**
+     * @return The ID of the dataset this request is for, or <code>null</code>
+     *         if it is not for a single dataset
+     */
+    public String getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Finishes measuring this request, unbinds it from the current thread,
+     * and adds it to the {@link RequestStatistics} for its request type and
+     * dataset
+     * 
+     * @param failed
+     *            Whether the request failed
+     */
+    public void finish(boolean failed) {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        elapsedNanos = System.nanoTime() - start;
+        RequestStatistics.forRequest(requestType, dataset).add(this, failed);
+    }
+
+    /**
+     * @return The total time taken by this request in milliseconds, or the
+     *         time taken so far if it has not yet finished
+     */
+    public long getElapsedMillis() {
+        long nanos = elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - start;
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @param stage
+     *            The {@link Stage}
+     * @return The time spent in the given stage, in nanoseconds
+     */
+    public long getStageNanos(Stage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    private void add(Stage stage, long nanos) {
+        stageNanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /**
+     * @return A breakdown of the time spent in each stage of this request,
+     *         suitable for logging
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(requestType);
+        if (dataset != null) {
+            sb.append(" (").append(dataset).append(")");
+        }
+        sb.append(": total=").append(getElapsedMillis()).append("ms");
+        for (Stage stage : Stage.values()) {
+            long nanos = getStageNanos(stage);
+            if (nanos > 0) {
+                sb.append(", ").append(stage.getLabel()).append("=")
+                        .append(TimeUnit.NANOSECONDS.toMillis(nanos)).append("ms");
+            }
+        }
+        sb.append(", bytesRead=").append(getBytesRead());
+        sb.append(", cacheHits=").append(getCacheHits()).append("/")
+                .append(getCacheHits() + getCacheMisses());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.metrics;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregated {@link RequestMetrics} for all requests of one type for one
+ * dataset. An instance is created (and registered with the platform MBean
+ * server) the first time a request of each type and dataset finishes, and
+ * lives for the life of the JVM.
+ * 
+ * The statistics for all request types and datasets can be written in the
+ * Prometheus text exposition format with
+ * {@link RequestStatistics#writeText(PrintWriter)}.
+ * 
+ * This class is thread-safe.
+ */
+public class RequestStatistics implements RequestStatisticsMXBean {
+    private static final Logger log = LoggerFactory.getLogger(RequestStatistics.class);
+
+    private static final Map<Key, RequestStatistics> ALL_STATISTICS = new ConcurrentHashMap<>();
+
+    /*
+     * Number of one-second buckets used to calculate the request rate
+     */
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final String requestType;
+    private final String dataset;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LongAdder[] stageNanos = new LongAdder[RequestMetrics.Stage.values().length];
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /*
+     * Request counts for each of the last RATE_WINDOW_SECONDS seconds, and
+     * the second which each bucket currently holds
+     */
+    private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    private RequestStatistics(String requestType, String dataset) {
+        this.requestType = requestType;
+        this.dataset = dataset;
+        for (int i = 0; i < stageNanos.length; i++) {
+            stageNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Gets the {@link RequestStatistics} for a request type and dataset,
+     * creating it if necessary
+     * 
+     * @param requestType
+     *            The type of request
+     * @param dataset
+     *            The ID of the dataset, or <code>null</code>
+     * @return The {@link RequestStatistics}
+     */
+    public static RequestStatistics forRequest(String requestType, String dataset) {
+        return ALL_STATISTICS.computeIfAbsent(new Key(requestType, dataset), key -> {
+            RequestStatistics statistics = new RequestStatistics(requestType, dataset);
+            registerMBean(statistics);
+            return statistics;
+        });
+    }
+
+    /**
+     * @return The {@link RequestStatistics} for every request type and dataset
+     *         which has been recorded, ordered by request type and dataset
+     */
+    public static List<RequestStatistics> getAllStatistics() {
+        List<RequestStatistics> all = new ArrayList<>(ALL_STATISTICS.values());
+        Collections.sort(all, (s1, s2) -> {
+            int cmp = s1.requestType.compareTo(s2.requestType);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return String.valueOf(s1.dataset).compareTo(String.valueOf(s2.dataset));
+        });
+        return all;
+    }
+
+    private static void registerMBean(RequestStatistics statistics) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            String name = "uk.ac.rdg.resc.edal:type=RequestStatistics,request="
+                    + ObjectName.quote(statistics.requestType);
+            if (statistics.dataset != null) {
+                name += ",dataset=" + ObjectName.quote(statistics.dataset);
+            }
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(statistics, objectName);
+        } catch (JMException e) {
+            log.warn("Unable to register request statistics with JMX", e);
+        }
+    }
+
+    void add(RequestMetrics metrics, boolean failed) {
+        long nanos = metrics.getElapsedNanos();
+        requests.increment();
+        if (failed) {
+            errors.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        for (RequestMetrics.Stage stage : RequestMetrics.Stage.values()) {
+            stageNanos[stage.ordinal()].add(metrics.getStageNanos(stage));
+        }
+        bytesRead.add(metrics.getBytesRead());
+        cacheHits.add(metrics.getCacheHits());
+        cacheMisses.add(metrics.getCacheMisses());
+
+        long second = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        int bucket = (int) (second % RATE_WINDOW_SECONDS);
+        long bucketSecond = rateSeconds.get(bucket);
+        if (bucketSecond != second && rateSeconds.compareAndSet(bucket, bucketSecond, second)) {
+            /*
+             * This bucket last held an older second. Any requests counted
+             * between the check and the reset are lost, which is acceptable
+             * for a rate.
+             */
+            rateCounts.set(bucket, 0L);
+        }
+        rateCounts.incrementAndGet(bucket);
+    }
+
+    @Override
+    public String getRequestType() {
+        return requestType;
+    }
+
+    @Override
+    public String getDataset() {
+        return dataset;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getRequestsPerSecond() {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long count = 0L;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            long second = rateSeconds.get(i);
+            if (second > now - RATE_WINDOW_SECONDS && second <= now) {
+                count += rateCounts.get(i);
+            }
+        }
+        return (double) count / RATE_WINDOW_SECONDS;
+    }
+
+    @Override
+    public long getTotalTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+    }
+
+    @Override
+    public double getAverageTimeMillis() {
+        long count = requests.sum();
+        return count == 0 ? 0.0 : totalNanos.sum() / (count * 1e6);
+    }
+
+    @Override
+    public long getMaxTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    @Override
+    public Map<String, Long> getStageTimesMillis() {
+        Map<String, Long> times = new LinkedHashMap<>();
+        for (RequestMetrics.Stage stage : RequestMetrics.Stage.values()) {
+            times.put(stage.getLabel(),
+                    TimeUnit.NANOSECONDS.toMillis(stageNanos[stage.ordinal()].sum()));
+        }
+        return times;
+    }
+
+    @Override
+    public Map<String, Double> getAverageStageTimesMillis() {
+        long count = requests.sum();
+        Map<String, Double> times = new LinkedHashMap<>();
+        for (RequestMetrics.Stage stage : RequestMetrics.Stage.values()) {
+            times.put(stage.getLabel(),
+                    count == 0 ? 0.0 : stageNanos[stage.ordinal()].sum() / (count * 1e6));
+        }
+        return times;
+    }
+
+    /**
+     * @param stage
+     *            The {@link RequestMetrics.Stage}
+     * @return The total time spent in the given stage, in nanoseconds
+     */
+    public long getStageNanos(RequestMetrics.Stage stage) {
+        return stageNanos[stage.ordinal()].sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public double getAverageBytesRead() {
+        long count = requests.sum();
+        return count == 0 ? 0.0 : (double) bytesRead.sum() / count;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public void resetStatistics() {
+        requests.reset();
+        errors.reset();
+        totalNanos.reset();
+        maxNanos.set(0L);
+        for (LongAdder stage : stageNanos) {
+            stage.reset();
+        }
+        bytesRead.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            rateCounts.set(i, 0L);
+        }
+    }
+
+    /**
+     * Writes the statistics for all request types and datasets in the
+     * Prometheus text exposition format
+     * 
+     * @param writer
+     *            The {@link PrintWriter} to write to
+     */
+    public static void writeText(PrintWriter writer) {
+        List<RequestStatistics> all = getAllStatistics();
+        writeMetric(writer, all, "edal_requests_total", "counter",
+                "Number of requests handled", s -> s.getRequestCount());
+        writeMetric(writer, all, "edal_request_errors_total", "counter",
+                "Number of requests which failed", s -> s.getErrorCount());
+        writeMetric(writer, all, "edal_requests_per_second", "gauge",
+                "Mean request rate over the last minute", s -> s.getRequestsPerSecond());
+        writeMetric(writer, all, "edal_request_seconds_total", "counter",
+                "Total time spent handling requests", s -> s.totalNanos.sum() / 1e9);
+        writeMetric(writer, all, "edal_request_seconds_max", "gauge",
+                "Longest time taken to handle a request", s -> s.maxNanos.get() / 1e9);
+
+        writer.println("# HELP edal_request_stage_seconds_total Time spent in each stage of handling requests");
+        writer.println("# TYPE edal_request_stage_seconds_total counter");
+        for (RequestStatistics statistics : all) {
+            for (RequestMetrics.Stage stage : RequestMetrics.Stage.values()) {
+                writer.print("edal_request_stage_seconds_total");
+                writer.print(statistics.getLabels("stage", stage.getLabel()));
+                writer.print(' ');
+                writer.println(statistics.getStageNanos(stage) / 1e9);
+            }
+        }
+
+        writeMetric(writer, all, "edal_request_bytes_read_total", "counter",
+                "Bytes read from data sources", s -> s.getBytesRead());
+        writeMetric(writer, all, "edal_request_cache_hits_total", "counter",
+                "Cache lookups which were hits", s -> s.getCacheHitCount());
+        writeMetric(writer, all, "edal_request_cache_misses_total", "counter",
+                "Cache lookups which were misses", s -> s.getCacheMissCount());
+        writer.flush();
+    }
+
+    private interface Metric {
+        public Number get(RequestStatistics statistics);
+    }
+
+    private static void writeMetric(PrintWriter writer, Collection<RequestStatistics> all,
+            String name, String type, String help, Metric metric) {
+        writer.println("# HELP " + name + " " + help);
+        writer.println("# TYPE " + name + " " + type);
+        for (RequestStatistics statistics : all) {
+            writer.print(name);
+            writer.print(statistics.getLabels());
+            writer.print(' ');
+            writer.println(metric.get(statistics));
+        }
+    }
+
+    private String getLabels(String... extraLabels) {
+        StringBuilder labels = new StringBuilder();
+        labels.append("{request=\"").append(escape(requestType)).append('"');
+        if (dataset != null) {
+            labels.append(",dataset=\"").append(escape(dataset)).append('"');
+        }
+        for (int i = 0; i + 1 < extraLabels.length; i += 2) {
+            labels.append(',').append(extraLabels[i]).append("=\"")
+                    .append(escape(extraLabels[i + 1])).append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Key {
+        private final String requestType;
+        private final String dataset;
+
+        private Key(String requestType, String dataset) {
+            this.requestType = requestType;
+            this.dataset = dataset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requestType, dataset);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(requestType, other.requestType)
+                    && Objects.equals(dataset, other.dataset);
+        }
+    }
+}
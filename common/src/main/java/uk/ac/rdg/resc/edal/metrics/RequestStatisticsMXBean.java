@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the {@link RequestStatistics} of one request
+ * type and dataset through JMX.
+ */
+public interface RequestStatisticsMXBean {
+    public String getRequestType();
+
+    /**
+     * @return The ID of the dataset, or <code>null</code> for requests which
+     *         are not for a single dataset
+     */
+    public String getDataset();
+
+    public long getRequestCount();
+
+    public long getErrorCount();
+
+    /**
+     * @return The mean number of requests per second over the last minute
+     */
+    public double getRequestsPerSecond();
+
+    public long getTotalTimeMillis();
+
+    public double getAverageTimeMillis();
+
+    public long getMaxTimeMillis();
+
+    /**
+     * @return The total time spent in each stage of handling requests, in
+     *         milliseconds, keyed by stage
+     */
+    public Map<String, Long> getStageTimesMillis();
+
+    /**
+     * @return The mean time spent in each stage per request, in milliseconds,
+     *         keyed by stage
+     */
+    public Map<String, Double> getAverageStageTimesMillis();
+
+    /**
+     * @return The total number of bytes read from data sources
+     */
+    public long getBytesRead();
+
+    public double getAverageBytesRead();
+
+    public long getCacheHitCount();
+
+    public long getCacheMissCount();
+
+    /**
+     * @return The fraction of cache lookups which were hits
+     */
+    public double getCacheHitRatio();
+
+    /**
+     * Resets all statistics to zero
+     */
+    public void resetStatistics();
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.util;
+
+import java.util.Arrays;
+
+/**
+ * Implementation of an {@link Array1D} which uses a primitive array of floats
+ * for storage. Missing values are stored as {@link Float#NaN} and returned as
+ * <code>null</code>. Values are returned as {@link Float}s, so this should be
+ * used in preference to a {@link DoubleArray1D} for data which is stored as
+ * floats, to keep both the type and the size of the data.
+ */
+public class FloatArray1D extends Array1D<Number> {
+    private static final long serialVersionUID = 1L;
+    private float[] data;
+
+    /**
+     * Creates a new {@link FloatArray1D} with all values missing
+     */
+    public FloatArray1D(int size) {
+        super(size);
+        data = new float[size];
+        Arrays.fill(data, Float.NaN);
+    }
+
+    @Override
+    public Number get(int... coords) {
+        if (coords.length != 1) {
+            throw new IllegalArgumentException("Wrong number of co-ordinates (" + coords.length
+                    + ") for this Array (needs 1)");
+        }
+        float value = data[coords[0]];
+        return Float.isNaN(value) ? null : value;
+    }
+
+    @Override
+    public void set(Number value, int... coords) {
+        if (coords.length != 1) {
+            throw new IllegalArgumentException("Wrong number of co-ordinates (" + coords.length
+                    + ") for this Array (needs 1)");
+        }
+        data[coords[0]] = value == null ? Float.NaN : value.floatValue();
+    }
+
+    /**
+     * Sets a value without boxing
+     */
+    public void setFloat(int index, float value) {
+        data[index] = value;
+    }
+}
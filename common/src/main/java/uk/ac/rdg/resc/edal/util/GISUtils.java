@@ -351,6 +351,105 @@ public final class GISUtils implements ObjectFactory {
 
     }
 
+    /**
+     * Transforms many lat-lon headings to the
+     * {@link CoordinateReferenceSystem}s of the positions at which they are
+     * valid. This is equivalent to calling
+     * {@link GISUtils#transformWgs84Heading(Number, HorizontalPosition)} for
+     * each heading, but looks up the transform once for each run of positions
+     * sharing a {@link CoordinateReferenceSystem} and transforms all of the
+     * positions in a single call.
+     * 
+     * @param headings
+     *            The headings, in degrees. <code>NaN</code> headings are
+     *            skipped
+     * @param positions
+     *            The {@link HorizontalPosition}s at which to transform each
+     *            heading. Must be the same length as <code>headings</code>
+     * @return A new array containing the headings in degrees clockwise from
+     *         "upwards" in the target CRS, or <code>NaN</code> where either
+     *         the heading or its position is missing
+     */
+    public static double[] transformWgs84Headings(double[] headings, HorizontalPosition[] positions) {
+        if (headings.length != positions.length) {
+            throw new IllegalArgumentException("Must supply one position per heading");
+        }
+        double[] ret = new double[headings.length];
+        int start = 0;
+        while (start < headings.length) {
+            if (positions[start] == null) {
+                ret[start++] = Double.NaN;
+                continue;
+            }
+            CoordinateReferenceSystem crs = positions[start].getCoordinateReferenceSystem();
+            if (crs == null) {
+                throw new NullPointerException("Target CRS cannot be null");
+            }
+            /*
+             * Find the run of positions which share this CRS
+             */
+            int end = start + 1;
+            while (end < headings.length && positions[end] != null
+                    && positions[end].getCoordinateReferenceSystem() == crs) {
+                end++;
+            }
+            transformWgs84Headings(headings, positions, start, end, crs, ret);
+            start = end;
+        }
+        return ret;
+    }
+
+    private static void transformWgs84Headings(double[] headings, HorizontalPosition[] positions,
+            int start, int end, CoordinateReferenceSystem crs, double[] ret) {
+        try {
+            MathTransform wgs2crs = CRS
+                    .findOperation(CommonCRS.WGS84.normalizedGeographic(), crs, null)
+                    .getMathTransform();
+            if (wgs2crs.isIdentity()) {
+                System.arraycopy(headings, start, ret, start, end - start);
+                return;
+            }
+            /*
+             * Find the positions of all non-missing headings in WGS84 at once
+             */
+            int[] indices = new int[end - start];
+            double[] points = new double[2 * (end - start)];
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                if (Double.isNaN(headings[i])) {
+                    ret[i] = Double.NaN;
+                } else {
+                    indices[n] = i;
+                    points[2 * n] = positions[i].getX();
+                    points[2 * n + 1] = positions[i].getY();
+                    n++;
+                }
+            }
+            wgs2crs.inverse().transform(points, 0, points, 0, n);
+
+            DirectPosition2D point = new DirectPosition2D();
+            for (int k = 0; k < n; k++) {
+                double heading = headings[indices[k]] * DEG2RAD;
+                point.x = points[2 * k];
+                point.y = points[2 * k + 1];
+                /*
+                 * Use the derivative at each position to find the new heading
+                 */
+                Matrix derivative = wgs2crs.derivative(point);
+
+                double x = Math.sin(heading);
+                double y = Math.cos(heading);
+
+                double newX = derivative.getElement(0, 0) * x + derivative.getElement(0, 1) * y;
+                double newY = derivative.getElement(1, 0) * x + derivative.getElement(1, 1) * y;
+
+                ret[indices[k]] = RAD2DEG * Math.atan2(newX, newY);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Tests whether 2 {@link CoordinateReferenceSystem}s are equivalent
      *
@@ -522,38 +621,53 @@ public final class GISUtils implements ObjectFactory {
     }
 
     public static int getIndexOfClosestTimeTo(DateTime targetTime, TimeAxis timeAxis) {
-        List<DateTime> tValues = timeAxis.getCoordinateValues();
-        int index = TimeUtils.findTimeIndex(tValues, targetTime);
-        if (index < 0) {
+        /*
+         * Binary search on the raw axis values, to avoid creating a DateTime
+         * for each value visited
+         */
+        long target = targetTime.getMillis();
+        int low = 0;
+        int high = timeAxis.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midVal = timeAxis.getCoordinateMillis(mid);
+            if (midVal < target) {
+                low = mid + 1;
+            } else if (midVal > target) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        /*
+         * We have the insertion point
+         */
+        int insertionPoint = low;
+        int index;
+        if (insertionPoint == timeAxis.size()) {
             /*
-             * We can calculate the insertion point
+             * We set the index to the most recent past time
              */
-            int insertionPoint = -(index + 1);
+            index = insertionPoint - 1;
+        } else if (insertionPoint > 0) {
             /*
-             * We set the index to the most recent past time
+             * We need to find which of the two possibilities is the closest
+             * time
              */
-            if (insertionPoint == tValues.size()) {
-                index = insertionPoint - 1;
-            } else if (insertionPoint > 0) {
-                /*
-                 * We need to find which of the two possibilities is the closest
-                 * time
-                 */
-                long t1 = tValues.get(insertionPoint - 1).getMillis();
-                long t2 = tValues.get(insertionPoint).getMillis();
+            long t1 = timeAxis.getCoordinateMillis(insertionPoint - 1);
+            long t2 = timeAxis.getCoordinateMillis(insertionPoint);
 
-                if ((t2 - targetTime.getMillis()) <= (targetTime.getMillis() - t1)) {
-                    index = insertionPoint;
-                } else {
-                    index = insertionPoint - 1;
-                }
+            if ((t2 - target) <= (target - t1)) {
+                index = insertionPoint;
             } else {
-                /*
-                 * All DateTimes on the axis are in the future, so we take the
-                 * earliest
-                 */
-                index = 0;
+                index = insertionPoint - 1;
             }
+        } else {
+            /*
+             * All DateTimes on the axis are in the future, so we take the
+             * earliest
+             */
+            index = 0;
         }
         return index;
     }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.util;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+
+import uk.ac.rdg.resc.edal.grid.RegularTimeAxisImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.grid.TimeAxisImpl;
+
+/**
+ * Contains convenience methods for creating compact {@link TimeAxis} objects.
+ * Axes created here are interned, so that the many variables of a dataset
+ * which share a time axis also share a single {@link TimeAxis} object. This
+ * class is non-instantiable.
+ */
+public final class TimeAxes {
+    /*
+     * Interned axes. Values are weakly referenced so that axes are discarded
+     * once no dataset refers to them.
+     */
+    private static final Map<TimeAxis, WeakReference<TimeAxis>> INTERNED = new WeakHashMap<>();
+
+    /*
+     * Prevents instantiation
+     */
+    private TimeAxes() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Creates a new {@link TimeAxis}. If the values are evenly spaced, this
+     * will be a {@link RegularTimeAxisImpl}.
+     * 
+     * @param name
+     *            The name of the axis
+     * @param axisValues
+     *            The values of the axis, which must increase or decrease
+     *            monotonically. All values are assumed to share the
+     *            {@link Chronology} of the first.
+     * @return An interned {@link TimeAxis} with the given values
+     */
+    public static TimeAxis newTimeAxis(String name, List<DateTime> axisValues) {
+        if (axisValues.isEmpty()) {
+            throw new IllegalArgumentException("Zero-length array");
+        }
+        long[] millis = new long[axisValues.size()];
+        int i = 0;
+        for (DateTime axisValue : axisValues) {
+            millis[i++] = axisValue.getMillis();
+        }
+        return newTimeAxis(name, millis, axisValues.get(0).getChronology());
+    }
+
+    /**
+     * Creates a new {@link TimeAxis}. If the values are evenly spaced, this
+     * will be a {@link RegularTimeAxisImpl}.
+     * 
+     * @param name
+     *            The name of the axis
+     * @param millis
+     *            The values of the axis, in milliseconds since the epoch. These
+     *            must increase or decrease monotonically. This array must not
+     *            be modified after calling this method.
+     * @param chronology
+     *            The {@link Chronology} of the axis values
+     * @return An interned {@link TimeAxis} with the given values
+     */
+    public static TimeAxis newTimeAxis(String name, long[] millis, Chronology chronology) {
+        TimeAxis axis;
+        long period = getRegularSpacing(millis);
+        if (period > 0) {
+            axis = new RegularTimeAxisImpl(name, millis[0], period, millis.length, chronology);
+        } else {
+            axis = new TimeAxisImpl(name, millis, chronology);
+        }
+        return intern(axis);
+    }
+
+    /**
+     * Returns a canonical instance of the given {@link TimeAxis}. If an equal
+     * axis has previously been interned, that axis is returned, otherwise the
+     * given axis is stored and returned.
+     * 
+     * @param axis
+     *            The {@link TimeAxis} to intern
+     * @return A {@link TimeAxis} equal to the supplied axis
+     */
+    public static TimeAxis intern(TimeAxis axis) {
+        if (axis == null) {
+            return null;
+        }
+        synchronized (INTERNED) {
+            WeakReference<TimeAxis> ref = INTERNED.get(axis);
+            TimeAxis existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                return existing;
+            }
+            INTERNED.put(axis, new WeakReference<>(axis));
+            return axis;
+        }
+    }
+
+    /*
+     * Returns the spacing of the given values if they ascend with a constant
+     * spacing, or -1 otherwise. Axes of fewer than 2 values are not considered
+     * to be regular.
+     */
+    private static long getRegularSpacing(long[] millis) {
+        if (millis.length < 2) {
+            return -1;
+        }
+        long period = millis[1] - millis[0];
+        if (period <= 0) {
+            return -1;
+        }
+        for (int i = 2; i < millis.length; i++) {
+            if (millis[i] - millis[i - 1] != period) {
+                return -1;
+            }
+        }
+        return period;
+    }
+}
@@ -45,6 +45,8 @@ import org.slf4j.LoggerFactory;
 
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.exceptions.BadTimeFormatException;
+import uk.ac.rdg.resc.edal.grid.RegularTimeAxisImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
 
 /**
  * <p>
@@ -364,6 +366,31 @@ public class TimeUtils {
         return str.toString();
     }
 
+    /**
+     * Returns a string representing the values of the given {@link TimeAxis},
+     * suitable for inclusion in a Capabilities document. Regular axes are
+     * written directly as "start/stop/period" without examining their
+     * individual values. Other axes are treated as in
+     * {@link TimeUtils#getTimeStringForCapabilities(List)}.
+     * 
+     * @param timeAxis
+     *            The {@link TimeAxis} to convert to a String
+     * @return a string representing the given axis, suitable for inclusion in
+     *         a Capabilities document.
+     */
+    public static String getTimeStringForCapabilities(TimeAxis timeAxis) {
+        if (timeAxis instanceof RegularTimeAxisImpl && timeAxis.size() > 2) {
+            StringBuilder str = new StringBuilder();
+            str.append(dateTimeToISO8601(timeAxis.getCoordinateValue(0)));
+            str.append("/");
+            str.append(dateTimeToISO8601(timeAxis.getCoordinateValue(timeAxis.size() - 1)));
+            str.append("/");
+            str.append(getPeriodString(((RegularTimeAxisImpl) timeAxis).getPeriod()));
+            return str.toString();
+        }
+        return getTimeStringForCapabilities(timeAxis.getCoordinateValues());
+    }
+
     /**
      * <p>
      * Creates a time string, suitable for a Capabilities document, that
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.util;
+
+import java.io.Serializable;
+import java.util.List;
+
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+
+/**
+ * A vertical section of a single variable along a horizontal path. Values are
+ * stored in a primitive array, indexed first by vertical level and then by
+ * position along the path. Missing values are stored as {@link Float#NaN}.
+ */
+public class VerticalSection implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<HorizontalPosition> positions;
+    private final VerticalAxis verticalAxis;
+    private final Parameter parameter;
+    private final float[] values;
+
+    /**
+     * @param positions
+     *            The {@link HorizontalPosition}s along the path
+     * @param verticalAxis
+     *            The {@link VerticalAxis} of the section
+     * @param parameter
+     *            The {@link Parameter} which this section contains values of
+     * @param values
+     *            The values of the section. The value at vertical index z and
+     *            path index i must be at
+     *            <code>values[z * positions.size() + i]</code>
+     */
+    public VerticalSection(List<HorizontalPosition> positions, VerticalAxis verticalAxis,
+            Parameter parameter, float[] values) {
+        if (values.length != positions.size() * verticalAxis.size()) {
+            throw new IllegalArgumentException("Section has " + values.length
+                    + " values, but needs " + positions.size() * verticalAxis.size());
+        }
+        this.positions = positions;
+        this.verticalAxis = verticalAxis;
+        this.parameter = parameter;
+        this.values = values;
+    }
+
+    /**
+     * @return The {@link HorizontalPosition}s along the path
+     */
+    public List<HorizontalPosition> getPositions() {
+        return positions;
+    }
+
+    /**
+     * @return The {@link VerticalAxis} of this section
+     */
+    public VerticalAxis getVerticalAxis() {
+        return verticalAxis;
+    }
+
+    /**
+     * @return The {@link Parameter} which this section contains values of
+     */
+    public Parameter getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @return The number of positions along the path
+     */
+    public int getNumPositions() {
+        return positions.size();
+    }
+
+    /**
+     * @return The number of vertical levels
+     */
+    public int getNumLevels() {
+        return verticalAxis.size();
+    }
+
+    /**
+     * @param zIndex
+     *            The index on the vertical axis
+     * @param positionIndex
+     *            The index along the path
+     * @return The value at the given indices, or {@link Float#NaN} if there is
+     *         no data there
+     */
+    public float getValue(int zIndex, int positionIndex) {
+        return values[zIndex * positions.size() + positionIndex];
+    }
+
+    /**
+     * @return The range of all non-missing values in this section, or an
+     *         empty {@link Extent} if there are none
+     */
+    public Extent<Float> getValueRange() {
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        for (float value : values) {
+            if (!Float.isNaN(value)) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (min > max) {
+            return Extents.emptyExtent();
+        }
+        return Extents.newExtent(min, max);
+    }
+}
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.util.DoubleArray1D;
+import uk.ac.rdg.resc.edal.util.FloatArray1D;
+import uk.ac.rdg.resc.edal.util.ValuesArray1D;
+
+/**
+ * Test class for {@link FeatureWeigher}.
+ */
+public class FeatureWeigherTest {
+    @Test
+    public void testPrimitiveValues() {
+        assertEquals(800, FeatureWeigher.weigh(new DoubleArray1D(100)));
+        assertEquals(400, FeatureWeigher.weigh(new FloatArray1D(100)));
+    }
+
+    @Test
+    public void testBoxedValues() {
+        ValuesArray1D floats = new ValuesArray1D(100);
+        ValuesArray1D doubles = new ValuesArray1D(100);
+        for (int i = 0; i < 100; i++) {
+            floats.set((float) i, i);
+            doubles.set((double) i, i);
+        }
+        /* A reference and a boxed object for each value */
+        assertEquals(100 * (8 + 16), FeatureWeigher.weigh(floats));
+        assertEquals(100 * (8 + 24), FeatureWeigher.weigh(doubles));
+
+        /* Missing values are only references */
+        assertEquals(100 * 8, FeatureWeigher.weigh(new ValuesArray1D(100)));
+    }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+
+/**
+ * Test class for {@link WeighedCache}.
+ */
+public class WeighedCacheTest {
+
+    private WeighedCache<String, String> cache;
+
+    /**
+     * Creates a cache of strings, each weighing its length, with a maximum
+     * weight of 10
+     */
+    @Before
+    public void setUp() {
+        cache = new WeighedCache<>("test", 10, 0, String::length);
+    }
+
+    /**
+     * Tests that values are stored, and that statistics are recorded
+     */
+    @Test
+    public void testGetAndPut() {
+        assertNull(cache.get("a"));
+        cache.put("a", "1234");
+        assertEquals("1234", cache.get("a"));
+        assertEquals(4, cache.getWeight());
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRatio(), 1e-10);
+    }
+
+    /**
+     * Tests that the least-recently used entries are evicted when the maximum
+     * weight is exceeded
+     */
+    @Test
+    public void testEviction() {
+        cache.put("a", "1234");
+        cache.put("b", "1234");
+        /* Access a, so that b is the least-recently used */
+        cache.get("a");
+        cache.put("c", "1234");
+        assertNull(cache.get("b"));
+        assertEquals("1234", cache.get("a"));
+        assertEquals("1234", cache.get("c"));
+        assertEquals(8, cache.getWeight());
+        assertEquals(1, cache.getEvictionCount());
+
+        /* Too heavy to be cached at all */
+        cache.put("d", "12345678901");
+        assertNull(cache.get("d"));
+        assertEquals(8, cache.getWeight());
+
+        /* Replacing an entry replaces its weight */
+        cache.put("a", "1");
+        assertEquals(5, cache.getWeight());
+
+        cache.setMaxWeight(2);
+        assertEquals(1, cache.getSize());
+        assertEquals("1", cache.get("a"));
+    }
+
+    /**
+     * Tests that values are loaded only on a miss
+     */
+    @Test
+    public void testLoader() {
+        assertEquals("12", cache.get("a", () -> "12"));
+        assertEquals("12", cache.get("a", () -> "should not be loaded"));
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getWeight());
+    }
+
+    /**
+     * Tests that concurrent requests for a missing value wait for a single
+     * load
+     */
+    @Test
+    public void testConcurrentLoadsAreShared() throws Exception {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        WeighedCache.Loader<String> loader = () -> {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                finishLoad.await();
+            } catch (InterruptedException e) {
+                throw new EdalException("Interrupted", e);
+            }
+            return new String("12");
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("a", loader));
+            assertEquals(true, loadStarted.await(10, TimeUnit.SECONDS));
+            @SuppressWarnings("unchecked")
+            Future<String>[] others = new Future[3];
+            for (int i = 0; i < others.length; i++) {
+                others[i] = executor.submit(() -> cache.get("a", loader));
+            }
+            /* Give the other requests time to find the load in progress */
+            Thread.sleep(100);
+            finishLoad.countDown();
+            String value = first.get(10, TimeUnit.SECONDS);
+            for (Future<String> other : others) {
+                assertSame(value, other.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cache.getLoadCount());
+    }
+
+    /**
+     * Tests that a failed load is reported, and not cached
+     */
+    @Test
+    public void testFailedLoad() {
+        try {
+            cache.get("a", () -> {
+                throw new EdalException("Cannot load");
+            });
+            fail("Expected the loader's exception");
+        } catch (EdalException e) {
+            assertEquals("Cannot load", e.getMessage());
+        }
+        assertEquals("12", cache.get("a", () -> "12"));
+    }
+}
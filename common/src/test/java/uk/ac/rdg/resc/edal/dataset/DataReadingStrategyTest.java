@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+public class DataReadingStrategyTest {
+    /* A 1/12 degree global grid */
+    private static final HorizontalGrid SOURCE_GRID = new RegularGridImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS(), 4320, 2160);
+
+    /*
+     * A GridDataSource whose values encode their indices, and which counts the
+     * points it reads
+     */
+    private static class CountingDataSource implements GridDataSource {
+        int reads = 0;
+        long pointsRead = 0;
+
+        @Override
+        public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin, int zmax,
+                int ymin, int ymax, int xmin, int xmax) {
+            return readStrided(variableId, tmin, zmin, ymin, ymax, 1, xmin, xmax, 1);
+        }
+
+        @Override
+        public Array4D<Number> readStrided(String variableId, int tIndex, int zIndex, int ymin,
+                int ymax, int ystride, int xmin, int xmax, int xstride) {
+            int ySize = (ymax - ymin) / ystride + 1;
+            int xSize = (xmax - xmin) / xstride + 1;
+            reads++;
+            pointsRead += (long) xSize * ySize;
+            return new Array4D<Number>(1, 1, ySize, xSize) {
+                @Override
+                public Number get(int... coords) {
+                    return (ymin + coords[2] * ystride) * 10000 + xmin + coords[3] * xstride;
+                }
+
+                @Override
+                public void set(Number value, int... coords) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws DataReadingException {
+        }
+    }
+
+    @Test
+    public void testCoarseMapReadsOnlyUsedPoints() throws Exception {
+        HorizontalGrid target = new RegularGridImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS(), 256, 256);
+        Domain2DMapper mapper = Domain2DMapper.forGrid(SOURCE_GRID, target);
+        assertTrue(mapper.isSeparable());
+
+        CountingDataSource strided = new CountingDataSource();
+        Array2D<Number> stridedData = DataReadingStrategy.STRIDED.readMapData(strided, "var", 0,
+                0, mapper);
+        CountingDataSource bbox = new CountingDataSource();
+        Array2D<Number> bboxData = DataReadingStrategy.BOUNDING_BOX.readMapData(bbox, "var", 0,
+                0, mapper);
+
+        assertSameValues(bboxData, stridedData);
+        assertEquals((long) mapper.getUsedIIndices().length * mapper.getUsedJIndices().length,
+                strided.pointsRead);
+        assertTrue(strided.reads <= 256);
+    }
+
+    @Test
+    public void testZoomedInMapReadsOnce() throws Exception {
+        HorizontalGrid target = new RegularGridImpl(0, 0, 5, 5, GISUtils.defaultGeographicCRS(),
+                256, 256);
+        Domain2DMapper mapper = Domain2DMapper.forGrid(SOURCE_GRID, target);
+
+        CountingDataSource strided = new CountingDataSource();
+        Array2D<Number> stridedData = DataReadingStrategy.STRIDED.readMapData(strided, "var", 0,
+                0, mapper);
+        CountingDataSource bbox = new CountingDataSource();
+        Array2D<Number> bboxData = DataReadingStrategy.BOUNDING_BOX.readMapData(bbox, "var", 0,
+                0, mapper);
+
+        assertSameValues(bboxData, stridedData);
+        assertEquals(1, strided.reads);
+        assertEquals(bbox.pointsRead, strided.pointsRead);
+    }
+
+    @Test
+    public void testReprojectedMap() throws Exception {
+        HorizontalGrid target = new RegularGridImpl(-2e7, -2e7, 2e7, 2e7,
+                GISUtils.getCrs("EPSG:3857"), 256, 256);
+        Domain2DMapper mapper = Domain2DMapper.forGrid(SOURCE_GRID, target);
+
+        CountingDataSource strided = new CountingDataSource();
+        Array2D<Number> stridedData = DataReadingStrategy.STRIDED.readMapData(strided, "var", 0,
+                0, mapper);
+        CountingDataSource scanline = new CountingDataSource();
+        Array2D<Number> scanlineData = DataReadingStrategy.SCANLINE.readMapData(scanline, "var",
+                0, 0, mapper);
+
+        assertSameValues(scanlineData, stridedData);
+        assertTrue(strided.pointsRead <= scanline.pointsRead);
+        assertTrue(strided.reads <= scanline.reads + 256);
+    }
+
+    @Test
+    public void testIrregularRowsLimitReads() throws Exception {
+        /*
+         * A rotated target, so that the used points differ between rows
+         */
+        HorizontalGrid target = new RegularGridImpl(-6e6, -6e6, 6e6, 6e6,
+                GISUtils.getCrs("EPSG:3995"), 256, 256);
+        Domain2DMapper mapper = Domain2DMapper.forGrid(SOURCE_GRID, target);
+        assertFalse(mapper.isSeparable());
+
+        CountingDataSource strided = new CountingDataSource();
+        Array2D<Number> stridedData = DataReadingStrategy.STRIDED.readMapData(strided, "var", 0,
+                0, mapper);
+        CountingDataSource scanline = new CountingDataSource();
+        Array2D<Number> scanlineData = DataReadingStrategy.SCANLINE.readMapData(scanline, "var",
+                0, 0, mapper);
+
+        assertSameValues(scanlineData, stridedData);
+        assertTrue(strided.pointsRead <= scanline.pointsRead);
+        assertTrue(strided.reads <= scanline.reads + 256);
+    }
+
+    @Test
+    public void testDecompose() {
+        /* Steps of 16, 17, 17 repeating */
+        int[] indices = new int[100];
+        for (int k = 1; k < indices.length; k++) {
+            indices[k] = indices[k - 1] + (k % 3 == 1 ? 16 : 17);
+        }
+        List<StridedRange> ranges = StridedRange.decompose(indices);
+        assertEquals(3, ranges.size());
+        assertRangesContainExactly(indices, ranges);
+
+        /* Two contiguous blocks */
+        int[] blocks = new int[20];
+        for (int k = 0; k < 20; k++) {
+            blocks[k] = k < 10 ? k : k + 90;
+        }
+        ranges = StridedRange.decompose(blocks);
+        assertEquals(2, ranges.size());
+        assertRangesContainExactly(blocks, ranges);
+
+        StridedRange enclosing = StridedRange.enclosing(new int[] { 3, 9, 21 });
+        assertEquals(3, enclosing.first);
+        assertEquals(6, enclosing.stride);
+        assertEquals(21, enclosing.last());
+    }
+
+    private static void assertRangesContainExactly(int[] indices, List<StridedRange> ranges) {
+        int total = 0;
+        for (StridedRange range : ranges) {
+            for (int k = 0; k < range.count; k++) {
+                assertTrue(Arrays.binarySearch(indices, range.first + k * range.stride) >= 0);
+            }
+            total += range.count;
+        }
+        assertEquals(indices.length, total);
+    }
+
+    private static void assertSameValues(Array2D<Number> expected, Array2D<Number> actual) {
+        boolean anyValues = false;
+        for (int y = 0; y < expected.getYSize(); y++) {
+            for (int x = 0; x < expected.getXSize(); x++) {
+                assertEquals(expected.get(y, x), actual.get(y, x));
+                anyValues |= expected.get(y, x) != null;
+            }
+        }
+        assertTrue(anyValues);
+        assertFalse(expected.getXSize() == 0);
+    }
+}
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.feature.GridFeature;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.metadata.Parameter.Category;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+public class GridOverviewsTest {
+    private static final int NX = 1024;
+    private static final int NY = 512;
+    private static final HorizontalGrid GRID = new RegularGridImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS(), NX, NY);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestDataset dataset;
+    private GridOverviews overviews;
+
+    /*
+     * A gridded dataset with one continuous and one categorical variable,
+     * which counts the reads of source data
+     */
+    private static class TestDataset extends GriddedDataset {
+        private static final long serialVersionUID = 1L;
+        int reads = 0;
+
+        TestDataset() {
+            super("test", Arrays.asList(
+                    new GridVariableMetadata(
+                            new Parameter("value", "Value", "", "none", null), GRID, null,
+                            null, true),
+                    new GridVariableMetadata(new Parameter("class", "Class", "", "none", null,
+                            getCategories()), GRID, null, null, true)));
+        }
+
+        private static Map<Integer, Category> getCategories() {
+            Map<Integer, Category> categories = new HashMap<>();
+            for (int i = 0; i < 4; i++) {
+                categories.put(i, new Category(Integer.toString(i), null, null, null));
+            }
+            return categories;
+        }
+
+        static Number getValue(String variableId, int x, int y) {
+            if (variableId.equals("class")) {
+                /* Mostly 1, with a 2 in each 4x4 block */
+                return x % 4 == 0 && y % 4 == 0 ? 2 : 1;
+            }
+            if (x == 0 && y == 0) {
+                return null;
+            }
+            return x + 1000 * y;
+        }
+
+        @Override
+        public GridFeature readFeature(String featureId) throws DataReadingException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected GridDataSource openDataSource() throws DataReadingException {
+            return new GridDataSource() {
+                @Override
+                public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin,
+                        int zmax, int ymin, int ymax, int xmin, int xmax) {
+                    reads++;
+                    return new Array4D<Number>(1, 1, ymax - ymin + 1, xmax - xmin + 1) {
+                        @Override
+                        public Number get(int... coords) {
+                            return getValue(variableId, xmin + coords[3], ymin + coords[2]);
+                        }
+
+                        @Override
+                        public void set(Number value, int... coords) {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public void close() throws DataReadingException {
+                }
+            };
+        }
+
+        @Override
+        protected DataReadingStrategy getDataReadingStrategy() {
+            return DataReadingStrategy.BOUNDING_BOX;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dataset = new TestDataset();
+        overviews = new GridOverviews(folder.getRoot(), 1L);
+    }
+
+    @Test
+    public void testFactors() {
+        assertArrayEquals(new int[] { 2, 4 }, GridOverviews.getFactors(GRID));
+        assertArrayEquals(new int[0], GridOverviews.getFactors(
+                new RegularGridImpl(0, 0, 10, 10, GISUtils.defaultGeographicCRS(), 256, 256)));
+    }
+
+    @Test
+    public void testBuildIsIncremental() throws Exception {
+        assertEquals(2, overviews.build(dataset));
+        assertEquals(0, overviews.build(dataset));
+        assertEquals(2, new File(folder.getRoot(), "value").list().length);
+    }
+
+    @Test
+    public void testChangedDataAreRebuilt() throws Exception {
+        overviews.build(dataset);
+        GridVariableMetadata metadata = dataset.getVariableMetadata("value");
+        HorizontalGrid target = new RegularGridImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS(), 128, 64);
+        Domain2DMapper mapper = Domain2DMapper.forGrid(GRID, target);
+        assertNotNull(overviews.findOverview(metadata, 0, 0, mapper));
+
+        /* The same files, after the source data have changed */
+        GridOverviews changed = new GridOverviews(folder.getRoot(), 2L);
+        assertNull(changed.findOverview(metadata, 0, 0, mapper));
+        assertEquals(2, changed.build(dataset));
+        assertEquals(0, changed.build(dataset));
+        assertNotNull(changed.findOverview(metadata, 0, 0, mapper));
+
+        /* A restart with the same data finds the existing overviews */
+        assertEquals(0, new GridOverviews(folder.getRoot(), 2L).build(dataset));
+    }
+
+    @Test
+    public void testOverviewValues() throws Exception {
+        overviews.build(dataset);
+        GridVariableMetadata metadata = dataset.getVariableMetadata("value");
+
+        /* 8 source points per target point, so the 1/4 overview is used */
+        HorizontalGrid target = new RegularGridImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS(), 128, 64);
+        GridOverviews.Overview overview = overviews.findOverview(metadata, 0, 0,
+                Domain2DMapper.forGrid(GRID, target));
+        assertNotNull(overview);
+        assertEquals(NX / 4, overview.getGrid().getXSize());
+
+        try (GridOverviews.Overview source = overview) {
+            Array4D<Number> data = source.read("value", 0, 0, 0, 0, 0, 1, 0, 200);
+            /* The mean of a 4x4 block, ignoring the missing value at 0,0 */
+            double sum = 0;
+            for (int y = 0; y < 4; y++) {
+                for (int x = 0; x < 4; x++) {
+                    sum += x + y == 0 ? 0 : x + 1000 * y;
+                }
+            }
+            assertEquals(sum / 15, data.get(0, 0, 0, 0).doubleValue(), 1e-3);
+            assertEquals(1.5 + 4 * 200 + 1000 * 5.5, data.get(0, 0, 1, 200).doubleValue(),
+                    1e-3);
+        }
+
+        GridOverviews.Overview classOverview = overviews.findOverview(
+                dataset.getVariableMetadata("class"), 0, 0, Domain2DMapper.forGrid(GRID, target));
+        try (GridOverviews.Overview source = classOverview) {
+            assertEquals(1, source.read("class", 0, 0, 0, 0, 3, 3, 7, 7).get(0, 0, 0, 0)
+                    .intValue());
+        }
+    }
+
+    @Test
+    public void testMapsReadFromOverviews() throws Exception {
+        overviews.build(dataset);
+        dataset.setOverviews(overviews);
+        GridVariableMetadata metadata = dataset.getVariableMetadata("value");
+
+        /* Full resolution requests don't use an overview */
+        assertNull(overviews.findOverview(metadata, 0, 0, Domain2DMapper.forGrid(GRID, GRID)));
+
+        HorizontalGrid target = new RegularGridImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS(), 256, 128);
+        int reads = dataset.reads;
+        Array2D<Number> map;
+        try (GridDataSource dataSource = dataset.openDataSource()) {
+            map = dataset.extractHorizontalData(metadata, 0, 0, target, dataSource);
+        }
+        /* No source data was read */
+        assertEquals(reads, dataset.reads);
+        assertEquals(1.5 + 4 * 20 + 1000 * (1.5 + 4 * 10), map.get(10, 20).doubleValue(), 1e-3);
+    }
+}
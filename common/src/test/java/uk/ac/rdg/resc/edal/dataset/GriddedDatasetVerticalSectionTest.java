@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.feature.GridFeature;
+import uk.ac.rdg.resc.edal.feature.ProfileFeature;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
+import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.CollectionUtils;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.VerticalSection;
+
+/**
+ * Test class for the extraction of vertical sections from
+ * {@link GriddedDataset}s.
+ */
+public class GriddedDatasetVerticalSectionTest {
+    private static final int NX = 360;
+    private static final int NY = 180;
+    private static final HorizontalGrid GRID = new RegularGridImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS(), NX, NY);
+    private static final VerticalAxis Z_AXIS = new VerticalAxisImpl("depth",
+            Arrays.asList(0.0, 10.0, 20.0, 50.0, 100.0),
+            new VerticalCrsImpl("m", false, false, false));
+
+    private TestDataset dataset;
+
+    /*
+     * A gridded dataset with a vertical axis, which counts the reads of source
+     * data
+     */
+    private static class TestDataset extends GriddedDataset {
+        private static final long serialVersionUID = 1L;
+        int reads = 0;
+
+        TestDataset() {
+            super("test", Arrays.asList(new GridVariableMetadata(
+                    new Parameter("value", "Value", "", "none", null), GRID, Z_AXIS, null,
+                    true)));
+        }
+
+        static Number getValue(int x, int y, int z) {
+            if ((x + y + z) % 7 == 0) {
+                return null;
+            }
+            return x + 1000 * y + 1000000 * z;
+        }
+
+        @Override
+        public GridFeature readFeature(String featureId) throws DataReadingException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected GridDataSource openDataSource() throws DataReadingException {
+            return new GridDataSource() {
+                @Override
+                public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin,
+                        int zmax, int ymin, int ymax, int xmin, int xmax) {
+                    reads++;
+                    return new Array4D<Number>(1, zmax - zmin + 1, ymax - ymin + 1,
+                            xmax - xmin + 1) {
+                        @Override
+                        public Number get(int... coords) {
+                            return getValue(xmin + coords[3], ymin + coords[2],
+                                    zmin + coords[1]);
+                        }
+
+                        @Override
+                        public void set(Number value, int... coords) {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public void close() throws DataReadingException {
+                }
+            };
+        }
+
+        @Override
+        protected DataReadingStrategy getDataReadingStrategy() {
+            return DataReadingStrategy.BOUNDING_BOX;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        dataset = new TestDataset();
+    }
+
+    /*
+     * A diagonal path across the grid, with one point either side of it which
+     * is outside the grid
+     */
+    private static List<HorizontalPosition> getPath() {
+        List<HorizontalPosition> positions = new ArrayList<>();
+        positions.add(new HorizontalPosition(-100.0, -95.0));
+        for (int i = 0; i < 100; i++) {
+            positions.add(new HorizontalPosition(-100.0 + 1.5 * i, -40.0 + 0.75 * i));
+        }
+        positions.add(new HorizontalPosition(50.0, 95.0));
+        return positions;
+    }
+
+    @Test
+    public void testSectionMatchesProfiles() throws Exception {
+        List<HorizontalPosition> positions = getPath();
+        VerticalSection section = dataset.extractVerticalSection("value", positions, null);
+        assertEquals(positions.size(), section.getNumPositions());
+        assertEquals(Z_AXIS.size(), section.getNumLevels());
+
+        /*
+         * Compare with extracting a profile at each point, as transects used
+         * to
+         */
+        for (int i = 1; i < positions.size() - 1; i++) {
+            List<? extends ProfileFeature> profiles = dataset.extractProfileFeatures(
+                    CollectionUtils.setOf("value"), null, null, null, positions.get(i), null);
+            assertEquals(1, profiles.size());
+            Array1D<Number> profile = profiles.get(0).getValues("value");
+            for (int z = 0; z < Z_AXIS.size(); z++) {
+                Number expected = profile.get(z);
+                if (expected == null) {
+                    assertTrue(Float.isNaN(section.getValue(z, i)));
+                } else {
+                    assertEquals(expected.floatValue(), section.getValue(z, i), 0f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPointsOutsideGrid() throws Exception {
+        List<HorizontalPosition> positions = getPath();
+        VerticalSection section = dataset.extractVerticalSection("value", positions, null);
+        /*
+         * There is no data outside the grid, so these are empty columns of the
+         * section
+         */
+        for (int z = 0; z < Z_AXIS.size(); z++) {
+            assertTrue(Float.isNaN(section.getValue(z, 0)));
+            assertTrue(Float.isNaN(section.getValue(z, positions.size() - 1)));
+        }
+    }
+
+    @Test
+    public void testSectionIsReadInBlocks() throws Exception {
+        List<HorizontalPosition> positions = getPath();
+        dataset.extractVerticalSection("value", positions, null);
+        /*
+         * Each read covers every level, and many points along the path
+         */
+        assertTrue(dataset.reads > 0);
+        assertTrue(dataset.reads < positions.size() / 4);
+    }
+}
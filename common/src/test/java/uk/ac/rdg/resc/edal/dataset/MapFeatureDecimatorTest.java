@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.dataset.FeatureIndexer.FeatureBounds;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Test class for {@link MapFeatureDecimator}.
+ */
+public class MapFeatureDecimatorTest {
+    private static final DateTime T0 = new DateTime(2020, 1, 15, 0, 0);
+    private static final BoundingBox GLOBAL = new BoundingBoxImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS());
+
+    private static FeatureBounds feature(String id, double x, double y, DateTime time,
+            double zLow, double zHigh) {
+        return new FeatureBounds(id, new HorizontalPosition(x, y), Extents.newExtent(zLow, zHigh),
+                Extents.newExtent(time, time), Arrays.asList("temp"));
+    }
+
+    @Test
+    public void testOneFeaturePerPixel() {
+        List<FeatureBounds> features = new ArrayList<>();
+        /*
+         * 10 features within the same 1-degree pixel, and one on its own
+         */
+        for (int i = 0; i < 10; i++) {
+            features.add(feature("a" + i, 10.1 + 0.05 * i, 20.5, T0.plusHours(i + 1), 0, 100));
+        }
+        features.add(feature("b", 50.5, -30.5, T0, 0, 100));
+
+        List<String> ids = MapFeatureDecimator.decimate(features, GLOBAL, 360, 180, 5.0, T0);
+        assertEquals(new HashSet<>(Arrays.asList("a0", "b")), new HashSet<>(ids));
+    }
+
+    @Test
+    public void testTiesBrokenByDepth() {
+        List<FeatureBounds> features = new ArrayList<>();
+        features.add(feature("shallow", 10.2, 20.2, T0, 0, 50));
+        features.add(feature("deep", 10.4, 20.4, T0, 0, 500));
+
+        assertEquals(Arrays.asList("deep"),
+                MapFeatureDecimator.decimate(features, GLOBAL, 360, 180, 200.0, T0));
+        assertEquals(Arrays.asList("deep"),
+                MapFeatureDecimator.decimate(features, GLOBAL, 360, 180, null, null));
+    }
+
+    @Test
+    public void testCandidatesRankedWithinPixels() {
+        List<FeatureBounds> features = new ArrayList<>();
+        features.add(feature("later", 10.3, 20.3, T0.plusDays(2), 0, 100));
+        features.add(feature("now", 10.2, 20.2, T0, 0, 100));
+        features.add(feature("soon", 10.4, 20.4, T0.plusDays(1), 0, 100));
+        features.add(feature("alone", 50.5, -30.5, T0, 0, 100));
+
+        List<List<String>> pixels = MapFeatureDecimator.rankCandidates(features, GLOBAL, 360,
+                180, null, T0);
+        assertEquals(2, pixels.size());
+        assertTrue(pixels.contains(Arrays.asList("now", "soon", "later")));
+        assertTrue(pixels.contains(Arrays.asList("alone")));
+    }
+
+    @Test
+    public void testBoundingBoxAcrossDateLine() {
+        BoundingBox pacific = new BoundingBoxImpl(170, -10, 190, 10,
+                GISUtils.defaultGeographicCRS());
+        List<FeatureBounds> features = new ArrayList<>();
+        features.add(feature("east", -175.5, 0.5, T0, 0, 10));
+        features.add(feature("east2", -175.4, 0.4, T0.plusDays(1), 0, 10));
+        features.add(feature("west", 175.5, 0.5, T0, 0, 10));
+
+        List<String> ids = MapFeatureDecimator.decimate(features, pacific, 20, 20, null, T0);
+        assertEquals(2, ids.size());
+        assertTrue(ids.contains("east"));
+        assertTrue(ids.contains("west"));
+    }
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Tests that {@link PackedFeatureIndexer} finds the same features as
+ * {@link PRTreeFeatureIndexer}
+ */
+public class PackedFeatureIndexerTest {
+    /* Enough features to need more than one time partition */
+    private static final int N_FEATURES = 70000;
+    private static final DateTime START = new DateTime(2000, 1, 1, 0, 0, DateTimeZone.UTC);
+
+    private static List<FeatureIndexer.FeatureBounds> features;
+    private static PRTreeFeatureIndexer expectedIndexer;
+    private static PackedFeatureIndexer indexer;
+
+    @BeforeClass
+    public static void setUp() {
+        Random random = new Random(42);
+        features = new ArrayList<>();
+        List<Collection<String>> variableSets = Arrays.asList(Arrays.asList("temp"),
+                Arrays.asList("temp", "psal"), Arrays.asList("psal"), null);
+        for (int i = 0; i < N_FEATURES; i++) {
+            HorizontalPosition position = new HorizontalPosition(
+                    -180.0 + 360.0 * random.nextDouble(), -90.0 + 180.0 * random.nextDouble(),
+                    GISUtils.defaultGeographicCRS());
+            double depth = 2000.0 * random.nextDouble();
+            DateTime time = START.plusHours(random.nextInt(24 * 365));
+            features.add(new FeatureIndexer.FeatureBounds("feature" + i, position,
+                    Extents.newExtent(0.0, depth), Extents.newExtent(time, time),
+                    variableSets.get(i % variableSets.size())));
+        }
+        expectedIndexer = new PRTreeFeatureIndexer();
+        expectedIndexer.addFeatures(features);
+        indexer = new PackedFeatureIndexer();
+        indexer.addFeatures(features);
+    }
+
+    @Test
+    public void testGetAllFeatureIds() {
+        assertEquals(expectedIndexer.getAllFeatureIds(), indexer.getAllFeatureIds());
+    }
+
+    @Test
+    public void testFindFeatureIds() {
+        checkQueries(indexer);
+    }
+
+    @Test
+    public void testIncrementalAdd() {
+        PackedFeatureIndexer incremental = new PackedFeatureIndexer();
+        incremental.addFeatures(features.subList(0, N_FEATURES / 2));
+        incremental.addFeatures(features.subList(N_FEATURES / 2, N_FEATURES));
+        checkQueries(incremental);
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        File file = File.createTempFile("index", ".bin");
+        try {
+            indexer.writeTo(file);
+            checkQueries(PackedFeatureIndexer.open(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSerialisation() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(indexer);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            checkQueries((PackedFeatureIndexer) in.readObject());
+        }
+    }
+
+    @Test
+    public void testFindFeatureBounds() {
+        BoundingBox bbox = new BoundingBoxImpl(10, 10, 20, 20, GISUtils.defaultGeographicCRS());
+        Collection<FeatureIndexer.FeatureBounds> bounds = indexer.findFeatureBounds(bbox, null,
+                null, null);
+        assertFalse(bounds.isEmpty());
+        for (FeatureIndexer.FeatureBounds feature : bounds) {
+            assertTrue(bbox.contains(
+                    new HorizontalPosition(feature.hBbox.getMinX(), feature.hBbox.getMinY())));
+            assertTrue(feature.timeExtent.getLow() >= START.getMillis());
+        }
+    }
+
+    private void checkQueries(PackedFeatureIndexer indexer) {
+        Extent<DateTime> month = Extents.newExtent(START.plusMonths(3), START.plusMonths(4));
+        Extent<Double> shallow = Extents.newExtent(0.0, 10.0);
+        List<String> temp = Arrays.asList("temp");
+        List<String> both = Arrays.asList("temp", "psal");
+
+        checkQuery(indexer, bbox(-10, -10, 10, 10), null, null, null);
+        checkQuery(indexer, bbox(-10, -10, 10, 10), null, month, temp);
+        checkQuery(indexer, bbox(-10, -10, 10, 10), shallow, null, both);
+        checkQuery(indexer, bbox(-180, -90, 180, 90), null, month, both);
+        /* Across the date line */
+        checkQuery(indexer, bbox(170, -20, 190, 20), null, null, null);
+        checkQuery(indexer, bbox(170, -20, 190, 20), shallow, month, temp);
+        checkQuery(indexer, bbox(-190, -20, -170, 20), null, month, both);
+        /* Across the date line at both ends */
+        checkQuery(indexer, bbox(-200, -5, 550, 5), null, null, temp);
+        /* A variable which isn't in the index */
+        assertTrue(indexer.findFeatureIds(bbox(-180, -90, 180, 90), null, null,
+                Arrays.asList("nonexistent")).isEmpty());
+    }
+
+    private static void checkQuery(PackedFeatureIndexer indexer, BoundingBox bbox,
+            Extent<Double> verticalExtent, Extent<DateTime> timeExtent,
+            Collection<String> variableIds) {
+        Collection<String> expected = expectedIndexer.findFeatureIds(bbox, verticalExtent,
+                timeExtent, variableIds);
+        Collection<String> found = indexer.findFeatureIds(bbox, verticalExtent, timeExtent,
+                variableIds);
+        Set<String> foundSet = new HashSet<>(found);
+        /* No duplicates */
+        assertEquals(found.size(), foundSet.size());
+        assertEquals(new HashSet<>(expected), foundSet);
+        assertFalse(expected.isEmpty());
+    }
+
+    private static BoundingBox bbox(double minX, double minY, double maxX, double maxY) {
+        return new BoundingBoxImpl(minX, minY, maxX, maxY, GISUtils.defaultGeographicCRS());
+    }
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.dataset.FeatureIndexer.FeatureBounds;
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.feature.DiscreteFeature;
+import uk.ac.rdg.resc.edal.feature.PointFeature;
+import uk.ac.rdg.resc.edal.feature.ProfileFeature;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.position.VerticalCrs;
+import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.ImmutableArray1D;
+
+/**
+ * Test class for {@link PointDataset}, checking that maps of profiles are
+ * read a single level at a time.
+ */
+public class PointDatasetTest {
+    private static final String VAR = "temp";
+    private static final DateTime T0 = new DateTime(2020, 1, 15, 0, 0);
+    private static final VerticalCrs DEPTH = new VerticalCrsImpl("m", false, false, false);
+    private static final BoundingBox BBOX = new BoundingBoxImpl(-10, -10, 10, 10,
+            GISUtils.defaultGeographicCRS());
+
+    private Map<String, ProfileFeature> profiles;
+    private ProfileReader reader;
+    private ProfileDataset dataset;
+
+    @Before
+    public void setUp() {
+        profiles = new LinkedHashMap<>();
+        addProfile("shallow", 1.5, 2.5, Arrays.asList(0.0, 10.0, 20.0));
+        addProfile("deep", -3.5, 4.5, Arrays.asList(5.0, 15.0, 50.0, 200.0));
+        addProfile("offset", 7.5, -6.5, Arrays.asList(2.0, 8.0, 35.0));
+
+        reader = new ProfileReader();
+        dataset = newDataset();
+    }
+
+    private ProfileDataset newDataset() {
+        PRTreeFeatureIndexer indexer = new PRTreeFeatureIndexer();
+        List<FeatureBounds> bounds = new ArrayList<>();
+        for (ProfileFeature profile : profiles.values()) {
+            bounds.add(FeatureBounds.fromProfileFeature(profile));
+        }
+        indexer.addFeatures(bounds);
+        return new ProfileDataset(indexer);
+    }
+
+    private void addProfile(String id, double x, double y, List<Double> levels) {
+        addProfile(id, x, y, levels, false);
+    }
+
+    private void addProfile(String id, double x, double y, List<Double> levels,
+            boolean missing) {
+        VerticalAxis axis = new VerticalAxisImpl("depth", levels, DEPTH);
+        Number[] values = new Number[levels.size()];
+        for (int i = 0; i < values.length; i++) {
+            /*
+             * Make each value unique to its profile and level
+             */
+            values[i] = missing ? Float.NaN : 1000 * profiles.size() + levels.get(i);
+        }
+        Map<String, Parameter> parameters = new HashMap<>();
+        parameters.put(VAR, new Parameter(VAR, "Temperature", "Sea temperature", "degC", null));
+        Map<String, Array1D<Number>> valuesMap = new HashMap<>();
+        valuesMap.put(VAR, new ImmutableArray1D<>(values));
+        profiles.put(id, new ProfileFeature(id, id, "Profile " + id, axis,
+                new HorizontalPosition(x, y), T0, parameters, valuesMap));
+    }
+
+    @Test
+    public void testMapsReadSingleLevels() throws DataReadingException {
+        for (Double targetZ : Arrays.asList(12.0, 40.0, 500.0, null)) {
+            reader.targetZs.clear();
+            List<PointFeature> features = dataset.extractMapFeatures(
+                    Collections.singleton(VAR), null, null, targetZ, null, null);
+            assertEquals(Arrays.asList(targetZ), reader.targetZs);
+            assertEquals(profiles.size(), features.size());
+            for (PointFeature feature : features) {
+                String profileId = feature.getId().substring(0, feature.getId().indexOf(':'));
+                VerticalAxis levels = profiles.get(profileId).getDomain();
+                int zIndex = PointDataset.getProfileLevelIndex(levels, targetZ);
+                assertEquals(levels.getCoordinateValue(zIndex),
+                        feature.getGeoPosition().getVerticalPosition().getZ(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testSingleLevelsMatchFullReads() throws DataReadingException {
+        for (Double targetZ : Arrays.asList(0.0, 12.0, 40.0, 500.0, null)) {
+            Map<String, PointFeature> expected = new HashMap<>();
+            for (ProfileFeature profile : reader.readFeatures(profiles.keySet(), null)) {
+                PointFeature feature = PointDataset.convertProfileFeature(profile, targetZ);
+                expected.put(feature.getId(), feature);
+            }
+
+            for (int size : new int[] { 0, 100 }) {
+                List<PointFeature> features = dataset.extractMapFeatures(
+                        Collections.singleton(VAR), BBOX, null, targetZ, null, null, size, size);
+                assertEquals(expected.size(), features.size());
+                for (PointFeature feature : features) {
+                    PointFeature full = expected.get(feature.getId());
+                    assertEquals(full.getGeoPosition(), feature.getGeoPosition());
+                    assertEquals(full.getValue(VAR), feature.getValue(VAR));
+                    assertEquals(full.getFeatureProperties(), feature.getFeatureProperties());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPixelsFallBackToFeaturesWithData() throws DataReadingException {
+        /*
+         * These sort before "shallow" within its pixel, but have no data
+         */
+        addProfile("empty1", 1.52, 2.52, Arrays.asList(0.0, 10.0, 20.0), true);
+        addProfile("empty2", 1.54, 2.54, Arrays.asList(0.0, 10.0, 20.0), true);
+        dataset = newDataset();
+
+        reader.targetZs.clear();
+        List<PointFeature> features = dataset.extractMapFeatures(Collections.singleton(VAR),
+                BBOX, null, 10.0, null, null, 100, 100);
+        Set<String> ids = new HashSet<>();
+        for (PointFeature feature : features) {
+            ids.add(feature.getId());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("shallow:10.0", "deep:15.0", "offset:8.0")),
+                ids);
+        /*
+         * One read for all pixels, then one for each fallback in the pixel
+         */
+        assertEquals(Arrays.asList(10.0, 10.0, 10.0), reader.targetZs);
+    }
+
+    /*
+     * A reader which holds complete profiles in memory, and slices them to a
+     * single level when asked to
+     */
+    private class ProfileReader implements DiscreteFeatureReader<ProfileFeature> {
+        private final List<Double> targetZs = new ArrayList<>();
+
+        @Override
+        public ProfileFeature readFeature(String id, Set<String> variableIds) {
+            return profiles.get(id);
+        }
+
+        @Override
+        public List<ProfileFeature> readFeatures(Collection<String> ids,
+                Set<String> variableIds) {
+            List<ProfileFeature> features = new ArrayList<>();
+            for (String id : ids) {
+                features.add(profiles.get(id));
+            }
+            return features;
+        }
+
+        @Override
+        public List<ProfileFeature> readFeaturesAtLevel(Collection<String> ids,
+                Set<String> variableIds, Double targetZ) {
+            targetZs.add(targetZ);
+            List<ProfileFeature> features = new ArrayList<>();
+            for (String id : ids) {
+                ProfileFeature level = slice(profiles.get(id), targetZ);
+                if (level != null) {
+                    features.add(level);
+                }
+            }
+            return features;
+        }
+
+        private ProfileFeature slice(ProfileFeature profile, Double targetZ) {
+            int zIndex = PointDataset.getProfileLevelIndex(profile.getDomain(), targetZ);
+            if (zIndex < 0) {
+                return null;
+            }
+            VerticalAxis level = new VerticalAxisImpl(profile.getDomain().getName(),
+                    Arrays.asList(profile.getDomain().getCoordinateValue(zIndex)), DEPTH);
+            Map<String, Array1D<Number>> values = new HashMap<>();
+            for (String varId : profile.getVariableIds()) {
+                values.put(varId, new ImmutableArray1D<>(
+                        new Number[] { profile.getValues(varId).get(zIndex) }));
+            }
+            return new ProfileFeature(profile.getId(), profile.getName(),
+                    profile.getDescription(), level, profile.getHorizontalPosition(),
+                    profile.getTime(), profile.getParameterMap(), values);
+        }
+    }
+
+    private class ProfileDataset extends PointDataset<ProfileFeature> {
+        private static final long serialVersionUID = 1L;
+
+        ProfileDataset(FeatureIndexer indexer) {
+            super("profiles", Collections.<VariableMetadata> emptyList(), indexer, BBOX,
+                    Extents.newExtent(0.0, 200.0), Extents.newExtent(T0, T0));
+        }
+
+        @Override
+        public ProfileReader getFeatureReader() {
+            return reader;
+        }
+
+        @Override
+        protected PointFeature convertFeature(ProfileFeature feature, BoundingBox hExtent,
+                Extent<Double> zExtent, Extent<DateTime> tExtent, Double targetZ,
+                DateTime targetT) {
+            return convertProfileFeature(feature, targetZ);
+        }
+
+        @Override
+        public Class<? extends DiscreteFeature<?, ?>> getFeatureType(String variableId) {
+            return ProfileFeature.class;
+        }
+
+        @Override
+        public boolean supportsProfileFeatureExtraction(String varId) {
+            return true;
+        }
+
+        @Override
+        public boolean supportsTimeseriesExtraction(String varId) {
+            return false;
+        }
+    }
+}
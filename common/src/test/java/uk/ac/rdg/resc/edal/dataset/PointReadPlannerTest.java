@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.dataset;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.dataset.PointReadPlanner.BlockRead;
+
+/**
+ * Test class for {@link PointReadPlanner}
+ */
+public class PointReadPlannerTest {
+    @Test
+    public void testEveryPointIsReadOnce() {
+        /*
+         * A diagonal transect across a 1000x1000 grid, at two times
+         */
+        int n = 500;
+        int[] ts = new int[n];
+        int[] zs = new int[n];
+        int[] ys = new int[n];
+        int[] xs = new int[n];
+        for (int i = 0; i < n; i++) {
+            ts[i] = i % 2;
+            ys[i] = 2 * i;
+            xs[i] = 999 - 2 * i;
+        }
+        /*
+         * One point outside the grid
+         */
+        ys[10] = -1;
+        xs[10] = -1;
+
+        List<BlockRead> reads = new PointReadPlanner().plan(ts, zs, ys, xs);
+        int[] timesRead = new int[n];
+        for (BlockRead read : reads) {
+            long cells = (long) (read.ymax - read.ymin + 1) * (read.xmax - read.xmin + 1);
+            assertTrue(cells <= (long) read.points.length
+                    * PointReadPlanner.DEFAULT_CELLS_PER_POINT);
+            for (int i : read.points) {
+                assertEquals(ts[i], read.t);
+                assertEquals(zs[i], read.z);
+                assertTrue(ys[i] >= read.ymin && ys[i] <= read.ymax);
+                assertTrue(xs[i] >= read.xmin && xs[i] <= read.xmax);
+                timesRead[i]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            assertEquals(i == 10 ? 0 : 1, timesRead[i]);
+        }
+        /*
+         * Nearby points should have been combined
+         */
+        assertTrue(reads.size() < n / 4);
+    }
+
+    @Test
+    public void testRowIsSingleRead() {
+        int n = 200;
+        int[] ts = new int[n];
+        int[] zs = new int[n];
+        int[] ys = new int[n];
+        int[] xs = new int[n];
+        for (int i = 0; i < n; i++) {
+            ys[i] = 7;
+            xs[i] = n - i;
+        }
+        List<BlockRead> reads = new PointReadPlanner().plan(ts, zs, ys, xs);
+        assertEquals(1, reads.size());
+        assertEquals(1, reads.get(0).xmin);
+        assertEquals(n, reads.get(0).xmax);
+    }
+}
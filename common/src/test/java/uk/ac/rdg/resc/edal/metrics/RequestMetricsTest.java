@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
+
+/**
+ * Test class for {@link RequestMetrics} and {@link RequestStatistics}.
+ */
+public class RequestMetricsTest {
+
+    @After
+    public void tearDown() {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics != null) {
+            metrics.finish(false);
+        }
+    }
+
+    /**
+     * Tests that nothing is recorded when no request is being measured
+     */
+    @Test
+    public void testNoRequest() {
+        assertNull(RequestMetrics.current());
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DRAW)) {
+            RequestMetrics.addBytesRead(100);
+            RequestMetrics.recordCacheLookup(true);
+        }
+        assertNull(RequestMetrics.current());
+    }
+
+    /**
+     * Tests that stages, bytes and cache lookups are recorded against the
+     * current request, and added to its statistics when it finishes
+     */
+    @Test
+    public void testRecordAndFinish() throws InterruptedException {
+        RequestStatistics statistics = RequestStatistics.forRequest("testRecord", "dataset");
+        long requests = statistics.getRequestCount();
+        long bytes = statistics.getBytesRead();
+
+        RequestMetrics metrics = RequestMetrics.start("testRecord");
+        metrics.setDataset("dataset");
+        assertSame(metrics, RequestMetrics.current());
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DATA_READ)) {
+            Thread.sleep(5);
+        }
+        RequestMetrics.record(Stage.LOCK_WAIT, 1000L);
+        RequestMetrics.addBytesRead(100);
+        RequestMetrics.recordCacheLookup(true);
+        RequestMetrics.recordCacheLookup(false);
+        RequestMetrics.recordCacheLookup(true);
+        metrics.finish(true);
+
+        assertNull(RequestMetrics.current());
+        assertTrue(metrics.getStageNanos(Stage.DATA_READ) >= 5000000L);
+        assertEquals(1000L, metrics.getStageNanos(Stage.LOCK_WAIT));
+        assertEquals(0L, metrics.getStageNanos(Stage.DRAW));
+
+        assertSame(statistics, RequestStatistics.forRequest("testRecord", "dataset"));
+        assertEquals(requests + 1, statistics.getRequestCount());
+        assertEquals(bytes + 100, statistics.getBytesRead());
+        assertEquals(1, statistics.getErrorCount());
+        assertEquals(2, statistics.getCacheHitCount());
+        assertEquals(1, statistics.getCacheMissCount());
+        assertTrue(statistics.getRequestsPerSecond() > 0.0);
+        assertTrue(statistics.getStageTimesMillis().get("data_read") >= 5L);
+    }
+
+    /**
+     * Tests that wrapped tasks record against the request which wrapped them,
+     * whichever thread they run on
+     */
+    @Test
+    public void testWrap() throws Exception {
+        RequestMetrics metrics = RequestMetrics.start("testWrap");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(RequestMetrics.wrap(() -> {
+                RequestMetrics.addBytesRead(10);
+                return null;
+            })).get();
+            /* Unwrapped tasks are not part of the request */
+            executor.submit(() -> RequestMetrics.addBytesRead(1000)).get();
+            assertNull(executor.submit(() -> RequestMetrics.current()).get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(10, metrics.getBytesRead());
+        metrics.finish(false);
+    }
+
+    /**
+     * Tests the text output of the statistics
+     */
+    @Test
+    public void testWriteText() {
+        RequestMetrics metrics = RequestMetrics.start("testText");
+        metrics.setDataset("quoted\"dataset");
+        RequestMetrics.addBytesRead(42);
+        metrics.finish(false);
+
+        StringWriter out = new StringWriter();
+        RequestStatistics.writeText(new PrintWriter(out));
+        String text = out.toString();
+        assertTrue(text.contains("# TYPE edal_requests_total counter"));
+        assertTrue(text.contains(
+                "edal_request_bytes_read_total{request=\"testText\",dataset=\"quoted\\\"dataset\"} 42"));
+        assertTrue(text.contains(
+                "edal_request_stage_seconds_total{request=\"testText\",dataset=\"quoted\\\"dataset\",stage=\"draw\"}"));
+    }
+}
@@ -30,6 +30,7 @@ package uk.ac.rdg.resc.edal.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -37,6 +38,7 @@ import java.util.List;
 
 import org.joda.time.DateTime;
 import org.junit.Test;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.geometry.BoundingBox;
@@ -44,6 +46,7 @@ import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
 import uk.ac.rdg.resc.edal.grid.TimeAxis;
 import uk.ac.rdg.resc.edal.grid.TimeAxisImpl;
 import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.position.VerticalCrs;
 import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
 
@@ -234,4 +237,30 @@ public class GISUtilsTest {
         verticalAxis = new VerticalAxisImpl("z-axis", values, vCrs);
         assertEquals(-5.0, GISUtils.getClosestElevationToSurface(verticalAxis), 1e-8);
     }
+
+    /**
+     * Test that {@link GISUtils#transformWgs84Headings} gives the same results
+     * as {@link GISUtils#transformWgs84Heading}.
+     */
+    @Test
+    public void testTransformWgs84Headings() throws EdalException {
+        CoordinateReferenceSystem polar = GISUtils.getCrs("EPSG:5041");
+        CoordinateReferenceSystem lonLat = GISUtils.defaultGeographicCRS();
+        HorizontalPosition[] positions = new HorizontalPosition[] {
+                GISUtils.transformPosition(new HorizontalPosition(10.0, 70.0), polar),
+                GISUtils.transformPosition(new HorizontalPosition(-120.0, 80.0), polar),
+                new HorizontalPosition(30.0, 50.0, lonLat),
+                null,
+                GISUtils.transformPosition(new HorizontalPosition(170.0, 65.0), polar) };
+        double[] headings = new double[] { 0.0, 45.0, 90.0, 10.0, Double.NaN };
+
+        double[] transformed = GISUtils.transformWgs84Headings(headings, positions);
+        assertEquals(headings.length, transformed.length);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(GISUtils.transformWgs84Heading(headings[i], positions[i]),
+                    transformed[i], 1e-8);
+        }
+        assertTrue(Double.isNaN(transformed[3]));
+        assertTrue(Double.isNaN(transformed[4]));
+    }
 }
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.joda.time.chrono.ISOChronology;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.grid.RegularTimeAxisImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.grid.TimeAxisImpl;
+
+/**
+ * Test class for {@link TimeAxes} and the compact {@link TimeAxis}
+ * implementations.
+ */
+public class TimeAxesTest {
+    private Chronology chronology = ISOChronology.getInstanceUTC();
+    private DateTime start = new DateTime(2000, 1, 1, 0, 0, chronology);
+    private List<DateTime> hourly;
+
+    @Before
+    public void setUp() {
+        hourly = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            hourly.add(start.plusHours(i));
+        }
+    }
+
+    @Test
+    public void testRegularAxisIsDetected() {
+        TimeAxis axis = TimeAxes.newTimeAxis("time", hourly);
+        assertTrue(axis instanceof RegularTimeAxisImpl);
+        assertEquals(hourly, axis.getCoordinateValues());
+        assertEquals("2000-01-01T00:00:00.000Z/2000-01-02T23:00:00.000Z/PT1H",
+                TimeUtils.getTimeStringForCapabilities(axis));
+    }
+
+    @Test
+    public void testRegularAndIrregularAxesAreEquivalent() {
+        TimeAxis regular = TimeAxes.newTimeAxis("time", hourly);
+        TimeAxis irregular = new TimeAxisImpl("time", hourly);
+        assertEquals(irregular, regular);
+        assertEquals(irregular.hashCode(), regular.hashCode());
+        assertEquals(irregular.getCoordinateExtent(), regular.getCoordinateExtent());
+
+        DateTime[] targets = new DateTime[] { start.minusMinutes(1), start,
+                start.plusMinutes(29), start.plusMinutes(30), start.plusMinutes(31),
+                start.plusHours(47), start.plusHours(47).plusMinutes(1) };
+        for (DateTime target : targets) {
+            assertEquals(irregular.findIndexOf(target), regular.findIndexOf(target));
+            assertEquals(GISUtils.getIndexOfClosestTimeTo(target, irregular),
+                    GISUtils.getIndexOfClosestTimeTo(target, regular));
+        }
+        assertEquals(-1, regular.findIndexOf(start.minusMinutes(1)));
+        assertEquals(0, regular.findIndexOf(start.plusMinutes(30)));
+        assertEquals(1, regular.findIndexOf(start.plusMinutes(31)));
+    }
+
+    @Test
+    public void testInterning() {
+        List<DateTime> irregular = new ArrayList<>(hourly);
+        irregular.add(start.plusDays(10));
+        TimeAxis axis1 = TimeAxes.newTimeAxis("time", irregular);
+        TimeAxis axis2 = TimeAxes.newTimeAxis("time", new ArrayList<>(irregular));
+        assertTrue(axis1 instanceof TimeAxisImpl);
+        assertSame(axis1, axis2);
+        assertSame(TimeAxes.newTimeAxis("time", hourly), TimeAxes.newTimeAxis("time", hourly));
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
+
+/**
+ * Test class for {@link VerticalSection}.
+ */
+public class VerticalSectionTest {
+    private static final VerticalAxis Z_AXIS = new VerticalAxisImpl("depth",
+            Arrays.asList(0.0, 10.0), new VerticalCrsImpl("m", false, false, false));
+    private static final Parameter PARAMETER = new Parameter("value", "Value", "", "m", null);
+    private static final List<HorizontalPosition> POSITIONS = Arrays.asList(
+            new HorizontalPosition(0, 0), new HorizontalPosition(1, 0),
+            new HorizontalPosition(2, 0));
+
+    @Test
+    public void testIndexing() {
+        VerticalSection section = new VerticalSection(POSITIONS, Z_AXIS, PARAMETER,
+                new float[] { 0f, 1f, 2f, 10f, 11f, Float.NaN });
+        assertEquals(3, section.getNumPositions());
+        assertEquals(2, section.getNumLevels());
+        assertEquals(1f, section.getValue(0, 1), 0f);
+        assertEquals(10f, section.getValue(1, 0), 0f);
+        assertTrue(Float.isNaN(section.getValue(1, 2)));
+    }
+
+    @Test
+    public void testValueRange() {
+        VerticalSection section = new VerticalSection(POSITIONS, Z_AXIS, PARAMETER,
+                new float[] { Float.NaN, -1f, 2f, 10f, Float.NaN, Float.NaN });
+        Extent<Float> range = section.getValueRange();
+        assertEquals(-1f, range.getLow(), 0f);
+        assertEquals(10f, range.getHigh(), 0f);
+
+        float[] empty = new float[6];
+        Arrays.fill(empty, Float.NaN);
+        assertTrue(new VerticalSection(POSITIONS, Z_AXIS, PARAMETER, empty).getValueRange()
+                .isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfValues() {
+        new VerticalSection(POSITIONS, Z_AXIS, PARAMETER, new float[5]);
+    }
+}
@@ -101,6 +101,7 @@ import uk.ac.rdg.resc.edal.position.VerticalPosition;
 import uk.ac.rdg.resc.edal.util.Array1D;
 import uk.ac.rdg.resc.edal.util.GISUtils;
 import uk.ac.rdg.resc.edal.util.TimeUtils;
+import uk.ac.rdg.resc.edal.util.VerticalSection;
 
 /**
  * Code to produce various types of chart.
@@ -611,7 +612,50 @@ final public class Charting {
             throw new IllegalArgumentException("You need at least one profile to plot a vertical section.");
         }
 
-        VerticalSectionDataset dataset = new VerticalSectionDataset(features, horizPath);
+        /*
+         * Copy the profiles into a single section
+         */
+        VerticalAxis vAxis = features.get(0).getDomain();
+        String paramId = features.get(0).getVariableIds().iterator().next();
+        List<HorizontalPosition> positions = new ArrayList<>();
+        float[] values = new float[vAxis.size() * features.size()];
+        for (int i = 0; i < features.size(); i++) {
+            ProfileFeature feature = features.get(i);
+            positions.add(feature.getHorizontalPosition());
+            Array1D<Number> profile = feature.getValues(paramId);
+            for (int z = 0; z < vAxis.size(); z++) {
+                Number value = profile.get(z);
+                values[z * features.size() + i] = value == null ? Float.NaN : value.floatValue();
+            }
+        }
+        VerticalSection section = new VerticalSection(positions, vAxis,
+                features.get(0).getParameter(paramId), values);
+        return createVerticalSectionChart(section, horizPath, colourScheme, zValue, zExtent);
+    }
+
+    /**
+     * Plot a vertical section chart
+     * 
+     * @param section      The {@link VerticalSection} to plot. This should
+     *                     contain evenly-spaced positions along the path.
+     * @param horizPath    The {@link LineString} along which the
+     *                     {@link VerticalSection} has been extracted
+     * @param colourScheme The {@link ColourScheme} to use for the plot
+     * @param zValue       The elevation at which a matching transect is plotted
+     *                     (will be marked on the chart) - can be <code>null</code>
+     * @param zExtent      The range of elevations to include on the vertical
+     *                     section chart. If this is <code>null</code> the entire
+     *                     available range will be used
+     * @return The resulting chart
+     */
+    public static JFreeChart createVerticalSectionChart(VerticalSection section,
+            LineString horizPath, ColourScheme colourScheme, Double zValue,
+            Extent<Double> zExtent) {
+        if (section == null || section.getNumPositions() == 0) {
+            throw new IllegalArgumentException("You need at least one profile to plot a vertical section.");
+        }
+
+        VerticalSectionDataset dataset = new VerticalSectionDataset(section);
 
         NumberAxis xAxis = new NumberAxis("Distance along path (km)");
         xAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
@@ -631,7 +675,7 @@ final public class Charting {
         renderer.setBlockWidth(dataset.getXResolution());
         renderer.setPaintScale(scale);
 
-        NumberAxis zAxis = getZAxis(features.get(0).getDomain().getVerticalCrs());
+        NumberAxis zAxis = getZAxis(section.getVerticalAxis().getVerticalCrs());
         if (zExtent != null) {
             zAxis.setRange(new Range(zExtent.getLow(), zExtent.getHigh()));
         }
@@ -749,23 +793,26 @@ final public class Charting {
     private static class VerticalSectionDataset extends AbstractXYZDataset {
         private static final long serialVersionUID = 1L;
         private final int horizPathLength;
-        private final List<ProfileFeature> features;
-        private final String paramId;
-        private final List<Double> elevationValues;
+        private final VerticalSection section;
         private final double minElValue;
         private final double elevationResolution;
         private final int numElevations;
         private final String units;
-        private final List<Double> distanceValues;
+        private final double[] distanceValues;
+        /*
+         * The index of the nearest level of the section to each of the evenly
+         * spaced elevations which are plotted
+         */
+        private final int[] nearestElevationIndices;
         private double xResolution;
 
-        public VerticalSectionDataset(List<ProfileFeature> features, LineString domain) {
-            this.features = features;
-            this.horizPathLength = features.size();
+        public VerticalSectionDataset(VerticalSection section) {
+            this.section = section;
+            this.horizPathLength = section.getNumPositions();
 
             double minElValue = 0.0;
             double maxElValue = 1.0;
-            VerticalAxis vAxis = features.get(0).getDomain();
+            VerticalAxis vAxis = section.getVerticalAxis();
 
             if (vAxis.size() > 0) {
                 minElValue = vAxis.getCoordinateValue(0);
@@ -787,26 +834,39 @@ final public class Charting {
             this.numElevations = (int) ((maxElValue - minElValue) / minGap);
             this.elevationResolution = (maxElValue - minElValue) / numElevations;
 
+            this.nearestElevationIndices = new int[Math.max(numElevations, 0)];
+            for (int y = 0; y < nearestElevationIndices.length; y++) {
+                double elevation = minElValue + y * elevationResolution;
+                int nearestElevationIndex = -1;
+                double minDiff = Double.MAX_VALUE;
+                for (int i = 0; i < vAxis.size(); i++) {
+                    double diff = Math.abs(vAxis.getCoordinateValue(i) - elevation);
+                    if (diff < minDiff) {
+                        minDiff = diff;
+                        nearestElevationIndex = i;
+                    }
+                }
+                nearestElevationIndices[y] = nearestElevationIndex;
+            }
+
             double maxGap = -Double.MAX_VALUE;
-            this.distanceValues = new ArrayList<>();
-            this.distanceValues.add(0.0);
-            HorizontalPosition lastPoint = features.get(0).getHorizontalPosition();
+            this.distanceValues = new double[horizPathLength];
+            List<HorizontalPosition> positions = section.getPositions();
+            HorizontalPosition lastPoint = positions.get(0);
             GeodeticCalculator calc = GeodeticCalculator.create(lastPoint.getCoordinateReferenceSystem());
-            for (int i = 1; i < features.size(); i++) {
-                HorizontalPosition currentPoint = features.get(i).getHorizontalPosition();
+            for (int i = 1; i < horizPathLength; i++) {
+                HorizontalPosition currentPoint = positions.get(i);
                 calc.setStartPoint(new DirectPosition2D(currentPoint.getX(), currentPoint.getY()));
                 calc.setEndPoint(new DirectPosition2D(lastPoint.getX(), lastPoint.getY()));
                 double dist = calc.getGeodesicDistance() / 1000;
                 lastPoint = currentPoint;
-                this.distanceValues.add(this.distanceValues.get(i - 1) + dist);
+                this.distanceValues[i] = this.distanceValues[i - 1] + dist;
                 maxGap = Math.max(maxGap, dist);
             }
-            int numXPoints = (int) (distanceValues.get(distanceValues.size() - 1) / maxGap);
-            this.xResolution = (distanceValues.get(distanceValues.size() - 1)) / numXPoints;
+            int numXPoints = (int) (distanceValues[horizPathLength - 1] / maxGap);
+            this.xResolution = distanceValues[horizPathLength - 1] / numXPoints;
 
-            this.paramId = features.get(0).getVariableIds().iterator().next();
-            this.units = features.get(0).getParameter(paramId).getUnits();
-            this.elevationValues = vAxis.getCoordinateValues();
+            this.units = section.getParameter().getUnits();
         }
 
         public double getElevationResolution() {
@@ -841,7 +901,7 @@ final public class Charting {
              * The x coordinate is just the integer index of the point along the horizontal
              * path
              */
-            return distanceValues.get(item % horizPathLength);
+            return distanceValues[item % horizPathLength];
         }
 
         /**
@@ -862,27 +922,12 @@ final public class Charting {
         public Float getZ(int series, int item) {
             checkSeries(series);
             int xIndex = item % horizPathLength;
-            double elevation = getY(series, item);
-            /*
-             * What is the index of the nearest elevation in the list of elevations for
-             * which we have data?
-             */
-            int nearestElevationIndex = -1;
-            double minDiff = Double.MAX_VALUE;
-            for (int i = 0; i < elevationValues.size(); i++) {
-                double el = elevationValues.get(i);
-                double diff = Math.abs(el - elevation);
-                if (diff < minDiff) {
-                    minDiff = diff;
-                    nearestElevationIndex = i;
-                }
-            }
-
-            Number number = features.get(xIndex).getValues(paramId).get(nearestElevationIndex);
-            if (number != null) {
-                return number.floatValue();
-            } else {
+            int yIndex = item / horizPathLength;
+            float value = section.getValue(nearestElevationIndices[yIndex], xIndex);
+            if (Float.isNaN(value)) {
                 return null;
+            } else {
+                return value;
             }
         }
 
@@ -35,13 +35,18 @@ import java.util.List;
 import javax.imageio.ImageIO;
 
 /**
- * Writes PNG images using the ImageIO class. Only one instance of this class
- * will ever be created, so this class contains no member variables to ensure
- * thread safety.
+ * Writes PNG images. 8-bit indexed images (such as those produced by
+ * {@link uk.ac.rdg.resc.edal.graphics.style.MapImage#drawIndexedImage}) are
+ * written directly as palette-indexed PNGs by an {@link IndexedPngEncoder}.
+ * All other images are written using the ImageIO class. Only one instance of
+ * this class will ever be created, so the only member variable is the
+ * (immutable, thread-safe) {@link IndexedPngEncoder}.
  * 
  * @author Jon Blower
  */
 public class PngFormat extends SimpleFormat {
+    private volatile IndexedPngEncoder indexedEncoder = new IndexedPngEncoder();
+
     /**
      * Protected default constructor to prevent direct instantiation.
      */
@@ -74,7 +79,30 @@ public class PngFormat extends SimpleFormat {
             throw new IllegalArgumentException("Cannot render animations in PNG format");
         }
         if(frames.size() > 0){
-            ImageIO.write(frames.get(0), "png", out);
+            BufferedImage frame = frames.get(0);
+            if (IndexedPngEncoder.canEncode(frame)) {
+                indexedEncoder.write(frame, out);
+            } else {
+                ImageIO.write(frame, "png", out);
+            }
+        }
+    }
+
+    /**
+     * Sets the {@link IndexedPngEncoder} used to write indexed images. This
+     * can be used to tune the compression level and filtering strategy.
+     * 
+     * @param indexedEncoder
+     *            The {@link IndexedPngEncoder} to use
+     */
+    public void setIndexedEncoder(IndexedPngEncoder indexedEncoder) {
+        if (indexedEncoder == null) {
+            throw new IllegalArgumentException("Indexed PNG encoder must not be null");
         }
+        this.indexedEncoder = indexedEncoder;
+    }
+
+    public IndexedPngEncoder getIndexedEncoder() {
+        return indexedEncoder;
     }
 }
@@ -28,15 +28,16 @@
 
 package uk.ac.rdg.resc.edal.graphics.style;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
-import uk.ac.rdg.resc.edal.graphics.utils.VectorFactory;
+import uk.ac.rdg.resc.edal.graphics.utils.GlyphAtlas;
+import uk.ac.rdg.resc.edal.graphics.utils.GlyphAtlas.Glyph;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.util.Array;
@@ -109,96 +110,118 @@ public class ArrowLayer extends GriddedImageLayer {
         Graphics2D g = image.createGraphics();
         g.setColor(arrowBackground);
         g.fillRect(0, 0, image.getWidth(), image.getHeight());
-        g.setColor(arrowColour);
 
-        int width = image.getWidth();
-        int height = image.getHeight();
+        int[][] locations = getArrowLocations(image.getWidth(), image.getHeight(), arrowSize * 2);
+        double[] angles = getArrowHeadings(values,
+                dataReader.getMapDomainObjects(directionFieldName), locations);
 
-        /*
-         * Calculate the (floating point) number of pixels per arrow. In ideal
-         * situations, this will be an integer equal to the arrow size * 2
-         * 
-         * For non-ideal situations it means that the arrows will not be evenly
-         * spaced (they will be either n or n+1 pixels apart). They will tile
-         * perfectly though.
-         */
-        double xPixelsPerArrow = ((double) width) / (width / (arrowSize * 2));
-        double yPixelsPerArrow = ((double) height) / (height / (arrowSize * 2));
+        for (int k = 0; k < angles.length; k++) {
+            double angle = angles[k];
+            if (Double.isNaN(angle)) {
+                continue;
+            }
+            Glyph glyph;
+            switch (arrowStyle) {
+            case UPSTREAM:
+                glyph = GlyphAtlas.getUpstreamArrow(angle * GISUtils.DEG2RAD, arrowSize,
+                        arrowColour);
+                break;
+            case FAT_ARROW:
+                glyph = GlyphAtlas.getVector("STUMPVEC",
+                        convertAngle(angle, arrowDirectionConvention), arrowSize / 11f,
+                        arrowColour);
+                break;
+            case TRI_ARROW:
+                glyph = GlyphAtlas.getVector("TRIVEC",
+                        convertAngle(angle, arrowDirectionConvention), arrowSize / 11f,
+                        arrowColour);
+                break;
+            case THIN_ARROW:
+            default:
+                glyph = GlyphAtlas.getVector("LINEVEC",
+                        convertAngle(angle, arrowDirectionConvention), arrowSize / 11f,
+                        arrowColour);
+                break;
+            }
+            glyph.drawInto(image, g, locations[0][k], locations[1][k], arrowColour);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Finds the pixels at which arrows should be drawn on an image
+     * 
+     * @param width
+     *            The width of the image
+     * @param height
+     *            The height of the image
+     * @param spacing
+     *            The approximate number of pixels between arrows
+     * @return A pair of arrays holding the x- and y-pixels of each arrow, in
+     *         row-major order
+     */
+    static int[][] getArrowLocations(int width, int height, int spacing) {
+        double xPixelsPerArrow = ((double) width) / (width / spacing);
+        double yPixelsPerArrow = ((double) height) / (height / spacing);
         double xLoc = xPixelsPerArrow / 2;
         double yLoc = yPixelsPerArrow / 2;
 
-        Array<HorizontalPosition> domainObjects = dataReader
-                .getMapDomainObjects(directionFieldName);
-
+        int[] is = new int[16];
+        int[] js = new int[16];
+        int n = 0;
         for (int j = 0; j < height; j++) {
             if (yLoc > yPixelsPerArrow) {
                 yLoc -= yPixelsPerArrow;
                 for (int i = 0; i < width; i++) {
                     if (xLoc > xPixelsPerArrow) {
                         xLoc -= xPixelsPerArrow;
-
-                        /*
-                         * We are at a point where we need to draw an arrow
-                         */
-                        Double angle = GISUtils.transformWgs84Heading(values.get(j, i),
-                                domainObjects.get(j, i));
-                        if (angle != null && !Float.isNaN(angle.floatValue())) {
-                            switch (arrowStyle) {
-                            case UPSTREAM:
-                                /* Convert from degrees to radians */
-                                angle = angle * GISUtils.DEG2RAD;
-                                /* Calculate the end point of the arrow */
-                                double iEnd = i + arrowSize * Math.sin(angle);
-                                /*
-                                 * Screen coordinates go down, but north is up,
-                                 * hence the minus sign
-                                 */
-                                double jEnd = j - arrowSize * Math.cos(angle);
-                                /* Draw a dot representing the data location */
-                                g.fillOval(i - 2, j - 2, 4, 4);
-                                /* Draw a line representing the vector direction */
-                                g.setStroke(new BasicStroke(1));
-                                g.drawLine(i, j, (int) Math.round(iEnd), (int) Math.round(jEnd));
-
-                                break;
-                            case FAT_ARROW:
-                                VectorFactory.renderVector("STUMPVEC", convertAngle(angle, arrowDirectionConvention),
-                                        i, j, arrowSize / 11f, g);
-                                break;
-                            case TRI_ARROW:
-                                VectorFactory.renderVector("TRIVEC", convertAngle(angle, arrowDirectionConvention),
-                                        i, j, arrowSize / 11f, g);
-                                break;
-                            case THIN_ARROW:
-                            default:
-                                /*
-                                 * The overall arrow size is 11 for things
-                                 * returned from the VectorFactory, so we divide
-                                 * the arrow size by 11 to get the scale factor.
-                                 */
-                                VectorFactory.renderVector("LINEVEC", convertAngle(angle, arrowDirectionConvention),
-                                        i, j, arrowSize / 11f, g);
-                                break;
-                            }
+                        if (n == is.length) {
+                            is = Arrays.copyOf(is, 2 * n);
+                            js = Arrays.copyOf(js, 2 * n);
                         }
+                        is[n] = i;
+                        js[n] = j;
+                        n++;
                     }
                     xLoc += 1.0;
                 }
             }
             yLoc += 1.0;
         }
+        return new int[][] { Arrays.copyOf(is, n), Arrays.copyOf(js, n) };
     }
-    
+
     /**
-     * Convert angle to radians according to the direction convention.
+     * Reads the headings at each arrow location and transforms them all into
+     * the CRS of the image
      * 
-     * @param angle Angle in degrees
-     * @param arrowDirectionConvention
-     * @return Angle in radians
+     * @param directions
+     *            The directions, in degrees clockwise from true north
+     * @param domainObjects
+     *            The positions of each pixel in the image
+     * @param locations
+     *            The arrow locations, as returned by
+     *            {@link ArrowLayer#getArrowLocations(int, int, int)}
+     * @return The heading of each arrow in degrees clockwise from "up", or
+     *         <code>NaN</code> where there is no data
      */
-    private double convertAngle(Double angle, ArrowDirectionConvention arrowDirectionConvention) {
+    static double[] getArrowHeadings(Array2D<Number> directions,
+            Array<HorizontalPosition> domainObjects, int[][] locations) {
+        int[] is = locations[0];
+        int[] js = locations[1];
+        double[] headings = new double[is.length];
+        HorizontalPosition[] positions = new HorizontalPosition[is.length];
+        for (int k = 0; k < is.length; k++) {
+            Number direction = directions.get(js[k], is[k]);
+            headings[k] = direction == null ? Double.NaN : direction.doubleValue();
+            positions[k] = domainObjects.get(js[k], is[k]);
+        }
+        return GISUtils.transformWgs84Headings(headings, positions);
+    }
+
+    private double convertAngle(double angle, ArrowDirectionConvention arrowDirectionConvention) {
         return arrowDirectionConvention.equals(ArrowDirectionConvention.METEOROLOGICAL) ?
-    		(angle.doubleValue() + 180.0) * GISUtils.DEG2RAD : angle.doubleValue() * GISUtils.DEG2RAD;
+    		(angle + 180.0) * GISUtils.DEG2RAD : angle * GISUtils.DEG2RAD;
     }
     
     @Override
@@ -156,6 +156,40 @@ public abstract class ColourScheme {
      */
     public abstract Color getColor(Number value);
 
+    /**
+     * Gets the complete, fixed set of colours which this {@link ColourScheme}
+     * can return. Colour schemes which can represent every value with one of
+     * at most 256 colours should override this (and
+     * {@link ColourScheme#getColourIndex(Number)}) so that images can be
+     * rendered and encoded as palette indices rather than as ARGB pixels.
+     *
+     * @return The colours which this {@link ColourScheme} can return, or
+     *         <code>null</code> if this {@link ColourScheme} cannot be
+     *         represented as an indexed set of colours. This default
+     *         implementation returns <code>null</code>.
+     */
+    public Color[] getIndexedColours() {
+        return null;
+    }
+
+    /**
+     * Returns the index of the colour associated with the given value, such
+     * that <code>getIndexedColours()[getColourIndex(value)]</code> is
+     * equivalent to <code>getColor(value)</code>
+     *
+     * @param value
+     *            The value to get a colour index for
+     * @return The index of the colour in the array returned by
+     *         {@link ColourScheme#getIndexedColours()}
+     * @throws UnsupportedOperationException
+     *             if {@link ColourScheme#getIndexedColours()} returns
+     *             <code>null</code>
+     */
+    public int getColourIndex(Number value) {
+        throw new UnsupportedOperationException(
+                "This colour scheme cannot be represented as indexed colours");
+    }
+
     /**
      * @return The minimum value of this colour scale
      */
@@ -160,7 +160,7 @@ public class ColouredGlyphLayer extends ImageLayer {
                 largeBoundingBox, params.getZExtent(), params.getTExtent(),
                 params.getTargetHorizontalPosition(), params.getTargetZ(), params.getTargetT());
 
-        FeaturesAndMemberName featuresForLayer = catalogue.getFeaturesForLayer(dataFieldName,
+        FeaturesAndMemberName featuresForLayer = catalogue.getFeaturesForDrawing(dataFieldName,
                 extractParams);
         Collection<? extends DiscreteFeature<?, ?>> features = featuresForLayer.getFeatures();
 
@@ -85,7 +85,7 @@ public class ColouredTrajectoryLayer extends ImageLayer {
     @Override
     protected void drawIntoImage(BufferedImage image, PlottingDomainParams params,
             FeatureCatalogue catalogue) throws EdalException {
-        FeaturesAndMemberName featureAndMemberName = catalogue.getFeaturesForLayer(dataFieldName,
+        FeaturesAndMemberName featureAndMemberName = catalogue.getFeaturesForDrawing(dataFieldName,
                 params);
         String member = featureAndMemberName.getMember();
 
@@ -83,8 +83,8 @@ public abstract class GriddedImageLayer extends ImageLayer {
 
         private FeaturesAndMemberName extractFeature(String layerId) throws EdalException {
             if (!extractedFeatures.containsKey(layerId)) {
-                FeaturesAndMemberName featureAndMemberName = catalogue.getFeaturesForLayer(layerId,
-                        params);
+                FeaturesAndMemberName featureAndMemberName = catalogue
+                        .getFeaturesForDrawing(layerId, params);
                 Collection<? extends DiscreteFeature<?, ?>> features = featureAndMemberName
                         .getFeatures();
                 MapFeature mapFeature = null;
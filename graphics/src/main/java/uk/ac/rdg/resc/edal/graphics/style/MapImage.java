@@ -35,6 +35,12 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -44,15 +50,49 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 import javax.imageio.ImageIO;
 
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.GraphicsUtils;
 import uk.ac.rdg.resc.edal.graphics.utils.LegendDataGenerator;
 import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
-
+import uk.ac.rdg.resc.edal.graphics.utils.RequestFeatureCatalogue;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+
+/**
+ * A {@link Drawable} made up of a number of layers, which are drawn in order.
+ *
+ * Drawing does not modify a {@link MapImage} or its layers, so a single
+ * instance can draw any number of images concurrently.
+ * {@link uk.ac.rdg.resc.edal.graphics.utils.StyleCatalogue}s rely on this to
+ * share instances between requests, so a {@link MapImage} obtained from a
+ * style catalogue must not be modified.
+ */
 public class MapImage extends Drawable {
+    /*
+     * Layers of all images are drawn on this executor, so that the number of
+     * rendering threads is bounded regardless of the number of requests
+     */
+    private static final ExecutorService RENDER_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread thread = new Thread(r, "map-image-render");
+                thread.setDaemon(true);
+                return thread;
+            });
+    /*
+     * The maximum number of layers of a single image which are drawn ahead
+     * of the one being composited. Each layer is drawn into a full-size
+     * image, so this bounds how many of those are held at once.
+     */
+    static final int MAX_LAYERS_IN_PROGRESS = Math.max(2,
+            Runtime.getRuntime().availableProcessors());
+
     private List<Drawable> layers = new ArrayList<Drawable>();
 
     public List<Drawable> getLayers() {
@@ -61,19 +101,75 @@ public class MapImage extends Drawable {
 
     @Override
     public BufferedImage drawImage(PlottingDomainParams params, FeatureCatalogue catalogue) throws EdalException {
-        BufferedImage finalImage = new BufferedImage(params.getWidth(), params.getHeight(),
-                BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = finalImage.createGraphics();
+        /*
+         * Several layers (or opacity transforms) may use the same data field.
+         * Wrap the catalogue so that each field is only extracted once for
+         * this image, and extract all of the fields we know about in parallel
+         * before drawing anything.
+         */
+        RequestFeatureCatalogue requestCatalogue = RequestFeatureCatalogue.wrap(catalogue);
+        requestCatalogue.prefetch(getFieldNames(), params);
+        catalogue = requestCatalogue;
 
+        /*
+         * Draw each layer into its own image. Layers are independent, so
+         * these are drawn in parallel on the shared render executor.
+         */
+        List<FutureTask<BufferedImage>> layerTasks = new ArrayList<>();
         for (Drawable drawable : layers) {
             if (drawable != null) {
-                BufferedImage drawnImage = drawable.drawImage(params, catalogue);
-                OpacityTransform opacityTransform = drawable.getOpacityTransform();
-                if (opacityTransform != null) {
-                    opacityTransform.drawIntoImage(drawnImage, params, catalogue);
+                final FeatureCatalogue layerCatalogue = catalogue;
+                layerTasks.add(new FutureTask<>(RequestMetrics
+                        .wrap(() -> drawLayer(drawable, params, layerCatalogue))));
+            }
+        }
+
+        /*
+         * Now composite them in order, keeping a limited number of layers
+         * drawing ahead on the executor. We run any task which has not yet
+         * been started in this thread, rather than waiting for the executor.
+         * This also means that nested MapImages cannot deadlock the executor.
+         * 
+         * Each task is dropped as soon as it has been composited, so that its
+         * image can be garbage collected.
+         */
+        BufferedImage finalImage = new BufferedImage(params.getWidth(), params.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        int[] finalPixels = ((DataBufferInt) finalImage.getRaster().getDataBuffer()).getData();
+        Graphics2D graphics = null;
+        int nSubmitted = 1;
+        try {
+            for (int i = 0; i < layerTasks.size(); i++) {
+                while (nSubmitted < layerTasks.size() && nSubmitted < i + MAX_LAYERS_IN_PROGRESS) {
+                    RENDER_EXECUTOR.execute(layerTasks.get(nSubmitted++));
+                }
+                FutureTask<BufferedImage> layerTask = layerTasks.set(i, null);
+                layerTask.run();
+                BufferedImage drawnImage = getLayerImage(layerTask);
+                if (drawnImage.getType() == BufferedImage.TYPE_INT_ARGB
+                        && drawnImage.getWidth() == finalImage.getWidth()
+                        && drawnImage.getHeight() == finalImage.getHeight()) {
+                    compositeSrcOver(finalPixels,
+                            ((DataBufferInt) drawnImage.getRaster().getDataBuffer()).getData());
+                } else {
+                    if (graphics == null) {
+                        graphics = finalImage.createGraphics();
+                    }
+                    graphics.drawImage(drawnImage, 0, 0, null);
                 }
-                graphics.drawImage(drawnImage, 0, 0, null);
             }
+        } finally {
+            /*
+             * If a layer failed, there is no point drawing the rest
+             */
+            for (FutureTask<BufferedImage> layerTask : layerTasks) {
+                if (layerTask != null) {
+                    layerTask.cancel(false);
+                }
+            }
+        }
+        if (graphics != null) {
+            graphics.dispose();
         }
         if (getOpacityTransform() != null) {
             getOpacityTransform().drawIntoImage(finalImage, params, catalogue);
@@ -81,6 +177,142 @@ public class MapImage extends Drawable {
         return finalImage;
     }
 
+    private static BufferedImage drawLayer(Drawable drawable, PlottingDomainParams params,
+            FeatureCatalogue catalogue) throws EdalException {
+        BufferedImage drawnImage = drawable.drawImage(params, catalogue);
+        OpacityTransform opacityTransform = drawable.getOpacityTransform();
+        if (opacityTransform != null) {
+            opacityTransform.drawIntoImage(drawnImage, params, catalogue);
+        }
+        return drawnImage;
+    }
+
+    private static BufferedImage getLayerImage(FutureTask<BufferedImage> layerTask)
+            throws EdalException {
+        try {
+            return layerTask.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EdalException("Problem drawing layer", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EdalException("Interrupted whilst drawing layer", e);
+        }
+    }
+
+    /**
+     * Composites non-premultiplied ARGB pixels onto another set of the same
+     * size, using the Porter-Duff source-over rule.
+     * 
+     * @param dst
+     *            The destination pixels, which are modified
+     * @param src
+     *            The pixels to draw over the destination
+     */
+    static void compositeSrcOver(int[] dst, int[] src) {
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = GraphicsUtils.srcOver(dst[i], src[i]);
+        }
+    }
+
+    /*
+     * Gets the names of all of the data fields used by the layers and opacity
+     * transforms of this image
+     */
+    private Set<String> getFieldNames() {
+        Set<String> fieldNames = new LinkedHashSet<>();
+        for (NameAndRange field : getFieldsWithScales()) {
+            fieldNames.add(field.getFieldLabel());
+        }
+        return fieldNames;
+    }
+
+    /**
+     * Draws this {@link MapImage} as a palette-indexed image, if possible. This
+     * is only possible when the image consists of a single {@link RasterLayer}
+     * whose {@link ColourScheme} supports indexed colours, and which has no
+     * opacity transforms other than a {@link FlatOpacity}. In that case the
+     * colour indices are written straight into the image's raster, so the
+     * result can be encoded as an indexed image (e.g. by
+     * {@link uk.ac.rdg.resc.edal.graphics.formats.PngFormat}) without any
+     * colour quantisation.
+     * 
+     * @param params
+     *            The {@link PlottingDomainParams} defining the image
+     * @param catalogue
+     *            The {@link FeatureCatalogue} to read data from
+     * @return A {@link BufferedImage} of type
+     *         {@link BufferedImage#TYPE_BYTE_INDEXED}, or <code>null</code> if
+     *         this {@link MapImage} cannot be drawn as an indexed image, in
+     *         which case {@link MapImage#drawImage(PlottingDomainParams, FeatureCatalogue)}
+     *         should be used instead.
+     * @throws EdalException
+     *             If there is a problem reading the data
+     */
+    public BufferedImage drawIndexedImage(PlottingDomainParams params, FeatureCatalogue catalogue)
+            throws EdalException {
+        RasterLayer rasterLayer = null;
+        for (Drawable drawable : layers) {
+            if (drawable != null) {
+                if (rasterLayer != null || !(drawable instanceof RasterLayer)) {
+                    return null;
+                }
+                rasterLayer = (RasterLayer) drawable;
+            }
+        }
+        if (rasterLayer == null) {
+            return null;
+        }
+        OpacityTransform layerOpacity = rasterLayer.getOpacityTransform();
+        OpacityTransform imageOpacity = getOpacityTransform();
+        if ((layerOpacity != null && !(layerOpacity instanceof FlatOpacity))
+                || (imageOpacity != null && !(imageOpacity instanceof FlatOpacity))) {
+            return null;
+        }
+
+        Color[] colours = rasterLayer.getColourScheme().getIndexedColours();
+        if (colours == null || colours.length > 256) {
+            return null;
+        }
+        /*
+         * Extract through a request catalogue so that extraction is timed in
+         * the same way as for drawImage
+         */
+        byte[] indices = rasterLayer.drawColourIndices(params,
+                RequestFeatureCatalogue.wrap(catalogue));
+        if (indices == null) {
+            return null;
+        }
+
+        /*
+         * Flat opacity transforms apply equally to every pixel, so we can just
+         * apply them to the palette
+         */
+        int[] cmap = new int[colours.length];
+        for (int i = 0; i < colours.length; i++) {
+            cmap[i] = colours[i].getRGB();
+            if (layerOpacity != null) {
+                cmap[i] = layerOpacity.blendPixel(cmap[i],
+                        (int) (((FlatOpacity) layerOpacity).getOpacity() * 255));
+            }
+            if (imageOpacity != null) {
+                cmap[i] = imageOpacity.blendPixel(cmap[i],
+                        (int) (((FlatOpacity) imageOpacity).getOpacity() * 255));
+            }
+        }
+        IndexColorModel colourModel = new IndexColorModel(8, cmap.length, cmap, 0, true, -1,
+                DataBuffer.TYPE_BYTE);
+        WritableRaster raster = Raster.createInterleavedRaster(
+                new DataBufferByte(indices, indices.length), params.getWidth(), params.getHeight(),
+                params.getWidth(), 1, new int[] { 0 }, null);
+        return new BufferedImage(colourModel, raster, false, null);
+    }
+
     /**
      * Generate a legend for this {@link MapImage}.
      * 
@@ -29,9 +29,15 @@
 package uk.ac.rdg.resc.edal.graphics.style;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
 import uk.ac.rdg.resc.edal.util.Array2D;
 import uk.ac.rdg.resc.edal.util.CollectionUtils;
@@ -63,25 +69,152 @@ public class RasterLayer extends GriddedImageLayer {
     protected void drawIntoImage(BufferedImage image, MapFeatureDataReader dataReader)
             throws EdalException {
         /*
-         * Initialise the array to store colour values
+         * Extract the data from the catalogue
          */
-        int[] pixels = new int[image.getWidth() * image.getHeight()];
-
+        final Array2D<Number> values = dataReader.getDataForLayerName(dataFieldName);
+        final int width = image.getWidth();
         /*
-         * Extract the data from the catalogue
+         * Some colour schemes initialise themselves lazily. Make sure that
+         * happens before we start colouring in parallel.
          */
-        Array2D<Number> values = dataReader.getDataForLayerName(dataFieldName);
+        colourScheme.getColor(null);
 
-        /*
-         * The iterator iterates over the x-dimension first, which is the same
-         * convention as expected for the colour-values array in image.setRGB
-         * below
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            /*
+             * Write the colours straight into the image's pixels
+             */
+            final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            colourRows(image.getHeight(), (yStart, yEnd) -> {
+                for (int y = yStart; y < yEnd; y++) {
+                    int index = y * width;
+                    for (int x = 0; x < width; x++) {
+                        pixels[index++] = colourScheme.getColor(values.get(y, x)).getRGB();
+                    }
+                }
+            });
+        } else {
+            /*
+             * Colour each band into a buffer of its own, so that we never need
+             * a buffer for the entire image
+             */
+            colourRows(image.getHeight(), (yStart, yEnd) -> {
+                int[] pixels = new int[(yEnd - yStart) * width];
+                int index = 0;
+                for (int y = yStart; y < yEnd; y++) {
+                    for (int x = 0; x < width; x++) {
+                        pixels[index++] = colourScheme.getColor(values.get(y, x)).getRGB();
+                    }
+                }
+                synchronized (image) {
+                    image.setRGB(0, yStart, width, yEnd - yStart, pixels, 0, width);
+                }
+            });
+        }
+    }
+
+    /**
+     * Renders this layer as indices into the colours returned by
+     * {@link ColourScheme#getIndexedColours()}, rather than as ARGB pixels.
+     * This allows images to be encoded as palette-indexed images without
+     * having to quantise the colours afterwards.
+     * 
+     * @param params
+     *            The {@link PlottingDomainParams} defining the image
+     * @param catalogue
+     *            The {@link FeatureCatalogue} to read data from
+     * @return An array of colour indices, one per pixel, ordered as for
+     *         {@link BufferedImage#setRGB(int, int, int, int, int[], int, int)}
+     *         , or <code>null</code> if the {@link ColourScheme} of this layer
+     *         does not support indexed colours
+     * @throws EdalException
+     *             If there is a problem reading the data
+     */
+    public byte[] drawColourIndices(PlottingDomainParams params, FeatureCatalogue catalogue)
+            throws EdalException {
+        if (colourScheme.getIndexedColours() == null) {
+            return null;
+        }
+        final int width = params.getWidth();
+        final byte[] indices = new byte[width * params.getHeight()];
+        final Array2D<Number> values = new MapFeatureDataReader(params, catalogue)
+                .getDataForLayerName(dataFieldName);
+        colourScheme.getColourIndex(null);
+        colourRows(params.getHeight(), (yStart, yEnd) -> {
+            for (int y = yStart; y < yEnd; y++) {
+                int index = y * width;
+                for (int x = 0; x < width; x++) {
+                    indices[index++] = (byte) colourScheme.getColourIndex(values.get(y, x));
+                }
+            }
+        });
+        return indices;
+    }
+
+    /*
+     * Images are coloured in bands of this many rows. Images no taller than
+     * this are coloured in the calling thread.
+     */
+    private static final int ROWS_PER_BAND = 64;
+    /*
+     * Bands of all images are coloured in this pool, so that the number of
+     * colouring threads is bounded and colouring does not compete with
+     * everything else which uses the common pool
+     */
+    private static final ForkJoinPool COLOUR_POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                        .newThread(pool);
+                thread.setName("raster-layer-colour-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+
+    /**
+     * Colours a set of rows of an image
+     */
+    private interface RowColourer {
+        /**
+         * @param yStart
+         *            The first row to colour
+         * @param yEnd
+         *            The row after the last row to colour
          */
-        int index = 0;
-        for (Number value : values) {
-            pixels[index++] = colourScheme.getColor(value).getRGB();
+        public void colourRows(int yStart, int yEnd);
+    }
+
+    /*
+     * Splits the rows of an image into bands, and colours them in parallel
+     * in the colouring pool
+     */
+    private static void colourRows(int height, RowColourer colourer) {
+        if (height <= ROWS_PER_BAND) {
+            colourer.colourRows(0, height);
+        } else {
+            COLOUR_POOL.invoke(new ColourBandTask(colourer, 0, height));
+        }
+    }
+
+    private static final class ColourBandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RowColourer colourer;
+        private final int yStart;
+        private final int yEnd;
+
+        private ColourBandTask(RowColourer colourer, int yStart, int yEnd) {
+            this.colourer = colourer;
+            this.yStart = yStart;
+            this.yEnd = yEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if (yEnd - yStart <= ROWS_PER_BAND) {
+                colourer.colourRows(yStart, yEnd);
+            } else {
+                int yMid = (yStart + yEnd) >>> 1;
+                invokeAll(new ColourBandTask(colourer, yStart, yMid),
+                        new ColourBandTask(colourer, yMid, yEnd));
+            }
         }
-        image.setRGB(0, 0, image.getWidth(), image.getHeight(), pixels, 0, image.getWidth());
     }
 
     @Override
@@ -82,6 +82,15 @@ public class SegmentColourScheme extends ColourScheme {
         this.paletteString = paletteString;
     }
 
+    /*
+     * Indices of the special colours within the array returned by
+     * getIndexedColours(). The palette colours follow these.
+     */
+    private static final int NO_DATA_INDEX = 0;
+    private static final int BELOW_MIN_INDEX = 1;
+    private static final int ABOVE_MAX_INDEX = 2;
+    private static final int PALETTE_OFFSET = 3;
+
     @Override
     public Color getColor(Number value) {
         Float zeroToOne = scaleRange.scaleZeroToOne(value);
@@ -107,6 +116,40 @@ public class SegmentColourScheme extends ColourScheme {
         return palette.getColor(val);
     }
 
+    @Override
+    public Color[] getIndexedColours() {
+        if (palette == null) {
+            palette = ColourPalette.fromString(paletteString, nColourBands);
+        }
+        Color[] paletteColours = palette.getColours();
+        Color[] colours = new Color[paletteColours.length + PALETTE_OFFSET];
+        colours[NO_DATA_INDEX] = noDataColour;
+        colours[BELOW_MIN_INDEX] = belowMinColour == null ? paletteColours[0] : belowMinColour;
+        colours[ABOVE_MAX_INDEX] = aboveMaxColour == null ? paletteColours[paletteColours.length - 1]
+                : aboveMaxColour;
+        System.arraycopy(paletteColours, 0, colours, PALETTE_OFFSET, paletteColours.length);
+        return colours;
+    }
+
+    @Override
+    public int getColourIndex(Number value) {
+        Float zeroToOne = scaleRange.scaleZeroToOne(value);
+        if (palette == null) {
+            palette = ColourPalette.fromString(paletteString, nColourBands);
+        }
+        if (zeroToOne == null || Float.isNaN(zeroToOne.floatValue())) {
+            return NO_DATA_INDEX;
+        }
+        float val = zeroToOne.floatValue();
+        if (val < 0.0) {
+            return BELOW_MIN_INDEX;
+        }
+        if (val > 1.0) {
+            return ABOVE_MAX_INDEX;
+        }
+        return PALETTE_OFFSET + palette.getColourIndex(val);
+    }
+
     @Override
     public Float getScaleMin() {
         return scaleRange.getScaleMin();
@@ -28,7 +28,6 @@
 
 package uk.ac.rdg.resc.edal.graphics.style;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
@@ -39,7 +38,8 @@ import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.graphics.style.ArrowLayer.ArrowDirectionConvention;
 import uk.ac.rdg.resc.edal.graphics.style.ArrowLayer.ArrowStyle;
 import uk.ac.rdg.resc.edal.graphics.utils.BarbFactory;
-import uk.ac.rdg.resc.edal.graphics.utils.VectorFactory;
+import uk.ac.rdg.resc.edal.graphics.utils.GlyphAtlas;
+import uk.ac.rdg.resc.edal.graphics.utils.GlyphAtlas.Glyph;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.util.Array;
 import uk.ac.rdg.resc.edal.util.Array2D;
@@ -96,133 +96,80 @@ public class SizedArrowLayer extends GriddedImageLayer {
             Array2D<Number> sizeData, Array2D<Number> colourData) {
         Graphics2D g = image.createGraphics();
 
-        int width = image.getWidth();
-        int height = image.getHeight();
-
-        /*
-         * Calculate the (floating point) number of pixels per arrow. In ideal
-         * situations, this will be an integer equal to the sample spacing
-         * 
-         * For non-ideal situations it means that the arrows will not be evenly spaced
-         * (they will be either n or n+1 pixels apart). They will tile perfectly though.
-         */
-        double xPixelsPerArrow = ((double) width) / (width / (maxArrowSize * 2));
-        double yPixelsPerArrow = ((double) height) / (height / (maxArrowSize * 2));
-        double xLoc = xPixelsPerArrow / 2;
-        double yLoc = yPixelsPerArrow / 2;
-
         Array<HorizontalPosition> domainObjects = dataReader.getMapDomainObjects(directionFieldName);
+        int[][] locations = ArrowLayer.getArrowLocations(image.getWidth(), image.getHeight(),
+                maxArrowSize * 2);
+        double[] angles = ArrowLayer.getArrowHeadings(directions, domainObjects, locations);
+
+        String sizeUnits = null;
+        for (int k = 0; k < angles.length; k++) {
+            int i = locations[0][k];
+            int j = locations[1][k];
+            double angle = angles[k];
+            Number sizeValue = sizeData.get(j, i);
+            if (sizeValue != null && !Float.isNaN(sizeValue.floatValue()) && !Double.isNaN(angle)) {
+                double scaleZeroToOne = arrowSizeScaleRange.scaleZeroToOne(sizeValue);
+                if (scaleZeroToOne < 0) {
+                    scaleZeroToOne = 0.0;
+                }
+                if (scaleZeroToOne > 1) {
+                    scaleZeroToOne = 1.0;
+                }
 
-        for (int j = 0; j < height; j++) {
-            if (yLoc > yPixelsPerArrow) {
-                yLoc -= yPixelsPerArrow;
-                for (int i = 0; i < width; i++) {
-
-                    if (xLoc > xPixelsPerArrow) {
-                        xLoc -= xPixelsPerArrow;
-
-                        /*
-                         * We are at a point where we need to draw an arrow
-                         */
-                        Number sizeValue = sizeData.get(j, i);
-                        Double angle = GISUtils.transformWgs84Heading(directions.get(j, i), domainObjects.get(j, i));
-                        if (sizeValue != null && !Float.isNaN(sizeValue.floatValue()) && angle != null
-                                && !Float.isNaN(angle.floatValue())) {
-                            double scaleZeroToOne = arrowSizeScaleRange.scaleZeroToOne(sizeValue);
-                            if (scaleZeroToOne < 0) {
-                                scaleZeroToOne = 0.0;
-                            }
-                            if (scaleZeroToOne > 1) {
-                                scaleZeroToOne = 1.0;
-                            }
-
-                            int arrowSize = (int) (minArrowSize + scaleZeroToOne * (maxArrowSize - minArrowSize));
-
-                            /*
-                             * get colour depending on size
-                             */
-                            g.setColor(getArrowColour(colourData.get(j, i)));
-
-                            switch (arrowStyle) {
-                            case UPSTREAM:
-                                /* Convert from degrees to radians */
-                                angle = angle * GISUtils.DEG2RAD;
-                                /* Calculate the end point of the arrow */
-                                double iEnd = i + arrowSize * Math.sin(angle);
-                                /*
-                                 * Screen coordinates go down, but north is up, hence the minus sign
-                                 */
-                                double jEnd = j - arrowSize * Math.cos(angle);
-                                /* Draw a dot representing the data location */
-                                g.fillOval(i - 2, j - 2, 4, 4);
-                                /*
-                                 * Draw a line representing the vector direction
-                                 */
-                                g.setStroke(new BasicStroke(1));
-                                g.drawLine(i, j, (int) Math.round(iEnd), (int) Math.round(jEnd));
-                                break;
-                            case FAT_ARROW:
-                                VectorFactory.renderVector("STUMPVEC", convertAngle(angle, arrowDirectionConvention), i,
-                                        j, arrowSize * 0.1f, g);
-                                break;
-                            case TRI_ARROW:
-                                VectorFactory.renderVector("TRIVEC", convertAngle(angle, arrowDirectionConvention), i,
-                                        j, arrowSize * 0.1f, g);
-                                break;
-                            case WIND_BARBS:
-                                HorizontalPosition horizontalPosition = domainObjects.get(j, i);
-                                boolean isSouthern = false;
-                                if (GISUtils.isWgs84LonLat(horizontalPosition.getCoordinateReferenceSystem())) {
-                                    if (horizontalPosition.getY() < 0) {
-                                        isSouthern = true;
-                                    }
-                                } else {
-                                    HorizontalPosition transformPosition = GISUtils
-                                            .transformPosition(horizontalPosition, GISUtils.defaultGeographicCRS());
-                                    if (transformPosition.getY() < 0) {
-                                        isSouthern = true;
-                                    }
-                                }
-                                /*
-                                 * If we give the scale as maxArrowSize, we guarantee that no two barbs ever
-                                 * collide
-                                 */
-                                BarbFactory.renderWindBarbForSpeed(sizeValue.doubleValue(),
-                                        angle.doubleValue() * Math.PI / 180.0, i, j,
-                                        dataReader.getUnitsForLayerName(arrowSizeFieldName), maxArrowSize, isSouthern,
-                                        g);
-                                break;
-                            case THIN_ARROW:
-                            default:
-                                /*
-                                 * The overall arrow size is 10 for things returned from the VectorFactory, so
-                                 * we multiply the arrow size by 0.1 to get the scale factor.
-                                 */
-                                VectorFactory.renderVector("LINEVEC", convertAngle(angle, arrowDirectionConvention), i,
-                                        j, arrowSize * 0.1f, g);
-                                break;
-
-                            }
+                int arrowSize = (int) (minArrowSize + scaleZeroToOne * (maxArrowSize - minArrowSize));
+
+                Color colour = getArrowColour(colourData.get(j, i));
+
+                Glyph glyph;
+                switch (arrowStyle) {
+                case UPSTREAM:
+                    glyph = GlyphAtlas.getUpstreamArrow(angle * GISUtils.DEG2RAD, arrowSize, colour);
+                    break;
+                case FAT_ARROW:
+                    glyph = GlyphAtlas.getVector("STUMPVEC", convertAngle(angle, arrowDirectionConvention),
+                            arrowSize * 0.1f, colour);
+                    break;
+                case TRI_ARROW:
+                    glyph = GlyphAtlas.getVector("TRIVEC", convertAngle(angle, arrowDirectionConvention),
+                            arrowSize * 0.1f, colour);
+                    break;
+                case WIND_BARBS:
+                    HorizontalPosition horizontalPosition = domainObjects.get(j, i);
+                    boolean isSouthern = false;
+                    if (GISUtils.isWgs84LonLat(horizontalPosition.getCoordinateReferenceSystem())) {
+                        if (horizontalPosition.getY() < 0) {
+                            isSouthern = true;
                         }
+                    } else {
+                        HorizontalPosition transformPosition = GISUtils.transformPosition(horizontalPosition,
+                                GISUtils.defaultGeographicCRS());
+                        if (transformPosition.getY() < 0) {
+                            isSouthern = true;
+                        }
+                    }
+                    if (sizeUnits == null) {
+                        sizeUnits = dataReader.getUnitsForLayerName(arrowSizeFieldName);
                     }
-                    xLoc += 1.0;
+                    glyph = GlyphAtlas.getWindBarb(
+                            BarbFactory.getWindBarbRank(sizeValue.doubleValue(), sizeUnits),
+                            angle * Math.PI / 180.0, maxArrowSize, isSouthern, colour);
+                    break;
+                case THIN_ARROW:
+                default:
+                    glyph = GlyphAtlas.getVector("LINEVEC", convertAngle(angle, arrowDirectionConvention),
+                            arrowSize * 0.1f, colour);
+                    break;
                 }
+                glyph.drawInto(image, g, i, j, colour);
             }
-            yLoc += 1.0;
         }
+        g.dispose();
     }
 
-    /**
-     * Convert angle to radians according to the direction convention.
-     * 
-     * @param angle                    Angle in degrees
-     * @param arrowDirectionConvention
-     * @return Angle in radians
-     */
-    private double convertAngle(Double angle, ArrowDirectionConvention arrowDirectionConvention) {
+    private double convertAngle(double angle, ArrowDirectionConvention arrowDirectionConvention) {
         return arrowDirectionConvention.equals(ArrowDirectionConvention.METEOROLOGICAL)
-                ? (angle.doubleValue() + 180.0) * GISUtils.DEG2RAD
-                : angle.doubleValue() * GISUtils.DEG2RAD;
+                ? (angle + 180.0) * GISUtils.DEG2RAD
+                : angle * GISUtils.DEG2RAD;
     }
 
     @Override
@@ -202,6 +202,25 @@ public class BarbFactory {
 
     public static void renderWindBarbForSpeed(double speed, double angle, int i, int j,
             String units, float scale, boolean southern_hemisphere, Graphics2D g) {
+        Path2D ret = getWindBarbShape(getWindBarbRank(speed, units), angle, scale,
+                southern_hemisphere);
+        // Place the image
+        ret.transform(AffineTransform.getTranslateInstance(i, j));
+        g.draw(ret);
+    }
+
+    /**
+     * Gets the index of the wind barb which represents a given speed
+     * 
+     * @param speed
+     *            The wind speed
+     * @param units
+     *            The units of the wind speed. Speeds in "m/s", "cm/s" and
+     *            "mm/s" are converted, anything else is assumed to be in knots
+     * @return The rank of the wind barb to use, suitable for passing to
+     *         {@link BarbFactory#getWindBarbShape(int, double, float, boolean)}
+     */
+    public static int getWindBarbRank(double speed, String units) {
         /* Convert to knots */
         if (units.trim().equalsIgnoreCase("m/s")) {
             speed = speed * 1.94384449;
@@ -218,7 +237,26 @@ public class BarbFactory {
         } else if (rank >= windBarbs.size()) {
             rank = windBarbs.size() - 1;
         }
+        return rank;
+    }
 
+    /**
+     * Gets the outline of a wind barb, rotated and scaled, with its base at
+     * the origin
+     * 
+     * @param rank
+     *            The rank of the barb, as returned by
+     *            {@link BarbFactory#getWindBarbRank(double, String)}
+     * @param angle
+     *            The direction of the wind, in radians clockwise from north
+     * @param scale
+     *            The length of the main line of the barb, in pixels
+     * @param southern_hemisphere
+     *            Whether the barb is in the southern hemisphere
+     * @return A new {@link Path2D} which the caller is free to modify
+     */
+    public static Path2D getWindBarbShape(int rank, double angle, float scale,
+            boolean southern_hemisphere) {
         Path2D ret = (Path2D) windBarbs.get(rank).clone();
         /*
          * Rotate so the Barb represents 0 from degrees.
@@ -250,9 +288,7 @@ public class BarbFactory {
          */
         scale /= 18;
         ret.transform(AffineTransform.getScaleInstance(scale, scale));
-        // Place the image
-        ret.transform(AffineTransform.getTranslateInstance(i, j));
-        g.draw(ret);
+        return ret;
     }
 
     private static Path2D barb_0_4() {
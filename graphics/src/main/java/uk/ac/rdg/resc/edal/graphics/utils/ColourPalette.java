@@ -208,6 +208,19 @@ public class ColourPalette {
      * @return The desired colour
      */
     public Color getColor(float value) {
+        return this.colours[getColourIndex(value)];
+    }
+
+    /**
+     * Gets the index of the colour band corresponding to a fractional point
+     * along the palette
+     *
+     * @param value
+     *            The fraction along the palette of the colour
+     * @return The index of the desired colour in the array returned by
+     *         {@link ColourPalette#getColours()}
+     */
+    public int getColourIndex(float value) {
         if (value < 0.0f || value > 1.0f) {
             throw new IllegalArgumentException("value must be between 0 and 1");
         }
@@ -220,7 +233,14 @@ public class ColourPalette {
         if (i == this.colours.length) {
             i--;
         }
-        return this.colours[i];
+        return i;
+    }
+
+    /**
+     * @return A copy of the colour bands which make up this palette, in order
+     */
+    public Color[] getColours() {
+        return colours.clone();
     }
 
     /**
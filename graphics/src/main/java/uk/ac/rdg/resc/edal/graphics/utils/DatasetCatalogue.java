@@ -75,4 +75,46 @@ public interface DatasetCatalogue {
      *         updated
      */
     public DateTime getLastUpdateTime();
+
+    /**
+     * Returns a precomputed {@link DatasetStatisticsIndex} for a dataset, which
+     * can be used to find value ranges without reading data.
+     * 
+     * @param datasetId The ID of the dataset
+     * @return The {@link DatasetStatisticsIndex}, or <code>null</code> if none is
+     *         available (e.g. it has not yet been built). This default
+     *         implementation always returns <code>null</code>.
+     */
+    public default DatasetStatisticsIndex getStatisticsIndex(String datasetId) {
+        return null;
+    }
+
+    /**
+     * Gets a stamp identifying the version of the source data of a dataset, so
+     * that anything derived from the data (e.g. stored tiles) can be checked
+     * to be current. Implementations should return the same stamp after a
+     * restart if the data has not changed.
+     * 
+     * @param datasetId
+     *            The ID of the dataset
+     * @return A stamp which changes whenever the data of the dataset does.
+     *         This default implementation returns the time at which the
+     *         catalogue was last updated, in milliseconds
+     */
+    public default long getDatasetSourceStamp(String datasetId) {
+        return getLastUpdateTime().getMillis();
+    }
+
+    /**
+     * Gets a stamp identifying the version of the configuration of this
+     * catalogue (e.g. layer titles and default styles), so that anything
+     * derived from it (e.g. cached metadata) can be checked to be current.
+     * 
+     * @return A stamp which changes whenever the configuration does. This
+     *         default implementation returns the time at which the catalogue
+     *         was last updated, in milliseconds
+     */
+    public default long getConfigStamp() {
+        return getLastUpdateTime().getMillis();
+    }
 }
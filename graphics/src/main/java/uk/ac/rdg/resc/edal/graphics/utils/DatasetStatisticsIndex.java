@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.joda.time.DateTime;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.rdg.resc.edal.dataset.HorizontallyDiscreteDataset;
+import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.domain.TemporalDomain;
+import uk.ac.rdg.resc.edal.domain.VerticalDomain;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.CollectionUtils;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * A precomputed index of value statistics for the variables in a
+ * {@link HorizontallyDiscreteDataset}. This stores a {@link StatisticsPyramid}
+ * for each indexed slice (variable, time, elevation), so that the range of
+ * values within a given bounding box can be found without reading any data.
+ * 
+ * Each slice is summarised from a sample of
+ * {@link StatisticsPyramid#SAMPLE_SIZE} points square, so the minimum and
+ * maximum values are estimates, which may lie inside the true range of the
+ * data. They should only be used where an estimate will do, such as choosing
+ * a default colour scale range.
+ * 
+ * Indexing every slice of a large dataset would be prohibitively expensive,
+ * so only the most recent timesteps (by default
+ * {@link #DEFAULT_MAX_TIMESTEPS}) and the elevations closest to the surface
+ * (by default {@link #DEFAULT_MAX_ELEVATIONS}) are indexed - these are the
+ * slices which are requested by default, and so are by far the most commonly
+ * queried. Queries for other slices return <code>null</code> and callers
+ * should fall back to reading the data.
+ * 
+ * Each index records a stamp identifying the version of the source data it
+ * was built from (e.g. derived from the modification times of the source
+ * files). An index, or any of its slices, should only be used whilst the
+ * source data has the same stamp, so data whose changes can't be detected
+ * (e.g. remote data) should not be indexed.
+ */
+public class DatasetStatisticsIndex implements Serializable {
+    private static final long serialVersionUID = 2L;
+    private static final Logger log = LoggerFactory.getLogger(DatasetStatisticsIndex.class);
+
+    /** The default number of most recent timesteps to index */
+    public static final int DEFAULT_MAX_TIMESTEPS = 8;
+    /** The default number of elevations (closest to the surface) to index */
+    public static final int DEFAULT_MAX_ELEVATIONS = 10;
+
+    private final String datasetId;
+    private final long sourceStamp;
+    private final Map<SliceKey, StatisticsPyramid> slices = new ConcurrentHashMap<>();
+
+    public DatasetStatisticsIndex(String datasetId, long sourceStamp) {
+        this.datasetId = datasetId;
+        this.sourceStamp = sourceStamp;
+    }
+
+    /**
+     * @return The ID of the dataset which this index summarises
+     */
+    public String getDatasetId() {
+        return datasetId;
+    }
+
+    /**
+     * @return The stamp of the source data which this index was built from
+     */
+    public long getSourceStamp() {
+        return sourceStamp;
+    }
+
+    /**
+     * @return The number of slices in this index
+     */
+    public int getSliceCount() {
+        return slices.size();
+    }
+
+    /**
+     * Summarises the values of a variable within a bounding box
+     * 
+     * @param metadata
+     *            The {@link VariableMetadata} of the variable to summarise
+     * @param time
+     *            The time to summarise. This will be snapped to the closest
+     *            available time. If <code>null</code>, the time closest to
+     *            the current time is used.
+     * @param elevation
+     *            The elevation to summarise. This will be snapped to the
+     *            closest available elevation. If <code>null</code>, the
+     *            elevation closest to the surface is used.
+     * @param bbox
+     *            The {@link GeographicBoundingBox} to summarise
+     * @return An estimated {@link ValueSummary} of the values, or
+     *         <code>null</code> if the requested slice is not indexed, the
+     *         bounding box is too small to be summarised accurately by the
+     *         index, or there are no values within the bounding box
+     */
+    public ValueSummary getSummary(VariableMetadata metadata, DateTime time, Double elevation,
+            GeographicBoundingBox bbox) {
+        DateTime t = GISUtils.getClosestTimeTo(time, metadata.getTemporalDomain());
+        Double z = GISUtils.getClosestElevationTo(elevation, metadata.getVerticalDomain());
+        StatisticsPyramid pyramid = slices.get(new SliceKey(metadata.getId(), t, z));
+        if (pyramid == null) {
+            return null;
+        }
+        ValueSummary summary = pyramid.getSummary(bbox);
+        if (summary == null || summary.getCount() == 0) {
+            return null;
+        }
+        return summary;
+    }
+
+    /**
+     * Builds a {@link DatasetStatisticsIndex} for a dataset, using the
+     * default limits on the number of timesteps and elevations to index.
+     * 
+     * @see DatasetStatisticsIndex#build(HorizontallyDiscreteDataset, long,
+     *      DatasetStatisticsIndex, int, int)
+     */
+    public static DatasetStatisticsIndex build(HorizontallyDiscreteDataset<?> dataset,
+            long sourceStamp, DatasetStatisticsIndex previous) {
+        return build(dataset, sourceStamp, previous, DEFAULT_MAX_TIMESTEPS,
+                DEFAULT_MAX_ELEVATIONS);
+    }
+
+    /**
+     * Builds a {@link DatasetStatisticsIndex} for a dataset. All scalar
+     * variables are indexed.
+     * 
+     * @param dataset
+     *            The {@link HorizontallyDiscreteDataset} to index
+     * @param sourceStamp
+     *            A stamp which changes whenever the source data of the
+     *            dataset changes
+     * @param previous
+     *            A previous index of the same dataset, or <code>null</code>.
+     *            If it was built from source data with the same stamp, slices
+     *            present in it are reused rather than read again. Otherwise
+     *            it is ignored.
+     * @param maxTimesteps
+     *            The maximum number of (most recent) timesteps to index
+     * @param maxElevations
+     *            The maximum number of elevations to index. Those closest to
+     *            the surface are chosen.
+     * @return The new {@link DatasetStatisticsIndex}
+     */
+    public static DatasetStatisticsIndex build(HorizontallyDiscreteDataset<?> dataset,
+            long sourceStamp, DatasetStatisticsIndex previous, int maxTimesteps,
+            int maxElevations) {
+        DatasetStatisticsIndex index = new DatasetStatisticsIndex(dataset.getId(), sourceStamp);
+        if (previous != null && previous.sourceStamp != sourceStamp) {
+            previous = null;
+        }
+        long t1 = System.currentTimeMillis();
+        int nRead = 0;
+        for (String varId : dataset.getVariableIds()) {
+            VariableMetadata metadata;
+            try {
+                metadata = dataset.getVariableMetadata(varId);
+            } catch (EdalException e) {
+                continue;
+            }
+            if (!metadata.isScalar() || metadata.getHorizontalDomain() == null) {
+                continue;
+            }
+            GeographicBoundingBox bbox = metadata.getHorizontalDomain()
+                    .getGeographicBoundingBox();
+            List<DateTime> times = getTimesToIndex(metadata.getTemporalDomain(), maxTimesteps);
+            List<Double> elevations = getElevationsToIndex(metadata.getVerticalDomain(),
+                    maxElevations);
+            for (DateTime time : times) {
+                for (Double elevation : elevations) {
+                    SliceKey key = new SliceKey(varId, time, elevation);
+                    if (previous != null) {
+                        StatisticsPyramid existing = previous.slices.get(key);
+                        if (existing != null) {
+                            index.slices.put(key, existing);
+                            continue;
+                        }
+                    }
+                    try {
+                        StatisticsPyramid pyramid = readSlice(dataset, metadata, bbox, time,
+                                elevation);
+                        if (pyramid != null) {
+                            index.slices.put(key, pyramid);
+                            nRead++;
+                        }
+                    } catch (Exception e) {
+                        /*
+                         * A failure to index one slice shouldn't prevent the
+                         * others from being indexed. Queries for this slice
+                         * will fall back to reading the data.
+                         */
+                        log.warn("Problem building statistics for " + varId + " in dataset "
+                                + dataset.getId(), e);
+                    }
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Built statistics index for " + dataset.getId() + ": " + nRead
+                    + " slices read, " + index.slices.size() + " in total, in "
+                    + (System.currentTimeMillis() - t1) + "ms");
+        }
+        return index;
+    }
+
+    private static StatisticsPyramid readSlice(HorizontallyDiscreteDataset<?> dataset,
+            VariableMetadata metadata, GeographicBoundingBox bbox, DateTime time,
+            Double elevation) throws EdalException {
+        MapDomain domain = new MapDomain(new RegularGridImpl(
+                StatisticsPyramid.getSampleBoundingBox(bbox), StatisticsPyramid.SAMPLE_SIZE,
+                StatisticsPyramid.SAMPLE_SIZE), elevation,
+                metadata.getVerticalDomain() == null ? null
+                        : metadata.getVerticalDomain().getVerticalCrs(),
+                time);
+        Collection<? extends MapFeature> features = dataset
+                .extractMapFeatures(CollectionUtils.setOf(metadata.getId()), domain);
+        if (features == null || features.isEmpty()) {
+            return null;
+        }
+        return new StatisticsPyramid(bbox, features.iterator().next().getValues(metadata.getId()));
+    }
+
+    private static List<DateTime> getTimesToIndex(TemporalDomain tDomain, int maxTimesteps) {
+        List<DateTime> times = new ArrayList<>();
+        if (tDomain instanceof TimeAxis) {
+            List<DateTime> axisValues = ((TimeAxis) tDomain).getCoordinateValues();
+            times.addAll(axisValues.subList(Math.max(0, axisValues.size() - maxTimesteps),
+                    axisValues.size()));
+            /*
+             * Always include the default time, even if it is not one of the
+             * most recent
+             */
+            DateTime defaultTime = GISUtils.getClosestToCurrentTime(tDomain);
+            if (!times.contains(defaultTime)) {
+                times.add(0, defaultTime);
+            }
+        } else if (tDomain != null) {
+            times.add(GISUtils.getClosestToCurrentTime(tDomain));
+        } else {
+            times.add(null);
+        }
+        return times;
+    }
+
+    private static List<Double> getElevationsToIndex(VerticalDomain zDomain, int maxElevations) {
+        List<Double> elevations = new ArrayList<>();
+        if (zDomain instanceof VerticalAxis) {
+            final double surface = GISUtils.getClosestElevationToSurface(zDomain);
+            List<Double> axisValues = new ArrayList<>(((VerticalAxis) zDomain)
+                    .getCoordinateValues());
+            axisValues.sort(Comparator.comparingDouble(z -> Math.abs(z - surface)));
+            elevations.addAll(axisValues.subList(0, Math.min(maxElevations, axisValues.size())));
+        } else {
+            elevations.add(GISUtils.getClosestElevationToSurface(zDomain));
+        }
+        return elevations;
+    }
+
+    /**
+     * Writes this index to a file
+     * 
+     * @param file
+     *            The {@link File} to write to
+     * @throws IOException
+     *             If there is a problem writing the file
+     */
+    public void writeTo(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeObject(this);
+        }
+    }
+
+    /**
+     * Reads an index previously written with
+     * {@link DatasetStatisticsIndex#writeTo(File)}
+     * 
+     * @param file
+     *            The {@link File} to read from
+     * @return The {@link DatasetStatisticsIndex}
+     * @throws IOException
+     *             If the file cannot be read or does not contain an index
+     */
+    public static DatasetStatisticsIndex readFrom(File file) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            return (DatasetStatisticsIndex) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("File " + file + " does not contain a statistics index", e);
+        }
+    }
+
+    private static final class SliceKey implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String varId;
+        private final Long time;
+        private final Double elevation;
+
+        public SliceKey(String varId, DateTime time, Double elevation) {
+            this.varId = varId;
+            this.time = time == null ? null : time.getMillis();
+            this.elevation = elevation;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(varId, time, elevation);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            SliceKey other = (SliceKey) obj;
+            return Objects.equals(varId, other.varId) && Objects.equals(time, other.time)
+                    && Objects.equals(elevation, other.elevation);
+        }
+    }
+}
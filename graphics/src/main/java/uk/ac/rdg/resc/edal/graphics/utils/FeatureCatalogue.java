@@ -91,4 +91,28 @@ public interface FeatureCatalogue {
      */
     public FeaturesAndMemberName getFeaturesForLayer(String layerName, PlottingDomainParams params)
             throws EdalException;
+
+    /**
+     * Returns the features of a layer which are to be drawn onto an image of
+     * the size given by the {@link PlottingDomainParams}. Unlike
+     * {@link FeatureCatalogue#getFeaturesForLayer(String, PlottingDomainParams)}
+     * , implementations may return only one feature for each pixel of the
+     * image for layers with continuous domains, so this should not be used
+     * where every feature is needed. This default implementation returns all
+     * features.
+     * 
+     * @param layerName
+     *            The name of the layer to extract
+     * @param params
+     *            The {@link PlottingDomainParams} describing the domain to be
+     *            plotted
+     * @return A {@link FeaturesAndMemberName} object encapsulating the returned
+     *         {@link DiscreteFeature}s
+     * @throws EdalException
+     *             if there is a problem with feature extraction.
+     */
+    public default FeaturesAndMemberName getFeaturesForDrawing(String layerName,
+            PlottingDomainParams params) throws EdalException {
+        return getFeaturesForLayer(layerName, params);
+    }
 }
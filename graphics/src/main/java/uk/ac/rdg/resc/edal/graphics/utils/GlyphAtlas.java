@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Objects;
+
+import uk.ac.rdg.resc.edal.cache.WeighedCache;
+
+/**
+ * A shared cache of pre-rasterised arrow and wind barb glyphs.
+ * 
+ * Arrow layers typically draw thousands of glyphs per tile, but only a few
+ * distinct shapes: directions are quantised to {@link GlyphAtlas#ANGLE_STEPS}
+ * steps, and sizes come from a small set. Each distinct shape is rasterised
+ * once with exactly the same {@link Graphics2D} operations as
+ * {@link VectorFactory} and {@link BarbFactory} would use, and is then copied
+ * into images with
+ * {@link Glyph#drawInto(BufferedImage, Graphics2D, int, int, Color)}.
+ * 
+ * Glyphs in opaque colours are rasterised once in white, and the colour is
+ * applied when they are drawn, so they are shared between all opaque colours.
+ * Where the parts of a glyph overlap, Java2D composites a semi-transparent
+ * colour twice, so glyphs in semi-transparent colours are rasterised in that
+ * colour.
+ * 
+ * This class is thread-safe.
+ */
+public final class GlyphAtlas {
+    /**
+     * The number of distinct directions which glyphs are rasterised at. At
+     * tenths of a degree, glyphs of the sizes used by arrow layers are
+     * indistinguishable from those drawn at the exact angle.
+     */
+    public static final int ANGLE_STEPS = 3600;
+    private static final double RADIANS_PER_STEP = 2.0 * Math.PI / ANGLE_STEPS;
+
+    /*
+     * Enough for several thousand typical glyphs. The least-recently used
+     * glyphs are evicted once this is exceeded.
+     */
+    private static final long MAX_ATLAS_BYTES = 16L * 1024 * 1024;
+    /* Space around the outline of each glyph, to allow for the stroke */
+    private static final int PADDING = 2;
+    /* The colour key for glyphs which are shared between opaque colours */
+    private static final int ANY_OPAQUE_COLOUR = 0;
+
+    private static final WeighedCache<GlyphKey, Glyph> GLYPHS = new WeighedCache<>("glyphAtlas",
+            MAX_ATLAS_BYTES, 0, glyph -> 4L * glyph.pixels.length + 64L);
+
+    private GlyphAtlas() {
+    }
+
+    /**
+     * A rasterised glyph, anchored at a fixed pixel
+     */
+    public static final class Glyph {
+        private final BufferedImage image;
+        private final int[] pixels;
+        /*
+         * Whether the glyph is rasterised in white, and so takes the colour it
+         * is drawn with
+         */
+        private final boolean tinted;
+        private final int width;
+        private final int height;
+        private final int originX;
+        private final int originY;
+
+        private Glyph(BufferedImage image, boolean tinted, int originX, int originY) {
+            this.image = image;
+            this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            this.tinted = tinted;
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.originX = originX;
+            this.originY = originY;
+        }
+
+        /**
+         * Draws this glyph into an image, using the source-over rule
+         * 
+         * @param target
+         *            The image to draw into
+         * @param g
+         *            A {@link Graphics2D} for the target image. This is only
+         *            used when the pixels of the target cannot be written to
+         *            directly
+         * @param x
+         *            The x-pixel at which to anchor the glyph
+         * @param y
+         *            The y-pixel at which to anchor the glyph
+         * @param colour
+         *            The colour to draw the glyph in. This must be the colour
+         *            which the glyph was obtained for.
+         */
+        public void drawInto(BufferedImage target, Graphics2D g, int x, int y, Color colour) {
+            int left = x - originX;
+            int top = y - originY;
+            int rgb = tinted ? colour.getRGB() & 0xffffff : 0;
+            int[] targetPixels = getDirectPixels(target);
+            if (targetPixels == null) {
+                if (!tinted) {
+                    g.drawImage(image, left, top, null);
+                    return;
+                }
+                BufferedImage tintedImage = new BufferedImage(width, height,
+                        BufferedImage.TYPE_INT_ARGB);
+                int[] tintedPixels = ((DataBufferInt) tintedImage.getRaster().getDataBuffer())
+                        .getData();
+                for (int i = 0; i < pixels.length; i++) {
+                    tintedPixels[i] = pixels[i] == 0 ? 0 : (pixels[i] & 0xff000000) | rgb;
+                }
+                g.drawImage(tintedImage, left, top, null);
+                return;
+            }
+            int targetWidth = target.getWidth();
+            int iMin = Math.max(0, -left);
+            int iMax = Math.min(width, targetWidth - left);
+            int jMin = Math.max(0, -top);
+            int jMax = Math.min(height, target.getHeight() - top);
+            for (int j = jMin; j < jMax; j++) {
+                int src = j * width;
+                int dst = (top + j) * targetWidth + left;
+                for (int i = iMin; i < iMax; i++) {
+                    int s = pixels[src + i];
+                    if (s != 0) {
+                        if (tinted) {
+                            s = (s & 0xff000000) | rgb;
+                        }
+                        targetPixels[dst + i] = GraphicsUtils.srcOver(targetPixels[dst + i], s);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the glyph for a vector drawn by
+     * {@link VectorFactory#renderVector(String, double, int, int, float, Graphics2D)}
+     * 
+     * @param style
+     *            The style of the vector
+     * @param angle
+     *            The angle of the vector, in radians clockwise from north
+     * @param scale
+     *            The scale factor to apply to the vector
+     * @param colour
+     *            The colour of the vector
+     * @return The {@link Glyph}, anchored at the centre of the vector
+     */
+    public static Glyph getVector(String style, double angle, float scale, Color colour) {
+        int step = quantise(angle);
+        GlyphKey key = new GlyphKey(style.toUpperCase(), 0, step, Float.floatToIntBits(scale),
+                getColourKey(colour));
+        return GLYPHS.get(key, () -> {
+            Path2D path = VectorFactory.getVectorShape(style, step * RADIANS_PER_STEP, scale);
+            boolean filled = VectorFactory.isFilled(style);
+            return rasterise(path.getBounds(), key.colour, g -> {
+                if (filled) {
+                    g.fill(path);
+                }
+                g.draw(path);
+            });
+        });
+    }
+
+    /**
+     * Gets the glyph for a wind barb drawn by
+     * {@link BarbFactory#renderWindBarbForSpeed(double, double, int, int, String, float, boolean, Graphics2D)}
+     * 
+     * @param rank
+     *            The rank of the barb, as returned by
+     *            {@link BarbFactory#getWindBarbRank(double, String)}
+     * @param angle
+     *            The direction of the wind, in radians clockwise from north
+     * @param scale
+     *            The length of the main line of the barb, in pixels
+     * @param southernHemisphere
+     *            Whether the barb is in the southern hemisphere
+     * @param colour
+     *            The colour of the barb
+     * @return The {@link Glyph}, anchored at the base of the barb
+     */
+    public static Glyph getWindBarb(int rank, double angle, float scale,
+            boolean southernHemisphere, Color colour) {
+        int step = quantise(angle);
+        GlyphKey key = new GlyphKey(southernHemisphere ? "BARB_S" : "BARB_N", rank, step,
+                Float.floatToIntBits(scale), getColourKey(colour));
+        return GLYPHS.get(key, () -> {
+            Path2D path = BarbFactory.getWindBarbShape(rank, step * RADIANS_PER_STEP, scale,
+                    southernHemisphere);
+            return rasterise(path.getBounds(), key.colour, g -> g.draw(path));
+        });
+    }
+
+    /**
+     * Gets the glyph for an "upstream" arrow: a dot with a line leading from
+     * it in the direction of flow
+     * 
+     * @param angle
+     *            The direction of the line, in radians clockwise from north
+     * @param length
+     *            The length of the line, in pixels
+     * @param colour
+     *            The colour of the arrow
+     * @return The {@link Glyph}, anchored at the centre of the dot
+     */
+    public static Glyph getUpstreamArrow(double angle, int length, Color colour) {
+        int step = quantise(angle);
+        GlyphKey key = new GlyphKey("UPSTREAM", 0, step, length, getColourKey(colour));
+        return GLYPHS.get(key, () -> {
+            double quantised = step * RADIANS_PER_STEP;
+            int iEnd = (int) Math.round(length * Math.sin(quantised));
+            int jEnd = (int) Math.round(-length * Math.cos(quantised));
+            Rectangle bounds = new Rectangle(-2, -2, 4, 4);
+            bounds.add(iEnd, jEnd);
+            return rasterise(bounds, key.colour, g -> {
+                g.fillOval(-2, -2, 4, 4);
+                g.drawLine(0, 0, iEnd, jEnd);
+            });
+        });
+    }
+
+    /*
+     * All opaque colours share the same glyphs
+     */
+    private static int getColourKey(Color colour) {
+        int argb = colour.getRGB();
+        return (argb >>> 24) == 0xff ? ANY_OPAQUE_COLOUR : argb;
+    }
+
+    private interface Painter {
+        public void paint(Graphics2D g);
+    }
+
+    private static Glyph rasterise(Rectangle bounds, int colourKey, Painter painter) {
+        int originX = PADDING - bounds.x;
+        int originY = PADDING - bounds.y;
+        BufferedImage image = new BufferedImage(bounds.width + 2 * PADDING + 1,
+                bounds.height + 2 * PADDING + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        /*
+         * Only ever translate by whole pixels, so that the glyph is rasterised
+         * identically to the same shape drawn at an integer position
+         */
+        g.translate(originX, originY);
+        boolean tinted = colourKey == ANY_OPAQUE_COLOUR;
+        g.setColor(tinted ? Color.white : new Color(colourKey, true));
+        painter.paint(g);
+        g.dispose();
+        return new Glyph(image, tinted, originX, originY);
+    }
+
+    /*
+     * Converts an angle in radians to the nearest of ANGLE_STEPS steps
+     */
+    private static int quantise(double angle) {
+        return Math.floorMod((int) Math.round(angle / RADIANS_PER_STEP), ANGLE_STEPS);
+    }
+
+    /*
+     * Gets the backing array of an image if it can be written to as whole
+     * non-premultiplied ARGB pixels, one row after another
+     */
+    private static int[] getDirectPixels(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            return null;
+        }
+        WritableRaster raster = image.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferInt)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)
+                || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                || ((SinglePixelPackedSampleModel) raster.getSampleModel())
+                        .getScanlineStride() != image.getWidth()) {
+            return null;
+        }
+        return ((DataBufferInt) raster.getDataBuffer()).getData();
+    }
+
+    private static final class GlyphKey {
+        private final String shape;
+        private final int variant;
+        private final int angleStep;
+        private final int size;
+        private final int colour;
+        private final int hashCode;
+
+        GlyphKey(String shape, int variant, int angleStep, int size, int colour) {
+            this.shape = shape;
+            this.variant = variant;
+            this.angleStep = angleStep;
+            this.size = size;
+            this.colour = colour;
+            this.hashCode = Objects.hash(shape, variant, angleStep, size, colour);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof GlyphKey)) {
+                return false;
+            }
+            GlyphKey other = (GlyphKey) obj;
+            return variant == other.variant && angleStep == other.angleStep && size == other.size
+                    && colour == other.colour && shape.equals(other.shape);
+        }
+    }
+}
@@ -116,6 +116,29 @@ public class GraphicsUtils implements Serializable {
      */
     public static Collection<? extends DiscreteFeature<?, ?>> extractGeneralMapFeatures(
             Dataset dataset, String varId, PlottingDomainParams params) {
+        return extractGeneralMapFeatures(dataset, varId, params, false);
+    }
+
+    /**
+     * Convenience method to extract map features for a single variable in a
+     * generic dataset.
+     * 
+     * @param dataset
+     *            The Dataset to extract features from
+     * @param varId
+     *            The variable ID to extract
+     * @param params
+     *            The {@link PlottingDomainParams} representing the domain to
+     *            extract onto
+     * @param forDrawing
+     *            Whether the features are only to be drawn onto an image of
+     *            the size given by <code>params</code>. If so, datasets with
+     *            continuous domains may return only one feature for each
+     *            pixel, rather than every feature
+     * @return A {@link Collection} of {@link DiscreteFeature}s
+     */
+    public static Collection<? extends DiscreteFeature<?, ?>> extractGeneralMapFeatures(
+            Dataset dataset, String varId, PlottingDomainParams params, boolean forDrawing) {
         Collection<DiscreteFeature<?, ?>> mapFeatures = new ArrayList<>();
         if (dataset instanceof HorizontallyDiscreteDataset<?>) {
             HorizontallyDiscreteDataset<?> discreteDataset = (HorizontallyDiscreteDataset<?>) dataset;
@@ -126,9 +149,16 @@ public class GraphicsUtils implements Serializable {
                             params.getTargetZ(), params.getTargetT())));
         } else if (dataset instanceof ContinuousDomainDataset) {
             ContinuousDomainDataset pointDataset = (ContinuousDomainDataset) dataset;
-            mapFeatures.addAll(pointDataset.extractMapFeatures(CollectionUtils.setOf(varId),
-                    params.getBbox(), params.getZExtent(), params.getTargetZ(), params.getTExtent(),
-                    params.getTargetT()));
+            if (forDrawing) {
+                mapFeatures.addAll(pointDataset.extractMapFeatures(CollectionUtils.setOf(varId),
+                        params.getBbox(), params.getZExtent(), params.getTargetZ(),
+                        params.getTExtent(), params.getTargetT(), params.getWidth(),
+                        params.getHeight()));
+            } else {
+                mapFeatures.addAll(pointDataset.extractMapFeatures(CollectionUtils.setOf(varId),
+                        params.getBbox(), params.getZExtent(), params.getTargetZ(),
+                        params.getTExtent(), params.getTargetT()));
+            }
         } else {
             throw new EdalException("Can't extract map features for this dataset");
         }
@@ -664,6 +694,40 @@ public class GraphicsUtils implements Serializable {
         return imageGenerator.drawImage(params, featureCatalogue);
     }
 
+    /**
+     * Composites a single non-premultiplied ARGB pixel onto another, using the
+     * Porter-Duff source-over rule.
+     * 
+     * @param dst
+     *            The destination pixel
+     * @param src
+     *            The pixel to draw over the destination
+     * @return The composited pixel
+     */
+    public static int srcOver(int dst, int src) {
+        int sa = src >>> 24;
+        if (sa == 0) {
+            return dst;
+        }
+        int da = dst >>> 24;
+        if (sa == 255 || da == 0) {
+            return src;
+        }
+        /*
+         * Source and destination weights, scaled by 255 so that nothing is
+         * lost to rounding until the final values are calculated
+         */
+        int sw = sa * 255;
+        int dw = da * (255 - sa);
+        int ow = sw + dw;
+        int half = ow / 2;
+        int oa = (ow + 127) / 255;
+        int r = (((src >> 16) & 0xff) * sw + ((dst >> 16) & 0xff) * dw + half) / ow;
+        int g = (((src >> 8) & 0xff) * sw + ((dst >> 8) & 0xff) * dw + half) / ow;
+        int b = ((src & 0xff) * sw + (dst & 0xff) * dw + half) / ow;
+        return (oa << 24) | (r << 16) | (g << 8) | b;
+    }
+
     /**
      * A colour set for generating categorical palettes. This is a rainbow
      * colour set, so picking values as spread out as possible from this will
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
+
+/**
+ * A {@link FeatureCatalogue} which wraps another for the duration of a single
+ * image request. Each distinct layer is only extracted once, however many
+ * times it is used by the layers, styles and opacity transforms which make up
+ * the image, and a set of layers can be extracted in parallel before drawing
+ * starts.
+ * 
+ * This should not be kept beyond a single request, since it will hold on to
+ * all of the features which have been extracted.
+ */
+public class RequestFeatureCatalogue implements FeatureCatalogue {
+    /*
+     * Shared between all requests, so that the number of concurrent
+     * extractions is bounded
+     */
+    private static final ExecutorService EXTRACTION_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread thread = new Thread(r, "feature-extraction");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final FeatureCatalogue catalogue;
+    private final ConcurrentHashMap<ExtractionKey, FutureTask<FeaturesAndMemberName>> extractions = new ConcurrentHashMap<>();
+
+    public RequestFeatureCatalogue(FeatureCatalogue catalogue) {
+        this.catalogue = catalogue;
+    }
+
+    /**
+     * Wraps the given {@link FeatureCatalogue} in a
+     * {@link RequestFeatureCatalogue}, unless it already is one.
+     */
+    public static RequestFeatureCatalogue wrap(FeatureCatalogue catalogue) {
+        if (catalogue instanceof RequestFeatureCatalogue) {
+            return (RequestFeatureCatalogue) catalogue;
+        }
+        return new RequestFeatureCatalogue(catalogue);
+    }
+
+    @Override
+    public FeaturesAndMemberName getFeaturesForLayer(String layerName, PlottingDomainParams params)
+            throws EdalException {
+        return getFeatures(layerName, params, false);
+    }
+
+    @Override
+    public FeaturesAndMemberName getFeaturesForDrawing(String layerName,
+            PlottingDomainParams params) throws EdalException {
+        return getFeatures(layerName, params, true);
+    }
+
+    private FeaturesAndMemberName getFeatures(String layerName, PlottingDomainParams params,
+            boolean forDrawing) throws EdalException {
+        FutureTask<FeaturesAndMemberName> task = getTask(layerName, params, forDrawing);
+        /*
+         * If nobody has started this extraction yet, do it in this thread.
+         * Otherwise this waits for the thread which is doing it.
+         */
+        task.run();
+        return getResult(task);
+    }
+
+    /**
+     * Extracts the features for drawing all of the given layers, running
+     * distinct extractions in parallel. This returns once all extractions have
+     * completed. Any errors are not thrown here, but when the layer is
+     * subsequently requested with
+     * {@link RequestFeatureCatalogue#getFeaturesForDrawing(String, PlottingDomainParams)}
+     * 
+     * @param layerNames
+     *            The names of the layers to extract
+     * @param params
+     *            The {@link PlottingDomainParams} to extract them for
+     */
+    public void prefetch(Collection<String> layerNames, PlottingDomainParams params) {
+        List<FutureTask<FeaturesAndMemberName>> tasks = new ArrayList<>();
+        for (String layerName : layerNames) {
+            if (layerName != null) {
+                tasks.add(getTask(layerName, params, true));
+            }
+        }
+        if (tasks.size() < 2) {
+            /*
+             * Nothing to gain from another thread
+             */
+            return;
+        }
+        for (int i = 1; i < tasks.size(); i++) {
+            EXTRACTION_EXECUTOR.execute(tasks.get(i));
+        }
+        /*
+         * Run any extraction which has not yet been started in this thread,
+         * rather than waiting for the executor. This means that the request
+         * still makes progress when the executor is busy with other requests.
+         */
+        for (FutureTask<FeaturesAndMemberName> task : tasks) {
+            task.run();
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                /*
+                 * Rethrown when this layer is actually requested
+                 */
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private FutureTask<FeaturesAndMemberName> getTask(String layerName,
+            PlottingDomainParams params, boolean forDrawing) {
+        /*
+         * Extractions may run on the executor, so they carry the metrics of
+         * the request which needs them
+         */
+        return extractions.computeIfAbsent(new ExtractionKey(layerName, params, forDrawing),
+                key -> new FutureTask<>(RequestMetrics.wrap(() -> {
+                    try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.EXTRACT)) {
+                        return forDrawing ? catalogue.getFeaturesForDrawing(layerName, params)
+                                : catalogue.getFeaturesForLayer(layerName, params);
+                    }
+                })));
+    }
+
+    private static FeaturesAndMemberName getResult(FutureTask<FeaturesAndMemberName> task)
+            throws EdalException {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new EdalException("Problem extracting features", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EdalException("Interrupted whilst extracting features", e);
+        }
+    }
+
+    private static final class ExtractionKey {
+        private final String layerName;
+        private final PlottingDomainParams params;
+        private final boolean forDrawing;
+
+        ExtractionKey(String layerName, PlottingDomainParams params, boolean forDrawing) {
+            this.layerName = layerName;
+            this.params = params;
+            this.forDrawing = forDrawing;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(layerName, params, forDrawing);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || getClass() != obj.getClass())
+                return false;
+            ExtractionKey other = (ExtractionKey) obj;
+            return forDrawing == other.forDrawing && Objects.equals(layerName, other.layerName)
+                    && Objects.equals(params, other.params);
+        }
+    }
+}
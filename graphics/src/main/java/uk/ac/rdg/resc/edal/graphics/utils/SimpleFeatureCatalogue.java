@@ -49,6 +49,8 @@ import uk.ac.rdg.resc.edal.util.CollectionUtils;
 public class SimpleFeatureCatalogue<D extends Dataset> implements FeatureCatalogue {
     protected boolean cacheEnabled = false;
     private Map<String, Map<PlottingDomainParams, List<? extends DiscreteFeature<?, ?>>>> features = null;
+    /* Features which have been thinned out for drawing */
+    private Map<String, Map<PlottingDomainParams, List<? extends DiscreteFeature<?, ?>>>> drawingFeatures = null;
     private Map<String, D> var2Dataset = new HashMap<>();
 
     public SimpleFeatureCatalogue(D dataset, boolean cacheEnabled) {
@@ -58,6 +60,7 @@ public class SimpleFeatureCatalogue<D extends Dataset> implements FeatureCatalog
         }
         this.cacheEnabled = cacheEnabled;
         features = new HashMap<>();
+        drawingFeatures = new HashMap<>();
     }
 
     public SimpleFeatureCatalogue(Collection<D> datasets, boolean cacheEnabled) {
@@ -73,6 +76,7 @@ public class SimpleFeatureCatalogue<D extends Dataset> implements FeatureCatalog
         }
         this.cacheEnabled = cacheEnabled;
         features = new HashMap<>();
+        drawingFeatures = new HashMap<>();
     }
 
     @Override
@@ -81,24 +85,49 @@ public class SimpleFeatureCatalogue<D extends Dataset> implements FeatureCatalog
         return new FeaturesAndMemberName(getMapFeature(params, id, cacheEnabled), id);
     }
 
+    @Override
+    public FeaturesAndMemberName getFeaturesForDrawing(String id, PlottingDomainParams params)
+            throws EdalException {
+        return new FeaturesAndMemberName(getMapFeature(params, id, cacheEnabled, true), id);
+    }
+
     public void expireFromCache(String varId) {
         if (features.containsKey(varId)) {
             features.remove(varId);
         }
+        if (drawingFeatures.containsKey(varId)) {
+            drawingFeatures.remove(varId);
+        }
     }
 
     protected List<? extends DiscreteFeature<?, ?>> getMapFeature(PlottingDomainParams params,
             String varId, boolean cache) throws DataReadingException, VariableNotFoundException {
+        return getMapFeature(params, varId, cache, false);
+    }
+
+    /**
+     * @param forDrawing
+     *            Whether the features are only to be drawn onto an image of
+     *            the size given by <code>params</code>. If so, point datasets
+     *            may return only one feature for each pixel, rather than every
+     *            feature
+     */
+    protected List<? extends DiscreteFeature<?, ?>> getMapFeature(PlottingDomainParams params,
+            String varId, boolean cache, boolean forDrawing)
+            throws DataReadingException, VariableNotFoundException {
         /*
          * We do caching first by variable ID and then by plotting parameters.
          * This allows us to expire certain variables from the cache on demand
          */
+        Map<String, Map<PlottingDomainParams, List<? extends DiscreteFeature<?, ?>>>> cacheMap = forDrawing
+                ? drawingFeatures
+                : features;
         Map<PlottingDomainParams, List<? extends DiscreteFeature<?, ?>>> varCache;
-        if (features.containsKey(varId)) {
-            varCache = features.get(varId);
+        if (cacheMap.containsKey(varId)) {
+            varCache = cacheMap.get(varId);
         } else {
             varCache = new HashMap<>();
-            features.put(varId, varCache);
+            cacheMap.put(varId, varCache);
         }
 
         if (varCache.containsKey(params)) {
@@ -115,10 +144,16 @@ public class SimpleFeatureCatalogue<D extends Dataset> implements FeatureCatalog
                                 params.getTargetZ(), null, params.getTargetT()));
             } else if (dataset instanceof PointDataset<?>) {
                 PointDataset<?> pointDataset = (PointDataset<?>) dataset;
-                extractedFeatures = pointDataset.extractMapFeatures(CollectionUtils.setOf(varId),
-                        params.getBbox(), params.getZExtent(), params.getTargetZ(),
-                        params.getTExtent(), params.getTargetT());
-
+                if (forDrawing) {
+                    extractedFeatures = pointDataset.extractMapFeatures(
+                            CollectionUtils.setOf(varId), params.getBbox(), params.getZExtent(),
+                            params.getTargetZ(), params.getTExtent(), params.getTargetT(),
+                            params.getWidth(), params.getHeight());
+                } else {
+                    extractedFeatures = pointDataset.extractMapFeatures(
+                            CollectionUtils.setOf(varId), params.getBbox(), params.getZExtent(),
+                            params.getTargetZ(), params.getTExtent(), params.getTargetT());
+                }
             }
             if (cache) {
                 varCache.put(params, extractedFeatures);
@@ -33,6 +33,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
 import java.net.URL;
 import java.nio.file.FileSystem;
@@ -51,6 +52,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -58,6 +60,9 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -74,6 +79,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import uk.ac.rdg.resc.edal.cache.WeighedCache;
 import uk.ac.rdg.resc.edal.domain.Extent;
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.feature.Feature;
@@ -112,6 +118,16 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
     /* This style is determined dynamically based on the layer metadata */
     private static final String CATEGORICAL_STYLE_NAME = "default-categorical";
 
+    /*
+     * MapImages generated from style templates, keyed on the style name and
+     * template parameters. MapImages are not modified once parsed, so they
+     * can safely be shared between requests.
+     */
+    private static final String COMPILED_STYLE_CACHE_NAME = "compiledStyleCache";
+    private static final int MAX_COMPILED_STYLES = 1024;
+    private final WeighedCache<CompiledStyleKey, MapImage> compiledStyles = new WeighedCache<>(
+            COMPILED_STYLE_CACHE_NAME, MAX_COMPILED_STYLES, 0L, mapImage -> 1L);
+
     private SortedMap<String, StyleDef> styleDefs = new TreeMap<String, StyleDef>(
             new Comparator<String>() {
                 /*
@@ -231,6 +247,20 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
                 new ArrayList<Map<String, Collection<Class<? extends Feature<?>>>>>(),
                 role2MetadataFilter, null);
         styleDefs.put(CATEGORICAL_STYLE_NAME, categories);
+
+        /*
+         * Make statistics about the compiled style cache available through JMX
+         */
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(
+                    "uk.ac.rdg.resc.edal:type=WeighedCache,name=" + COMPILED_STYLE_CACHE_NAME);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(compiledStyles, objectName);
+            }
+        } catch (JMException e) {
+            log.warn("Unable to register compiled style cache with JMX", e);
+        }
     }
 
     public static void main(String[] args) {
@@ -293,43 +323,32 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
             return ret;
         }
 
-        /*
-         * We first try and find a resource in the styles directory - this will
-         * be the case for any styles defined on the classpath / in the JAR.
-         * 
-         * If that fails, try without a directory prefix - this will be the case
-         * for all styles in a user-added directory.
-         */
-        String resourceName = "styles/" + styleName.toLowerCase() + ".xml";
-        if (!velocityEngine.resourceExists(resourceName)) {
-            resourceName = styleName.toLowerCase() + ".xml";
-        }
-        Template template = velocityEngine.getTemplate(resourceName);
-
         /*
          * Set all of the variables for replacing in the template
          */
-        VelocityContext context = new VelocityContext();
-        context.put("paletteName", templateProperties.getPalette());
+        Map<String, Object> templateParameters = new HashMap<>();
+        templateParameters.put("paletteName", templateProperties.getPalette());
         List<Extent<Float>> colourScaleRanges = templateProperties.getColorScaleRanges();
         for (int i = 0; i < colourScaleRanges.size(); i++) {
             Extent<Float> scaleRange = colourScaleRanges.get(i);
             if (i == 0) {
-                context.put("scaleMin", scaleRange.getLow());
-                context.put("scaleMax", scaleRange.getHigh());
+                templateParameters.put("scaleMin", scaleRange.getLow());
+                templateParameters.put("scaleMax", scaleRange.getHigh());
             } else {
-                context.put("scaleMin" + i, scaleRange.getLow());
-                context.put("scaleMax" + i, scaleRange.getHigh());
+                templateParameters.put("scaleMin" + i, scaleRange.getLow());
+                templateParameters.put("scaleMax" + i, scaleRange.getHigh());
             }
         }
-        context.put("logarithmic", templateProperties.isLogScaling() ? "logarithmic" : "linear");
-        context.put("numColorBands", templateProperties.getNumColorBands());
-        context.put("bgColor", GraphicsUtils.colourToString(templateProperties.getNoDataColour()));
-        context.put("belowMinColor",
+        templateParameters.put("logarithmic",
+                templateProperties.isLogScaling() ? "logarithmic" : "linear");
+        templateParameters.put("numColorBands", templateProperties.getNumColorBands());
+        templateParameters.put("bgColor",
+                GraphicsUtils.colourToString(templateProperties.getNoDataColour()));
+        templateParameters.put("belowMinColor",
                 GraphicsUtils.colourToString(templateProperties.getBelowMinColour()));
-        context.put("aboveMaxColor",
+        templateParameters.put("aboveMaxColor",
                 GraphicsUtils.colourToString(templateProperties.getAboveMaxColour()));
-        context.put("opacity", templateProperties.getOpacity());
+        templateParameters.put("opacity", templateProperties.getOpacity());
 
         /*
          * Now deal with the layer names
@@ -337,8 +356,46 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
         Map<String, VariableMetadata> layerKeysToLayerNames = getStyleTemplateLayerNames(metadata,
                 styleName);
         for (Entry<String, VariableMetadata> keyToLayerName : layerKeysToLayerNames.entrySet()) {
-            context.put(keyToLayerName.getKey(), layerNameMapper.getLayerName(keyToLayerName
-                    .getValue().getDataset().getId(), keyToLayerName.getValue().getId()));
+            templateParameters.put(keyToLayerName.getKey(), layerNameMapper.getLayerName(
+                    keyToLayerName.getValue().getDataset().getId(),
+                    keyToLayerName.getValue().getId()));
+        }
+
+        /*
+         * The MapImage depends only on the style and the template parameters,
+         * so we only need to generate and parse the XML the first time a given
+         * combination is requested.
+         */
+        return compiledStyles.get(new CompiledStyleKey(styleName, templateParameters),
+                () -> compileStyle(styleName, templateParameters));
+    }
+
+    /**
+     * Generates a {@link MapImage} from a style template
+     * 
+     * @param styleName
+     *            The name of the style
+     * @param templateParameters
+     *            The parameters to substitute into the template
+     * @return The {@link MapImage} described by the processed template
+     */
+    private MapImage compileStyle(String styleName, Map<String, Object> templateParameters) {
+        /*
+         * We first try and find a resource in the styles directory - this will
+         * be the case for any styles defined on the classpath / in the JAR.
+         * 
+         * If that fails, try without a directory prefix - this will be the case
+         * for all styles in a user-added directory.
+         */
+        String resourceName = "styles/" + styleName.toLowerCase() + ".xml";
+        if (!velocityEngine.resourceExists(resourceName)) {
+            resourceName = styleName.toLowerCase() + ".xml";
+        }
+        Template template = velocityEngine.getTemplate(resourceName);
+
+        VelocityContext context = new VelocityContext();
+        for (Entry<String, Object> parameter : templateParameters.entrySet()) {
+            context.put(parameter.getKey(), parameter.getValue());
         }
 
         /*
@@ -362,6 +419,14 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
         }
     }
 
+    /**
+     * @return The cache of {@link MapImage}s generated from style templates.
+     *         This can be used to obtain cache statistics.
+     */
+    public WeighedCache<?, ?> getCompiledStyleCache() {
+        return compiledStyles;
+    }
+
     /**
      * Adds an external directory containing styles.
      * 
@@ -390,6 +455,10 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
             }
             velocityEngine.addProperty(RuntimeConstants.FILE_RESOURCE_LOADER_PATH,
                     stylesDir.getAbsolutePath());
+            /*
+             * Styles may have been redefined
+             */
+            compiledStyles.clear();
         } else {
             log.error("User tried to add a styles directory which was not a directory: "
                     + stylesDir.getAbsolutePath());
@@ -1082,5 +1151,32 @@ public class SldTemplateStyleCatalogue implements StyleCatalogue {
             return true;
         }
     }
-}
 
+    private static final class CompiledStyleKey {
+        private final String styleName;
+        private final Map<String, Object> templateParameters;
+
+        public CompiledStyleKey(String styleName, Map<String, Object> templateParameters) {
+            this.styleName = styleName;
+            this.templateParameters = templateParameters;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(styleName, templateParameters);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CompiledStyleKey other = (CompiledStyleKey) obj;
+            return Objects.equals(styleName, other.styleName)
+                    && Objects.equals(templateParameters, other.templateParameters);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import java.io.Serializable;
+
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * A quadtree of {@link ValueSummary}s covering a single 2D slice (i.e. a
+ * single variable at a single time and elevation) of a gridded variable.
+ * 
+ * The slice is sampled once onto a regular lat-lon grid covering the
+ * geographic bounding box of the variable. This sample is divided into tiles
+ * and each tile summarised. Coarser levels are built by merging the summaries
+ * of their four children, so that any bounding box can be summarised by
+ * merging a small number of pre-computed tiles, without reading any data.
+ * 
+ * Since the sample is taken at a fixed resolution, summaries are estimates:
+ * the minimum and maximum are those of the sampled points, so may lie inside
+ * the true range of the data. They are intended for choosing sensible colour
+ * scale ranges, not for precise analysis.
+ */
+public class StatisticsPyramid implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /** The number of levels in the pyramid */
+    public static final int N_LEVELS = 5;
+    /** The number of tiles along each side of the finest level */
+    public static final int FINEST_TILES = 1 << (N_LEVELS - 1);
+    /** The size of the regular grid sampled to build the pyramid */
+    public static final int SAMPLE_SIZE = FINEST_TILES * 16;
+    /**
+     * The largest ratio of the area of the merged tiles to the area of a
+     * query for which a summary is returned. Beyond this, values from well
+     * outside the query would distort the summary.
+     */
+    public static final double MAX_COVERAGE_RATIO = 1.5;
+
+    private final double west;
+    private final double east;
+    private final double south;
+    private final double north;
+    /*
+     * levels[l] contains (2^l)^2 tiles, stored in row-major order with the
+     * southernmost row first
+     */
+    private final ValueSummary[][] levels;
+
+    /**
+     * Creates a {@link StatisticsPyramid} from sampled data.
+     * 
+     * @param bbox
+     *            The geographic bounding box covered by the sample
+     * @param values
+     *            The sampled values. The y-axis must increase northwards, as
+     *            for a {@link MapFeature} on a regular lat-lon grid. The sizes
+     *            of the axes must be multiples of {@link #FINEST_TILES}.
+     */
+    public StatisticsPyramid(GeographicBoundingBox bbox, Array2D<Number> values) {
+        this.west = bbox.getWestBoundLongitude();
+        this.east = bbox.getEastBoundLongitude();
+        this.south = bbox.getSouthBoundLatitude();
+        this.north = bbox.getNorthBoundLatitude();
+
+        int xSize = values.getXSize();
+        int ySize = values.getYSize();
+        if (xSize % FINEST_TILES != 0 || ySize % FINEST_TILES != 0) {
+            throw new IllegalArgumentException("Sample dimensions must be multiples of "
+                    + FINEST_TILES);
+        }
+
+        levels = new ValueSummary[N_LEVELS][];
+        int finest = N_LEVELS - 1;
+        levels[finest] = new ValueSummary[FINEST_TILES * FINEST_TILES];
+        for (int i = 0; i < levels[finest].length; i++) {
+            levels[finest][i] = new ValueSummary();
+        }
+        int tileX = xSize / FINEST_TILES;
+        int tileY = ySize / FINEST_TILES;
+        for (int j = 0; j < ySize; j++) {
+            for (int i = 0; i < xSize; i++) {
+                levels[finest][(j / tileY) * FINEST_TILES + (i / tileX)].add(values.get(j, i));
+            }
+        }
+
+        for (int l = finest - 1; l >= 0; l--) {
+            int nTiles = 1 << l;
+            levels[l] = new ValueSummary[nTiles * nTiles];
+            for (int j = 0; j < nTiles; j++) {
+                for (int i = 0; i < nTiles; i++) {
+                    ValueSummary summary = new ValueSummary();
+                    for (int dj = 0; dj < 2; dj++) {
+                        for (int di = 0; di < 2; di++) {
+                            summary.merge(levels[l + 1][(2 * j + dj) * 2 * nTiles
+                                    + (2 * i + di)]);
+                        }
+                    }
+                    levels[l][j * nTiles + i] = summary;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the {@link BoundingBox} which should be sampled to build a pyramid
+     * covering the given {@link GeographicBoundingBox}
+     */
+    public static BoundingBox getSampleBoundingBox(GeographicBoundingBox bbox) {
+        return new BoundingBoxImpl(bbox.getWestBoundLongitude(), bbox.getSouthBoundLatitude(),
+                bbox.getEastBoundLongitude(), bbox.getNorthBoundLatitude(),
+                GISUtils.defaultGeographicCRS());
+    }
+
+    /**
+     * @return The summary of the entire slice
+     */
+    public ValueSummary getTotalSummary() {
+        return levels[0][0];
+    }
+
+    /**
+     * Summarises the values within a geographic bounding box. The result
+     * includes every tile of the finest level which intersects the bounding
+     * box, so will generally cover a larger area than requested. If that area
+     * is more than {@link #MAX_COVERAGE_RATIO} times the part of the pyramid
+     * which the bounding box covers (e.g. for a bounding box much smaller than
+     * a tile), no summary is returned and callers should read the data.
+     * 
+     * @param bbox
+     *            The {@link GeographicBoundingBox} to summarise
+     * @return A new {@link ValueSummary}, or <code>null</code> if the tiles
+     *         are too coarse to summarise the bounding box. This will be empty
+     *         if the bounding box does not intersect this pyramid.
+     */
+    public ValueSummary getSummary(GeographicBoundingBox bbox) {
+        ValueSummary summary = new ValueSummary();
+        double qSouth = bbox.getSouthBoundLatitude();
+        double qNorth = bbox.getNorthBoundLatitude();
+        double qWest = bbox.getWestBoundLongitude();
+        double qEast = bbox.getEastBoundLongitude();
+        if (qWest > qEast) {
+            /*
+             * Crosses the date line
+             */
+            qEast += 360.0;
+        }
+        /*
+         * The pyramid and the query may use different longitude conventions
+         * (e.g. 0:360 vs -180:180), so test each equivalent query position.
+         */
+        double queryArea = 0.0;
+        double mergedArea = 0.0;
+        for (double offset = -360.0; offset <= 360.0; offset += 360.0) {
+            double w = Math.max(west, qWest + offset);
+            double e = Math.min(east, qEast + offset);
+            double s = Math.max(south, qSouth);
+            double n = Math.min(north, qNorth);
+            if (w <= e && s <= n) {
+                queryArea += (e - w) * (n - s);
+                mergedArea += addTiles(summary, 0, 0, 0, w, e, s, n);
+            }
+        }
+        if (mergedArea > queryArea * MAX_COVERAGE_RATIO) {
+            return null;
+        }
+        return summary;
+    }
+
+    /*
+     * Merges the tiles covering the given box into the summary, and returns
+     * the total area of the merged tiles
+     */
+    private double addTiles(ValueSummary summary, int level, int i, int j, double w, double e,
+            double s, double n) {
+        int nTiles = 1 << level;
+        double tileWidth = (east - west) / nTiles;
+        double tileHeight = (north - south) / nTiles;
+        double tileWest = west + i * tileWidth;
+        double tileEast = tileWest + tileWidth;
+        double tileSouth = south + j * tileHeight;
+        double tileNorth = tileSouth + tileHeight;
+
+        if (tileWest >= e || tileEast <= w || tileSouth >= n || tileNorth <= s) {
+            /*
+             * Tiles which only share an edge with the query don't overlap it
+             */
+            return 0.0;
+        }
+        boolean contained = tileWest >= w && tileEast <= e && tileSouth >= s && tileNorth <= n;
+        if (contained || level == N_LEVELS - 1) {
+            summary.merge(levels[level][j * nTiles + i]);
+            return tileWidth * tileHeight;
+        }
+        double area = 0.0;
+        for (int dj = 0; dj < 2; dj++) {
+            for (int di = 0; di < 2; di++) {
+                area += addTiles(summary, level + 1, 2 * i + di, 2 * j + dj, w, e, s, n);
+            }
+        }
+        return area;
+    }
+}
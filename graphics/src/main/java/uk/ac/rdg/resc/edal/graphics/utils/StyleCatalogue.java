@@ -95,7 +95,9 @@ public interface StyleCatalogue {
      *            The associated {@link LayerNameMapper}. This is used to turn
      *            {@link VariableMetadata} objects into concrete layer names for
      *            the style template
-     * @return A {@link MapImage}, ready to generate images
+     * @return A {@link MapImage}, ready to generate images. Implementations
+     *         may return the same instance for identical arguments, so the
+     *         returned {@link MapImage} must not be modified.
      */
     public MapImage getMapImageFromStyle(String styleName,
             PlottingStyleParameters templateableProperties, VariableMetadata metadata,
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import java.io.Serializable;
+
+/**
+ * A compact summary of a set of values: the minimum, maximum and count.
+ * Summaries can be merged, which allows summaries of sub-regions to be
+ * combined.
+ * 
+ * Instances are mutable whilst being built, but should be treated as
+ * read-only once they are stored in a {@link StatisticsPyramid}.
+ */
+public class ValueSummary implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    private float min = Float.NaN;
+    private float max = Float.NaN;
+    private long count = 0L;
+
+    /**
+     * Adds a value to this summary. <code>null</code> and non-finite values are
+     * ignored.
+     */
+    public void add(Number value) {
+        if (value == null) {
+            return;
+        }
+        float val = value.floatValue();
+        if (Float.isNaN(val) || Float.isInfinite(val)) {
+            return;
+        }
+        if (count == 0 || val < min) {
+            min = val;
+        }
+        if (count == 0 || val > max) {
+            max = val;
+        }
+        count++;
+    }
+
+    /**
+     * Merges another summary into this one.
+     * 
+     * @param other
+     *            The {@link ValueSummary} to merge
+     */
+    public void merge(ValueSummary other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0 || other.min < min) {
+            min = other.min;
+        }
+        if (count == 0 || other.max > max) {
+            max = other.max;
+        }
+        count += other.count;
+    }
+
+    /**
+     * @return The minimum value, or {@link Float#NaN} if there are no values
+     */
+    public float getMin() {
+        return min;
+    }
+
+    /**
+     * @return The maximum value, or {@link Float#NaN} if there are no values
+     */
+    public float getMax() {
+        return max;
+    }
+
+    /**
+     * @return The number of (non-missing) values
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -55,7 +55,49 @@ public class VectorFactory {
 
     public static void renderVector(String style, double angle, int i, int j,
             float scale, Graphics2D g) {
+        Path2D ret = getVectorShape(style, angle, scale);
+        ret.transform(AffineTransform.getTranslateInstance(i, j));
+
+        // Don't fill the FANCYVEC
+        if (isFilled(style)) {
+            g.fill(ret);
+        }
+        g.draw(ret);
+    }
+
+    /**
+     * Gets the outline of a vector, rotated and scaled, and centred on the
+     * origin
+     * 
+     * @param style
+     *            The style of the vector - one of "STUMPVEC", "TRIVEC",
+     *            "LINEVEC" or "FANCYVEC"
+     * @param angle
+     *            The angle of the vector, in radians clockwise from north
+     * @param scale
+     *            The scale factor to apply to the vector
+     * @return A new {@link Path2D} which the caller is free to modify
+     */
+    public static Path2D getVectorShape(String style, double angle, float scale) {
+        Path2D ret = (Path2D) vectors.get(getType(style)).clone();
+        /* Rotate and scale */
+        ret.transform(AffineTransform.getRotateInstance(-Math.PI / 2));
+        ret.transform(AffineTransform.getRotateInstance(angle));
+        ret.transform(AffineTransform.getScaleInstance(scale, scale));
+        return ret;
+    }
 
+    /**
+     * @param style
+     *            The style of the vector
+     * @return Whether the outline of the vector should be filled as well as
+     *         drawn
+     */
+    public static boolean isFilled(String style) {
+        return getType(style) != 3;
+    }
+
+    private static int getType(String style) {
         int type = 0;
         if (style.equalsIgnoreCase("STUMPVEC")) {
             type = 0;
@@ -66,19 +108,7 @@ public class VectorFactory {
         } else if (style.equalsIgnoreCase("FANCYVEC")) {
             type = 3;
         }
-
-        Path2D ret = (Path2D) vectors.get(type).clone();
-        /* Rotate and set position */
-        ret.transform(AffineTransform.getRotateInstance(-Math.PI / 2));
-        ret.transform(AffineTransform.getRotateInstance(angle));
-        ret.transform(AffineTransform.getScaleInstance(scale, scale));
-        ret.transform(AffineTransform.getTranslateInstance(i, j));
-
-        // Don't fill the FANCYVEC
-        if (type != 3) {
-            g.fill(ret);
-        }
-        g.draw(ret);
+        return type;
     }
 
     private static Path2D stumpyVector() {
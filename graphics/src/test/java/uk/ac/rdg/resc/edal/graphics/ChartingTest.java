@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.data.xy.XYZDataset;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.feature.ProfileFeature;
+import uk.ac.rdg.resc.edal.geometry.LineString;
+import uk.ac.rdg.resc.edal.graphics.style.ColourScheme;
+import uk.ac.rdg.resc.edal.graphics.style.ScaleRange;
+import uk.ac.rdg.resc.edal.graphics.style.SegmentColourScheme;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxisImpl;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.position.HorizontalPosition;
+import uk.ac.rdg.resc.edal.position.VerticalCrsImpl;
+import uk.ac.rdg.resc.edal.util.Array1D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.ValuesArray1D;
+import uk.ac.rdg.resc.edal.util.VerticalSection;
+
+/**
+ * Test class for {@link Charting}.
+ */
+public class ChartingTest {
+    private static final int N_POSITIONS = 11;
+    /* A column of the section with no data, e.g. a point off the grid */
+    private static final int EMPTY_COLUMN = 5;
+    private static final VerticalAxis Z_AXIS = new VerticalAxisImpl("depth",
+            Arrays.asList(0.0, 10.0, 20.0, 40.0), new VerticalCrsImpl("m", false, false, false));
+    private static final Parameter PARAMETER = new Parameter("value", "Value", "", "m", null);
+
+    private LineString path;
+    private List<HorizontalPosition> positions;
+    private ColourScheme colourScheme;
+
+    @Before
+    public void setUp() throws Exception {
+        path = new LineString("0 0,10 0", GISUtils.defaultGeographicCRS());
+        positions = new ArrayList<>();
+        for (int i = 0; i < N_POSITIONS; i++) {
+            positions.add(new HorizontalPosition(i, 0.0));
+        }
+        colourScheme = new SegmentColourScheme(new ScaleRange(0f, 400f, false), Color.black,
+                Color.black, new Color(0, true), "default", 250);
+    }
+
+    private static Number getValue(int z, int i) {
+        if (i == EMPTY_COLUMN || (z == 2 && i == 1)) {
+            return null;
+        }
+        return 100 * z + i;
+    }
+
+    private VerticalSection getSection() {
+        float[] values = new float[Z_AXIS.size() * N_POSITIONS];
+        for (int z = 0; z < Z_AXIS.size(); z++) {
+            for (int i = 0; i < N_POSITIONS; i++) {
+                Number value = getValue(z, i);
+                values[z * N_POSITIONS + i] = value == null ? Float.NaN : value.floatValue();
+            }
+        }
+        return new VerticalSection(positions, Z_AXIS, PARAMETER, values);
+    }
+
+    /*
+     * The same data as a profile at each position, as vertical sections used
+     * to be extracted
+     */
+    private List<ProfileFeature> getProfiles() {
+        List<ProfileFeature> profiles = new ArrayList<>();
+        for (int i = 0; i < N_POSITIONS; i++) {
+            Array1D<Number> values = new ValuesArray1D(Z_AXIS.size());
+            for (int z = 0; z < Z_AXIS.size(); z++) {
+                values.set(getValue(z, i), z);
+            }
+            Map<String, Array1D<Number>> valuesMap = new HashMap<>();
+            valuesMap.put("value", values);
+            profiles.add(new ProfileFeature("profile" + i, "Profile", "", Z_AXIS,
+                    positions.get(i), null, Collections.singletonMap("value", PARAMETER),
+                    valuesMap));
+        }
+        return profiles;
+    }
+
+    @Test
+    public void testSectionMatchesProfiles() {
+        XYZDataset fromSection = (XYZDataset) Charting
+                .createVerticalSectionChart(getSection(), path, colourScheme, null, null)
+                .getXYPlot().getDataset();
+        XYZDataset fromProfiles = (XYZDataset) Charting
+                .createVerticalSectionChart(getProfiles(), path, colourScheme, null, null)
+                .getXYPlot().getDataset();
+        assertEquals(fromProfiles.getItemCount(0), fromSection.getItemCount(0));
+        for (int item = 0; item < fromSection.getItemCount(0); item++) {
+            assertEquals(fromProfiles.getX(0, item), fromSection.getX(0, item));
+            assertEquals(fromProfiles.getY(0, item), fromSection.getY(0, item));
+            assertEquals(fromProfiles.getZ(0, item), fromSection.getZ(0, item));
+        }
+    }
+
+    @Test
+    public void testEmptyColumn() {
+        JFreeChart chart = Charting.createVerticalSectionChart(getSection(), path, colourScheme,
+                null, null);
+        XYZDataset dataset = (XYZDataset) chart.getXYPlot().getDataset();
+        for (int item = 0; item < dataset.getItemCount(0); item++) {
+            if (item % N_POSITIONS == EMPTY_COLUMN) {
+                assertNull(dataset.getZ(0, item));
+            } else if (item / N_POSITIONS == 0) {
+                /* The surface level has data everywhere else */
+                assertNotNull(dataset.getZ(0, item));
+            }
+        }
+    }
+}
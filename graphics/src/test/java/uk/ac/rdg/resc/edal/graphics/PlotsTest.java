@@ -34,11 +34,14 @@ import static org.junit.Assert.fail;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import javax.imageio.ImageIO;
 
@@ -50,6 +53,8 @@ import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.feature.MapFeature;
 import uk.ac.rdg.resc.edal.geometry.BoundingBox;
 import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.graphics.formats.IndexedPngEncoder;
+import uk.ac.rdg.resc.edal.graphics.formats.IndexedPngEncoder.RowFilter;
 import uk.ac.rdg.resc.edal.graphics.style.ArrowLayer;
 import uk.ac.rdg.resc.edal.graphics.style.ArrowLayer.ArrowDirectionConvention;
 import uk.ac.rdg.resc.edal.graphics.style.ArrowLayer.ArrowStyle;
@@ -205,6 +210,30 @@ public class PlotsTest {
         compareImages(comparisonImage, image);
     }
 
+    @Test
+    public void testIndexedRaster() throws EdalException, IOException {
+        ColourScheme colourScheme = new SegmentColourScheme(scale, Color.blue, Color.red,
+                new Color(0, true), "#000000,#00ff00", 10);
+        RasterLayer rasterLayer = new RasterLayer("test", colourScheme);
+        MapImage mapImage = new MapImage();
+        mapImage.getLayers().add(rasterLayer);
+        BufferedImage image = mapImage.drawIndexedImage(params, catalogue);
+        assertEquals(BufferedImage.TYPE_BYTE_INDEXED, image.getType());
+        BufferedImage comparisonImage = getComparisonImage("raster");
+        compareImages(comparisonImage, image);
+
+        /*
+         * Now check that the indexed PNG encoding round-trips correctly
+         */
+        for (RowFilter filter : RowFilter.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new IndexedPngEncoder(Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY, filter)
+                    .write(image, out);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+            compareImages(comparisonImage, decoded);
+        }
+    }
+
     @Test
     public void testContour() throws EdalException {
         ContourLayer contourLayer = new ContourLayer("test", scale, false, 5, Color.cyan, null, 1,
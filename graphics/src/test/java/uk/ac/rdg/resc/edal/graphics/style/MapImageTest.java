@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.style;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+
+/**
+ * Test class for {@link MapImage}.
+ */
+public class MapImageTest {
+    private static final int SIZE = 64;
+
+    @Test
+    public void testCompositeSrcOverMatchesJava2D() {
+        /*
+         * Random pixels, with a mix of transparent, opaque and
+         * semi-transparent alpha values
+         */
+        Random random = new Random(1234L);
+        int[] alphas = new int[] { 0, 1, 64, 127, 128, 200, 254, 255 };
+        BufferedImage dstImage = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage srcImage = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = ((DataBufferInt) dstImage.getRaster().getDataBuffer()).getData();
+        int[] src = ((DataBufferInt) srcImage.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < dst.length; i++) {
+            dst[i] = (alphas[random.nextInt(alphas.length)] << 24)
+                    | (random.nextInt() & 0xffffff);
+            src[i] = (alphas[random.nextInt(alphas.length)] << 24)
+                    | (random.nextInt() & 0xffffff);
+        }
+
+        /*
+         * Composite with Java2D as the reference
+         */
+        BufferedImage expectedImage = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = expectedImage.createGraphics();
+        graphics.drawImage(dstImage, 0, 0, null);
+        graphics.setComposite(AlphaComposite.SrcOver);
+        graphics.drawImage(srcImage, 0, 0, null);
+        graphics.dispose();
+
+        int[] actual = dst.clone();
+        MapImage.compositeSrcOver(actual, src);
+
+        for (int i = 0; i < actual.length; i++) {
+            int expectedPixel = expectedImage.getRGB(i % SIZE, i / SIZE);
+            int expectedAlpha = expectedPixel >>> 24;
+            assertEquals("Alpha at pixel " + i, expectedAlpha, actual[i] >>> 24, 1);
+            if (expectedAlpha == 0) {
+                continue;
+            }
+            /*
+             * Java2D composites in premultiplied space, which loses precision
+             * as the output becomes more transparent, so also compare with
+             * the exact result
+             */
+            double tolerance = 3 * 255.0 / expectedAlpha;
+            double[] exact = exactSrcOver(dst[i], src[i]);
+            for (int c = 0; c < 3; c++) {
+                int shift = 16 - 8 * c;
+                int value = (actual[i] >> shift) & 0xff;
+                assertEquals("Channel " + c + " at pixel " + i, (expectedPixel >> shift) & 0xff,
+                        value, tolerance);
+                assertEquals("Channel " + c + " at pixel " + i, exact[c], value, 0.5);
+            }
+        }
+    }
+
+    /**
+     * @return The RGB components of the source-over composite of two
+     *         non-premultiplied ARGB pixels, without any rounding
+     */
+    private static double[] exactSrcOver(int dst, int src) {
+        double sw = (src >>> 24) * 255.0;
+        double dw = (dst >>> 24) * (255.0 - (src >>> 24));
+        double[] rgb = new double[3];
+        for (int c = 0; c < 3; c++) {
+            int shift = 16 - 8 * c;
+            rgb[c] = (((src >> shift) & 0xff) * sw + ((dst >> shift) & 0xff) * dw) / (sw + dw);
+        }
+        return rgb;
+    }
+
+    @Test
+    public void testCompositeSrcOverSpecialCases() {
+        int[] dst = new int[] { 0x80ff0000, 0x00000000, 0xff00ff00, 0x80ff0000 };
+        int[] src = new int[] { 0x000000ff, 0x800000ff, 0xff0000ff, 0x800000ff };
+        MapImage.compositeSrcOver(dst, src);
+        /* Transparent source leaves the destination alone */
+        assertEquals(0x80ff0000, dst[0]);
+        /* Transparent destination takes the source */
+        assertEquals(0x800000ff, dst[1]);
+        /* Opaque source replaces the destination */
+        assertEquals(0xff0000ff, dst[2]);
+        /* Half over half gives three quarters coverage */
+        assertEquals(0xbf, dst[3] >>> 24, 1);
+    }
+
+    @Test
+    public void testLayersAreCompositedInOrderWithBoundedLookahead() throws Exception {
+        int nLayers = 4 * MapImage.MAX_LAYERS_IN_PROGRESS;
+        AtomicInteger nCompleted = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+        MapImage mapImage = new MapImage();
+        for (int l = 0; l < nLayers; l++) {
+            final int layer = l;
+            mapImage.getLayers().add(new Drawable() {
+                @Override
+                public BufferedImage drawImage(PlottingDomainParams params,
+                        FeatureCatalogue featureCatalogue) {
+                    /*
+                     * A layer can only start once all but the last few
+                     * layers before it have been composited
+                     */
+                    maxAhead.accumulateAndGet(layer - nCompleted.get(), Math::max);
+                    BufferedImage image = new BufferedImage(params.getWidth(),
+                            params.getHeight(), BufferedImage.TYPE_INT_ARGB);
+                    image.setRGB(0, 0, 0xff000000 | layer);
+                    image.setRGB(1 + layer, 0, 0xff000000 | layer);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    nCompleted.incrementAndGet();
+                    return image;
+                }
+
+                @Override
+                public Set<NameAndRange> getFieldsWithScales() {
+                    return Collections.emptySet();
+                }
+            });
+        }
+
+        BufferedImage image = mapImage.drawImage(
+                PlottingDomainParams.paramsForGriddedDataset(nLayers + 1, 1, null, null, null),
+                null);
+        /* The last layer is on top */
+        assertEquals(0xff000000 | (nLayers - 1), image.getRGB(0, 0));
+        for (int l = 0; l < nLayers; l++) {
+            assertEquals(0xff000000 | l, image.getRGB(1 + l, 0));
+        }
+        assertTrue(maxAhead.get() < MapImage.MAX_LAYERS_IN_PROGRESS);
+    }
+}
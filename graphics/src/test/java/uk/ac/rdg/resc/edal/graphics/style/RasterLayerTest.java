@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.style;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue.FeaturesAndMemberName;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.ValuesArray2D;
+
+/**
+ * Test class for {@link RasterLayer}.
+ */
+public class RasterLayerTest {
+    /*
+     * Tall enough that the image is split into several bands of rows which
+     * are coloured in parallel, and not a multiple of the band size
+     */
+    private static final int WIDTH = 97;
+    private static final int HEIGHT = 301;
+
+    private FeatureCatalogue catalogue;
+    private PlottingDomainParams params;
+    private ColourScheme colourScheme;
+
+    @Before
+    public void setUp() {
+        RegularGrid grid = new RegularGridImpl(new BoundingBoxImpl(-180, -90, 180, 90,
+                GISUtils.defaultGeographicCRS()), WIDTH, HEIGHT);
+        /*
+         * Random values, including missing and out-of-range data
+         */
+        Random random = new Random(4321L);
+        Array2D<Number> values = new ValuesArray2D(HEIGHT, WIDTH);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (random.nextInt(10) > 0) {
+                    values.set(random.nextFloat() * 1.2f - 0.1f, y, x);
+                }
+            }
+        }
+        Map<String, Array2D<Number>> valuesMap = new HashMap<>();
+        valuesMap.put("testvar", values);
+        MapFeature feature = new MapFeature("testfeature", "Test Feature", "Random values",
+                new MapDomain(grid, null, null, null), null, valuesMap);
+        catalogue = (layerName, p) -> new FeaturesAndMemberName(feature, "testvar");
+        params = new PlottingDomainParams(WIDTH, HEIGHT, grid.getBoundingBox(), null, null,
+                null, null, null);
+        colourScheme = new SegmentColourScheme(new ScaleRange(0f, 1f, false), Color.blue,
+                Color.red, new Color(0, true), "#000000,#00ff00", 50);
+    }
+
+    /*
+     * The data for each pixel, read in the same way as the layer reads it
+     */
+    private Array2D<Number> getImageData(RasterLayer layer) throws EdalException {
+        return layer.new MapFeatureDataReader(params, catalogue).getDataForLayerName("test");
+    }
+
+    /*
+     * The colour of each pixel, calculated row by row in this thread
+     */
+    private int[] getExpectedPixels(Array2D<Number> values) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                pixels[y * WIDTH + x] = colourScheme.getColor(values.get(y, x)).getRGB();
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void testArgbImageMatchesSingleThreaded() throws EdalException {
+        RasterLayer layer = new RasterLayer("test", colourScheme);
+        BufferedImage image = layer.drawImage(params, catalogue);
+        assertEquals(BufferedImage.TYPE_INT_ARGB, image.getType());
+        int[] expected = getExpectedPixels(getImageData(layer));
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals("Pixel " + x + "," + y, expected[y * WIDTH + x],
+                        image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testOtherImageTypeMatchesSingleThreaded() throws EdalException {
+        /*
+         * Images which are not ARGB are coloured one band at a time
+         */
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        RasterLayer layer = new RasterLayer("test", colourScheme);
+        layer.drawIntoImage(image, params, catalogue);
+
+        BufferedImage expectedImage = new BufferedImage(WIDTH, HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        expectedImage.setRGB(0, 0, WIDTH, HEIGHT, getExpectedPixels(getImageData(layer)), 0, WIDTH);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals("Pixel " + x + "," + y, expectedImage.getRGB(x, y),
+                        image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testColourIndicesMatchSingleThreaded() throws EdalException {
+        RasterLayer layer = new RasterLayer("test", colourScheme);
+        byte[] indices = layer.drawColourIndices(params, catalogue);
+        assertNotNull(indices);
+        Array2D<Number> values = getImageData(layer);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals("Pixel " + x + "," + y,
+                        (byte) colourScheme.getColourIndex(values.get(y, x)),
+                        indices[y * WIDTH + x]);
+            }
+        }
+    }
+}
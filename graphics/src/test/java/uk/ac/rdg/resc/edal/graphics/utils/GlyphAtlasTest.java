@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.graphics.utils.GlyphAtlas.Glyph;
+
+/**
+ * Test class for {@link GlyphAtlas}.
+ */
+public class GlyphAtlasTest {
+    private static final int SIZE = 48;
+    private static final int CENTRE = SIZE / 2;
+    private static final double RADIANS_PER_STEP = 2.0 * Math.PI / GlyphAtlas.ANGLE_STEPS;
+    private static final String[] VECTOR_STYLES = new String[] { "STUMPVEC", "TRIVEC",
+            "LINEVEC" };
+    private static final Color[] OPAQUE_COLOURS = new Color[] { Color.blue,
+            new Color(200, 100, 50) };
+
+    private static BufferedImage drawGlyph(Glyph glyph, Color colour, int imageType) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, imageType);
+        Graphics2D g = image.createGraphics();
+        glyph.drawInto(image, g, CENTRE, CENTRE, colour);
+        g.dispose();
+        return image;
+    }
+
+    /*
+     * Compares two images, allowing up to the given number of pixels to
+     * differ
+     */
+    private static void compareImages(String message, BufferedImage expected,
+            BufferedImage actual, int maxDifferences) {
+        int differences = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (expected.getRGB(i, j) != actual.getRGB(i, j)) {
+                    differences++;
+                }
+            }
+        }
+        assertTrue(message + " differs at " + differences + " pixels",
+                differences <= maxDifferences);
+    }
+
+    @Test
+    public void testVectorsMatchDirectRendering() {
+        /*
+         * Glyphs at the quantised angles should be exactly the same as the
+         * vectors drawn directly
+         */
+        for (Color colour : OPAQUE_COLOURS) {
+            for (String style : VECTOR_STYLES) {
+                for (int step = 0; step < GlyphAtlas.ANGLE_STEPS; step += 37) {
+                    double angle = step * RADIANS_PER_STEP;
+                    BufferedImage expected = new BufferedImage(SIZE, SIZE,
+                            BufferedImage.TYPE_INT_ARGB);
+                    Graphics2D g = expected.createGraphics();
+                    g.setColor(colour);
+                    VectorFactory.renderVector(style, angle, CENTRE, CENTRE, 1.5f, g);
+                    g.dispose();
+
+                    BufferedImage actual = drawGlyph(
+                            GlyphAtlas.getVector(style, angle, 1.5f, colour), colour,
+                            BufferedImage.TYPE_INT_ARGB);
+                    compareImages(style + " at step " + step + " in " + colour, expected,
+                            actual, 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWindBarbsMatchDirectRendering() {
+        for (Color colour : OPAQUE_COLOURS) {
+            for (int rank = 1; rank < 10; rank++) {
+                double angle = rank * 31 * RADIANS_PER_STEP;
+                BufferedImage expected = new BufferedImage(SIZE, SIZE,
+                        BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = expected.createGraphics();
+                g.setColor(colour);
+                g.translate(CENTRE, CENTRE);
+                g.draw(BarbFactory.getWindBarbShape(rank, angle, 16f, true));
+                g.dispose();
+
+                /*
+                 * The glyph is rasterised at a different whole-pixel offset,
+                 * which can occasionally move a pixel at the end of a line
+                 */
+                BufferedImage actual = drawGlyph(
+                        GlyphAtlas.getWindBarb(rank, angle, 16f, true, colour), colour,
+                        BufferedImage.TYPE_INT_ARGB);
+                compareImages("Barb of rank " + rank + " in " + colour, expected, actual, 2);
+            }
+        }
+    }
+
+    @Test
+    public void testTranslucentVectorsOverlap() {
+        /*
+         * Where the fill and outline of a vector overlap, a semi-transparent
+         * colour is composited twice, as it is when drawn directly
+         */
+        Color translucent = new Color(0, 128, 255, 100);
+        int doubled = translucent.getAlpha() + translucent.getAlpha()
+                * (255 - translucent.getAlpha()) / 255;
+        for (String style : new String[] { "STUMPVEC", "TRIVEC" }) {
+            for (int step = 0; step < GlyphAtlas.ANGLE_STEPS; step += 37) {
+                double angle = step * RADIANS_PER_STEP;
+                BufferedImage expected = new BufferedImage(SIZE, SIZE,
+                        BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = expected.createGraphics();
+                g.setColor(translucent);
+                VectorFactory.renderVector(style, angle, CENTRE, CENTRE, 1.5f, g);
+                g.dispose();
+
+                BufferedImage actual = drawGlyph(
+                        GlyphAtlas.getVector(style, angle, 1.5f, translucent), translucent,
+                        BufferedImage.TYPE_INT_ARGB);
+                /*
+                 * Which edge pixels get composited twice depends slightly on
+                 * where the shape is rasterised
+                 */
+                compareImages(style + " at step " + step, expected, actual, 8);
+                int overlapping = 0;
+                for (int i = 0; i < SIZE; i++) {
+                    for (int j = 0; j < SIZE; j++) {
+                        if (Math.abs((actual.getRGB(i, j) >>> 24) - doubled) <= 1) {
+                            overlapping++;
+                        }
+                    }
+                }
+                assertTrue(style + " at step " + step, overlapping > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testGlyphsAreShared() {
+        /*
+         * Angles are quantised, and glyphs are shared between opaque colours
+         */
+        Glyph glyph = GlyphAtlas.getVector("LINEVEC", 10 * RADIANS_PER_STEP, 0.8f, Color.red);
+        assertSame(glyph,
+                GlyphAtlas.getVector("linevec", 10.2 * RADIANS_PER_STEP, 0.8f, Color.red));
+        assertSame(glyph,
+                GlyphAtlas.getVector("LINEVEC", 10 * RADIANS_PER_STEP, 0.8f, Color.blue));
+        assertNotSame(glyph,
+                GlyphAtlas.getVector("LINEVEC", 11 * RADIANS_PER_STEP, 0.8f, Color.red));
+        assertNotSame(glyph,
+                GlyphAtlas.getVector("LINEVEC", 10 * RADIANS_PER_STEP, 1.2f, Color.red));
+        assertNotSame(glyph,
+                GlyphAtlas.getVector("TRIVEC", 10 * RADIANS_PER_STEP, 0.8f, Color.red));
+        assertNotSame(glyph, GlyphAtlas.getVector("LINEVEC", 10 * RADIANS_PER_STEP, 0.8f,
+                new Color(255, 0, 0, 128)));
+        assertSame(GlyphAtlas.getUpstreamArrow(0.0, 8, Color.red),
+                GlyphAtlas.getUpstreamArrow(2.0 * Math.PI, 8, Color.red));
+    }
+
+    @Test
+    public void testGlyphColours() {
+        /*
+         * Glyphs in opaque colours take the colour they are drawn in
+         */
+        Glyph glyph = GlyphAtlas.getUpstreamArrow(1.0, 12, Color.red);
+        BufferedImage red = drawGlyph(glyph, Color.red, BufferedImage.TYPE_INT_ARGB);
+        Color blue = new Color(0, 128, 255);
+        BufferedImage blueImage = drawGlyph(glyph, blue, BufferedImage.TYPE_INT_ARGB);
+        int drawn = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                if (red.getRGB(i, j) == 0) {
+                    assertEquals(0, blueImage.getRGB(i, j));
+                } else {
+                    drawn++;
+                    assertEquals(Color.red.getRGB(), red.getRGB(i, j));
+                    assertEquals(blue.getRGB(), blueImage.getRGB(i, j));
+                }
+            }
+        }
+        assertTrue(drawn > 12);
+    }
+
+    @Test
+    public void testDrawIntoOtherImageType() {
+        /*
+         * Images whose pixels cannot be written directly are drawn with
+         * Graphics2D, which should give the same result
+         */
+        Glyph glyph = GlyphAtlas.getVector("STUMPVEC", 2.0, 1f, Color.green);
+        BufferedImage direct = drawGlyph(glyph, Color.green, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage drawn = drawGlyph(glyph, Color.green, BufferedImage.TYPE_INT_RGB);
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int expected = direct.getRGB(i, j) == 0 ? 0xff000000 : direct.getRGB(i, j);
+                assertEquals(expected, drawn.getRGB(i, j));
+            }
+        }
+    }
+}
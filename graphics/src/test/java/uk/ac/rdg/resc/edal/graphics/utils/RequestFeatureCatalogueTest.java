@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+
+/**
+ * Test class for {@link RequestFeatureCatalogue}.
+ */
+public class RequestFeatureCatalogueTest {
+    private static final PlottingDomainParams PARAMS = new PlottingDomainParams(10, 10,
+            BoundingBoxImpl.global(), null, null, null, null, null);
+
+    @Test
+    public void testEachLayerExtractedOnce() throws EdalException {
+        AtomicInteger extractions = new AtomicInteger();
+        RequestFeatureCatalogue catalogue = new RequestFeatureCatalogue(
+                (layerName, params) -> {
+                    extractions.incrementAndGet();
+                    return null;
+                });
+        catalogue.prefetch(Arrays.asList("a", "b", "a", "c", null), PARAMS);
+        assertEquals(3, extractions.get());
+        catalogue.getFeaturesForDrawing("a", PARAMS);
+        catalogue.getFeaturesForDrawing("b", PARAMS);
+        assertEquals(3, extractions.get());
+        catalogue.getFeaturesForLayer("d", PARAMS);
+        assertEquals(4, extractions.get());
+    }
+
+    @Test
+    public void testDrawingExtractionsAreSeparate() throws EdalException {
+        /*
+         * Features for drawing may be thinned out, so they must never be
+         * returned where all features are needed
+         */
+        List<String> extractions = new CopyOnWriteArrayList<>();
+        RequestFeatureCatalogue catalogue = new RequestFeatureCatalogue(new FeatureCatalogue() {
+            @Override
+            public FeaturesAndMemberName getFeaturesForLayer(String layerName,
+                    PlottingDomainParams params) {
+                extractions.add("all:" + layerName);
+                return null;
+            }
+
+            @Override
+            public FeaturesAndMemberName getFeaturesForDrawing(String layerName,
+                    PlottingDomainParams params) {
+                extractions.add("drawing:" + layerName);
+                return null;
+            }
+        });
+        catalogue.prefetch(Arrays.asList("a", "b"), PARAMS);
+        catalogue.getFeaturesForDrawing("a", PARAMS);
+        assertEquals(2, extractions.size());
+        assertTrue(extractions.containsAll(Arrays.asList("drawing:a", "drawing:b")));
+        catalogue.getFeaturesForLayer("a", PARAMS);
+        catalogue.getFeaturesForLayer("a", PARAMS);
+        assertEquals(Arrays.asList("all:a"), extractions.subList(2, extractions.size()));
+    }
+
+    @Test(timeout = 20000)
+    public void testPrefetchWithBusyExecutor() throws Exception {
+        /*
+         * Occupy every thread of the shared executor with extractions which
+         * block until we release them
+         */
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        CountDownLatch started = new CountDownLatch(nThreads + 1);
+        CountDownLatch release = new CountDownLatch(1);
+        RequestFeatureCatalogue blocked = new RequestFeatureCatalogue((layerName, params) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        List<String> blockedLayers = new ArrayList<>();
+        for (int i = 0; i <= nThreads; i++) {
+            blockedLayers.add("blocked" + i);
+        }
+        Thread blockedRequest = new Thread(() -> blocked.prefetch(blockedLayers, PARAMS));
+        blockedRequest.start();
+
+        try {
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            /*
+             * Another request must still complete, by doing its own
+             * extractions rather than waiting for the executor
+             */
+            Map<String, Thread> extractionThreads = new ConcurrentHashMap<>();
+            RequestFeatureCatalogue catalogue = new RequestFeatureCatalogue(
+                    (layerName, params) -> {
+                        extractionThreads.put(layerName, Thread.currentThread());
+                        return null;
+                    });
+            catalogue.prefetch(Arrays.asList("a", "b", "c"), PARAMS);
+            assertEquals(3, extractionThreads.size());
+            for (Thread thread : extractionThreads.values()) {
+                assertEquals(Thread.currentThread(), thread);
+            }
+        } finally {
+            release.countDown();
+            blockedRequest.join();
+        }
+    }
+}
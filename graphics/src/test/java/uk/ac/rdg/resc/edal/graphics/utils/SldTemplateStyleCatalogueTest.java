@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.dataset.DataReadingStrategy;
+import uk.ac.rdg.resc.edal.dataset.GridDataSource;
+import uk.ac.rdg.resc.edal.dataset.GriddedDataset;
+import uk.ac.rdg.resc.edal.domain.Extent;
+import uk.ac.rdg.resc.edal.domain.MapDomain;
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.feature.GridFeature;
+import uk.ac.rdg.resc.edal.feature.MapFeature;
+import uk.ac.rdg.resc.edal.graphics.style.MapImage;
+import uk.ac.rdg.resc.edal.grid.RegularGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.util.Array2D;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.ValuesArray2D;
+
+/**
+ * Test class for {@link SldTemplateStyleCatalogue}.
+ */
+public class SldTemplateStyleCatalogueTest {
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 50;
+    private static final RegularGrid GRID = new RegularGridImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS(), WIDTH, HEIGHT);
+
+    private SldTemplateStyleCatalogue styles;
+    private GridVariableMetadata metadata;
+    private PlottingStyleParameters styleParameters;
+    private FeatureCatalogue catalogue;
+    private PlottingDomainParams params;
+
+    /*
+     * A dataset with a single variable, which only supplies metadata to the
+     * style catalogue
+     */
+    private static class TestDataset extends GriddedDataset {
+        private static final long serialVersionUID = 1L;
+
+        TestDataset() {
+            super("test", Arrays.asList(new GridVariableMetadata(
+                    new Parameter("value", "Value", "", "none", null), GRID, null, null, true)));
+        }
+
+        @Override
+        public GridFeature readFeature(String featureId) throws DataReadingException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected GridDataSource openDataSource() throws DataReadingException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected DataReadingStrategy getDataReadingStrategy() {
+            return DataReadingStrategy.BOUNDING_BOX;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        styles = SldTemplateStyleCatalogue.getStyleCatalogue();
+        metadata = new TestDataset().getVariableMetadata("value");
+        styleParameters = new PlottingStyleParameters(
+                Arrays.asList(Extents.newExtent(0f, 1f)), ColourPalette.DEFAULT_PALETTE_NAME,
+                Color.black, Color.black, new Color(0, true), false, 250, 1f);
+
+        ValuesArray2D values = new ValuesArray2D(HEIGHT, WIDTH);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                /* Include some missing and out-of-range values */
+                values.set(x == y ? null : (x - 10.0) * y / (WIDTH * HEIGHT), y, x);
+            }
+        }
+        Map<String, Array2D<Number>> valuesMap = new HashMap<>();
+        valuesMap.put("value", values);
+        final MapFeature feature = new MapFeature("feature", "Feature", "", new MapDomain(GRID,
+                null, null, null), null, valuesMap);
+        catalogue = new FeatureCatalogue() {
+            @Override
+            public FeaturesAndMemberName getFeaturesForLayer(String id,
+                    PlottingDomainParams params) {
+                return new FeaturesAndMemberName(feature, "value");
+            }
+        };
+        params = new PlottingDomainParams(WIDTH, HEIGHT, GRID.getBoundingBox(), null, null,
+                null, null, null);
+    }
+
+    /**
+     * Tests that a cached style draws the same image as a newly-parsed one,
+     * and that drawing a cached style does not change it
+     */
+    @Test
+    public void testCachedStyleMatchesFresh() throws EdalException {
+        SimpleLayerNameMapper layerNameMapper = new SimpleLayerNameMapper();
+        MapImage cached = styles.getMapImageFromStyle("default-scalar", styleParameters,
+                metadata, layerNameMapper);
+        assertSame(cached, styles.getMapImageFromStyle("default-scalar", styleParameters,
+                metadata, layerNameMapper));
+        BufferedImage first = cached.drawImage(params, catalogue);
+        BufferedImage second = cached.drawImage(params, catalogue);
+
+        styles.getCompiledStyleCache().clear();
+        MapImage fresh = styles.getMapImageFromStyle("default-scalar", styleParameters,
+                metadata, layerNameMapper);
+        assertNotSame(cached, fresh);
+        BufferedImage expected = fresh.drawImage(params, catalogue);
+
+        compareImages(expected, first);
+        compareImages(expected, second);
+    }
+
+    /**
+     * Tests that styles with different parameters are not shared
+     */
+    @Test
+    public void testDifferentParametersNotShared() {
+        SimpleLayerNameMapper layerNameMapper = new SimpleLayerNameMapper();
+        PlottingStyleParameters otherParameters = new PlottingStyleParameters(
+                Arrays.asList(Extents.newExtent(0f, 2f)), ColourPalette.DEFAULT_PALETTE_NAME,
+                Color.black, Color.black, new Color(0, true), false, 250, 1f);
+        assertNotSame(
+                styles.getMapImageFromStyle("default-scalar", styleParameters, metadata,
+                        layerNameMapper),
+                styles.getMapImageFromStyle("default-scalar", otherParameters, metadata,
+                        layerNameMapper));
+    }
+
+    private static void compareImages(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int i = 0; i < actual.getWidth(); i++) {
+            for (int j = 0; j < actual.getHeight(); j++) {
+                assertEquals(expected.getRGB(i, j), actual.getRGB(i, j));
+            }
+        }
+    }
+}
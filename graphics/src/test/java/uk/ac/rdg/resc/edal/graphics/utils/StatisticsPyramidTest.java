@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.graphics.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.util.ValuesArray2D;
+
+/**
+ * Test class for {@link StatisticsPyramid}.
+ */
+public class StatisticsPyramidTest {
+
+    private StatisticsPyramid pyramid;
+
+    /**
+     * Creates a pyramid covering 0-64 degrees in each direction, with one
+     * sample per degree and values of x + 100y. Each tile of the finest level
+     * is then 4 degrees square.
+     */
+    @Before
+    public void setUp() {
+        ValuesArray2D values = new ValuesArray2D(64, 64);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) {
+                values.set(x + 100 * y, y, x);
+            }
+        }
+        pyramid = new StatisticsPyramid(new DefaultGeographicBoundingBox(0, 64, 0, 64), values);
+    }
+
+    @Test
+    public void testWholeExtent() {
+        ValueSummary summary = pyramid.getSummary(new DefaultGeographicBoundingBox(0, 64, 0, 64));
+        assertEquals(0f, summary.getMin(), 1e-6);
+        assertEquals(6363f, summary.getMax(), 1e-6);
+        assertEquals(64 * 64, summary.getCount());
+    }
+
+    /**
+     * Tests that a bounding box made of whole tiles is summarised exactly
+     */
+    @Test
+    public void testTileAligned() {
+        ValueSummary summary = pyramid
+                .getSummary(new DefaultGeographicBoundingBox(16, 32, 8, 12));
+        assertEquals(816f, summary.getMin(), 1e-6);
+        assertEquals(1131f, summary.getMax(), 1e-6);
+        assertEquals(16 * 4, summary.getCount());
+    }
+
+    /**
+     * Tests that a bounding box which is slightly misaligned with the tiles
+     * is still summarised
+     */
+    @Test
+    public void testNearlyAligned() {
+        assertNotNull(pyramid.getSummary(new DefaultGeographicBoundingBox(0.5, 32, 0.5, 32)));
+    }
+
+    /**
+     * Tests that no summary is given for a bounding box much smaller than the
+     * tiles which cover it, since it would include values from far outside
+     * the bounding box
+     */
+    @Test
+    public void testTooSmall() {
+        assertNull(pyramid.getSummary(new DefaultGeographicBoundingBox(1, 2, 1, 2)));
+        /* Straddles 4 tiles */
+        assertNull(pyramid.getSummary(new DefaultGeographicBoundingBox(3, 5, 3, 5)));
+    }
+}
@@ -292,6 +292,27 @@ public class GetMapStyleParams {
         return ranges;
     }
 
+    /**
+     * @param params
+     *            The {@link RequestParams} of a request
+     * @return <code>true</code> if the request explicitly gives every colour
+     *         scale range in its COLORSCALERANGE parameter, rather than leaving
+     *         any of them to the server's defaults or to auto-scaling
+     */
+    public static boolean hasExplicitColorScaleRanges(RequestParams params) {
+        String csr = params.getString("colorscalerange");
+        if (csr == null) {
+            return false;
+        }
+        for (String range : csr.split(";", -1)) {
+            if (range.isEmpty() || range.equalsIgnoreCase("default")
+                    || range.equalsIgnoreCase("auto") || range.split(",").length < 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Gets the object used to generate the map plot with all correct styles and
      * layers set.
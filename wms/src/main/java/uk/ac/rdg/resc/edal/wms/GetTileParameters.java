@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import uk.ac.rdg.resc.edal.domain.TemporalDomain;
+import uk.ac.rdg.resc.edal.domain.VerticalDomain;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.graphics.formats.ImageFormat;
+import uk.ac.rdg.resc.edal.graphics.formats.InvalidFormatException;
+import uk.ac.rdg.resc.edal.graphics.formats.SimpleFormat;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingStyleParameters;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.TimeUtils;
+import uk.ac.rdg.resc.edal.wms.util.TileMatrixSet;
+import uk.ac.rdg.resc.edal.wms.util.WmsUtils;
+
+/**
+ * Object representing a request to the WMTS GetTile operation. A tile is
+ * rendered as a WMS GetMap request for the bounding box of the tile, so that
+ * tiles are drawn in exactly the same way as arbitrary maps.
+ * 
+ * Missing TIME and ELEVATION values are replaced with the layer defaults, so
+ * that each set of parameters refers to a single, fixed image. For parent
+ * layers (e.g. vector layers) which have no domains of their own, the
+ * defaults are taken from their children.
+ */
+public class GetTileParameters {
+    /*
+     * The parameters which identify a tile. Requests with any other parameters
+     * (e.g. COLORSCALERANGE) produce non-standard tiles.
+     */
+    private static final String[] TILE_PARAMS = new String[] { "service", "request", "version",
+            "layer", "style", "format", "tilematrixset", "tilematrix", "tilerow", "tilecol",
+            "time", "elevation" };
+
+    private final String layerName;
+    private final String style;
+    private final String formatString;
+    private final TileMatrixSet tileMatrixSet;
+    private final int level;
+    private final int row;
+    private final int col;
+    private final String time;
+    private final String elevation;
+    private final boolean standard;
+    private final long sourceStamp;
+    private final GetMapParameters getMapParameters;
+
+    /**
+     * Creates a new instance of {@link GetTileParameters} from the given
+     * {@link RequestParams}
+     * 
+     * @param params
+     *            A {@link RequestParams} object representing the URL parameters
+     *            to parse
+     * @param catalogue
+     *            A {@link WmsCatalogue} used to find the default time and
+     *            elevation of the layer
+     * @throws EdalException
+     *             if the request is invalid
+     */
+    public GetTileParameters(RequestParams params, WmsCatalogue catalogue) throws EdalException {
+        standard = params.toCanonicalString(TILE_PARAMS).isEmpty();
+
+        layerName = params.getMandatoryString("layer");
+        String styleString = params.getString("style");
+        style = (styleString == null || styleString.trim().isEmpty()) ? "default" : styleString;
+        formatString = params.getString("format", "image/png");
+        tileMatrixSet = TileMatrixSet.fromIdentifier(params.getMandatoryString("tilematrixset"));
+        level = params.getMandatoryPositiveInt("tilematrix");
+        row = params.getMandatoryPositiveInt("tilerow");
+        col = params.getMandatoryPositiveInt("tilecol");
+
+        ImageFormat imageFormat = ImageFormat.get(formatString);
+        if (!(imageFormat instanceof SimpleFormat)) {
+            throw new InvalidFormatException("The format " + formatString
+                    + " cannot be used for tiles");
+        }
+
+        VariableMetadata metadata = WmsUtils.getVariableMetadataFromLayerName(layerName,
+                catalogue);
+        String timeString = params.getString("time");
+        if (timeString == null || timeString.trim().isEmpty()) {
+            TemporalDomain temporalDomain = getTemporalDomain(metadata);
+            if (temporalDomain != null) {
+                timeString = TimeUtils.dateTimeToISO8601(
+                        GISUtils.getClosestToCurrentTime(temporalDomain));
+            }
+        }
+        time = timeString;
+        String elevationString = params.getString("elevation");
+        if (elevationString == null || elevationString.trim().isEmpty()) {
+            VerticalDomain verticalDomain = getVerticalDomain(metadata);
+            if (verticalDomain != null) {
+                Double defaultElevation = GISUtils.getClosestElevationToSurface(verticalDomain);
+                elevationString = defaultElevation == null ? null : defaultElevation.toString();
+            }
+        }
+        elevation = elevationString;
+
+        /*
+         * A tile changes when either the data or the default plotting
+         * parameters of the layer (used by the default style) change
+         */
+        String datasetId = catalogue.getLayerNameMapper().getDatasetIdFromLayerName(layerName);
+        PlottingStyleParameters defaults = catalogue.getLayerMetadata(metadata)
+                .getDefaultPlottingParameters();
+        int defaultsHash = defaults == null ? 0
+                : Objects.hash(defaults.getColorScaleRanges(), defaults.getPalette(),
+                        defaults.getAboveMaxColour(), defaults.getBelowMinColour(),
+                        defaults.getNoDataColour(), defaults.isLogScaling(),
+                        defaults.getNumColorBands(), defaults.getOpacity());
+        sourceStamp = 31L * catalogue.getDatasetSourceStamp(datasetId) + defaultsHash;
+
+        BoundingBox bbox = tileMatrixSet.getTileBoundingBox(level, row, col);
+        Map<String, String> getMapParams = new HashMap<>();
+        getMapParams.put("version", "1.3.0");
+        getMapParams.put("request", "GetMap");
+        getMapParams.put("layers", layerName);
+        getMapParams.put("styles", style);
+        getMapParams.put("format", formatString);
+        getMapParams.put("crs", tileMatrixSet.getCrsCode());
+        getMapParams.put("bbox", bbox.getMinX() + "," + bbox.getMinY() + "," + bbox.getMaxX()
+                + "," + bbox.getMaxY());
+        getMapParams.put("width", Integer.toString(TileMatrixSet.TILE_SIZE));
+        getMapParams.put("height", Integer.toString(TileMatrixSet.TILE_SIZE));
+        getMapParams.put("transparent",
+                Boolean.toString(imageFormat.supportsFullyTransparentPixels()));
+        if (time != null) {
+            getMapParams.put("time", time);
+        }
+        if (elevation != null) {
+            getMapParams.put("elevation", elevation);
+        }
+        getMapParameters = new GetMapParameters(params.mergeParameters(getMapParams), catalogue);
+    }
+
+    /*
+     * Finds the temporal domain of a layer, or of its first child which has
+     * one
+     */
+    static TemporalDomain getTemporalDomain(VariableMetadata metadata) {
+        if (metadata.getTemporalDomain() != null) {
+            return metadata.getTemporalDomain();
+        }
+        for (VariableMetadata child : metadata.getChildren()) {
+            TemporalDomain temporalDomain = getTemporalDomain(child);
+            if (temporalDomain != null) {
+                return temporalDomain;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Finds the vertical domain of a layer, or of its first child which has
+     * one
+     */
+    static VerticalDomain getVerticalDomain(VariableMetadata metadata) {
+        if (metadata.getVerticalDomain() != null) {
+            return metadata.getVerticalDomain();
+        }
+        for (VariableMetadata child : metadata.getChildren()) {
+            VerticalDomain verticalDomain = getVerticalDomain(child);
+            if (verticalDomain != null) {
+                return verticalDomain;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the image format corresponding to a file extension, as used in
+     * RESTful tile URLs
+     * 
+     * @param extension
+     *            The file extension, without the leading "."
+     * @return The MIME type of the image format
+     * @throws InvalidFormatException
+     *             If the extension is not recognised
+     */
+    public static String getFormatForExtension(String extension) throws InvalidFormatException {
+        switch (extension.toLowerCase()) {
+        case "png":
+            return "image/png";
+        case "jpg":
+        case "jpeg":
+            return "image/jpeg";
+        case "gif":
+            return "image/gif";
+        default:
+            throw new InvalidFormatException("Unsupported tile format: " + extension);
+        }
+    }
+
+    /**
+     * @return The file extension corresponding to the requested image format
+     */
+    public String getExtension() {
+        String subtype = formatString.substring(formatString.indexOf('/') + 1);
+        if ("jpeg".equalsIgnoreCase(subtype)) {
+            return "jpg";
+        }
+        return subtype.replaceAll("[^A-Za-z0-9]", "");
+    }
+
+    public String getLayerName() {
+        return layerName;
+    }
+
+    public String getStyle() {
+        return style;
+    }
+
+    public String getFormatString() {
+        return formatString;
+    }
+
+    public TileMatrixSet getTileMatrixSet() {
+        return tileMatrixSet;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return The requested time, or the default time of the layer if none
+     *         was requested. <code>null</code> if the layer has no time
+     *         dimension
+     */
+    public String getTime() {
+        return time;
+    }
+
+    /**
+     * @return The requested elevation, or the default elevation of the layer
+     *         if none was requested. <code>null</code> if the layer has no
+     *         vertical dimension
+     */
+    public String getElevation() {
+        return elevation;
+    }
+
+    /**
+     * @return <code>true</code> if this request only contains the standard
+     *         WMTS parameters, so that the tile is fully identified by this
+     *         object and may be stored
+     */
+    public boolean isStandard() {
+        return standard;
+    }
+
+    /**
+     * @return A stamp identifying the version of the data and layer settings
+     *         which this tile is drawn from. Stored copies of the tile with a
+     *         different stamp are out of date
+     */
+    public long getSourceStamp() {
+        return sourceStamp;
+    }
+
+    /**
+     * @return The {@link GetMapParameters} which will draw this tile
+     */
+    public GetMapParameters getGetMapParameters() {
+        return getMapParameters;
+    }
+}
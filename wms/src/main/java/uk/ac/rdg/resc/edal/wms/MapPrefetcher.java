@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import uk.ac.rdg.resc.edal.domain.TemporalDomain;
+import uk.ac.rdg.resc.edal.domain.VerticalDomain;
+import uk.ac.rdg.resc.edal.graphics.style.Drawable.NameAndRange;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.grid.VerticalAxis;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.TimeUtils;
+import uk.ac.rdg.resc.edal.wms.util.WmsUtils;
+
+/**
+ * Speculatively extracts the features for the timesteps and elevations
+ * adjacent to those of a GetMap request, so that a client stepping through a
+ * layer's time or vertical axis finds the data it asks for next already in
+ * the catalogue's feature cache.
+ * 
+ * Extractions run on a small pool of low-priority daemon threads with a
+ * bounded queue. When the queue is full, new work is dropped rather than
+ * queued, and each client is limited to a fixed rate of extractions so that
+ * one busy client cannot occupy the pool. Only layers for which
+ * {@link WmsCatalogue#isPrefetchable(String)} returns <code>true</code> are
+ * prefetched.
+ */
+public class MapPrefetcher {
+    private static final Logger log = LoggerFactory.getLogger(MapPrefetcher.class);
+
+    /* How many timesteps to prefetch after and before the requested one */
+    private static final int TIMESTEPS_AHEAD = 2;
+    private static final int TIMESTEPS_BEHIND = 1;
+    /* How many elevations to prefetch either side of the requested one */
+    private static final int ELEVATIONS_EITHER_SIDE = 1;
+    /* Clients which have not made a request for this long are forgotten */
+    private static final long IDLE_CLIENT_MILLIS = 10 * 60 * 1000L;
+
+    private final ThreadPoolExecutor executor;
+    private final double extractionsPerSecond;
+    private final int maxBurst;
+    private final Map<String, RateLimit> clients = new ConcurrentHashMap<>();
+    private volatile long lastPruneTime = System.currentTimeMillis();
+
+    /**
+     * @param nThreads
+     *            The number of threads to extract features on
+     * @param maxQueuedTasks
+     *            The maximum number of extractions waiting for a thread.
+     *            Further extractions are discarded until the queue drains.
+     * @param extractionsPerSecond
+     *            The sustained number of extractions each client may trigger
+     *            per second
+     * @param maxBurst
+     *            The number of extractions a client may trigger at once after
+     *            a period of inactivity
+     */
+    public MapPrefetcher(int nThreads, int maxQueuedTasks, double extractionsPerSecond,
+            int maxBurst) {
+        this.extractionsPerSecond = extractionsPerSecond;
+        this.maxBurst = maxBurst;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(maxQueuedTasks), r -> {
+                    Thread thread = new Thread(r,
+                            "map-prefetcher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Schedules extraction of the neighbours of a GetMap request. This returns
+     * immediately - the neighbouring timesteps and elevations are found and
+     * extracted in the background.
+     * 
+     * @param clientId
+     *            An identifier for the client making the request, used to
+     *            limit the rate of extractions per client
+     * @param params
+     *            The parameters of the GetMap request
+     * @param catalogue
+     *            The {@link WmsCatalogue} to extract features from
+     */
+    public void prefetch(String clientId, RequestParams params, WmsCatalogue catalogue) {
+        if (executor.isShutdown()) {
+            return;
+        }
+        RateLimit rateLimit = clients.computeIfAbsent(clientId,
+                k -> new RateLimit(extractionsPerSecond, maxBurst));
+        if (!rateLimit.tryAcquire()) {
+            return;
+        }
+        pruneIdleClients();
+        try {
+            executor.execute(() -> {
+                try {
+                    for (RequestParams neighbour : getNeighbours(params, catalogue)) {
+                        if (!rateLimit.tryAcquire()) {
+                            return;
+                        }
+                        executor.execute(() -> extract(neighbour, catalogue));
+                    }
+                } catch (Exception e) {
+                    log.debug("Could not find neighbours of GetMap request to prefetch", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            /* We have been shut down. Nothing to do. */
+        }
+    }
+
+    /**
+     * Stops all prefetching. Extractions already running are interrupted and
+     * queued ones are discarded.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Finds the GetMap requests for the timesteps and elevations adjacent to
+     * the requested ones, nearest first. Only single timesteps/elevations
+     * which were explicitly requested are stepped - requests for ranges,
+     * animations, or the default time/elevation have no neighbours.
+     */
+    private static List<RequestParams> getNeighbours(RequestParams params,
+            WmsCatalogue catalogue) throws Exception {
+        if (params.getBoolean("animation", false)) {
+            return Collections.emptyList();
+        }
+        GetMapParameters getMapParameters = new GetMapParameters(params, catalogue);
+        PlottingDomainParams plottingParams = getMapParameters.getPlottingDomainParameters();
+
+        TimeAxis timeAxis = null;
+        VerticalAxis zAxis = null;
+        for (NameAndRange field : getMapParameters.getStyleParameters()
+                .getImageGenerator(catalogue).getFieldsWithScales()) {
+            VariableMetadata metadata = WmsUtils
+                    .getVariableMetadataFromLayerName(field.getFieldLabel(), catalogue);
+            TemporalDomain temporalDomain = metadata.getTemporalDomain();
+            if (timeAxis == null && temporalDomain instanceof TimeAxis) {
+                timeAxis = (TimeAxis) temporalDomain;
+            }
+            VerticalDomain verticalDomain = metadata.getVerticalDomain();
+            if (zAxis == null && verticalDomain instanceof VerticalAxis) {
+                zAxis = (VerticalAxis) verticalDomain;
+            }
+        }
+
+        List<RequestParams> neighbours = new ArrayList<>();
+        String timeString = params.getString("time");
+        if (timeAxis != null && isSingleValue(timeString) && plottingParams.getTExtent() != null) {
+            int index = timeAxis.findIndexOf(plottingParams.getTExtent().getLow());
+            if (index >= 0) {
+                for (int offset : stepOrder(TIMESTEPS_AHEAD, TIMESTEPS_BEHIND)) {
+                    int neighbourIndex = index + offset;
+                    if (neighbourIndex >= 0 && neighbourIndex < timeAxis.size()) {
+                        DateTime time = timeAxis.getCoordinateValue(neighbourIndex);
+                        neighbours.add(params.mergeParameters(Collections.singletonMap("time",
+                                TimeUtils.dateTimeToISO8601(time))));
+                    }
+                }
+            }
+        }
+        String elevationString = params.getString("elevation");
+        if (zAxis != null && isSingleValue(elevationString)
+                && plottingParams.getZExtent() != null) {
+            int index = zAxis.findIndexOf(plottingParams.getZExtent().getLow());
+            if (index >= 0) {
+                for (int offset : stepOrder(ELEVATIONS_EITHER_SIDE, ELEVATIONS_EITHER_SIDE)) {
+                    int neighbourIndex = index + offset;
+                    if (neighbourIndex >= 0 && neighbourIndex < zAxis.size()) {
+                        Double elevation = zAxis.getCoordinateValue(neighbourIndex);
+                        neighbours.add(params.mergeParameters(
+                                Collections.singletonMap("elevation", elevation.toString())));
+                    }
+                }
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Extracts the features of every layer in a GetMap request. The
+     * {@link PlottingDomainParams} are parsed from the request exactly as they
+     * would be for a real GetMap, so that the cache keys match.
+     */
+    private static void extract(RequestParams params, WmsCatalogue catalogue) {
+        try {
+            GetMapParameters getMapParameters = new GetMapParameters(params, catalogue);
+            PlottingDomainParams plottingParams = getMapParameters.getPlottingDomainParameters();
+            Set<String> layerNames = new LinkedHashSet<>();
+            for (NameAndRange field : getMapParameters.getStyleParameters()
+                    .getImageGenerator(catalogue).getFieldsWithScales()) {
+                layerNames.add(field.getFieldLabel());
+            }
+            for (String layerName : layerNames) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (catalogue.isPrefetchable(layerName)) {
+                    catalogue.getFeaturesForDrawing(layerName, plottingParams);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Problem prefetching features", e);
+        }
+    }
+
+    private static boolean isSingleValue(String dimensionValue) {
+        return dimensionValue != null && !dimensionValue.trim().isEmpty()
+                && !dimensionValue.contains(",") && !dimensionValue.contains("/");
+    }
+
+    /**
+     * @return Offsets from the current index, alternating forwards and
+     *         backwards, nearest first
+     */
+    private static List<Integer> stepOrder(int ahead, int behind) {
+        List<Integer> offsets = new ArrayList<>();
+        for (int i = 1; i <= Math.max(ahead, behind); i++) {
+            if (i <= ahead) {
+                offsets.add(i);
+            }
+            if (i <= behind) {
+                offsets.add(-i);
+            }
+        }
+        return offsets;
+    }
+
+    private void pruneIdleClients() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneTime < IDLE_CLIENT_MILLIS) {
+            return;
+        }
+        lastPruneTime = now;
+        Iterator<RateLimit> iterator = clients.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isIdleSince(now - IDLE_CLIENT_MILLIS)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A token bucket allowing a fixed number of extractions per second, with
+     * bursts of up to a maximum number
+     */
+    static class RateLimit {
+        private final double perSecond;
+        private final int maxBurst;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        RateLimit(double perSecond, int maxBurst) {
+            this.perSecond = perSecond;
+            this.maxBurst = maxBurst;
+            this.tokens = maxBurst;
+        }
+
+        boolean tryAcquire() {
+            return tryAcquire(System.nanoTime());
+        }
+
+        /**
+         * @param now
+         *            The current time, from {@link System#nanoTime()}
+         * @return Whether an extraction is allowed now
+         */
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(maxBurst, tokens + (now - lastRefill) * perSecond / 1e9);
+            lastRefill = now;
+            lastUsed = System.currentTimeMillis();
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+        boolean isIdleSince(long millis) {
+            return lastUsed < millis;
+        }
+    }
+}
@@ -28,9 +28,13 @@
 
 package uk.ac.rdg.resc.edal.wms;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -89,7 +93,7 @@ public class RequestParams {
      */
     public RequestParams mergeParameters(Map<String, String> mergeParameters) {
         RequestParams ret = new RequestParams();
-        ret.paramMap = paramMap;
+        ret.paramMap = new HashMap<String, String>(paramMap);
 
         for (String name : mergeParameters.keySet()) {
             String value = mergeParameters.get(name);
@@ -291,6 +295,49 @@ public class RequestParams {
         }
     }
 
+    /**
+     * Returns a canonical representation of these parameters, suitable for
+     * use as a cache key. Parameters are sorted by name, so that the order in
+     * which they were supplied does not matter.
+     * 
+     * @param excludedParams
+     *            The (lower-case) names of any parameters which should not
+     *            form part of the result
+     * @return A {@link String} which is equal for equal sets of parameters
+     */
+    public String toCanonicalString(String... excludedParams) {
+        Set<String> excluded = new HashSet<>(Arrays.asList(excludedParams));
+        StringBuilder ret = new StringBuilder();
+        for (Entry<String, String> param : new TreeMap<>(paramMap).entrySet()) {
+            if (!excluded.contains(param.getKey())) {
+                ret.append(param.getKey()).append('=').append(param.getValue()).append('&');
+            }
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Returns a canonical representation of a subset of these parameters,
+     * suitable for use as a cache key. Parameters are sorted by name, so that
+     * the order in which they were supplied does not matter.
+     * 
+     * @param includedParams
+     *            The (lower-case) names of the parameters which should form
+     *            part of the result. All others are ignored.
+     * @return A {@link String} which is equal for equal sets of the included
+     *         parameters
+     */
+    public String toCanonicalStringOf(String... includedParams) {
+        Set<String> included = new HashSet<>(Arrays.asList(includedParams));
+        StringBuilder ret = new StringBuilder();
+        for (Entry<String, String> param : new TreeMap<>(paramMap).entrySet()) {
+            if (included.contains(param.getKey())) {
+                ret.append(param.getKey()).append('=').append(param.getValue()).append('&');
+            }
+        }
+        return ret.toString();
+    }
+
     @Override
     public String toString() {
         StringBuilder ret = new StringBuilder("Request Parameters:\n");
@@ -40,9 +40,23 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,6 +69,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import uk.ac.rdg.resc.edal.cache.WeighedCache;
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 
 /**
@@ -107,12 +122,74 @@ import uk.ac.rdg.resc.edal.exceptions.EdalException;
  * 
  * opacity: The overall opacity of the plotted layer
  * 
+ * If a {@link WmsCatalogue} has been set with
+ * {@link ScreenshotServlet#setCatalogue(WmsCatalogue)} (or published by a
+ * {@link WmsServlet} in the same web application) and the data layer is served
+ * by this server, the data layer and colour bar are rendered directly from the
+ * catalogue rather than being requested over HTTP, subject to the same limits
+ * as GetMap requests. All components of the screenshot are generated
+ * concurrently, within a single overall time limit, and background images are
+ * cached.
+ * 
  * TODO Error handling is not implemented very well
  */
 public class ScreenshotServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private static final Logger log = LoggerFactory.getLogger(ScreenshotServlet.class);
 
+    /* The maximum time to wait for all of the parts of a screenshot */
+    private static final long SCREENSHOT_TIMEOUT_SECONDS = 30;
+    /* The number of threads used to generate screenshot components */
+    private static final int N_THREADS = 8;
+    /* The maximum size of the decoded background images to cache, in bytes */
+    private static final long MAX_BACKGROUND_CACHE_BYTES = 64L * 1024L * 1024L;
+    private static final long BACKGROUND_CACHE_TTL_SECONDS = 3600L;
+
+    private WmsCatalogue catalogue = null;
+    private final ExecutorService executor = Executors.newFixedThreadPool(N_THREADS, r -> {
+        Thread thread = new Thread(r, "screenshot-renderer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final WeighedCache<String, BufferedImage> backgroundCache = new WeighedCache<>(
+            "screenshotBackgroundCache", MAX_BACKGROUND_CACHE_BYTES, BACKGROUND_CACHE_TTL_SECONDS,
+            image -> 4L * image.getWidth() * image.getHeight());
+
+    /**
+     * Sets the {@link WmsCatalogue} used to render layers served by this
+     * server. If this is not set, the catalogue published by a
+     * {@link WmsServlet} in the same web application is used, and if there is
+     * none, all layers are requested over HTTP.
+     * 
+     * @param catalogue
+     *            The {@link WmsCatalogue} to use
+     */
+    public void setCatalogue(WmsCatalogue catalogue) {
+        this.catalogue = catalogue;
+    }
+
+    /*
+     * Gets the catalogue to render local layers from. The servlet context is
+     * checked on each request, since the WmsServlet may be initialised after
+     * this one.
+     */
+    private WmsCatalogue getCatalogue() {
+        if (catalogue == null && getServletConfig() != null) {
+            Object published = getServletContext().getAttribute(WmsServlet.CATALOGUE_ATTRIBUTE);
+            if (published instanceof WmsCatalogue) {
+                return (WmsCatalogue) published;
+            }
+        }
+        return catalogue;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        backgroundCache.clear();
+        super.destroy();
+    }
+
     /**
      * Handles a GET request. This will generate a screenshot and write it to
      * the output stream, assuming
@@ -160,8 +237,28 @@ public class ScreenshotServlet extends HttpServlet {
         }
     }
 
-    private BufferedImage drawScreenshot(RequestParams params, String servletUrl)
+    /**
+     * Draws a screenshot. This is package-private for testing.
+     */
+    BufferedImage drawScreenshot(RequestParams params, String servletUrl)
             throws EdalException, IOException {
+        List<Future<BufferedImage>> futures = new ArrayList<>();
+        try {
+            return drawScreenshot(params, servletUrl, futures);
+        } finally {
+            /*
+             * Don't start generating any parts which are no longer needed
+             * (e.g. because another part has failed)
+             */
+            for (Future<BufferedImage> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private BufferedImage drawScreenshot(RequestParams params, String servletUrl,
+            List<Future<BufferedImage>> futures) throws EdalException, IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SCREENSHOT_TIMEOUT_SECONDS);
         /*
          * Retrieve some URL parameters and store for later
          */
@@ -199,19 +296,80 @@ public class ScreenshotServlet extends HttpServlet {
         String time = params.getString("time");
 
         /*
-         * Get the legend first so that we know how big the final image needs to
-         * be
+         * Start generating all of the images which make up the screenshot.
+         * 
+         * The data layer and colour bar are rendered here if they come from
+         * this server. Everything else must be fetched.
+         */
+        Future<BufferedImage> colorBarFuture = submitDataLayer(params, minLon, minLat, maxLon,
+                maxLat, 50, mapHeight, servletUrl, time, true);
+        futures.add(colorBarFuture);
+        Future<BufferedImage> dataLayerFuture = submitDataLayer(params, minLon, minLat, maxLon,
+                maxLat, mapWidth, mapHeight, servletUrl, time, false);
+        futures.add(dataLayerFuture);
+
+        /*
+         * The background may need to be split into several images if it
+         * crosses the date line
          */
-        BufferedImage colorBar = null;
-        URL url = createWmsUrl(params, false, minLon, minLat, maxLon, maxLat, 50, mapHeight,
-                servletUrl, time, true);
-        if (url != null) {
-            URLConnection conn = url.openConnection();
-            try (InputStream in = conn.getInputStream()) {
-                colorBar = ImageIO.read(in);
+        List<Integer> backgroundOffsets = new ArrayList<>();
+        List<Future<BufferedImage>> backgroundFutures = new ArrayList<>();
+        if ((!crs.equalsIgnoreCase("EPSG:4326") && !crs.equalsIgnoreCase("CRS:84"))
+                || (minLon >= -180 && maxLon <= 180)) {
+            backgroundOffsets.add(0);
+            backgroundFutures.add(submitBackground(params, minLon, minLat, maxLon, maxLat,
+                    mapWidth, mapHeight, baseLayerUrl));
+        } else if (minLon < -180 && maxLon <= 180) {
+            int lefWidth = (int) (mapWidth * (-180 - minLon) / (lonRange));
+            backgroundOffsets.add(0);
+            backgroundFutures.add(submitBackground(params, minLon + 360, minLat, 180f, maxLat,
+                    lefWidth, mapHeight, baseLayerUrl));
+            backgroundOffsets.add(lefWidth);
+            backgroundFutures.add(submitBackground(params, -180f, minLat, maxLon, maxLat,
+                    mapWidth - lefWidth, mapHeight, baseLayerUrl));
+        } else if (minLon >= -180 && maxLon > 180) {
+            int rightWidth = (int) (mapWidth * (maxLon - 180f) / (lonRange));
+            backgroundOffsets.add(0);
+            backgroundFutures.add(submitBackground(params, minLon, minLat, 180f, maxLat,
+                    mapWidth - rightWidth, mapHeight, baseLayerUrl));
+            backgroundOffsets.add(mapWidth - rightWidth);
+            backgroundFutures.add(submitBackground(params, -180f, minLat, maxLon - 360, maxLat,
+                    rightWidth, mapHeight, baseLayerUrl));
+        } else if (minLon < -180 && maxLon > 180) {
+            int leftWidth = (int) (mapWidth * (-180 - minLon) / (lonRange));
+            int rightWidth = (int) (mapWidth * (maxLon - 180f) / (lonRange));
+            backgroundOffsets.add(0);
+            backgroundFutures.add(submitBackground(params, minLon + 360, minLat, 180f, maxLat,
+                    leftWidth, mapHeight, baseLayerUrl));
+            backgroundOffsets.add(mapWidth - rightWidth);
+            backgroundFutures.add(submitBackground(params, -180f, minLat, maxLon - 360, maxLat,
+                    rightWidth, mapHeight, baseLayerUrl));
+            backgroundOffsets.add(leftWidth);
+            backgroundFutures.add(submitBackground(params, -180f, minLat, 180f, maxLat,
+                    mapWidth - leftWidth - rightWidth, mapHeight, baseLayerUrl));
+        }
+
+        List<Future<BufferedImage>> overlayFutures = new ArrayList<>();
+        String overlaysStr = params.getString("overlays");
+        if (overlaysStr != null) {
+            String[] overlayers = overlaysStr.split(",");
+            for (String overlayer : overlayers) {
+                overlayFutures.add(submitBackground(params, minLon, minLat, maxLon, maxLat,
+                        mapWidth, mapHeight, overlayer));
             }
         }
 
+        futures.addAll(backgroundFutures);
+        futures.addAll(overlayFutures);
+
+        /*
+         * Get the legend first so that we know how big the final image needs to
+         * be
+         */
+        BufferedImage colorBar = await(colorBarFuture, "colour bar", deadline);
+        int colorBarWidth = colorBar == null ? 0 : colorBar.getWidth();
+        int colorBarHeight = colorBar == null ? 0 : colorBar.getHeight();
+
         /*
          * Calculate the space needed for text above the image
          */
@@ -230,12 +388,12 @@ public class ScreenshotServlet extends HttpServlet {
         /*
          * Calculate the total size needed for the image
          */
-        int totalWidth = mapWidth + colorBar.getWidth() + 20;
+        int totalWidth = mapWidth + colorBarWidth + 20;
         int totalHeight;
-        if (mapHeight > colorBar.getHeight()) {
+        if (mapHeight > colorBarHeight) {
             totalHeight = mapHeight + textSpace;
         } else {
-            totalHeight = colorBar.getHeight() + textSpace;
+            totalHeight = colorBarHeight + textSpace;
         }
 
         /*
@@ -305,70 +463,31 @@ public class ScreenshotServlet extends HttpServlet {
          * 
          * Now draw the background image
          */
-        if ((!crs.equalsIgnoreCase("EPSG:4326") && !crs.equalsIgnoreCase("CRS:84"))
-                || (minLon >= -180 && maxLon <= 180)) {
-            BufferedImage im = getImage(params, minLon, minLat, maxLon, maxLat, mapWidth, mapHeight,
-                    baseLayerUrl, time);
-            g.drawImage(im, 0, textSpace, null);
-        } else if (minLon < -180 && maxLon <= 180) {
-            int lefWidth = (int) (mapWidth * (-180 - minLon) / (lonRange));
-            BufferedImage im = getImage(params, minLon + 360, minLat, 180f, maxLat, lefWidth,
-                    mapHeight, baseLayerUrl, time);
-            g.drawImage(im, 0, textSpace, null);
-            im = getImage(params, -180f, minLat, maxLon, maxLat, mapWidth - lefWidth, mapHeight,
-                    baseLayerUrl, time);
-            g.drawImage(im, lefWidth, textSpace, null);
-        } else if (minLon >= -180 && maxLon > 180) {
-            int rightWidth = (int) (mapWidth * (maxLon - 180f) / (lonRange));
-            BufferedImage im = getImage(params, minLon, minLat, 180f, maxLat, mapWidth - rightWidth,
-                    mapHeight, baseLayerUrl, time);
-            g.drawImage(im, 0, textSpace, null);
-            im = getImage(params, -180f, minLat, maxLon - 360, maxLat, rightWidth, mapHeight,
-                    baseLayerUrl, time);
-            g.drawImage(im, mapWidth - rightWidth, textSpace, null);
-        } else if (minLon < -180 && maxLon > 180) {
-            int leftWidth = (int) (mapWidth * (-180 - minLon) / (lonRange));
-            BufferedImage im = getImage(params, minLon + 360, minLat, 180f, maxLat, leftWidth,
-                    mapHeight, baseLayerUrl, time);
-            g.drawImage(im, 0, textSpace, null);
-
-            int rightWidth = (int) (mapWidth * (maxLon - 180f) / (lonRange));
-            im = getImage(params, -180f, minLat, maxLon - 360, maxLat, rightWidth, mapHeight,
-                    baseLayerUrl, time);
-            g.drawImage(im, mapWidth - rightWidth, textSpace, null);
-
-            im = getImage(params, -180f, minLat, 180f, maxLat, mapWidth - leftWidth - rightWidth,
-                    mapHeight, baseLayerUrl, time);
-            g.drawImage(im, leftWidth, textSpace, null);
+        for (int i = 0; i < backgroundFutures.size(); i++) {
+            BufferedImage im = awaitBackground(backgroundFutures.get(i), deadline);
+            if (im != null) {
+                g.drawImage(im, backgroundOffsets.get(i), textSpace, null);
+            }
         }
 
         /*
-         * Now get the data image and draw it
+         * Now draw the data image
          */
-        url = createWmsUrl(params, false, minLon, minLat, maxLon, maxLat, mapWidth, mapHeight,
-                servletUrl, time, false);
-        BufferedImage wmsLayer;
-        if (url != null) {
-            wmsLayer = ImageIO.read(url);
+        BufferedImage wmsLayer = await(dataLayerFuture, "data layer", deadline);
+        if (wmsLayer != null) {
             float opacity = params.getFloat("opacity", 1.0f);
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
             g.drawImage(wmsLayer, 0, textSpace, null);
             g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
         }
 
-        String overlaysStr = params.getString("overlays");
-        if (overlaysStr != null) {
-            /*
-             * Draw any overlay layers on top of the WMS one
-             */
-            String[] overlayers = overlaysStr.split(",");
-            for (String overlayer : overlayers) {
-                URL overlayWmsUrl = createWmsUrl(params, true, minLon, minLat, maxLon, maxLat,
-                        mapWidth, mapHeight, overlayer, time, false);
-                if (overlayWmsUrl != null) {
-                    wmsLayer = ImageIO.read(overlayWmsUrl);
-                    g.drawImage(wmsLayer, 0, textSpace, null);
-                }
+        /*
+         * Draw any overlay layers on top of the WMS one
+         */
+        for (Future<BufferedImage> overlayFuture : overlayFutures) {
+            BufferedImage overlay = awaitBackground(overlayFuture, deadline);
+            if (overlay != null) {
+                g.drawImage(overlay, 0, textSpace, null);
             }
         }
 
@@ -382,99 +501,249 @@ public class ScreenshotServlet extends HttpServlet {
         return image;
     }
 
-    private BufferedImage getImage(RequestParams params, Float minLon, Float minLat, Float maxLon,
-            Float maxLat, int width, int height, String bgUrl, String time) throws IOException {
-        BufferedImage image = null;
-        URL baseUrl = createWmsUrl(params, true, minLon, minLat, maxLon, maxLat, width, height,
-                bgUrl, time, false);
-        try {
-            image = ImageIO.read(baseUrl);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    /**
+     * Starts generating the data layer or its colour bar.
+     * 
+     * @return A {@link Future} for the image. This will return
+     *         <code>null</code> if no data server has been specified.
+     */
+    private Future<BufferedImage> submitDataLayer(RequestParams params, Float minLon,
+            Float minLat, Float maxLon, Float maxLat, int width, int height, String servletUrl,
+            String time, boolean colorbar) throws EdalException, UnsupportedEncodingException {
+        Map<String, String> wmsParams = getDataLayerParameters(params, minLon, minLat, maxLon,
+                maxLat, width, height, time, colorbar);
+        if (wmsParams == null) {
+            return submit(() -> null);
         }
-        return image;
-    }
-
-    private URL createWmsUrl(RequestParams params, boolean baseLayer, Float minLon, Float minLat,
-            Float maxLon, Float maxLat, int width, int height, String baseWmsUrl, String time,
-            boolean colorbar) throws UnsupportedEncodingException {
-        StringBuilder url = new StringBuilder();
-        if (baseLayer) {
-            Pattern p = Pattern.compile(" ");
-            if (baseWmsUrl != null) {
-                Matcher m = p.matcher(baseWmsUrl);
-                if (m != null)
-                    baseWmsUrl = m.replaceAll("%20");
+        final WmsCatalogue localCatalogue = getCatalogue();
+        if (localCatalogue != null && isLocalServer(params.getString("server"), servletUrl)) {
+            /*
+             * Render directly from the catalogue
+             */
+            Map<String, String[]> paramMap = new LinkedHashMap<>();
+            for (Entry<String, String> entry : wmsParams.entrySet()) {
+                paramMap.put(entry.getKey(), new String[] { entry.getValue() });
+            }
+            RequestParams wmsRequestParams = new RequestParams(paramMap);
+            if (colorbar) {
+                return submit(() -> WmsServlet.drawLegendGraphic(wmsRequestParams, localCatalogue));
+            } else {
+                return submit(() -> drawMap(wmsRequestParams, localCatalogue));
             }
-            url.append(baseWmsUrl);
-            url.append("&STYLES=");
         } else {
-            String server = params.getString("server");
-            if (server == null || server.equalsIgnoreCase("null")) {
-                /*
-                 * If we don't have a server, we can't plot a layer
-                 */
-                return null;
+            StringBuilder url = new StringBuilder(params.getString("server"));
+            url.append("?");
+            for (Entry<String, String> entry : wmsParams.entrySet()) {
+                url.append(entry.getKey() + "=" + URLEncoder.encode(entry.getValue(), "UTF-8")
+                        + "&");
             }
-            url.append(server + "?SERVICE=WMS&LAYERS=" + params.getString("layer"));
-            String style = params.getString("style");
-            String palette = params.getString("palette");
-            if (style != null && palette != null) {
-                url.append("&STYLES=" + style + "/" + palette);
-            } else {
-                url.append("&STYLES=");
+            url.setLength(url.length() - 1);
+            URL wmsUrl;
+            try {
+                wmsUrl = new URL(url.toString());
+            } catch (MalformedURLException e) {
+                throw new EdalException("Invalid data server URL: " + url, e);
             }
-            String scaleRange = params.getString("scaleRange");
-            if (scaleRange != null)
-                url.append("&COLORSCALERANGE=" + scaleRange);
-            String aboveMaxColor = params.getString("aboveMaxColor");
-            if (aboveMaxColor != null)
-                url.append("&ABOVEMAXCOLOR=" + URLEncoder.encode(aboveMaxColor, "UTF-8"));
-            String belowMinColor = params.getString("belowMinColor");
-            if (belowMinColor != null)
-                url.append("&BELOWMINCOLOR=" + URLEncoder.encode(belowMinColor, "UTF-8"));
-            String noDataColor = params.getString("noDataColor");
-            if (noDataColor != null)
-                url.append("&BGCOLOR=" + URLEncoder.encode(noDataColor, "UTF-8"));
-            String numColorBands = params.getString("numColorBands");
-            if (numColorBands != null)
-                url.append("&NUMCOLORBANDS=" + numColorBands);
-            String logscale = params.getString("logscale");
-            if (logscale != null)
-                url.append("&LOGSCALE=" + logscale);
-            if (time != null)
-                /*
-                 * Yuck. But it seems to be necessary, otherwise "+" gets
-                 * interpreted wrongly
-                 */
-                url.append("&TIME=" + URLEncoder.encode(time, "UTF-8"));
-            String elevation = params.getString("elevation");
-            if (elevation != null)
-                url.append("&ELEVATION=" + elevation);
-            String targetElevation = params.getString("targetelevation");
-            if (targetElevation != null)
-                url.append("&TARGETELEVATION=" + targetElevation);
-            String targetTime = params.getString("targettime");
-            if (targetTime != null)
-                /*
-                 * Yuck. But it seems to be necessary, otherwise "+" gets
-                 * interpreted wrongly
-                 */
-                url.append("&TARGETTIME=" + URLEncoder.encode(targetTime, "UTF-8"));
+            return submit(() -> readImage(wmsUrl));
         }
+    }
 
-        url.append("&TRANSPARENT=true");
-        url.append("&VERSION=1.1.1&SERVICE=WMS&REQUEST=");
-        if (colorbar) {
-            url.append("GetLegendGraphic");
+    /**
+     * Starts fetching a background or overlay image. Recently-fetched images
+     * are cached.
+     * 
+     * @return A {@link Future} for the image
+     */
+    private Future<BufferedImage> submitBackground(RequestParams params, Float minLon,
+            Float minLat, Float maxLon, Float maxLat, int width, int height, String bgUrl) {
+        URL baseUrl = createBackgroundUrl(params, minLon, minLat, maxLon, maxLat, width, height,
+                bgUrl);
+        if (baseUrl == null) {
+            return submit(() -> null);
+        }
+        return submit(() -> {
+            try {
+                return backgroundCache.get(baseUrl.toString(), () -> {
+                    try {
+                        return readImage(baseUrl);
+                    } catch (IOException e) {
+                        throw new EdalException("Problem reading background image", e);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("Problem fetching background image " + baseUrl, e);
+                return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+        });
+    }
+
+    private Future<BufferedImage> submit(Callable<BufferedImage> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Waits for a required part of the screenshot to be generated
+     * 
+     * @param deadline
+     *            The {@link System#nanoTime()} by which the whole screenshot
+     *            must be generated
+     */
+    private static BufferedImage await(Future<BufferedImage> future, String description,
+            long deadline) throws EdalException {
+        try {
+            return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new EdalException("Timed out generating " + description + " for screenshot");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new EdalException("Interrupted whilst generating screenshot", e);
+        } catch (ExecutionException e) {
+            throw new EdalException("Problem generating " + description + " for screenshot",
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Waits for a background image. If it cannot be retrieved in time, the
+     * screenshot is generated without it.
+     */
+    private static BufferedImage awaitBackground(Future<BufferedImage> future, long deadline) {
+        try {
+            return await(future, "background image", deadline);
+        } catch (EdalException e) {
+            log.warn("Drawing screenshot without background image", e);
+            return null;
+        }
+    }
+
+    /**
+     * Draws the data layer from the catalogue, applying the same checks as a
+     * GetMap request. This is package-private for testing.
+     */
+    static BufferedImage drawMap(RequestParams params, WmsCatalogue catalogue)
+            throws EdalException {
+        GetMapParameters getMapParams = new GetMapParameters(params, catalogue);
+        WmsServlet.checkMapLimits(getMapParams, catalogue);
+        return getMapParams.getStyleParameters().getImageGenerator(catalogue)
+                .drawImage(getMapParams.getPlottingDomainParameters(), catalogue);
+    }
+
+    private static BufferedImage readImage(URL url) throws IOException {
+        URLConnection conn = url.openConnection();
+        int timeoutMillis = (int) TimeUnit.SECONDS.toMillis(SCREENSHOT_TIMEOUT_SECONDS);
+        conn.setConnectTimeout(timeoutMillis);
+        conn.setReadTimeout(timeoutMillis);
+        try (InputStream in = conn.getInputStream()) {
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) {
+                throw new IOException("No image could be read from " + url);
+            }
+            return image;
+        }
+    }
+
+    /**
+     * @param server
+     *            The URL of a WMS server. This may be relative to the URL of
+     *            this servlet.
+     * @param servletUrl
+     *            The URL of the web application containing this servlet
+     * @return Whether the given WMS server URL refers to this server. This is
+     *         package-private for testing.
+     */
+    static boolean isLocalServer(String server, String servletUrl) {
+        if (server == null) {
+            return false;
+        }
+        try {
+            URI base = new URI(servletUrl);
+            String resolved = base.resolve(new URI(server)).normalize().toString();
+            return resolved.startsWith(base.normalize().toString());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The parameters of a GetMap (or GetLegendGraphic) request for the
+     *         data layer, or <code>null</code> if no data server has been
+     *         specified
+     */
+    private static Map<String, String> getDataLayerParameters(RequestParams params,
+            Float minLon, Float minLat, Float maxLon, Float maxLat, int width, int height,
+            String time, boolean colorbar) {
+        String server = params.getString("server");
+        if (server == null || server.equalsIgnoreCase("null")) {
+            /*
+             * If we don't have a server, we can't plot a layer
+             */
+            return null;
+        }
+        Map<String, String> wmsParams = new LinkedHashMap<>();
+        wmsParams.put("SERVICE", "WMS");
+        wmsParams.put("LAYERS", params.getString("layer"));
+        String style = params.getString("style");
+        String palette = params.getString("palette");
+        if (style != null && palette != null) {
+            wmsParams.put("STYLES", style + "/" + palette);
         } else {
+            wmsParams.put("STYLES", "");
+        }
+        putIfNotNull(wmsParams, "COLORSCALERANGE", params.getString("scaleRange"));
+        putIfNotNull(wmsParams, "ABOVEMAXCOLOR", params.getString("aboveMaxColor"));
+        putIfNotNull(wmsParams, "BELOWMINCOLOR", params.getString("belowMinColor"));
+        putIfNotNull(wmsParams, "BGCOLOR", params.getString("noDataColor"));
+        putIfNotNull(wmsParams, "NUMCOLORBANDS", params.getString("numColorBands"));
+        putIfNotNull(wmsParams, "LOGSCALE", params.getString("logscale"));
+        putIfNotNull(wmsParams, "TIME", time);
+        putIfNotNull(wmsParams, "ELEVATION", params.getString("elevation"));
+        putIfNotNull(wmsParams, "TARGETELEVATION", params.getString("targetelevation"));
+        putIfNotNull(wmsParams, "TARGETTIME", params.getString("targettime"));
+        wmsParams.put("TRANSPARENT", "true");
+        wmsParams.put("VERSION", "1.1.1");
+        if (colorbar) {
             /*
              * Don't specify a width for a colourbar. A different default will
              * be used depending on whether we have a 1D or 2D variable
              */
-            url.append("GetMap&WIDTH=" + width);
+            wmsParams.put("REQUEST", "GetLegendGraphic");
+        } else {
+            wmsParams.put("REQUEST", "GetMap");
+            wmsParams.put("WIDTH", Integer.toString(width));
+        }
+        wmsParams.put("FORMAT", "image/png");
+        wmsParams.put("HEIGHT", Integer.toString(height));
+        wmsParams.put("BBOX", minLon + "," + minLat + "," + maxLon + "," + maxLat);
+        String crs = params.getString("crs");
+        if (crs.equalsIgnoreCase("CRS:84")) {
+            crs = "EPSG:4326";
         }
+        wmsParams.put("SRS", crs);
+        return wmsParams;
+    }
+
+    private static void putIfNotNull(Map<String, String> map, String key, String value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    private static URL createBackgroundUrl(RequestParams params, Float minLon, Float minLat,
+            Float maxLon, Float maxLat, int width, int height, String baseWmsUrl) {
+        StringBuilder url = new StringBuilder();
+        Pattern p = Pattern.compile(" ");
+        if (baseWmsUrl != null) {
+            Matcher m = p.matcher(baseWmsUrl);
+            if (m != null)
+                baseWmsUrl = m.replaceAll("%20");
+        }
+        url.append(baseWmsUrl);
+        url.append("&STYLES=");
+        url.append("&TRANSPARENT=true");
+        url.append("&VERSION=1.1.1&SERVICE=WMS&REQUEST=");
+        url.append("GetMap&WIDTH=" + width);
         url.append("&FORMAT=image/png&HEIGHT=" + height);
         url.append("&BBOX=" + minLon + "," + minLat + "," + maxLon + "," + maxLat);
         String crs = params.getString("crs");
@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTime;
+import org.joda.time.chrono.ISOChronology;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import uk.ac.rdg.resc.edal.domain.TemporalDomain;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.grid.TimeAxis;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.util.TimeUtils;
+import uk.ac.rdg.resc.edal.wms.util.TileMatrixSet;
+import uk.ac.rdg.resc.edal.wms.util.TileStore;
+import uk.ac.rdg.resc.edal.wms.util.WmsUtils;
+
+/**
+ * Pre-renders WMTS tiles for chosen layers, times and zoom levels, so that
+ * they can be served without reading any data.
+ * 
+ * Tiles can be seeded in-process with
+ * {@link TileSeeder#seed(String, String, String, TileMatrixSet, int, int, List, List)}
+ * , which renders into a {@link TileStore} directly, or from the command line
+ * with {@link TileSeeder#main(String[])}, which requests each tile from a
+ * running server configured with a {@link TileStore} (see
+ * {@link WmsServlet#setTileStore(TileStore)}).
+ * 
+ * Each tile is rendered for all of the requested times and elevations in
+ * turn, so the mapping from the data grid to the tile is only calculated once
+ * per tile.
+ */
+public class TileSeeder {
+    private static final Logger log = LoggerFactory.getLogger(TileSeeder.class);
+
+    private final WmsCatalogue catalogue;
+    private final TileStore tileStore;
+    private final int nThreads;
+
+    /**
+     * @param catalogue
+     *            The {@link WmsCatalogue} containing the layers to seed
+     * @param tileStore
+     *            The {@link TileStore} to write tiles to
+     * @param nThreads
+     *            The number of tiles to render in parallel
+     */
+    public TileSeeder(WmsCatalogue catalogue, TileStore tileStore, int nThreads) {
+        this.catalogue = catalogue;
+        this.tileStore = tileStore;
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * Renders all tiles of a layer which are not already in the store
+     * 
+     * @param layerName
+     *            The layer to seed
+     * @param style
+     *            The style to seed
+     * @param format
+     *            The MIME type of the tiles
+     * @param tileMatrixSet
+     *            The {@link TileMatrixSet} to seed
+     * @param minLevel
+     *            The lowest zoom level to seed
+     * @param maxLevel
+     *            The highest zoom level to seed
+     * @param times
+     *            The times to seed. Each may be a single time or a range
+     *            "start/end", which includes all times on the layer's time
+     *            axis within the range. If <code>null</code> or empty, only
+     *            the default time is seeded
+     * @param elevations
+     *            The elevations to seed. If <code>null</code> or empty, only
+     *            the default elevation is seeded
+     * @return The number of tiles rendered
+     * @throws EdalException
+     *             If the layer cannot be found or the times are invalid
+     * @throws InterruptedException
+     *             If interrupted whilst waiting for tiles to render
+     */
+    public int seed(final String layerName, final String style, final String format,
+            final TileMatrixSet tileMatrixSet, int minLevel, int maxLevel, List<String> times,
+            List<String> elevations) throws EdalException, InterruptedException {
+        VariableMetadata metadata = WmsUtils.getVariableMetadataFromLayerName(layerName,
+                catalogue);
+        final List<String> timeValues = expandTimes(times,
+                GetTileParameters.getTemporalDomain(metadata));
+        final List<String> elevationValues = (elevations == null || elevations.isEmpty())
+                ? Arrays.asList((String) null) : elevations;
+        GeographicBoundingBox bbox = metadata.getHorizontalDomain().getGeographicBoundingBox();
+
+        final AtomicInteger rendered = new AtomicInteger(0);
+        seedTiles(tileMatrixSet, minLevel, maxLevel, bbox, nThreads, new TileTask() {
+            @Override
+            public void seed(int level, int row, int col) throws Exception {
+                for (String time : timeValues) {
+                    for (String elevation : elevationValues) {
+                        Map<String, String[]> params = new HashMap<>();
+                        params.put("layer", new String[] { layerName });
+                        params.put("style", new String[] { style });
+                        params.put("format", new String[] { format });
+                        params.put("tilematrixset",
+                                new String[] { tileMatrixSet.getIdentifier() });
+                        params.put("tilematrix", new String[] { Integer.toString(level) });
+                        params.put("tilerow", new String[] { Integer.toString(row) });
+                        params.put("tilecol", new String[] { Integer.toString(col) });
+                        if (time != null) {
+                            params.put("time", new String[] { time });
+                        }
+                        if (elevation != null) {
+                            params.put("elevation", new String[] { elevation });
+                        }
+                        GetTileParameters tile = new GetTileParameters(new RequestParams(params),
+                                catalogue);
+                        if (!tileStore.hasTile(tile)) {
+                            tileStore.writeTile(tile, WmsUtils.renderTile(tile, catalogue));
+                            rendered.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        });
+        return rendered.get();
+    }
+
+    /*
+     * Expands any time ranges against the given temporal domain
+     */
+    private static List<String> expandTimes(List<String> times, TemporalDomain temporalDomain)
+            throws EdalException {
+        List<String> ret = new ArrayList<>();
+        if (times == null || times.isEmpty()) {
+            ret.add(null);
+            return ret;
+        }
+        Chronology chronology = temporalDomain == null ? ISOChronology.getInstanceUTC()
+                : temporalDomain.getChronology();
+        for (String time : times) {
+            String[] range = time.split("/");
+            if (range.length == 1) {
+                ret.add(time);
+            } else if (temporalDomain instanceof TimeAxis) {
+                DateTime start = TimeUtils.iso8601ToDateTime(range[0], chronology);
+                DateTime end = TimeUtils.iso8601ToDateTime(range[1], chronology);
+                for (DateTime value : ((TimeAxis) temporalDomain).getCoordinateValues()) {
+                    if (!value.isBefore(start) && !value.isAfter(end)) {
+                        ret.add(TimeUtils.dateTimeToISO8601(value));
+                    }
+                }
+            } else {
+                throw new EdalException("Time ranges can only be seeded for layers with a "
+                        + "discrete time axis");
+            }
+        }
+        return ret;
+    }
+
+    private interface TileTask {
+        void seed(int level, int row, int col) throws Exception;
+    }
+
+    /*
+     * Runs a task for every tile covering the bounding box. Tasks are
+     * submitted as threads become free, so that the full list of tiles is
+     * never held in memory.
+     */
+    private static void seedTiles(TileMatrixSet tileMatrixSet, int minLevel, int maxLevel,
+            GeographicBoundingBox bbox, int nThreads, final TileTask task)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        final Semaphore permits = new Semaphore(2 * nThreads);
+        try {
+            for (int level = minLevel; level <= maxLevel; level++) {
+                int[] range = tileMatrixSet.getTileRange(level, bbox);
+                log.info("Seeding level " + level + ": rows " + range[0] + "-" + range[1]
+                        + ", columns " + range[2] + "-" + range[3]);
+                for (int row = range[0]; row <= range[1]; row++) {
+                    for (int col = range[2]; col <= range[3]; col++) {
+                        permits.acquire();
+                        final int tileLevel = level;
+                        final int tileRow = row;
+                        final int tileCol = col;
+                        executor.submit(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    task.seed(tileLevel, tileRow, tileCol);
+                                } catch (Exception e) {
+                                    log.warn("Problem seeding tile " + tileLevel + "/" + tileRow
+                                            + "/" + tileCol, e);
+                                } finally {
+                                    permits.release();
+                                }
+                            }
+                        });
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Seeds tiles by requesting them from a running server which has a
+     * {@link TileStore}. The layer's bounding box and time values are read
+     * from the server's WMTS capabilities document.
+     * 
+     * <pre>
+     * Usage: TileSeeder serverUrl layerName [-style style] [-format mimeType]
+     *            [-tilematrixset id] [-levels min-max] [-times t1,t2,start/end...]
+     *            [-elevations e1,e2...] [-dataset datasetId] [-threads n]
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length % 2 != 0) {
+            log.error("Usage: TileSeeder serverUrl layerName [-style style] "
+                    + "[-format mimeType] [-tilematrixset id] [-levels min-max] "
+                    + "[-times t1,t2,start/end...] [-elevations e1,e2...] "
+                    + "[-dataset datasetId] [-threads n]");
+            System.exit(1);
+        }
+        final String serverUrl = args[0];
+        final String layerName = args[1];
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^-+", "").toLowerCase(), args[i + 1]);
+        }
+        final String style = options.containsKey("style") ? options.get("style") : "default";
+        String format = options.containsKey("format") ? options.get("format") : "image/png";
+        final TileMatrixSet tileMatrixSet = TileMatrixSet
+                .fromIdentifier(options.containsKey("tilematrixset")
+                        ? options.get("tilematrixset") : TileMatrixSet.WebMercatorQuad.name());
+        String[] levels = (options.containsKey("levels") ? options.get("levels") : "0-5")
+                .split("-");
+        int minLevel = Integer.parseInt(levels[0]);
+        int maxLevel = Integer.parseInt(levels[levels.length - 1]);
+        int nThreads = options.containsKey("threads") ? Integer.parseInt(options.get("threads"))
+                : Runtime.getRuntime().availableProcessors();
+
+        /*
+         * Find the layer's extent and times from the capabilities document
+         */
+        String capabilitiesUrl = serverUrl + "?SERVICE=WMTS&REQUEST=GetCapabilities";
+        if (options.containsKey("dataset")) {
+            capabilitiesUrl += "&DATASET=" + URLEncoder.encode(options.get("dataset"), "UTF-8");
+        }
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document capabilities;
+        try (InputStream in = new URL(capabilitiesUrl).openStream()) {
+            capabilities = builder.parse(in);
+        }
+        Element layer = findLayer(capabilities, layerName);
+        if (layer == null) {
+            throw new EdalException("Layer " + layerName + " is not in " + capabilitiesUrl);
+        }
+        GeographicBoundingBox bbox = getBoundingBox(layer);
+        List<String> timeValues = getDimensionValues(layer, "time");
+
+        final List<String> times = new ArrayList<>();
+        if (options.containsKey("times")) {
+            for (String time : options.get("times").split(",")) {
+                String[] range = time.split("/");
+                if (range.length == 1) {
+                    times.add(time);
+                } else {
+                    /*
+                     * Times in the capabilities document are all in the same
+                     * calendar, so can be compared directly
+                     */
+                    Chronology chronology = ISOChronology.getInstanceUTC();
+                    DateTime start = TimeUtils.iso8601ToDateTime(range[0], chronology);
+                    DateTime end = TimeUtils.iso8601ToDateTime(range[1], chronology);
+                    for (String value : timeValues) {
+                        DateTime t = TimeUtils.iso8601ToDateTime(value, chronology);
+                        if (!t.isBefore(start) && !t.isAfter(end)) {
+                            times.add(value);
+                        }
+                    }
+                }
+            }
+        } else {
+            times.add(null);
+        }
+        final List<String> elevations = new ArrayList<>();
+        if (options.containsKey("elevations")) {
+            elevations.addAll(Arrays.asList(options.get("elevations").split(",")));
+        } else {
+            elevations.add(null);
+        }
+
+        final String tilePathStart = serverUrl + "/wmts/" + encodePath(layerName) + "/"
+                + encodePath(style) + "/" + tileMatrixSet.getIdentifier() + "/";
+        final String extension = format.equalsIgnoreCase("image/jpeg") ? "jpg"
+                : format.substring(format.indexOf('/') + 1);
+        final AtomicInteger requested = new AtomicInteger(0);
+        final AtomicInteger failed = new AtomicInteger(0);
+        long startTime = System.currentTimeMillis();
+        seedTiles(tileMatrixSet, minLevel, maxLevel, bbox, nThreads, new TileTask() {
+            @Override
+            public void seed(int level, int row, int col) throws Exception {
+                for (String time : times) {
+                    for (String elevation : elevations) {
+                        StringBuilder url = new StringBuilder(tilePathStart).append(level)
+                                .append('/').append(row).append('/').append(col).append('.')
+                                .append(extension);
+                        char separator = '?';
+                        if (time != null) {
+                            url.append(separator).append("TIME=")
+                                    .append(URLEncoder.encode(time, "UTF-8"));
+                            separator = '&';
+                        }
+                        if (elevation != null) {
+                            url.append(separator).append("ELEVATION=")
+                                    .append(URLEncoder.encode(elevation, "UTF-8"));
+                        }
+                        if (fetch(url.toString())) {
+                            requested.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        });
+        log.info("Seeded " + requested.get() + " tiles (" + failed.get()
+                + " failed) in " + (System.currentTimeMillis() - startTime) / 1000 + "s");
+    }
+
+    private static boolean fetch(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                log.warn("Request for " + url + " failed with status "
+                        + connection.getResponseCode());
+                return false;
+            }
+            /*
+             * The server stores the tile - we just need to consume it
+             */
+            try (InputStream in = connection.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                }
+            }
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String encodePath(String path) throws IOException {
+        StringBuilder encoded = new StringBuilder();
+        for (String element : path.split("/")) {
+            if (encoded.length() > 0) {
+                encoded.append('/');
+            }
+            encoded.append(URLEncoder.encode(element, "UTF-8").replace("+", "%20"));
+        }
+        return encoded.toString();
+    }
+
+    private static final String OWS_NS = "http://www.opengis.net/ows/1.1";
+    private static final String WMTS_NS = "http://www.opengis.net/wmts/1.0";
+
+    private static Element findLayer(Document capabilities, String layerName) {
+        NodeList layers = capabilities.getElementsByTagNameNS(WMTS_NS, "Layer");
+        for (int i = 0; i < layers.getLength(); i++) {
+            Element layer = (Element) layers.item(i);
+            if (layerName.equals(getChildText(layer, OWS_NS, "Identifier"))) {
+                return layer;
+            }
+        }
+        return null;
+    }
+
+    private static GeographicBoundingBox getBoundingBox(Element layer) {
+        NodeList bboxes = layer.getElementsByTagNameNS(OWS_NS, "WGS84BoundingBox");
+        if (bboxes.getLength() == 0) {
+            return GISUtils.toGeographicBoundingBox(BoundingBoxImpl.global());
+        }
+        Element bbox = (Element) bboxes.item(0);
+        String[] lower = getChildText(bbox, OWS_NS, "LowerCorner").trim().split("\\s+");
+        String[] upper = getChildText(bbox, OWS_NS, "UpperCorner").trim().split("\\s+");
+        return GISUtils.toGeographicBoundingBox(new BoundingBoxImpl(Double.parseDouble(lower[0]),
+                Double.parseDouble(lower[1]), Double.parseDouble(upper[0]),
+                Double.parseDouble(upper[1]), GISUtils.defaultGeographicCRS()));
+    }
+
+    private static List<String> getDimensionValues(Element layer, String dimensionName) {
+        List<String> values = new ArrayList<>();
+        NodeList dimensions = layer.getElementsByTagNameNS(WMTS_NS, "Dimension");
+        for (int i = 0; i < dimensions.getLength(); i++) {
+            Element dimension = (Element) dimensions.item(i);
+            if (dimensionName.equals(getChildText(dimension, OWS_NS, "Identifier"))) {
+                NodeList valueNodes = dimension.getElementsByTagNameNS(WMTS_NS, "Value");
+                for (int j = 0; j < valueNodes.getLength(); j++) {
+                    values.add(valueNodes.item(j).getTextContent().trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String getChildText(Element element, String namespace, String name) {
+        for (Node child = element.getFirstChild(); child != null; child = child
+                .getNextSibling()) {
+            if (child instanceof Element && namespace.equals(child.getNamespaceURI())
+                    && name.equals(child.getLocalName())) {
+                return child.getTextContent().trim();
+            }
+        }
+        return null;
+    }
+}
@@ -112,4 +112,19 @@ public interface WmsCatalogue extends FeatureCatalogue, DatasetCatalogue {
      */
     public abstract boolean isDisabled(String layerName);
 
+    /**
+     * Checks whether the neighbouring timesteps and elevations of a layer may
+     * be extracted speculatively (see {@link MapPrefetcher}). This should only
+     * be enabled where extracted features are cached.
+     * 
+     * @param layerName
+     *            The name of the layer
+     * @return Whether or not features for the given layer may be extracted
+     *         before they are requested. This default implementation returns
+     *         <code>false</code>
+     */
+    public default boolean isPrefetchable(String layerName) {
+        return false;
+    }
+
 }
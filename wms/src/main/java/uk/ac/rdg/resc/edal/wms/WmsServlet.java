@@ -32,9 +32,12 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,6 +45,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -61,6 +65,7 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.velocity.Template;
@@ -73,8 +78,8 @@ import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
+import org.joda.time.Chronology;
 import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
 import org.joda.time.Period;
 import org.joda.time.chrono.ISOChronology;
 import org.json.JSONArray;
@@ -123,17 +128,22 @@ import uk.ac.rdg.resc.edal.graphics.style.MapImage;
 import uk.ac.rdg.resc.edal.graphics.style.ScaleRange;
 import uk.ac.rdg.resc.edal.graphics.style.SegmentColourScheme;
 import uk.ac.rdg.resc.edal.graphics.utils.ColourPalette;
+import uk.ac.rdg.resc.edal.graphics.utils.DatasetStatisticsIndex;
 import uk.ac.rdg.resc.edal.graphics.utils.EnhancedVariableMetadata;
 import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue.FeaturesAndMemberName;
 import uk.ac.rdg.resc.edal.graphics.utils.GraphicsUtils;
 import uk.ac.rdg.resc.edal.graphics.utils.LayerNameMapper;
 import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
 import uk.ac.rdg.resc.edal.graphics.utils.PlottingStyleParameters;
+import uk.ac.rdg.resc.edal.graphics.utils.ValueSummary;
 import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
 import uk.ac.rdg.resc.edal.grid.TimeAxis;
 import uk.ac.rdg.resc.edal.grid.VerticalAxis;
 import uk.ac.rdg.resc.edal.metadata.Parameter.Category;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
+import uk.ac.rdg.resc.edal.metrics.RequestStatistics;
 import uk.ac.rdg.resc.edal.position.GeoPosition;
 import uk.ac.rdg.resc.edal.position.HorizontalPosition;
 import uk.ac.rdg.resc.edal.position.VerticalPosition;
@@ -144,10 +154,15 @@ import uk.ac.rdg.resc.edal.util.Extents;
 import uk.ac.rdg.resc.edal.util.GISUtils;
 import uk.ac.rdg.resc.edal.util.GridCoordinates2D;
 import uk.ac.rdg.resc.edal.util.TimeUtils;
+import uk.ac.rdg.resc.edal.util.VerticalSection;
 import uk.ac.rdg.resc.edal.wms.exceptions.CurrentUpdateSequence;
 import uk.ac.rdg.resc.edal.wms.exceptions.EdalUnsupportedOperationException;
 import uk.ac.rdg.resc.edal.wms.exceptions.InvalidUpdateSequence;
 import uk.ac.rdg.resc.edal.wms.exceptions.LayerNotQueryableException;
+import uk.ac.rdg.resc.edal.wms.util.CachedDocument;
+import uk.ac.rdg.resc.edal.wms.util.MetadataCache;
+import uk.ac.rdg.resc.edal.wms.util.TileMatrixSet;
+import uk.ac.rdg.resc.edal.wms.util.TileStore;
 import uk.ac.rdg.resc.edal.wms.util.WmsUtils;
 
 /**
@@ -188,12 +203,86 @@ public class WmsServlet extends HttpServlet {
             "EPSG:32761" // South Polar stereographic
     };
 
+    /*
+     * Marks the position in the capabilities templates at which the layers of
+     * each dataset are inserted
+     */
+    private static final String DATASET_LAYERS_MARKER = "@@DATASET_LAYERS@@\n";
+
+    private static final int MAX_CACHED_LEGENDS = 1024;
+    /*
+     * The parameters of a GetLegendGraphic request which affect the legend
+     * image: the layer and style, palette and colours, colour scale range,
+     * scaling, number of colour bands, and size
+     */
+    private static final String[] LEGEND_PARAMS = new String[] { "layer", "layers", "style",
+            "styles", "sld", "sld_body", "palette", "abovemaxcolor", "belowmincolor", "bgcolor",
+            "transparent", "opacity", "colorscalerange", "logscale", "numcolorbands", "width",
+            "height", "colorbaronly", "vertical" };
+    /*
+     * How long clients may cache legends with explicit colour scale ranges
+     * for. Plain colour bars only depend on the palette, so can be cached for
+     * longer.
+     */
+    private static final int LEGEND_MAX_AGE_SECONDS = 24 * 60 * 60;
+    private static final int COLOUR_BAR_MAX_AGE_SECONDS = 7 * 24 * 60 * 60;
+
+    /*
+     * The path under this servlet at which RESTful WMTS requests are served
+     */
+    private static final String WMTS_PATH = "/wmts/";
+    private static final String WMTS_CAPABILITIES_PATH = "1.0.0/WMTSCapabilities.xml";
+    /*
+     * The request types which are timed separately. All others are grouped
+     * together.
+     */
+    private static final Set<String> METRICS_REQUEST_TYPES = new TreeSet<>(Arrays.asList(
+            "GetMap", "GetCapabilities", "GetFeatureInfo", "GetMetadata", "GetLegendGraphic",
+            "GetTimeseries", "GetTransect", "GetVerticalProfile", "GetTile", "GetMetrics"));
+    /*
+     * How long clients may cache tiles for
+     */
+    private static final int TILE_MAX_AGE_SECONDS = 60 * 60;
+    /*
+     * The formats which tiles are advertised in, with their RESTful extensions
+     */
+    private static final Map<String, String> TILE_FORMATS = new LinkedHashMap<>();
+    static {
+        TILE_FORMATS.put("image/png", "png");
+        TILE_FORMATS.put("image/jpeg", "jpg");
+    }
+
+    /**
+     * The name of the servlet context attribute under which the
+     * {@link WmsCatalogue} of this servlet is published, so that other
+     * servlets in the same web application (e.g. the {@link ScreenshotServlet})
+     * can use it
+     */
+    public static final String CATALOGUE_ATTRIBUTE = WmsCatalogue.class.getName();
+
     private WmsCatalogue catalogue = null;
     protected final VelocityEngine velocityEngine;
     private final Set<String> advertisedPalettes = new TreeSet<>();
+    private final MetadataCache<String> capabilitiesCache = new MetadataCache<>();
+    private final MetadataCache<JSONObject> menuCache = new MetadataCache<>();
+    private final MetadataCache<String> layerDetailsCache = new MetadataCache<>();
+    /*
+     * Encoded legend images. Legends only depend on the request parameters
+     * and the catalogue, and are requested alongside nearly every map.
+     * Entries never expire: they are replaced when the version returned by
+     * getLegendVersion() changes, and otherwise only evicted when the cache
+     * is full.
+     */
+    private final MetadataCache<Void> legendCache = new MetadataCache<>(MAX_CACHED_LEGENDS, 1);
 
     private String[] SupportedCrsCodes = DEFAULT_SUPPORTED_CRS_CODES;
 
+    private TileStore tileStore = null;
+    private MapPrefetcher mapPrefetcher = null;
+    private Set<String> trustedProxies = Collections.emptySet();
+    private boolean metricsEndpointEnabled = false;
+    private long slowRequestThresholdMillis = -1L;
+
     /**
      * @see HttpServlet#HttpServlet()
      */
@@ -234,6 +323,23 @@ public class WmsServlet extends HttpServlet {
      */
     public void setCatalogue(WmsCatalogue catalogue) {
         this.catalogue = catalogue;
+        publishCatalogue();
+    }
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        publishCatalogue();
+    }
+
+    /*
+     * Publishes the catalogue to the servlet context, if it has been set and
+     * this servlet has been initialised
+     */
+    private void publishCatalogue() {
+        if (catalogue != null && getServletConfig() != null) {
+            getServletContext().setAttribute(CATALOGUE_ATTRIBUTE, catalogue);
+        }
     }
 
     /**
@@ -276,6 +382,73 @@ public class WmsServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Sets a {@link TileStore} of pre-rendered WMTS tiles. Standard GetTile
+     * requests are served from the store where possible, and tiles which are
+     * rendered are added to it, so that tiles which are seeded (e.g. with a
+     * {@link TileSeeder}) or requested once don't need to be rendered again
+     * until the catalogue is updated.
+     * 
+     * @param tileStore
+     *            The {@link TileStore} to use, or <code>null</code> to always
+     *            render tiles
+     */
+    public void setTileStore(TileStore tileStore) {
+        this.tileStore = tileStore;
+    }
+
+    /**
+     * Sets a {@link MapPrefetcher} which is given every successful GetMap
+     * request, so that the adjacent timesteps and elevations can be extracted
+     * into the catalogue's feature cache before the client asks for them.
+     * 
+     * @param mapPrefetcher
+     *            The {@link MapPrefetcher} to use, or <code>null</code> to
+     *            disable prefetching
+     */
+    public void setMapPrefetcher(MapPrefetcher mapPrefetcher) {
+        this.mapPrefetcher = mapPrefetcher;
+    }
+
+    /**
+     * Sets the addresses of reverse proxies in front of this servlet. The
+     * X-Forwarded-For header is only used to identify clients (e.g. for
+     * limiting prefetching) on requests which come from one of these
+     * addresses, since any client can set the header.
+     * 
+     * @param proxyAddresses
+     *            The IP addresses of the trusted proxies, as returned by
+     *            {@link HttpServletRequest#getRemoteAddr()}
+     */
+    public void setTrustedProxies(Collection<String> proxyAddresses) {
+        this.trustedProxies = Collections.unmodifiableSet(new HashSet<>(proxyAddresses));
+    }
+
+    /**
+     * Sets whether the non-standard GetMetrics request is served. This returns
+     * the {@link RequestStatistics} of all requests handled by this JVM as
+     * plain text, in the Prometheus text exposition format. The same
+     * statistics are always available through JMX.
+     * 
+     * @param metricsEndpointEnabled
+     *            <code>true</code> to serve GetMetrics requests
+     */
+    public void setMetricsEndpointEnabled(boolean metricsEndpointEnabled) {
+        this.metricsEndpointEnabled = metricsEndpointEnabled;
+    }
+
+    /**
+     * Sets a threshold above which requests are logged, along with a
+     * breakdown of where the time was spent
+     * 
+     * @param slowRequestThresholdMillis
+     *            The threshold in milliseconds, or a negative number to never
+     *            log slow requests
+     */
+    public void setSlowRequestThresholdMillis(long slowRequestThresholdMillis) {
+        this.slowRequestThresholdMillis = slowRequestThresholdMillis;
+    }
+
     /**
      * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse
      *      response)
@@ -290,14 +463,46 @@ public class WmsServlet extends HttpServlet {
          */
         RequestParams params = new RequestParams(httpServletRequest.getParameterMap());
 
+        String pathInfo = httpServletRequest.getPathInfo();
+        boolean restful = pathInfo != null && pathInfo.startsWith(WMTS_PATH);
+        boolean wmts = restful || "WMTS".equalsIgnoreCase(params.getString("service"));
+
+        /*
+         * Time the request. Request types and datasets are only taken from a
+         * known set, so that clients cannot create arbitrary numbers of
+         * statistics.
+         */
+        String requestType = restful ? (pathInfo.endsWith(WMTS_CAPABILITIES_PATH)
+                ? "GetCapabilities" : "GetTile") : params.getString("request");
+        if (requestType == null || !METRICS_REQUEST_TYPES.contains(requestType)) {
+            requestType = "Other";
+        }
+        RequestMetrics metrics = RequestMetrics.start(wmts ? "WMTS:" + requestType : requestType);
+        setMetricsDataset(params.getString("layers", params.getString("layer",
+                params.getString("query_layers"))), catalogue);
+        boolean failed = true;
         try {
-            /*
-             * Check the REQUEST parameter to see if we're producing a
-             * capabilities document, a map or a FeatureInfo
-             */
-            String request = params.getMandatoryString("request");
-            dispatchWmsRequest(request, params, httpServletRequest, httpServletResponse, catalogue);
+            if (restful) {
+                dispatchWmtsRestRequest(pathInfo.substring(WMTS_PATH.length()), params,
+                        httpServletRequest, httpServletResponse, catalogue);
+            } else if (wmts) {
+                dispatchWmtsRequest(params.getMandatoryString("request"), params,
+                        httpServletRequest, httpServletResponse, catalogue);
+            } else {
+                /*
+                 * Check the REQUEST parameter to see if we're producing a
+                 * capabilities document, a map or a FeatureInfo
+                 */
+                String request = params.getMandatoryString("request");
+                dispatchWmsRequest(request, params, httpServletRequest, httpServletResponse,
+                        catalogue);
+            }
+            failed = false;
         } catch (EdalException wmse) {
+            if (wmts) {
+                handleWmtsException(wmse, httpServletResponse);
+                return;
+            }
             boolean v130;
             try {
                 v130 = "1.3.0".equals(params.getMandatoryWmsVersion());
@@ -335,9 +540,52 @@ public class WmsServlet extends HttpServlet {
             /* An unexpected (internal) error has occurred */
             e.printStackTrace();
             throw new IOException(e);
+        } finally {
+            metrics.finish(failed);
+            if (slowRequestThresholdMillis >= 0
+                    && metrics.getElapsedMillis() > slowRequestThresholdMillis) {
+                String query = httpServletRequest.getQueryString();
+                log.warn("Slow request to " + httpServletRequest.getRequestURI()
+                        + (query == null ? "" : "?" + query) + " - " + metrics);
+            }
         }
     }
 
+    /*
+     * Sets the dataset of the request being timed, if the (first) layer name
+     * belongs to a dataset in the catalogue
+     */
+    private static void setMetricsDataset(String layerNames, WmsCatalogue catalogue) {
+        RequestMetrics metrics = RequestMetrics.current();
+        if (metrics == null || layerNames == null || catalogue == null) {
+            return;
+        }
+        try {
+            String datasetId = catalogue.getLayerNameMapper()
+                    .getDatasetIdFromLayerName(layerNames.split(",")[0]);
+            if (datasetId != null && catalogue.getDatasetFromId(datasetId) != null) {
+                metrics.setDataset(datasetId);
+            }
+        } catch (Exception e) {
+            /*
+             * Not a valid layer. This will be reported when the request is
+             * handled.
+             */
+        }
+    }
+
+    /**
+     * Writes the statistics of all timed requests as plain text
+     * 
+     * @param httpServletResponse
+     *            The {@link HttpServletResponse} to write to
+     */
+    protected void getMetrics(HttpServletResponse httpServletResponse) throws IOException {
+        httpServletResponse.setContentType("text/plain; version=0.0.4");
+        httpServletResponse.setCharacterEncoding("UTF-8");
+        RequestStatistics.writeText(httpServletResponse.getWriter());
+    }
+
     /**
      * Sends the HTTP request to the appropriate WMS method
      * 
@@ -362,8 +610,12 @@ public class WmsServlet extends HttpServlet {
         }
         if (request.equals("GetMap")) {
             getMap(params, httpServletResponse, catalogue);
+            MapPrefetcher prefetcher = mapPrefetcher;
+            if (prefetcher != null) {
+                prefetcher.prefetch(getClientId(httpServletRequest), params, catalogue);
+            }
         } else if (request.equals("GetCapabilities")) {
-            getCapabilities(params, httpServletResponse,
+            getCapabilities(params, httpServletRequest, httpServletResponse,
                     httpServletRequest.getRequestURL().toString(), catalogue);
         } else if (request.equals("GetFeatureInfo")) {
             /* Look to see if we're requesting data from a remote server */
@@ -384,19 +636,21 @@ public class WmsServlet extends HttpServlet {
             /*
              * This is a request for non-standard metadata.
              */
-            getMetadata(params, httpServletResponse, catalogue);
+            getMetadata(params, httpServletRequest, httpServletResponse, catalogue);
         } else if (request.equals("GetLegendGraphic")) {
             /*
              * This is a request for an image representing the legend for the
              * map parameters
              */
-            getLegendGraphic(params, httpServletResponse, catalogue);
+            getLegendGraphic(params, httpServletRequest, httpServletResponse, catalogue);
         } else if (request.equals("GetTimeseries")) {
             getTimeseries(params, httpServletResponse, catalogue);
         } else if (request.equals("GetTransect")) {
             getTransect(params, httpServletResponse, catalogue);
         } else if (request.equals("GetVerticalProfile")) {
             getVerticalProfile(params, httpServletResponse, catalogue);
+        } else if (request.equals("GetMetrics") && metricsEndpointEnabled) {
+            getMetrics(httpServletResponse);
             // } else if (request.equals("GetVerticalSection")) {
             // getVerticalSection(params, httpServletResponse);
         } else {
@@ -404,9 +658,295 @@ public class WmsServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Sends a KVP WMTS request to the appropriate method
+     * 
+     * @param request
+     *            The URL REQUEST parameter
+     * @param params
+     *            A map of URL parameters, implemented in a case-insensitive way
+     * @param httpServletRequest
+     *            The {@link HttpServletRequest} object from the GET request
+     * @param httpServletResponse
+     *            The {@link HttpServletResponse} object from the GET request
+     * @param catalogue
+     *            The {@link WmsCatalogue} which should be used to serve
+     *            datasets.
+     */
+    protected void dispatchWmtsRequest(String request, RequestParams params,
+            HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            WmsCatalogue catalogue) throws Exception {
+        if (catalogue == null) {
+            throw new EdalException(
+                    "No WMS catalogue has been set to discover datasets.  This is likely to be a programming error.");
+        }
+        if (request.equals("GetTile")) {
+            getTile(params, httpServletResponse, catalogue);
+        } else if (request.equals("GetCapabilities")) {
+            getWmtsCapabilities(params, httpServletRequest, httpServletResponse,
+                    httpServletRequest.getRequestURL().toString(), catalogue);
+        } else {
+            throw new OperationNotSupportedException(request);
+        }
+    }
+
+    /**
+     * Handles a RESTful WMTS request. Tiles are requested with paths of the
+     * form:
+     * 
+     * <pre>
+     * wmts/{Layer}/{Style}/{TileMatrixSet}/{TileMatrix}/{TileRow}/{TileCol}.{extension}
+     * </pre>
+     * 
+     * with TIME and ELEVATION (and any other GetMap parameters) given as URL
+     * parameters. Layer and style names may themselves contain "/", so the
+     * layer name is taken to be the longest prefix which is a valid layer.
+     * 
+     * @param path
+     *            The path of the request, relative to the WMTS root
+     */
+    protected void dispatchWmtsRestRequest(String path, RequestParams params,
+            HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            WmsCatalogue catalogue) throws Exception {
+        if (catalogue == null) {
+            throw new EdalException(
+                    "No WMS catalogue has been set to discover datasets.  This is likely to be a programming error.");
+        }
+        String requestUrl = httpServletRequest.getRequestURL().toString();
+        if (path.equals(WMTS_CAPABILITIES_PATH)) {
+            getWmtsCapabilities(params, httpServletRequest, httpServletResponse,
+                    requestUrl.substring(0,
+                            requestUrl.length() - WMTS_PATH.length() - path.length()),
+                    catalogue);
+            return;
+        }
+
+        String[] parts = path.split("/");
+        if (parts.length < 6) {
+            throw new EdalException("RESTful tile requests must be of the form "
+                    + "{Layer}/{Style}/{TileMatrixSet}/{TileMatrix}/{TileRow}/{TileCol}.{format}");
+        }
+        String colAndExtension = parts[parts.length - 1];
+        int dot = colAndExtension.lastIndexOf('.');
+        if (dot < 0) {
+            throw new EdalException("RESTful tile requests must end in a file extension");
+        }
+        Map<String, String> tileParams = new HashMap<>();
+        tileParams.put("tilematrixset", parts[parts.length - 4]);
+        tileParams.put("tilematrix", parts[parts.length - 3]);
+        tileParams.put("tilerow", parts[parts.length - 2]);
+        tileParams.put("tilecol", colAndExtension.substring(0, dot));
+        tileParams.put("format",
+                GetTileParameters.getFormatForExtension(colAndExtension.substring(dot + 1)));
+
+        int nLayerAndStyleParts = parts.length - 4;
+        String layerName = null;
+        for (int i = nLayerAndStyleParts - 1; i > 0; i--) {
+            String candidate = StringUtils.join(parts, '/', 0, i);
+            try {
+                WmsUtils.getVariableMetadataFromLayerName(candidate, catalogue);
+                layerName = candidate;
+                tileParams.put("layer", layerName);
+                tileParams.put("style", StringUtils.join(parts, '/', i, nLayerAndStyleParts));
+                break;
+            } catch (EdalException e) {
+                /*
+                 * Not a layer - try a shorter prefix
+                 */
+            }
+        }
+        if (layerName == null) {
+            throw new EdalLayerNotFoundException("No layer found in the path " + path);
+        }
+        getTile(params.mergeParameters(tileParams), httpServletResponse, catalogue);
+    }
+
+    /**
+     * Writes a single WMTS tile, from the {@link TileStore} if one has been
+     * set and contains it
+     */
+    protected void getTile(RequestParams params, HttpServletResponse httpServletResponse,
+            WmsCatalogue catalogue) throws EdalException {
+        GetTileParameters tileParams;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.PARSE)) {
+            tileParams = new GetTileParameters(params, catalogue);
+        }
+        setMetricsDataset(params.getString("layer"), catalogue);
+        boolean useStore = tileStore != null && tileParams.isStandard();
+
+        byte[] tile = null;
+        if (useStore) {
+            try {
+                tile = tileStore.readTile(tileParams);
+            } catch (IOException e) {
+                log.warn("Problem reading tile from store", e);
+            }
+        }
+        if (tile == null) {
+            tile = WmsUtils.renderTile(tileParams, catalogue);
+            if (useStore) {
+                try {
+                    tileStore.writeTile(tileParams, tile);
+                } catch (IOException e) {
+                    log.warn("Problem writing tile to store", e);
+                }
+            }
+        }
+
+        httpServletResponse.setContentType(tileParams.getFormatString());
+        httpServletResponse.setContentLength(tile.length);
+        httpServletResponse.setHeader("Cache-Control", "max-age=" + TILE_MAX_AGE_SECONDS);
+        try (ServletOutputStream outputStream = httpServletResponse.getOutputStream()) {
+            outputStream.write(tile);
+        } catch (IOException e) {
+            /*
+             * Clients often cancel tile requests when panning and zooming
+             */
+            if (!(e instanceof SocketException) && !(e.getCause() instanceof SocketException)) {
+                log.error("Problem writing output to stream", e);
+            }
+        }
+    }
+
+    /**
+     * Writes a WMTS capabilities document. As with the WMS capabilities, the
+     * DATASET parameter can be used to limit the document to a single dataset.
+     */
+    protected void getWmtsCapabilities(RequestParams params,
+            HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+            String baseUrl, WmsCatalogue catalogue) throws EdalException {
+        String datasetId = params.getString("dataset");
+        Collection<Dataset> datasets;
+        if (datasetId == null || "".equals(datasetId.trim())) {
+            if (catalogue.getServerInfo().allowsGlobalCapabilities()) {
+                datasetId = "";
+                datasets = catalogue.getAllDatasets();
+            } else {
+                throw new EdalException("Cannot create a Capabilities document "
+                        + "that includes all datasets on this server. "
+                        + "You must specify a dataset identifier with &amp;DATASET=");
+            }
+        } else {
+            Dataset ds = catalogue.getDatasetFromId(datasetId);
+            if (ds == null) {
+                throw new EdalException("There is no dataset with ID " + datasetId);
+            }
+            datasets = new ArrayList<Dataset>();
+            datasets.add(ds);
+        }
+
+        String key = "WMTS|" + baseUrl + "|" + datasetId;
+        Object version = getCapabilitiesVersion(datasets, catalogue);
+        CachedDocument capabilities = capabilitiesCache.getDocument(key, version);
+        if (capabilities == null) {
+            VelocityContext context = createCapabilitiesContext(baseUrl, catalogue, false);
+            context.put("datasets", datasets);
+            context.put("tileMatrixSets", TileMatrixSet.getAll());
+            context.put("tileSize", TileMatrixSet.TILE_SIZE);
+            context.put("tileFormats", TILE_FORMATS.keySet());
+            context.put("tileExtensions", TILE_FORMATS);
+            StringWriter documentWriter = new StringWriter();
+            mergeCapabilitiesTemplate("templates/capabilities-wmts-1.0.0.vm", context,
+                    documentWriter);
+            capabilities = CachedDocument.fromString(documentWriter.toString(), "text/xml");
+            capabilitiesCache.putDocument(key, version, capabilities);
+        }
+
+        try {
+            capabilities.write(httpServletRequest, httpServletResponse);
+        } catch (IOException e) {
+            log.error("Problem writing output to stream", e);
+        }
+    }
+
+    /**
+     * Identifies the client making a request, for the purposes of limiting
+     * the amount of prefetching it can trigger. This is the session ID where
+     * the client has a session, and its address otherwise. Requests from a
+     * trusted proxy are identified by the last address in X-Forwarded-For
+     * which isn't also a trusted proxy - earlier addresses are supplied by
+     * the client and can't be trusted.
+     */
+    String getClientId(HttpServletRequest httpServletRequest) {
+        HttpSession session = httpServletRequest.getSession(false);
+        if (session != null) {
+            return session.getId();
+        }
+        String address = httpServletRequest.getRemoteAddr();
+        String forwardedFor = httpServletRequest.getHeader("X-Forwarded-For");
+        if (forwardedFor != null) {
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0 && trustedProxies.contains(address); i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty()) {
+                    address = hop;
+                }
+            }
+        }
+        return address;
+    }
+
+    /**
+     * Checks that a GetMap request is within the limits of the server (e.g.
+     * the maximum image size and number of layers), and that the requested
+     * image format supports the requested style. This is applied to all maps
+     * rendered by this server, including those rendered for other servlets.
+     * 
+     * @param getMapParams
+     *            The {@link GetMapParameters} of the request
+     * @param catalogue
+     *            The {@link WmsCatalogue} to render the map from
+     * @throws EdalException
+     *             If the request cannot be satisfied
+     */
+    static void checkMapLimits(GetMapParameters getMapParams, WmsCatalogue catalogue)
+            throws EdalException {
+        PlottingDomainParams plottingParameters = getMapParams.getPlottingDomainParameters();
+        GetMapStyleParams styleParameters = getMapParams.getStyleParameters();
+        /*
+         * Do some checks on the style parameters.
+         * 
+         * These only apply to non-XML styles. XML ones are more complex to
+         * handle.
+         */
+        if (!styleParameters.isXmlDefined()) {
+            if (styleParameters.isTransparent()
+                    && !getMapParams.getImageFormat().supportsFullyTransparentPixels()) {
+                throw new EdalException(
+                        "The image format " + getMapParams.getImageFormat().getMimeType()
+                                + " does not support fully-transparent pixels");
+            }
+            if (styleParameters.getOpacity() < 100
+                    && !getMapParams.getImageFormat().supportsPartiallyTransparentPixels()) {
+                throw new EdalException(
+                        "The image format " + getMapParams.getImageFormat().getMimeType()
+                                + " does not support partially-transparent pixels");
+            }
+            if (styleParameters.getNumLayers() > catalogue.getServerInfo()
+                    .getMaxSimultaneousLayers()) {
+                throw new EdalException(
+                        "Only " + catalogue.getServerInfo().getMaxSimultaneousLayers()
+                                + " layer(s) can be plotted at once");
+            }
+        }
+
+        /*
+         * Check the dimensions of the image
+         */
+        if (plottingParameters.getHeight() > catalogue.getServerInfo().getMaxImageHeight()
+                || plottingParameters.getWidth() > catalogue.getServerInfo().getMaxImageWidth()) {
+            throw new EdalException("Requested image size exceeds the maximum of "
+                    + catalogue.getServerInfo().getMaxImageWidth() + "x"
+                    + catalogue.getServerInfo().getMaxImageHeight());
+        }
+    }
+
     protected void getMap(RequestParams params, HttpServletResponse httpServletResponse,
             WmsCatalogue catalogue) throws EdalException {
-        GetMapParameters getMapParams = new GetMapParameters(params, catalogue);
+        GetMapParameters getMapParams;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.PARSE)) {
+            getMapParams = new GetMapParameters(params, catalogue);
+        }
 
         PlottingDomainParams plottingParameters = getMapParams.getPlottingDomainParameters();
         GetMapStyleParams styleParameters = getMapParams.getStyleParameters();
@@ -474,46 +1014,11 @@ public class WmsServlet extends HttpServlet {
             if (!GISUtils
                     .isWgs84LonLat(plottingParameters.getBbox().getCoordinateReferenceSystem())) {
                 throw new EdalException("KMZ files can only be generated from WGS84 projections");
-            }
-        }
-
-        /*
-         * Do some checks on the style parameters.
-         * 
-         * These only apply to non-XML styles. XML ones are more complex to
-         * handle.
-         */
-        if (!styleParameters.isXmlDefined()) {
-            if (styleParameters.isTransparent()
-                    && !getMapParams.getImageFormat().supportsFullyTransparentPixels()) {
-                throw new EdalException(
-                        "The image format " + getMapParams.getImageFormat().getMimeType()
-                                + " does not support fully-transparent pixels");
-            }
-            if (styleParameters.getOpacity() < 100
-                    && !getMapParams.getImageFormat().supportsPartiallyTransparentPixels()) {
-                throw new EdalException(
-                        "The image format " + getMapParams.getImageFormat().getMimeType()
-                                + " does not support partially-transparent pixels");
-            }
-            if (styleParameters.getNumLayers() > catalogue.getServerInfo()
-                    .getMaxSimultaneousLayers()) {
-                throw new EdalException(
-                        "Only " + catalogue.getServerInfo().getMaxSimultaneousLayers()
-                                + " layer(s) can be plotted at once");
-            }
-        }
-
-        /*
-         * Check the dimensions of the image
-         */
-        if (plottingParameters.getHeight() > catalogue.getServerInfo().getMaxImageHeight()
-                || plottingParameters.getWidth() > catalogue.getServerInfo().getMaxImageWidth()) {
-            throw new EdalException("Requested image size exceeds the maximum of "
-                    + catalogue.getServerInfo().getMaxImageWidth() + "x"
-                    + catalogue.getServerInfo().getMaxImageHeight());
+            }
         }
 
+        checkMapLimits(getMapParams, catalogue);
+
         /*
          * Set the content type to be what was requested. If anything goes
          * wrong, this will be overwritten to "text/xml" in the
@@ -521,46 +1026,54 @@ public class WmsServlet extends HttpServlet {
          */
         httpServletResponse.setContentType(getMapParams.getFormatString());
 
-        MapImage imageGenerator = styleParameters.getImageGenerator(catalogue);
+        MapImage imageGenerator;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.STYLE)) {
+            imageGenerator = styleParameters.getImageGenerator(catalogue);
+        }
 
         List<BufferedImage> frames;
         /*
          * Used for KML format
          */
         List<DateTime> timeValues = new ArrayList<>();
-        if (!getMapParams.isAnimation()) {
-            frames = Arrays.asList(imageGenerator.drawImage(plottingParameters, catalogue));
-            timeValues.add(plottingParameters.getTargetT());
-        } else {
-            frames = new ArrayList<>();
-            for (DateTime timeStep : getMapParams.getAnimationTimesteps()) {
-                PlottingDomainParams timestepParameters = new PlottingDomainParams(
-                        plottingParameters.getWidth(), plottingParameters.getHeight(),
-                        plottingParameters.getBbox(), plottingParameters.getZExtent(), null,
-                        plottingParameters.getTargetHorizontalPosition(),
-                        plottingParameters.getTargetZ(), timeStep);
-                BufferedImage frame = imageGenerator.drawImage(timestepParameters, catalogue);
-                Graphics2D g = frame.createGraphics();
-                g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
-                g.setColor(Color.white);
-                g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 9,
-                        frame.getHeight() - 9);
-                g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 9,
-                        frame.getHeight() - 11);
-                g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 11,
-                        frame.getHeight() - 11);
-                g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 11,
-                        frame.getHeight() - 9);
-                g.setColor(Color.black);
-                g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 10,
-                        frame.getHeight() - 10);
-                timeValues.add(timeStep);
-                frames.add(frame);
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DRAW)) {
+            if (!getMapParams.isAnimation()) {
+                BufferedImage frame = WmsUtils.drawMap(imageGenerator, plottingParameters,
+                        getMapParams.getImageFormat(), catalogue);
+                frames = Arrays.asList(frame);
+                timeValues.add(plottingParameters.getTargetT());
+            } else {
+                frames = new ArrayList<>();
+                for (DateTime timeStep : getMapParams.getAnimationTimesteps()) {
+                    PlottingDomainParams timestepParameters = new PlottingDomainParams(
+                            plottingParameters.getWidth(), plottingParameters.getHeight(),
+                            plottingParameters.getBbox(), plottingParameters.getZExtent(), null,
+                            plottingParameters.getTargetHorizontalPosition(),
+                            plottingParameters.getTargetZ(), timeStep);
+                    BufferedImage frame = imageGenerator.drawImage(timestepParameters, catalogue);
+                    Graphics2D g = frame.createGraphics();
+                    g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 16));
+                    g.setColor(Color.white);
+                    g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 9,
+                            frame.getHeight() - 9);
+                    g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 9,
+                            frame.getHeight() - 11);
+                    g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 11,
+                            frame.getHeight() - 11);
+                    g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 11,
+                            frame.getHeight() - 9);
+                    g.setColor(Color.black);
+                    g.drawString(TimeUtils.formatUtcHumanReadableDateTime(timeStep), 10,
+                            frame.getHeight() - 10);
+                    timeValues.add(timeStep);
+                    frames.add(frame);
+                }
             }
         }
 
         ImageFormat imageFormat = getMapParams.getImageFormat();
-        try (ServletOutputStream outputStream = httpServletResponse.getOutputStream()) {
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.ENCODE);
+                ServletOutputStream outputStream = httpServletResponse.getOutputStream()) {
             if (imageFormat instanceof SimpleFormat) {
                 /*
                  * We have a normal image format
@@ -617,6 +1130,19 @@ public class WmsServlet extends HttpServlet {
 
     protected void getCapabilities(RequestParams params, HttpServletResponse httpServletResponse,
             String baseUrl, WmsCatalogue catalogue) throws EdalException {
+        getCapabilities(params, null, httpServletResponse, baseUrl, catalogue);
+    }
+
+    /**
+     * Writes a capabilities document.
+     * 
+     * @param httpServletRequest
+     *            The {@link HttpServletRequest}, used to check for conditional
+     *            requests and gzip support. May be <code>null</code>
+     */
+    protected void getCapabilities(RequestParams params, HttpServletRequest httpServletRequest,
+            HttpServletResponse httpServletResponse, String baseUrl, WmsCatalogue catalogue)
+            throws EdalException {
         /*
          * We only advertise text/xml as a GetCapabilities format. The spec says
          * we can return text/xml for unknown formats, so we don't even need to
@@ -651,13 +1177,9 @@ public class WmsServlet extends HttpServlet {
             }
         }
 
-        String wmsVersion = params.getString("version", "1.3.0");
-        Template template;
-        if ("1.1.1".equals(wmsVersion)) {
-            template = velocityEngine.getTemplate("templates/capabilities-1.1.1.vm");
-        } else {
-            template = velocityEngine.getTemplate("templates/capabilities-1.3.0.vm");
-        }
+        String wmsVersion = "1.1.1".equals(params.getString("version", "1.3.0")) ? "1.1.1"
+                : "1.3.0";
+        boolean verbose = params.getBoolean("verbose", false);
 
         /*
          * The DATASET parameter is an optional parameter that allows a
@@ -674,6 +1196,7 @@ public class WmsServlet extends HttpServlet {
              * (this can be VERY large)
              */
             if (catalogue.getServerInfo().allowsGlobalCapabilities()) {
+                datasetId = "";
                 datasets = catalogue.getAllDatasets();
             } else {
                 throw new EdalException("Cannot create a Capabilities document "
@@ -689,13 +1212,63 @@ public class WmsServlet extends HttpServlet {
             datasets.add(ds);
         }
 
+        /*
+         * Capabilities documents are cached until the catalogue is updated,
+         * or the default time of a layer changes. The layers of each dataset
+         * are cached separately, so that they can be shared between the
+         * documents for single datasets and for the whole server.
+         */
+        String variant = wmsVersion + "|" + verbose + "|" + baseUrl;
+        Object version = getCapabilitiesVersion(datasets, catalogue);
+        CachedDocument capabilities = capabilitiesCache.getDocument(variant + "|" + datasetId,
+                version);
+        if (capabilities == null) {
+            StringWriter datasetLayers = new StringWriter();
+            for (Dataset dataset : datasets) {
+                String fragmentKey = variant + "|" + dataset.getId();
+                Object fragmentSource = getCapabilitiesFragmentSource(dataset, catalogue);
+                String fragment = capabilitiesCache.getFragment(fragmentKey, fragmentSource);
+                if (fragment == null) {
+                    StringWriter fragmentWriter = new StringWriter();
+                    VelocityContext context = createCapabilitiesContext(baseUrl, catalogue,
+                            verbose);
+                    context.put("dataset", dataset);
+                    mergeCapabilitiesTemplate(
+                            "templates/capabilities-" + wmsVersion + "-dataset.vm", context,
+                            fragmentWriter);
+                    fragment = fragmentWriter.toString();
+                    capabilitiesCache.putFragment(fragmentKey, fragmentSource, fragment);
+                }
+                datasetLayers.write(fragment);
+            }
+
+            StringWriter documentWriter = new StringWriter();
+            VelocityContext context = createCapabilitiesContext(baseUrl, catalogue, verbose);
+            context.put("datasets", datasets);
+            mergeCapabilitiesTemplate("templates/capabilities-" + wmsVersion + ".vm", context,
+                    documentWriter);
+            String document = documentWriter.toString().replace(DATASET_LAYERS_MARKER,
+                    datasetLayers.toString());
+
+            capabilities = CachedDocument.fromString(document, "text/xml");
+            capabilitiesCache.putDocument(variant + "|" + datasetId, version, capabilities);
+        }
+
+        try {
+            capabilities.write(httpServletRequest, httpServletResponse);
+        } catch (IOException e) {
+            log.error("Problem writing output to stream", e);
+        }
+    }
+
+    private VelocityContext createCapabilitiesContext(String baseUrl, WmsCatalogue catalogue,
+            boolean verbose) {
         VelocityContext context = new VelocityContext();
         EventCartridge ec = new EventCartridge();
         ec.addEventHandler(new EscapeXmlReference());
         ec.attachToContext(context);
         context.put("baseUrl", baseUrl);
         context.put("catalogue", catalogue);
-        context.put("datasets", datasets);
         context.put("supportedImageFormats", ImageFormat.getSupportedMimeTypes());
         context.put("supportedFeatureInfoFormats", new String[] { FEATURE_INFO_PLAIN_FORMAT,
                 FEATURE_INFO_XML_FORMAT, FEATURE_INFO_HTML_FORMAT });
@@ -703,28 +1276,68 @@ public class WmsServlet extends HttpServlet {
         context.put("GISUtils", GISUtils.class);
         context.put("TimeUtils", TimeUtils.class);
         context.put("WmsUtils", WmsUtils.class);
-        context.put("verbose", params.getBoolean("verbose", false));
+        context.put("verbose", verbose);
         context.put("allPalettes", ColourPalette.getPredefinedPalettes());
         context.put("availablePalettes", advertisedPalettes);
+        return context;
+    }
 
-        httpServletResponse.setContentType("text/xml");
+    private void mergeCapabilitiesTemplate(String templateName, VelocityContext context,
+            Writer writer) {
         try {
-            template.merge(context, httpServletResponse.getWriter());
+            velocityEngine.getTemplate(templateName).merge(context, writer);
         } catch (ResourceNotFoundException e) {
             log.error("Cannot find capabilities template", e);
         } catch (ParseErrorException e) {
             log.error("Cannot parse capabilities template", e);
         } catch (MethodInvocationException e) {
             log.error("Capabilities template has incorrect method", e);
-        } catch (IOException e) {
-            log.error("Problem writing output to stream", e);
-        } finally {
-            try {
-                httpServletResponse.flushBuffer();
-            } catch (IOException e) {
-                log.error("Problem flushing output buffer", e);
+        }
+    }
+
+    /**
+     * Identifies the source of cached metadata describing a single dataset.
+     * This depends on the source data of the dataset, and on the catalogue's
+     * config, which holds layer metadata such as titles and default styles.
+     * It does not depend on any other datasets, so loading one dataset does
+     * not invalidate the metadata of the others.
+     */
+    private static Object getFragmentSource(Dataset dataset, WmsCatalogue catalogue) {
+        return Arrays.asList(dataset, catalogue.getDatasetSourceStamp(dataset.getId()),
+                catalogue.getConfigStamp());
+    }
+
+    /**
+     * Identifies the source of the layers of a single dataset in capabilities
+     * documents. As well as the source of the dataset's metadata, this
+     * includes the default time of each variable, which is the one closest to
+     * now, and so changes as time passes.
+     */
+    private static Object getCapabilitiesFragmentSource(Dataset dataset,
+            WmsCatalogue catalogue) {
+        List<DateTime> defaultTimes = new ArrayList<>();
+        for (String variableId : dataset.getVariableIds()) {
+            TemporalDomain tDomain = dataset.getVariableMetadata(variableId).getTemporalDomain();
+            if (tDomain != null) {
+                defaultTimes.add(GISUtils.getClosestToCurrentTime(tDomain));
             }
         }
+        return Arrays.asList(getFragmentSource(dataset, catalogue), defaultTimes);
+    }
+
+    /**
+     * Identifies the version of a capabilities document. This changes whenever
+     * the catalogue is updated (e.g. datasets are added or removed), or any of
+     * the dataset layers in the document change.
+     */
+    private static Object getCapabilitiesVersion(Collection<Dataset> datasets,
+            WmsCatalogue catalogue) {
+        List<Object> version = new ArrayList<>();
+        version.add(catalogue.getLastUpdateTime());
+        for (Dataset dataset : datasets) {
+            version.add(getCapabilitiesFragmentSource(dataset, catalogue));
+        }
+        return version;
     }
 
     protected void getFeatureInfo(RequestParams params, HttpServletResponse httpServletResponse,
@@ -784,8 +1397,20 @@ public class WmsServlet extends HttpServlet {
                  */
                 HorizontallyDiscreteDataset<?> discreteDataset = (HorizontallyDiscreteDataset<?>) dataset;
 
-                Number value = discreteDataset.readSinglePoint(variableId, position,
-                        plottingParameters.getTargetZ(), plottingParameters.getTargetT());
+                /*
+                 * Read the values for this layer and all of its children
+                 * together, so that the data source is only opened once.
+                 */
+                List<String> varIdsToRead = new ArrayList<>();
+                varIdsToRead.add(variableId);
+                for (VariableMetadata child : children) {
+                    varIdsToRead.add(child.getId());
+                }
+                Map<String, Number> values = discreteDataset.readSinglePoint(varIdsToRead,
+                        position, plottingParameters.getTargetZ(),
+                        plottingParameters.getTargetT());
+
+                Number value = values.get(variableId);
                 String valueStr = value != null ? value.toString() : "";
                 if(metadata.getParameter().getCategories() != null) {
                     Category cat = metadata.getParameter().getCategories().get(value.intValue());
@@ -806,8 +1431,7 @@ public class WmsServlet extends HttpServlet {
                      * Now add the values for every child layer, using the child
                      * variable IDs to identify values.
                      */
-                    value = discreteDataset.readSinglePoint(child.getId(), position,
-                            plottingParameters.getTargetZ(), plottingParameters.getTargetT());
+                    value = values.get(child.getId());
                     valueStr = value != null ? value.toString() : "";
                     
                     if(child.getParameter().getCategories() != null) {
@@ -1037,14 +1661,37 @@ public class WmsServlet extends HttpServlet {
      */
     protected void getMetadata(RequestParams params, HttpServletResponse httpServletResponse,
             WmsCatalogue catalogue) throws MetadataException {
+        getMetadata(params, null, httpServletResponse, catalogue);
+    }
+
+    /**
+     * Handles returning metadata about a requested layer.
+     * 
+     * @param params
+     *            The URL parameters
+     * @param httpServletRequest
+     *            The request object, used to check for conditional requests
+     *            and gzip support for cached metadata. May be
+     *            <code>null</code>
+     * @param httpServletResponse
+     *            The response object to write out to
+     * @param catalogue
+     *            The {@link WmsCatalogue} to get metadata from
+     * @throws MetadataException
+     *             If there are any issues with returning the metadata
+     */
+    protected void getMetadata(RequestParams params, HttpServletRequest httpServletRequest,
+            HttpServletResponse httpServletResponse, WmsCatalogue catalogue)
+            throws MetadataException {
         String item = params.getString("item");
         String json = null;
+        CachedDocument document = null;
         if (item == null) {
             throw new MetadataException("Must provide an ITEM parameter");
         } else if (item.equals("menu")) {
-            json = showMenu(params, catalogue);
+            document = getMenuDocument(params, catalogue);
         } else if (item.equals("layerDetails")) {
-            json = showLayerDetails(params, catalogue);
+            document = getLayerDetailsDocument(params, catalogue);
         } else if (item.equals("timesteps")) {
             json = showTimesteps(params, catalogue);
         } else if (item.equals("minmax")) {
@@ -1052,7 +1699,14 @@ public class WmsServlet extends HttpServlet {
         } else if (item.equals("animationTimesteps")) {
             json = showAnimationTimesteps(params, catalogue);
         }
-        if (json != null) {
+        if (document != null) {
+            try {
+                document.write(httpServletRequest, httpServletResponse);
+            } catch (IOException e) {
+                log.error("Problem writing metadata to output stream", e);
+                throw new MetadataException("Problem writing JSON to output stream", e);
+            }
+        } else if (json != null) {
             httpServletResponse.setContentType("application/json");
             try {
                 httpServletResponse.getWriter().write(json);
@@ -1065,6 +1719,78 @@ public class WmsServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Gets the menu JSON, from the cache if the catalogue has not been updated
+     * since it was generated
+     */
+    private CachedDocument getMenuDocument(RequestParams params, WmsCatalogue catalogue)
+            throws MetadataException {
+        String datasetStr = params.getString("dataset");
+        String key = datasetStr == null ? "" : datasetStr;
+        DateTime updateTime = catalogue.getLastUpdateTime();
+        CachedDocument document = menuCache.getDocument(key, updateTime);
+        if (document == null) {
+            document = CachedDocument.fromString(showMenu(params, catalogue), "application/json");
+            menuCache.putDocument(key, updateTime, document);
+        }
+        return document;
+    }
+
+    /**
+     * Gets the layer details JSON, from the cache if the catalogue has not
+     * been updated since it was generated
+     */
+    private CachedDocument getLayerDetailsDocument(RequestParams params, WmsCatalogue catalogue)
+            throws MetadataException {
+        String layerName = params.getString("layerName");
+        String requestedTime = params.getString("time");
+        Dataset dataset = null;
+        String key = null;
+        if (layerName != null) {
+            try {
+                dataset = WmsUtils.getDatasetFromLayerName(layerName, catalogue);
+                if (requestedTime != null) {
+                    key = layerName + "|" + requestedTime;
+                } else {
+                    /*
+                     * With no time specified, the details depend on the
+                     * closest time to now. We can only cache this if there is
+                     * a discrete set of possible times.
+                     */
+                    TemporalDomain temporalDomain = WmsUtils
+                            .getVariableMetadataFromLayerName(layerName, catalogue)
+                            .getTemporalDomain();
+                    if (temporalDomain == null) {
+                        key = layerName + "|";
+                    } else if (temporalDomain instanceof TimeAxis) {
+                        key = layerName + "|" + GISUtils.getIndexOfClosestTimeTo(
+                                new DateTime(temporalDomain.getChronology()),
+                                (TimeAxis) temporalDomain);
+                    }
+                }
+            } catch (EdalLayerNotFoundException e) {
+                /*
+                 * showLayerDetails will generate an appropriate error
+                 */
+            }
+        }
+
+        CachedDocument document = null;
+        if (key != null) {
+            document = layerDetailsCache.getDocument(key,
+                    getFragmentSource(dataset, catalogue));
+        }
+        if (document == null) {
+            document = CachedDocument.fromString(showLayerDetails(params, catalogue),
+                    "application/json");
+            if (key != null) {
+                layerDetailsCache.putDocument(key, getFragmentSource(dataset, catalogue),
+                        document);
+            }
+        }
+        return document;
+    }
+
     protected String showMenu(RequestParams params, WmsCatalogue catalogue)
             throws MetadataException {
         JSONObject menu = new JSONObject();
@@ -1087,14 +1813,23 @@ public class WmsServlet extends HttpServlet {
         for (Dataset dataset : datasets) {
             String datasetId = dataset.getId();
 
+            JSONObject datasetJson = menuCache.getFragment(datasetId,
+                    getFragmentSource(dataset, catalogue));
+            if (datasetJson != null) {
+                children.put(datasetJson);
+                continue;
+            }
+
             Set<VariableMetadata> topLevelVariables = dataset.getTopLevelVariables();
             JSONArray datasetChildren;
             try {
                 datasetChildren = addVariablesToArray(topLevelVariables, datasetId, catalogue);
                 String datasetLabel = catalogue.getDatasetTitle(datasetId);
-                JSONObject datasetJson = new JSONObject();
+                datasetJson = new JSONObject();
                 datasetJson.put("label", datasetLabel);
                 datasetJson.put("children", datasetChildren);
+                menuCache.putFragment(datasetId, getFragmentSource(dataset, catalogue),
+                        datasetJson);
                 children.put(datasetJson);
             } catch (EdalLayerNotFoundException e) {
                 /*
@@ -1347,34 +2082,47 @@ public class WmsServlet extends HttpServlet {
             if (temporalDomain instanceof TimeAxis) {
                 TimeAxis timeAxis = (TimeAxis) temporalDomain;
                 Map<Integer, Map<Integer, List<Integer>>> datesWithData = new LinkedHashMap<Integer, Map<Integer, List<Integer>>>();
-                for (DateTime dateTime : timeAxis.getCoordinateValues()) {
-                    /*
-                     * We must make sure that dateTime() is in UTC or
-                     * getDayOfMonth() etc might return unexpected results
-                     */
-                    dateTime = dateTime.withZone(DateTimeZone.UTC);
+                /*
+                 * We must make sure that the date fields are calculated in UTC
+                 * or getDayOfMonth() etc might return unexpected results.
+                 * 
+                 * The fields are read directly from the axis values, so that
+                 * we don't create a DateTime for every value on long axes.
+                 */
+                Chronology utcChronology = timeAxis.getChronology().withUTC();
+                int lastYear = Integer.MIN_VALUE;
+                int lastMonth = -1;
+                int lastDay = -1;
+                for (int i = 0; i < timeAxis.size(); i++) {
+                    long millis = timeAxis.getCoordinateMillis(i);
+                    int year = utcChronology.year().get(millis);
                     /*
-                     * See whether this dateTime is closer to the target
-                     * dateTime than the current closest value
+                     * We need to subtract 1 from the month number as Javascript
+                     * months are 0-based (Joda-time months are 1-based). This
+                     * retains compatibility with previous behaviour.
                      */
-                    int year = dateTime.getYear();
+                    int month = utcChronology.monthOfYear().get(millis) - 1;
+                    int day = utcChronology.dayOfMonth().get(millis);
+                    if (year == lastYear && month == lastMonth && day == lastDay) {
+                        /*
+                         * Sub-daily data - we have already added this day
+                         */
+                        continue;
+                    }
+                    lastYear = year;
+                    lastMonth = month;
+                    lastDay = day;
+
                     Map<Integer, List<Integer>> months = datesWithData.get(year);
                     if (months == null) {
                         months = new LinkedHashMap<Integer, List<Integer>>();
                         datesWithData.put(year, months);
                     }
-                    /*
-                     * We need to subtract 1 from the month number as Javascript
-                     * months are 0-based (Joda-time months are 1-based). This
-                     * retains compatibility with previous behaviour.
-                     */
-                    int month = dateTime.getMonthOfYear() - 1;
                     List<Integer> days = months.get(month);
                     if (days == null) {
                         days = new ArrayList<Integer>();
                         months.put(month, days);
                     }
-                    int day = dateTime.getDayOfMonth();
                     if (!days.contains(day)) {
                         days.add(day);
                     }
@@ -1394,6 +2142,12 @@ public class WmsServlet extends HttpServlet {
                     datesWithDataJson.put("" + year, monthsJson);
                 }
                 layerDetails.put("datesWithData", datesWithDataJson);
+                /*
+                 * Also include the compact ISO 8601 representation used in the
+                 * capabilities document
+                 */
+                layerDetails.put("timeIntervals",
+                        TimeUtils.getTimeStringForCapabilities(timeAxis));
             } else {
                 layerDetails.put("startTime",
                         TimeUtils.dateTimeToISO8601(temporalDomain.getExtent().getLow()));
@@ -1706,61 +2460,75 @@ public class WmsServlet extends HttpServlet {
             return minmax.toString();
         }
 
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
         /*
-         * Now read the required features
+         * Use the precomputed statistics for this layer if they are
+         * available. These are taken from a sample of the data, so the range
+         * is marked as an estimate. Otherwise read the required features and
+         * find the range directly.
          */
-        FeaturesAndMemberName featuresAndMember;
-        try {
-            featuresAndMember = catalogue.getFeaturesForLayer(layerName,
-                    getMapParams.getPlottingDomainParameters());
-        } catch (EdalException e) {
-            log.error("Bad layer name", e);
-            throw new MetadataException("Problem reading data", e);
-        }
+        ValueSummary summary = getIndexedSummary(layerName,
+                getMapParams.getPlottingDomainParameters(), catalogue);
+        if (summary != null) {
+            min = summary.getMin();
+            max = summary.getMax();
+            minmax.put("estimated", true);
+        } else {
+            /*
+             * Now read the required features
+             */
+            FeaturesAndMemberName featuresAndMember;
+            try {
+                featuresAndMember = catalogue.getFeaturesForLayer(layerName,
+                        getMapParams.getPlottingDomainParameters());
+            } catch (EdalException e) {
+                log.error("Bad layer name", e);
+                throw new MetadataException("Problem reading data", e);
+            }
 
-        double min = Double.MAX_VALUE;
-        double max = -Double.MAX_VALUE;
-        Collection<? extends DiscreteFeature<?, ?>> features = featuresAndMember.getFeatures();
-        for (DiscreteFeature<?, ?> f : features) {
-            if (f instanceof MapFeature) {
-                /*
-                 * We want to look at all values of the grid feature.
-                 */
-                Array<Number> values = f.getValues(featuresAndMember.getMember());
-                if (values == null) {
-                    continue;
-                }
-                Iterator<Number> iterator = values.iterator();
-                while (iterator.hasNext()) {
-                    Number value = iterator.next();
-                    if (value != null && !Double.isNaN(value.doubleValue())
-                            && !Double.isInfinite(value.doubleValue())) {
-                        max = Math.max(max, value.doubleValue());
-                        min = Math.min(min, value.doubleValue());
+            Collection<? extends DiscreteFeature<?, ?>> features = featuresAndMember.getFeatures();
+            for (DiscreteFeature<?, ?> f : features) {
+                if (f instanceof MapFeature) {
+                    /*
+                     * We want to look at all values of the grid feature.
+                     */
+                    Array<Number> values = f.getValues(featuresAndMember.getMember());
+                    if (values == null) {
+                        continue;
                     }
-                }
-            } else if (f instanceof PointFeature) {
-                PointFeature pointFeature = (PointFeature) f;
-                Number value = pointFeature.getValues(featuresAndMember.getMember()).get(0);
-                if (value != null) {
-                    max = Math.max(max, value.doubleValue());
-                    min = Math.min(min, value.doubleValue());
-                }
-            } else if (f instanceof TrajectoryFeature) {
-                TrajectoryFeature trajectoryFeature = (TrajectoryFeature) f;
-                Array1D<Number> values = trajectoryFeature.getValues(featuresAndMember.getMember());
-                Iterator<Number> it = values.iterator();
-                while (it.hasNext()) {
-                    Number value = it.next();
+                    Iterator<Number> iterator = values.iterator();
+                    while (iterator.hasNext()) {
+                        Number value = iterator.next();
+                        if (value != null && !Double.isNaN(value.doubleValue())
+                                && !Double.isInfinite(value.doubleValue())) {
+                            max = Math.max(max, value.doubleValue());
+                            min = Math.min(min, value.doubleValue());
+                        }
+                    }
+                } else if (f instanceof PointFeature) {
+                    PointFeature pointFeature = (PointFeature) f;
+                    Number value = pointFeature.getValues(featuresAndMember.getMember()).get(0);
                     if (value != null) {
                         max = Math.max(max, value.doubleValue());
                         min = Math.min(min, value.doubleValue());
                     }
+                } else if (f instanceof TrajectoryFeature) {
+                    TrajectoryFeature trajectoryFeature = (TrajectoryFeature) f;
+                    Array1D<Number> values = trajectoryFeature.getValues(featuresAndMember.getMember());
+                    Iterator<Number> it = values.iterator();
+                    while (it.hasNext()) {
+                        Number value = it.next();
+                        if (value != null) {
+                            max = Math.max(max, value.doubleValue());
+                            min = Math.min(min, value.doubleValue());
+                        }
+                    }
+                } else {
+                    /*
+                     * Would handle other feature types here.
+                     */
                 }
-            } else {
-                /*
-                 * Would handle other feature types here.
-                 */
             }
         }
 
@@ -1795,6 +2563,45 @@ public class WmsServlet extends HttpServlet {
         return minmax.toString();
     }
 
+    /**
+     * Gets a summary of the values of a layer from the catalogue's precomputed
+     * statistics. These are calculated from a sample of the data (see
+     * {@link DatasetStatisticsIndex}), so the minimum and maximum are
+     * estimates which should only be used to choose a colour scale range.
+     * 
+     * @param layerName
+     *            The name of the layer
+     * @param plottingParams
+     *            The {@link PlottingDomainParams} defining the region, time
+     *            and elevation of interest
+     * @param catalogue
+     *            The {@link WmsCatalogue} containing the layer
+     * @return An estimated {@link ValueSummary} of the values, or
+     *         <code>null</code> if precomputed statistics are not available for
+     *         this layer at the requested time and elevation
+     */
+    protected ValueSummary getIndexedSummary(String layerName,
+            PlottingDomainParams plottingParams, WmsCatalogue catalogue) {
+        try {
+            Dataset dataset = WmsUtils.getDatasetFromLayerName(layerName, catalogue);
+            DatasetStatisticsIndex index = catalogue.getStatisticsIndex(dataset.getId());
+            if (index == null) {
+                return null;
+            }
+            VariableMetadata metadata = WmsUtils.getVariableMetadataFromLayerName(layerName,
+                    catalogue);
+            return index.getSummary(metadata, plottingParams.getTargetT(),
+                    plottingParams.getTargetZ(),
+                    GISUtils.toGeographicBoundingBox(plottingParams.getBbox()));
+        } catch (EdalException e) {
+            /*
+             * We can always fall back to reading the data
+             */
+            log.debug("Could not use statistics index for " + layerName, e);
+            return null;
+        }
+    }
+
     protected String showAnimationTimesteps(RequestParams params, WmsCatalogue catalogue)
             throws MetadataException {
         String layerName = params.getString("layerName");
@@ -1932,8 +2739,96 @@ public class WmsServlet extends HttpServlet {
         }
     }
 
-    protected void getLegendGraphic(RequestParams params, HttpServletResponse httpServletResponse,
-            WmsCatalogue catalogue) throws EdalException {
+    protected void getLegendGraphic(RequestParams params, HttpServletRequest httpServletRequest,
+            HttpServletResponse httpServletResponse, WmsCatalogue catalogue)
+            throws EdalException {
+        /*
+         * Only the parameters which can change the legend form part of the
+         * key. Auto-scaled ranges are estimated from the whole layer, so TIME,
+         * BBOX etc. do not affect it.
+         */
+        String key = params.toCanonicalStringOf(LEGEND_PARAMS);
+        Object version = getLegendVersion(params, catalogue);
+        CachedDocument legendDocument = legendCache.getDocument(key, version);
+        if (legendDocument == null) {
+            BufferedImage legend = drawLegendGraphic(params, catalogue);
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(legend, "png", encoded);
+            } catch (IOException e) {
+                log.error("Problem encoding legend graphic", e);
+                throw new EdalException("Unable to encode legend graphic", e);
+            }
+            legendDocument = CachedDocument.fromBytes(encoded.toByteArray(), "image/png");
+            legendCache.putDocument(key, version, legendDocument);
+        }
+
+        /*
+         * Legends which use the server's default or auto-scaled ranges change
+         * whenever the server configuration does, so clients must revalidate
+         * those (which is cheap, using the ETag)
+         */
+        boolean colourBarOnly = params.getString("colorbaronly", "false").equalsIgnoreCase("true");
+        if (colourBarOnly) {
+            httpServletResponse.setHeader("Cache-Control",
+                    "public, max-age=" + COLOUR_BAR_MAX_AGE_SECONDS);
+        } else if (GetMapStyleParams.hasExplicitColorScaleRanges(params)) {
+            httpServletResponse.setHeader("Cache-Control",
+                    "public, max-age=" + LEGEND_MAX_AGE_SECONDS);
+        } else {
+            httpServletResponse.setHeader("Cache-Control", "no-cache");
+        }
+        try {
+            legendDocument.write(httpServletRequest, httpServletResponse);
+        } catch (IOException e) {
+            log.error("Problem writing legend graphic to output stream", e);
+            throw new EdalException("Unable to write legend graphic to output stream", e);
+        }
+    }
+
+    /**
+     * Identifies the version of the sources of a legend. Server-side changes
+     * to layer defaults are picked up through the catalogue's config stamp,
+     * and changes to the data (which may change auto-scaled ranges) through
+     * the source stamps of the requested layers' datasets. Legends defined
+     * by an SLD may refer to any layer, so they depend on the catalogue's
+     * last update time instead.
+     * 
+     * @return The version, or <code>null</code> if a requested layer does not
+     *         exist, in which case the legend should not be cached
+     */
+    static Object getLegendVersion(RequestParams params, WmsCatalogue catalogue) {
+        List<Object> version = new ArrayList<>();
+        version.add(catalogue.getConfigStamp());
+        String layers = params.getString("layers", params.getString("layer"));
+        if (layers != null) {
+            for (String layerName : layers.split(",")) {
+                try {
+                    version.add(catalogue.getDatasetSourceStamp(
+                            catalogue.getLayerNameMapper().getDatasetIdFromLayerName(layerName)));
+                } catch (EdalLayerNotFoundException e) {
+                    return null;
+                }
+            }
+        } else if (params.getString("sld") != null || params.getString("sld_body") != null) {
+            version.add(catalogue.getLastUpdateTime());
+        }
+        return version;
+    }
+
+    /**
+     * Draws the image requested by a GetLegendGraphic request
+     * 
+     * @param params
+     *            The {@link RequestParams} of the GetLegendGraphic request
+     * @param catalogue
+     *            The {@link WmsCatalogue} containing the requested layer
+     * @return The legend image
+     * @throws EdalException
+     *             If the legend cannot be generated from the given parameters
+     */
+    static BufferedImage drawLegendGraphic(RequestParams params, WmsCatalogue catalogue)
+            throws EdalException {
         BufferedImage legend;
 
         /* numColourBands defaults to ColorPalette.MAX_NUM_COLOURS if not set */
@@ -2014,13 +2909,7 @@ public class WmsServlet extends HttpServlet {
                 legend = imageGenerator.getLegend(width, height, isVector);
             }
         }
-        httpServletResponse.setContentType("image/png");
-        try {
-            ImageIO.write(legend, "png", httpServletResponse.getOutputStream());
-        } catch (IOException e) {
-            log.error("Problem writing legend graphic to output stream", e);
-            throw new EdalException("Unable to write legend graphic to output stream", e);
-        }
+        return legend;
     }
 
     protected void getTimeseries(RequestParams params, HttpServletResponse httpServletResponse,
@@ -2323,36 +3212,45 @@ public class WmsServlet extends HttpServlet {
             String sectionElevationStr = params.getString("section-elevation");
             Extent<Double> zExtent = extractSectionElevation(sectionElevationStr);
 
-            List<ProfileFeature> profileFeatures = new ArrayList<>();
             TemporalDomain temporalDomain = gridDataset.getVariableMetadata(varId)
                     .getTemporalDomain();
             DateTime time = null;
             if (timeStr != null) {
                 time = TimeUtils.iso8601ToDateTime(timeStr, temporalDomain.getChronology());
             }
-            for (HorizontalPosition pos : verticalSectionHorizontalPositions) {
-                PlottingDomainParams plottingParams = new PlottingDomainParams(1, 1, null, null,
-                        null, pos, null, time);
-                List<? extends ProfileFeature> features = gridDataset.extractProfileFeatures(
-                        CollectionUtils.setOf(varId), plottingParams.getBbox(),
-                        plottingParams.getZExtent(), plottingParams.getTExtent(),
-                        plottingParams.getTargetHorizontalPosition(), plottingParams.getTargetT());
-                profileFeatures.addAll(features);
-            }
+            /*
+             * Read the whole section at once rather than a profile at each
+             * point along the path
+             */
+            VerticalSection section = gridDataset.extractVerticalSection(varId,
+                    verticalSectionHorizontalPositions, time);
 
-            Extent<Float> scaleRange;
+            Extent<Float> scaleRange = null;
             if (zExtent != null) {
-                scaleRange = getExtentOfFeatures(profileFeatures);
+                scaleRange = section.getValueRange();
             } else {
                 List<Extent<Float>> scaleRanges = GetMapStyleParams.getColorScaleRanges(params,
                         defaults.getColorScaleRange());
-                if (scaleRanges == null || scaleRanges.isEmpty()) {
-                    scaleRange = GraphicsUtils.estimateValueRange(gridDataset, varId);
-                } else {
+                if (scaleRanges != null && !scaleRanges.isEmpty()) {
                     scaleRange = scaleRanges.get(0);
-                    if (scaleRange == null || scaleRange.isEmpty()) {
-                        scaleRange = GraphicsUtils.estimateValueRange(gridDataset, varId);
-                    }
+                }
+            }
+            if (scaleRange == null || scaleRange.isEmpty()) {
+                /*
+                 * Use the layer's configured range (which is estimated when
+                 * the dataset is loaded if it is not set), or failing that the
+                 * range of the section we already have. Estimating the range
+                 * here would mean reading the whole variable on every request.
+                 */
+                scaleRange = defaults.getColorScaleRange();
+                if (scaleRange == null || scaleRange.isEmpty()) {
+                    scaleRange = section.getValueRange();
+                }
+                if (scaleRange.isEmpty()) {
+                    /*
+                     * There is no data in the section, so any range will do
+                     */
+                    scaleRange = Extents.newExtent(0f, 1f);
                 }
             }
             ScaleRange colourScale = new ScaleRange(scaleRange.getLow(), scaleRange.getHigh(),
@@ -2366,7 +3264,7 @@ public class WmsServlet extends HttpServlet {
                             GraphicsUtils.colourToString(defaults.getNoDataColour()))),
                     paletteName, numColourBands);
 
-            JFreeChart verticalSectionChart = Charting.createVerticalSectionChart(profileFeatures,
+            JFreeChart verticalSectionChart = Charting.createVerticalSectionChart(section,
                     lineString, colourScheme, zValue, zExtent);
             chart = Charting.addVerticalSectionChart(chart, verticalSectionChart);
         }
@@ -2409,30 +3307,6 @@ public class WmsServlet extends HttpServlet {
         return zExtent;
     }
 
-    private Extent<Float> getExtentOfFeatures(List<ProfileFeature> features) {
-        float min = Float.MAX_VALUE;
-        float max = -Float.MAX_VALUE;
-        for (ProfileFeature feature : features) {
-            for (String paramId : feature.getVariableIds()) {
-                Array1D<Number> values = feature.getValues(paramId);
-                int size = (int) values.size();
-                for (int i = 0; i < size; i++) {
-                    Number number = values.get(i);
-                    if (number != null) {
-                        if (number.doubleValue() > max) {
-                            max = number.floatValue();
-                        }
-                        if (number.doubleValue() < min) {
-                            min = number.floatValue();
-                        }
-                    }
-                }
-            }
-        }
-
-        return Extents.newExtent(min, max);
-    }
-
     protected void getVerticalProfile(RequestParams params, HttpServletResponse httpServletResponse,
             WmsCatalogue catalogue) throws EdalException {
         GetPlotParameters getPlotParameters = new GetPlotParameters(params, catalogue);
@@ -2633,6 +3507,28 @@ public class WmsServlet extends HttpServlet {
      */
     protected void handleWmsException(EdalException exception,
             HttpServletResponse httpServletResponse, boolean v130) throws IOException {
+        writeException(exception, httpServletResponse,
+                v130 ? "templates/exception-1.3.0.vm" : "templates/exception-1.1.1.vm");
+    }
+
+    /**
+     * Handles an exception from a WMTS request by writing an OWS exception
+     * report
+     * 
+     * @param exception
+     *            The exception to handle
+     * @param httpServletResponse
+     *            The {@link HttpServletResponse} object to write to
+     * @throws IOException
+     *             If there is a problem writing to the output stream
+     */
+    protected void handleWmtsException(EdalException exception,
+            HttpServletResponse httpServletResponse) throws IOException {
+        writeException(exception, httpServletResponse, "templates/exception-wmts.vm");
+    }
+
+    private void writeException(EdalException exception, HttpServletResponse httpServletResponse,
+            String templateName) throws IOException {
         if (exception instanceof EdalLayerNotFoundException) {
             httpServletResponse.setStatus(HttpServletResponse.SC_NOT_FOUND);
         } else {
@@ -2661,12 +3557,7 @@ public class WmsServlet extends HttpServlet {
             context.put("cause", exception.getCause());
         }
 
-        Template template;
-        if (v130) {
-            template = velocityEngine.getTemplate("templates/exception-1.3.0.vm");
-        } else {
-            template = velocityEngine.getTemplate("templates/exception-1.1.1.vm");
-        }
+        Template template = velocityEngine.getTemplate(templateName);
         template.merge(context, httpServletResponse.getWriter());
     }
 
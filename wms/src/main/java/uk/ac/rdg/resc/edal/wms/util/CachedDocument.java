@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An immutable, pre-rendered response document. Text documents are held
+ * gzip-compressed, along with an entity tag derived from their content, so
+ * that they can be served repeatedly without being regenerated, re-encoded or
+ * re-compressed. Documents in formats which are already compressed (e.g. PNG
+ * images) are held as-is.
+ * 
+ * Since the gzip-encoded and unencoded forms of a text document are different
+ * representations, each has its own entity tag.
+ */
+public class CachedDocument {
+    private final byte[] content;
+    private final boolean gzipped;
+    private final String eTag;
+    private final String gzipETag;
+    private final String contentType;
+
+    private CachedDocument(byte[] content, boolean gzipped, String eTag, String contentType) {
+        this.content = content;
+        this.gzipped = gzipped;
+        this.eTag = eTag;
+        this.gzipETag = gzipped ? eTag.substring(0, eTag.length() - 1) + "-gz\"" : eTag;
+        this.contentType = contentType;
+    }
+
+    /**
+     * Creates a {@link CachedDocument} from a {@link String}, which will be
+     * encoded as UTF-8
+     * 
+     * @param content
+     *            The content of the document
+     * @param mimeType
+     *            The MIME type of the document, without a charset parameter
+     * @return A new {@link CachedDocument}
+     */
+    public static CachedDocument fromString(String content, String mimeType) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 8 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            /*
+             * Can't happen when writing to memory
+             */
+            throw new IllegalStateException("Problem compressing document", e);
+        }
+        return new CachedDocument(out.toByteArray(), true, computeETag(bytes),
+                mimeType + ";charset=UTF-8");
+    }
+
+    /**
+     * Creates a {@link CachedDocument} from already-encoded content, which
+     * will not be compressed any further
+     * 
+     * @param content
+     *            The content of the document. This array must not be modified
+     *            after calling this method.
+     * @param mimeType
+     *            The MIME type of the document
+     * @return A new {@link CachedDocument}
+     */
+    public static CachedDocument fromBytes(byte[] content, String mimeType) {
+        return new CachedDocument(content, false, computeETag(content), mimeType);
+    }
+
+    private static String computeETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder("\"");
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", digest[i]));
+            }
+            return sb.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            /*
+             * SHA-256 is required to be present in all Java platforms
+             */
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return The (quoted) entity tag of this document, when sent without
+     *         gzip encoding
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @return The (quoted) entity tag of this document, when sent with gzip
+     *         encoding. This is the same as {@link #getETag()} for documents
+     *         which are never sent gzip-encoded.
+     */
+    public String getGzipETag() {
+        return gzipETag;
+    }
+
+    /**
+     * @return The size of this document, as stored, in bytes
+     */
+    public int getCompressedSize() {
+        return content.length;
+    }
+
+    /**
+     * Writes this document to an HTTP response. If the request contains a
+     * <code>If-None-Match</code> header matching the representation which
+     * would be sent, a 304 (Not Modified) status is sent with no body. If the
+     * client accepts gzip encoding, compressed documents are sent as-is.
+     * 
+     * @param request
+     *            The {@link HttpServletRequest}. May be <code>null</code>, in
+     *            which case the document is always sent uncompressed.
+     * @param response
+     *            The {@link HttpServletResponse} to write to
+     * @throws IOException
+     *             If there is a problem writing the document
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        boolean sendGzipped = gzipped && request != null
+                && acceptsGzip(request.getHeader("Accept-Encoding"));
+        String tag = sendGzipped ? gzipETag : eTag;
+        response.setHeader("ETag", tag);
+        if (gzipped) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (request != null && matchesETag(request.getHeader("If-None-Match"), tag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(contentType);
+        OutputStream out = response.getOutputStream();
+        if (!gzipped) {
+            response.setContentLength(content.length);
+            out.write(content);
+        } else if (sendGzipped) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLength(content.length);
+            out.write(content);
+        } else {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0.0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
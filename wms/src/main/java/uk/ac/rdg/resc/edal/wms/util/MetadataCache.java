@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Stores rendered metadata (e.g. capabilities documents and Godiva menus), so
+ * that they are only regenerated when the underlying catalogue changes.
+ * 
+ * Entries never expire: each is stored with a version identifying everything
+ * it was generated from, and is only returned when asked for with an equal
+ * version. Metadata which depend on anything other than the catalogue (e.g.
+ * the default time of a layer is the one closest to now) must include it in
+ * their version.
+ * 
+ * Two kinds of entry are held:
+ * <ul>
+ * <li>Complete documents, which are valid for a single version of the
+ * catalogue</li>
+ * <li>Fragments (e.g. the layers of a single dataset), which are valid for as
+ * long as their source object is unchanged. These can be shared between
+ * several documents (e.g. capabilities documents for a single dataset and for
+ * the whole server).</li>
+ * </ul>
+ * 
+ * Both are held in bounded LRU maps.
+ * 
+ * @param <F>
+ *            The type of fragments
+ */
+public class MetadataCache<F> {
+    private static final int DEFAULT_MAX_DOCUMENTS = 256;
+    private static final int DEFAULT_MAX_FRAGMENTS = 4096;
+
+    private final Map<String, Versioned<CachedDocument>> documents;
+    private final Map<String, Versioned<F>> fragments;
+
+    public MetadataCache() {
+        this(DEFAULT_MAX_DOCUMENTS, DEFAULT_MAX_FRAGMENTS);
+    }
+
+    /**
+     * @param maxDocuments
+     *            The maximum number of complete documents to store
+     * @param maxFragments
+     *            The maximum number of fragments to store
+     */
+    public MetadataCache(final int maxDocuments, final int maxFragments) {
+        documents = Collections.synchronizedMap(new LruMap<Versioned<CachedDocument>>(maxDocuments));
+        fragments = Collections.synchronizedMap(new LruMap<Versioned<F>>(maxFragments));
+    }
+
+    /**
+     * Gets a complete document
+     * 
+     * @param key
+     *            The key identifying the document
+     * @param version
+     *            The current version of the source of the document (e.g. the
+     *            catalogue's last update time). The document is only returned
+     *            if it was stored with an equal version. If this is
+     *            <code>null</code>, nothing will be returned.
+     * @return The cached document, or <code>null</code> if it is not present
+     *         or is out-of-date
+     */
+    public CachedDocument getDocument(String key, Object version) {
+        return get(documents, key, version);
+    }
+
+    /**
+     * Stores a complete document. Nothing is stored if <code>version</code> is
+     * <code>null</code>.
+     */
+    public void putDocument(String key, Object version, CachedDocument document) {
+        put(documents, key, version, document);
+    }
+
+    /**
+     * Gets a fragment
+     * 
+     * @param key
+     *            The key identifying the fragment
+     * @param source
+     *            The object which the fragment was generated from. The
+     *            fragment is only returned if it was stored with an equal
+     *            source.
+     * @return The cached fragment, or <code>null</code> if it is not present
+     *         or is out-of-date
+     */
+    public F getFragment(String key, Object source) {
+        return get(fragments, key, source);
+    }
+
+    /**
+     * Stores a fragment
+     */
+    public void putFragment(String key, Object source, F fragment) {
+        put(fragments, key, source, fragment);
+    }
+
+    /**
+     * Removes all documents and fragments
+     */
+    public void clear() {
+        documents.clear();
+        fragments.clear();
+    }
+
+    private <T> T get(Map<String, Versioned<T>> map, String key, Object version) {
+        if (version == null) {
+            return null;
+        }
+        Versioned<T> entry = map.get(key);
+        if (entry == null || !entry.isVersion(version)) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static <T> void put(Map<String, Versioned<T>> map, String key, Object version,
+            T value) {
+        if (version != null) {
+            map.put(key, new Versioned<T>(version, value));
+        }
+    }
+
+    private static final class Versioned<T> {
+        private final Object version;
+        private final T value;
+
+        private Versioned(Object version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        private boolean isVersion(Object other) {
+            /*
+             * Identical instances are always the same version. Otherwise use
+             * equals(), which is appropriate for values such as update times.
+             */
+            return version == other || Objects.equals(version, other);
+        }
+    }
+
+    private static final class LruMap<V> extends LinkedHashMap<String, V> {
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        private LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
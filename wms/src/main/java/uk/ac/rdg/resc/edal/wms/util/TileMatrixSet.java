@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.opengis.metadata.extent.GeographicBoundingBox;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.geometry.BoundingBoxImpl;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * A WMTS tile matrix set - a fixed pyramid of tile grids. The two well-known
+ * quadtree sets from the OGC Two Dimensional Tile Matrix Set standard are
+ * supported.
+ * 
+ * Tile bounding boxes are always calculated in the same way from the tile
+ * indices, so that repeated requests for the same tile produce identical
+ * target grids and can share cached
+ * {@link uk.ac.rdg.resc.edal.dataset.Domain2DMapper}s.
+ */
+public enum TileMatrixSet {
+    /**
+     * Spherical Mercator, with a single tile at level 0
+     */
+    WebMercatorQuad("EPSG:3857", "urn:ogc:def:crs:EPSG::3857", -20037508.3427892,
+            20037508.3427892, 2 * 20037508.3427892, 1, 559082264.0287178),
+    /**
+     * Plate carrée, with two tiles at level 0
+     */
+    WorldCRS84Quad("CRS:84", "urn:ogc:def:crs:OGC:1.3:CRS84", -180.0, 90.0, 180.0, 2,
+            279541132.0143589);
+
+    /**
+     * The size of each tile, in pixels
+     */
+    public static final int TILE_SIZE = 256;
+    /**
+     * The number of zoom levels in each set
+     */
+    public static final int NUM_LEVELS = 19;
+
+    /* The maximum latitude of Web Mercator tiles */
+    private static final double MAX_MERCATOR_LATITUDE = 85.0511287798066;
+
+    private final String crsCode;
+    private final String crsUrn;
+    private final double minX;
+    private final double maxY;
+    private final double level0TileSpan;
+    private final int level0Width;
+    private final double level0ScaleDenominator;
+
+    private TileMatrixSet(String crsCode, String crsUrn, double minX, double maxY,
+            double level0TileSpan, int level0Width, double level0ScaleDenominator) {
+        this.crsCode = crsCode;
+        this.crsUrn = crsUrn;
+        this.minX = minX;
+        this.maxY = maxY;
+        this.level0TileSpan = level0TileSpan;
+        this.level0Width = level0Width;
+        this.level0ScaleDenominator = level0ScaleDenominator;
+    }
+
+    /**
+     * Gets a {@link TileMatrixSet} from its identifier
+     * 
+     * @param identifier
+     *            The identifier of the tile matrix set
+     * @return The corresponding {@link TileMatrixSet}
+     * @throws EdalException
+     *             If there is no such tile matrix set
+     */
+    public static TileMatrixSet fromIdentifier(String identifier) throws EdalException {
+        for (TileMatrixSet tileMatrixSet : values()) {
+            if (tileMatrixSet.name().equalsIgnoreCase(identifier)) {
+                return tileMatrixSet;
+            }
+        }
+        throw new EdalException("Unsupported TileMatrixSet: " + identifier);
+    }
+
+    /**
+     * @return All supported tile matrix sets, for use in the capabilities
+     *         document
+     */
+    public static List<TileMatrixSet> getAll() {
+        return Collections.unmodifiableList(Arrays.asList(values()));
+    }
+
+    /**
+     * @return The identifier of this tile matrix set
+     */
+    public String getIdentifier() {
+        return name();
+    }
+
+    /**
+     * @return The code of the CRS of this tile matrix set, as used in a WMS
+     *         GetMap request
+     */
+    public String getCrsCode() {
+        return crsCode;
+    }
+
+    /**
+     * @return The URN of the CRS of this tile matrix set, as used in a WMTS
+     *         capabilities document
+     */
+    public String getCrsUrn() {
+        return crsUrn;
+    }
+
+    /**
+     * @return The x-coordinate of the top-left corner of each tile matrix
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * @return The y-coordinate of the top-left corner of each tile matrix
+     */
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return The identifiers of each level, for use in the capabilities
+     *         document
+     */
+    public List<Integer> getLevels() {
+        Integer[] levels = new Integer[NUM_LEVELS];
+        for (int i = 0; i < NUM_LEVELS; i++) {
+            levels[i] = i;
+        }
+        return Arrays.asList(levels);
+    }
+
+    /**
+     * @param level
+     *            The zoom level
+     * @return The number of tiles across the given level
+     */
+    public int getMatrixWidth(int level) {
+        return level0Width << level;
+    }
+
+    /**
+     * @param level
+     *            The zoom level
+     * @return The number of tiles down the given level
+     */
+    public int getMatrixHeight(int level) {
+        return 1 << level;
+    }
+
+    /**
+     * @param level
+     *            The zoom level
+     * @return The scale denominator of the given level, assuming the standard
+     *         0.28mm pixel size
+     */
+    public double getScaleDenominator(int level) {
+        return level0ScaleDenominator / (1 << level);
+    }
+
+    /**
+     * Gets the bounding box of a single tile
+     * 
+     * @param level
+     *            The zoom level
+     * @param row
+     *            The row of the tile, counting down from the top
+     * @param col
+     *            The column of the tile, counting across from the left
+     * @return The {@link BoundingBox} of the tile, in the CRS of this tile
+     *         matrix set
+     * @throws EdalException
+     *             If the tile is not in this tile matrix set
+     */
+    public BoundingBox getTileBoundingBox(int level, int row, int col) throws EdalException {
+        if (level < 0 || level >= NUM_LEVELS) {
+            throw new EdalException("TileMatrix " + level + " is not in the TileMatrixSet "
+                    + name());
+        }
+        if (row < 0 || row >= getMatrixHeight(level) || col < 0
+                || col >= getMatrixWidth(level)) {
+            throw new EdalException("Tile (" + row + ", " + col + ") is out of range for "
+                    + "TileMatrix " + level + " of " + name());
+        }
+        double span = level0TileSpan / (1 << level);
+        return new BoundingBoxImpl(minX + col * span, maxY - (row + 1) * span,
+                minX + (col + 1) * span, maxY - row * span,
+                GISUtils.getCrs(crsCode));
+    }
+
+    /**
+     * Finds the tiles which cover a geographic bounding box
+     * 
+     * @param level
+     *            The zoom level
+     * @param bbox
+     *            The {@link GeographicBoundingBox} to cover
+     * @return An array of the minimum row, maximum row, minimum column and
+     *         maximum column (all inclusive) of the covering tiles. Boxes
+     *         which cross the antimeridian are covered by every column.
+     */
+    public int[] getTileRange(int level, GeographicBoundingBox bbox) {
+        double west = bbox.getWestBoundLongitude();
+        double east = bbox.getEastBoundLongitude();
+        if (west > east || west < -180.0 || east > 180.0) {
+            west = -180.0;
+            east = 180.0;
+        }
+        double south = bbox.getSouthBoundLatitude();
+        double north = bbox.getNorthBoundLatitude();
+        if (this == WebMercatorQuad) {
+            south = toMercatorY(Math.max(-MAX_MERCATOR_LATITUDE, south));
+            north = toMercatorY(Math.min(MAX_MERCATOR_LATITUDE, north));
+            west = west * -minX / 180.0;
+            east = east * -minX / 180.0;
+        }
+        double span = level0TileSpan / (1 << level);
+        int minCol = clamp((int) Math.floor((west - minX) / span), getMatrixWidth(level));
+        int maxCol = clamp((int) Math.ceil((east - minX) / span) - 1, getMatrixWidth(level));
+        int minRow = clamp((int) Math.floor((maxY - north) / span), getMatrixHeight(level));
+        int maxRow = clamp((int) Math.ceil((maxY - south) / span) - 1, getMatrixHeight(level));
+        return new int[] { minRow, Math.max(minRow, maxRow), minCol, Math.max(minCol, maxCol) };
+    }
+
+    private static double toMercatorY(double latitude) {
+        double y = Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitude) / 2));
+        return y * 20037508.3427892 / Math.PI;
+    }
+
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+}
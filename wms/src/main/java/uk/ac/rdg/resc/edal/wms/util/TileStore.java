@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+
+import uk.ac.rdg.resc.edal.wms.GetTileParameters;
+
+/**
+ * A directory of pre-rendered WMTS tiles. Tiles are stored as individual files
+ * under:
+ * 
+ * <pre>
+ * layer/sourceStamp/style/tileMatrixSet/tileMatrix/time/elevation/row/col.extension
+ * </pre>
+ * 
+ * with each path element URL-encoded. Only standard tiles (see
+ * {@link GetTileParameters#isStandard()}) can be stored.
+ * 
+ * The source stamp (see {@link GetTileParameters#getSourceStamp()}) changes
+ * whenever the data or settings of the layer change, so that out-of-date tiles
+ * are never read. Tiles for earlier stamps are removed when the first tile for
+ * a new stamp is written.
+ * 
+ * Tiles are written to a temporary file and then moved into place, so that a
+ * store can be read by a server whilst it is being seeded.
+ */
+public class TileStore {
+    private static final String NONE = "-";
+
+    private final File root;
+
+    /**
+     * @param root
+     *            The root directory of the store. This will be created if it
+     *            doesn't exist
+     */
+    public TileStore(File root) {
+        this.root = root;
+    }
+
+    /**
+     * Reads a tile from the store
+     * 
+     * @param tile
+     *            The tile to read
+     * @return The encoded tile, or <code>null</code> if a current copy of the
+     *         tile is not in the store
+     * @throws IOException
+     *             If there is a problem reading the tile
+     */
+    public byte[] readTile(GetTileParameters tile) throws IOException {
+        try {
+            return Files.readAllBytes(getTileFile(tile).toPath());
+        } catch (NoSuchFileException e) {
+            /*
+             * Not stored, or removed because the data has changed
+             */
+            return null;
+        }
+    }
+
+    /**
+     * @param tile
+     *            The tile to check for
+     * @return Whether the store contains a current copy of the tile
+     */
+    public boolean hasTile(GetTileParameters tile) {
+        return getTileFile(tile).isFile();
+    }
+
+    /**
+     * Writes a tile to the store, replacing any existing copy
+     * 
+     * @param tile
+     *            The tile to write
+     * @param data
+     *            The encoded tile
+     * @throws IOException
+     *             If there is a problem writing the tile
+     */
+    public void writeTile(GetTileParameters tile, byte[] data) throws IOException {
+        if (!tile.isStandard()) {
+            throw new IllegalArgumentException("Only standard tiles can be stored");
+        }
+        File tileFile = getTileFile(tile);
+        File stampDir = getStampDir(tile);
+        if (!stampDir.isDirectory()) {
+            removeOtherStamps(stampDir);
+        }
+        File dir = tileFile.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Cannot create tile directory " + dir);
+        }
+        File tempFile = File.createTempFile("tile", ".tmp", dir);
+        try {
+            Files.write(tempFile.toPath(), data);
+            Files.move(tempFile.toPath(), tileFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /*
+     * Deletes the tiles of a layer stored for any other source stamp. Failures
+     * are ignored, since a tile may be being read or written concurrently, and
+     * any left over will be removed next time.
+     */
+    private static void removeOtherStamps(File stampDir) {
+        File[] stamps = stampDir.getParentFile().listFiles();
+        if (stamps == null) {
+            return;
+        }
+        for (File stamp : stamps) {
+            if (!stamp.equals(stampDir)) {
+                delete(stamp);
+            }
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File getStampDir(GetTileParameters tile) {
+        return new File(new File(root, encode(tile.getLayerName())),
+                Long.toHexString(tile.getSourceStamp()));
+    }
+
+    File getTileFile(GetTileParameters tile) {
+        File dir = getStampDir(tile);
+        for (String element : new String[] { tile.getStyle(),
+                tile.getTileMatrixSet().getIdentifier(), Integer.toString(tile.getLevel()),
+                tile.getTime(), tile.getElevation(), Integer.toString(tile.getRow()) }) {
+            dir = new File(dir, encode(element));
+        }
+        return new File(dir, tile.getCol() + "." + tile.getExtension());
+    }
+
+    private static String encode(String element) {
+        if (element == null) {
+            return NONE;
+        }
+        try {
+            /*
+             * Also encode "." so that e.g. ".." can't escape the store
+             */
+            return URLEncoder.encode(element, "UTF-8").replace(".", "%2E");
+        } catch (UnsupportedEncodingException e) {
+            /*
+             * UTF-8 is always supported
+             */
+            throw new IllegalStateException(e);
+        }
+    }
+}
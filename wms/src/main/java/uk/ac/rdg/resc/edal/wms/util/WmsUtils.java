@@ -28,12 +28,15 @@
 
 package uk.ac.rdg.resc.edal.wms.util;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -49,12 +52,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import uk.ac.rdg.resc.edal.dataset.Dataset;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.graphics.exceptions.EdalLayerNotFoundException;
+import uk.ac.rdg.resc.edal.graphics.formats.ImageFormat;
+import uk.ac.rdg.resc.edal.graphics.formats.Png32Format;
+import uk.ac.rdg.resc.edal.graphics.formats.PngFormat;
+import uk.ac.rdg.resc.edal.graphics.formats.SimpleFormat;
+import uk.ac.rdg.resc.edal.graphics.style.MapImage;
 import uk.ac.rdg.resc.edal.graphics.utils.EnhancedVariableMetadata;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics;
+import uk.ac.rdg.resc.edal.metrics.RequestMetrics.Stage;
 import uk.ac.rdg.resc.edal.util.chronologies.AllLeapChronology;
 import uk.ac.rdg.resc.edal.util.chronologies.NoLeapChronology;
 import uk.ac.rdg.resc.edal.util.chronologies.ThreeSixtyDayChronology;
+import uk.ac.rdg.resc.edal.wms.GetMapParameters;
+import uk.ac.rdg.resc.edal.wms.GetTileParameters;
 import uk.ac.rdg.resc.edal.wms.WmsCatalogue;
 
 /**
@@ -284,4 +298,67 @@ public class WmsUtils {
             WmsCatalogue catalogue) throws EdalLayerNotFoundException {
         return catalogue.getLayerMetadata(getVariableMetadataFromLayerName(layerName, catalogue));
     }
+
+    /**
+     * Draws a single map image
+     * 
+     * @param imageGenerator
+     *            The {@link MapImage} to draw
+     * @param plottingParameters
+     *            The {@link PlottingDomainParams} of the image
+     * @param imageFormat
+     *            The {@link ImageFormat} which the image will be written in.
+     *            For indexed PNGs, the colour indices are drawn directly if the
+     *            style allows it
+     * @param catalogue
+     *            The {@link WmsCatalogue} containing the data to draw
+     * @return The drawn image
+     * @throws EdalException
+     *             If there is a problem drawing the image
+     */
+    public static BufferedImage drawMap(MapImage imageGenerator,
+            PlottingDomainParams plottingParameters, ImageFormat imageFormat,
+            WmsCatalogue catalogue) throws EdalException {
+        BufferedImage frame = null;
+        if (imageFormat instanceof PngFormat && !(imageFormat instanceof Png32Format)) {
+            frame = imageGenerator.drawIndexedImage(plottingParameters, catalogue);
+        }
+        if (frame == null) {
+            frame = imageGenerator.drawImage(plottingParameters, catalogue);
+        }
+        return frame;
+    }
+
+    /**
+     * Draws and encodes a single WMTS tile
+     * 
+     * @param tile
+     *            The {@link GetTileParameters} describing the tile
+     * @param catalogue
+     *            The {@link WmsCatalogue} containing the data to draw
+     * @return The encoded tile
+     * @throws EdalException
+     *             If there is a problem drawing the tile
+     */
+    public static byte[] renderTile(GetTileParameters tile, WmsCatalogue catalogue)
+            throws EdalException {
+        GetMapParameters getMapParams = tile.getGetMapParameters();
+        ImageFormat imageFormat = getMapParams.getImageFormat();
+        MapImage imageGenerator;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.STYLE)) {
+            imageGenerator = getMapParams.getStyleParameters().getImageGenerator(catalogue);
+        }
+        BufferedImage frame;
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.DRAW)) {
+            frame = drawMap(imageGenerator, getMapParams.getPlottingDomainParameters(),
+                    imageFormat, catalogue);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RequestMetrics.Timer timer = RequestMetrics.time(Stage.ENCODE)) {
+            ((SimpleFormat) imageFormat).writeImage(Arrays.asList(frame), out, null);
+        } catch (IOException e) {
+            throw new EdalException("Problem encoding tile", e);
+        }
+        return out.toByteArray();
+    }
 }
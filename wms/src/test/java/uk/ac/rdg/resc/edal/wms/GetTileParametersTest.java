@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.graphics.exceptions.EdalLayerNotFoundException;
+import uk.ac.rdg.resc.edal.graphics.formats.InvalidFormatException;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.wms.util.TileMatrixSet;
+
+/**
+ * Test class for {@link GetTileParameters}, and the parsing of KVP and RESTful
+ * GetTile requests by {@link WmsServlet}.
+ */
+public class GetTileParametersTest {
+    private TestWmsCatalogue catalogue;
+
+    @Before
+    public void setUp() {
+        catalogue = new TestWmsCatalogue();
+    }
+
+    private static Map<String, String[]> getTileParams() {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("SERVICE", new String[] { "WMTS" });
+        params.put("REQUEST", new String[] { "GetTile" });
+        params.put("VERSION", new String[] { "1.0.0" });
+        params.put("LAYER", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("TILEMATRIXSET", new String[] { "WorldCRS84Quad" });
+        params.put("TILEMATRIX", new String[] { "1" });
+        params.put("TILEROW", new String[] { "1" });
+        params.put("TILECOL", new String[] { "3" });
+        params.put("FORMAT", new String[] { "image/png" });
+        return params;
+    }
+
+    @Test
+    public void testKvpParameters() throws EdalException {
+        GetTileParameters tile = new GetTileParameters(new RequestParams(getTileParams()),
+                catalogue);
+        assertEquals(TestWmsCatalogue.LAYER_NAME, tile.getLayerName());
+        assertEquals("default", tile.getStyle());
+        assertEquals("image/png", tile.getFormatString());
+        assertEquals("png", tile.getExtension());
+        assertEquals(TileMatrixSet.WorldCRS84Quad, tile.getTileMatrixSet());
+        assertEquals(1, tile.getLevel());
+        assertEquals(1, tile.getRow());
+        assertEquals(3, tile.getCol());
+        /*
+         * The test layer has no time or vertical domain to take defaults from
+         */
+        assertNull(tile.getTime());
+        assertNull(tile.getElevation());
+        assertTrue(tile.isStandard());
+
+        /*
+         * The tile is drawn as a 256x256 map of its bounding box
+         */
+        PlottingDomainParams plotParams = tile.getGetMapParameters()
+                .getPlottingDomainParameters();
+        assertEquals(TileMatrixSet.TILE_SIZE, plotParams.getWidth());
+        assertEquals(TileMatrixSet.TILE_SIZE, plotParams.getHeight());
+        BoundingBox bbox = plotParams.getBbox();
+        assertEquals(90.0, bbox.getMinX(), 1e-9);
+        assertEquals(-90.0, bbox.getMinY(), 1e-9);
+        assertEquals(180.0, bbox.getMaxX(), 1e-9);
+        assertEquals(0.0, bbox.getMaxY(), 1e-9);
+        assertTrue(GISUtils.isWgs84LonLat(bbox.getCoordinateReferenceSystem()));
+        assertTrue(tile.getGetMapParameters().getStyleParameters().isTransparent());
+    }
+
+    @Test
+    public void testKvpOptionalParameters() throws EdalException {
+        Map<String, String[]> params = getTileParams();
+        params.put("STYLE", new String[] { "default-scalar/default" });
+        params.put("FORMAT", new String[] { "image/jpeg" });
+        GetTileParameters tile = new GetTileParameters(new RequestParams(params), catalogue);
+        assertEquals("default-scalar/default", tile.getStyle());
+        assertEquals("jpg", tile.getExtension());
+        assertTrue(tile.isStandard());
+        assertFalse(tile.getGetMapParameters().getStyleParameters().isTransparent());
+
+        /*
+         * Any other parameter makes a non-standard tile, which can't be stored
+         */
+        params.put("COLORSCALERANGE", new String[] { "0,0.5" });
+        assertFalse(new GetTileParameters(new RequestParams(params), catalogue).isStandard());
+    }
+
+    @Test
+    public void testInvalidKvpParameters() {
+        String[][] invalid = new String[][] { { "TILEMATRIXSET", "GoogleMapsCompatible" },
+                { "TILEMATRIX", "19" }, { "TILEROW", "2" }, { "TILECOL", "4" },
+                { "TILECOL", "-1" }, { "TILEROW", "one" },
+                { "FORMAT", "application/vnd.google-earth.kmz" }, { "LAYER", null } };
+        for (String[] param : invalid) {
+            Map<String, String[]> params = getTileParams();
+            if (param[1] == null) {
+                params.remove(param[0]);
+            } else {
+                params.put(param[0], new String[] { param[1] });
+            }
+            try {
+                new GetTileParameters(new RequestParams(params), catalogue);
+                fail(param[0] + "=" + param[1] + " should be rejected");
+            } catch (EdalException e) {
+                /*
+                 * Expected
+                 */
+            }
+        }
+    }
+
+    @Test
+    public void testSourceStamp() throws EdalException {
+        long stamp = new GetTileParameters(new RequestParams(getTileParams()), catalogue)
+                .getSourceStamp();
+        assertEquals(stamp, new GetTileParameters(new RequestParams(getTileParams()), catalogue)
+                .getSourceStamp());
+        catalogue.update();
+        assertNotEquals(stamp, new GetTileParameters(new RequestParams(getTileParams()),
+                catalogue).getSourceStamp());
+    }
+
+    /*
+     * Parses a RESTful tile path, returning the parameters which would be used
+     * to draw the tile
+     */
+    private GetTileParameters parseRestPath(String path) throws Exception {
+        GetTileParameters[] parsed = new GetTileParameters[1];
+        WmsServlet servlet = new WmsServlet() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void getTile(RequestParams params, HttpServletResponse response,
+                    WmsCatalogue catalogue) throws EdalException {
+                parsed[0] = new GetTileParameters(params, catalogue);
+            }
+        };
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getRequestURL")) {
+                        return new StringBuffer("http://localhost/wms/wmts/" + path);
+                    }
+                    return null;
+                });
+        servlet.dispatchWmtsRestRequest(path, new RequestParams(new HashMap<>()), request, null,
+                catalogue);
+        return parsed[0];
+    }
+
+    @Test
+    public void testRestfulParameters() throws Exception {
+        GetTileParameters tile = parseRestPath("test/value/default/WebMercatorQuad/2/3/1.png");
+        assertEquals(TestWmsCatalogue.LAYER_NAME, tile.getLayerName());
+        assertEquals("default", tile.getStyle());
+        assertEquals(TileMatrixSet.WebMercatorQuad, tile.getTileMatrixSet());
+        assertEquals(2, tile.getLevel());
+        assertEquals(3, tile.getRow());
+        assertEquals(1, tile.getCol());
+        assertEquals("image/png", tile.getFormatString());
+        assertTrue(tile.isStandard());
+
+        /*
+         * Both layer and style names may contain "/"
+         */
+        tile = parseRestPath("test/value/default-scalar/default/WorldCRS84Quad/0/0/1.jpg");
+        assertEquals(TestWmsCatalogue.LAYER_NAME, tile.getLayerName());
+        assertEquals("default-scalar/default", tile.getStyle());
+        assertEquals(TileMatrixSet.WorldCRS84Quad, tile.getTileMatrixSet());
+        assertEquals(0, tile.getLevel());
+        assertEquals(0, tile.getRow());
+        assertEquals(1, tile.getCol());
+        assertEquals("image/jpeg", tile.getFormatString());
+    }
+
+    @Test
+    public void testRestfulMatchesKvp() throws Exception {
+        GetTileParameters rest = parseRestPath("test/value/default/WorldCRS84Quad/1/1/3.png");
+        GetTileParameters kvp = new GetTileParameters(new RequestParams(getTileParams()),
+                catalogue);
+        assertEquals(kvp.getGetMapParameters().getPlottingDomainParameters(),
+                rest.getGetMapParameters().getPlottingDomainParameters());
+        assertEquals(kvp.getSourceStamp(), rest.getSourceStamp());
+        assertEquals(kvp.isStandard(), rest.isStandard());
+    }
+
+    @Test
+    public void testInvalidRestfulPaths() throws Exception {
+        for (String path : new String[] { "test/value/WorldCRS84Quad/1/1/3.png",
+                "test/value/default/WorldCRS84Quad/1/1/3",
+                "test/value/default/WorldCRS84Quad/1/x/3.png" }) {
+            try {
+                parseRestPath(path);
+                fail(path + " should be rejected");
+            } catch (EdalException e) {
+                /*
+                 * Expected
+                 */
+            }
+        }
+        try {
+            parseRestPath("test/value/default/WorldCRS84Quad/1/1/3.tif");
+            fail("Unknown tile formats should be rejected");
+        } catch (InvalidFormatException e) {
+            /*
+             * Expected
+             */
+        }
+        try {
+            parseRestPath("nolayer/default/WorldCRS84Quad/1/1/3.png");
+            fail("Unknown layers should be rejected");
+        } catch (EdalLayerNotFoundException e) {
+            /*
+             * Expected
+             */
+        }
+    }
+}
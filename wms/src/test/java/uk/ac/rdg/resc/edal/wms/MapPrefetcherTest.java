@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.wms.MapPrefetcher.RateLimit;
+
+/**
+ * Test class for {@link MapPrefetcher}.
+ */
+public class MapPrefetcherTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testRateLimitAllowsBurst() {
+        RateLimit rateLimit = new RateLimit(2.0, 3);
+        long now = System.nanoTime();
+        assertTrue(rateLimit.tryAcquire(now));
+        assertTrue(rateLimit.tryAcquire(now));
+        assertTrue(rateLimit.tryAcquire(now));
+        assertFalse(rateLimit.tryAcquire(now));
+    }
+
+    @Test
+    public void testRateLimitRefills() {
+        RateLimit rateLimit = new RateLimit(2.0, 3);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            rateLimit.tryAcquire(now);
+        }
+        /* Half a second at 2 per second allows one more */
+        now += SECOND / 2;
+        assertTrue(rateLimit.tryAcquire(now));
+        assertFalse(rateLimit.tryAcquire(now));
+
+        /* However long the client waits, it can only burst up to the maximum */
+        now += 60 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimit.tryAcquire(now));
+        }
+        assertFalse(rateLimit.tryAcquire(now));
+    }
+}
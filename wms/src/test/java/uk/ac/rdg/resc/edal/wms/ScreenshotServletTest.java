@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+
+/**
+ * Test class for {@link ScreenshotServlet}. The background images are
+ * requested from a port with nothing listening on it, so these tests do not
+ * need network access.
+ */
+public class ScreenshotServletTest {
+    private static final String SERVLET_URL = "http://localhost:8080/edal/";
+    private static final int MAP_WIDTH = 360;
+    private static final int MAP_HEIGHT = 180;
+    /* The space above the map when no title, time or elevation is given */
+    private static final int TEXT_SPACE = 25;
+
+    private TestWmsCatalogue catalogue;
+    private ScreenshotServlet servlet;
+
+    @Before
+    public void setUp() {
+        catalogue = new TestWmsCatalogue();
+        servlet = new ScreenshotServlet();
+        servlet.setCatalogue(catalogue);
+    }
+
+    @After
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    private static RequestParams getScreenshotParams(String server) {
+        return new RequestParams(getScreenshotParamsMap(server));
+    }
+
+    private static Map<String, String[]> getScreenshotParamsMap(String server) {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("server", new String[] { server });
+        params.put("layer", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("style", new String[] { "default-scalar" });
+        params.put("palette", new String[] { "default" });
+        params.put("scaleRange", new String[] { "0,1" });
+        params.put("bbox", new String[] { "-180,-90,180,90" });
+        params.put("crs", new String[] { "CRS:84" });
+        params.put("baseUrl", new String[] { "http://localhost:1/wms?SERVICE=WMS" });
+        params.put("baseLayers", new String[] { "background" });
+        params.put("mapWidth", new String[] { Integer.toString(MAP_WIDTH) });
+        params.put("mapHeight", new String[] { Integer.toString(MAP_HEIGHT) });
+        return params;
+    }
+
+    /*
+     * Draws the map which a GetMap request for the screenshot's data layer
+     * would return
+     */
+    private BufferedImage drawExpectedMap() throws EdalException {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("LAYERS", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("STYLES", new String[] { "default-scalar/default" });
+        params.put("COLORSCALERANGE", new String[] { "0,1" });
+        params.put("TRANSPARENT", new String[] { "true" });
+        params.put("VERSION", new String[] { "1.1.1" });
+        params.put("FORMAT", new String[] { "image/png" });
+        params.put("WIDTH", new String[] { Integer.toString(MAP_WIDTH) });
+        params.put("HEIGHT", new String[] { Integer.toString(MAP_HEIGHT) });
+        params.put("BBOX", new String[] { "-180.0,-90.0,180.0,90.0" });
+        params.put("SRS", new String[] { "EPSG:4326" });
+        GetMapParameters getMapParams = new GetMapParameters(new RequestParams(params),
+                catalogue);
+        PlottingDomainParams plottingParams = getMapParams.getPlottingDomainParameters();
+        return getMapParams.getStyleParameters().getImageGenerator(catalogue)
+                .drawImage(plottingParams, catalogue);
+    }
+
+    private void checkScreenshot(BufferedImage screenshot) throws EdalException {
+        BufferedImage expectedMap = drawExpectedMap();
+        for (int y = 0; y < MAP_HEIGHT; y++) {
+            for (int x = 0; x < MAP_WIDTH; x++) {
+                assertEquals(expectedMap.getRGB(x, y), screenshot.getRGB(x, y + TEXT_SPACE));
+            }
+        }
+        /*
+         * The colour bar should be drawn to the right of the map
+         */
+        assertNotEquals(Color.white.getRGB(),
+                screenshot.getRGB(MAP_WIDTH + 20, TEXT_SPACE + MAP_HEIGHT / 2));
+    }
+
+    /**
+     * Tests that a layer on this server is drawn directly from the catalogue,
+     * and that an unavailable background does not prevent the screenshot from
+     * being drawn
+     */
+    @Test
+    public void testLocalLayerDrawnFromCatalogue() throws Exception {
+        BufferedImage screenshot = servlet.drawScreenshot(getScreenshotParams(SERVLET_URL + "wms"),
+                SERVLET_URL);
+        assertTrue(catalogue.extractions.get() > 0);
+        checkScreenshot(screenshot);
+    }
+
+    /**
+     * Tests that a server specified relative to this one is treated as local
+     */
+    @Test
+    public void testRelativeServerDrawnFromCatalogue() throws Exception {
+        BufferedImage screenshot = servlet.drawScreenshot(getScreenshotParams("wms"),
+                SERVLET_URL);
+        assertTrue(catalogue.extractions.get() > 0);
+        checkScreenshot(screenshot);
+    }
+
+    /**
+     * Tests that a layer on another server is not drawn from the catalogue,
+     * and that failing to fetch it is reported
+     */
+    @Test
+    public void testRemoteLayerNotDrawnFromCatalogue() {
+        try {
+            servlet.drawScreenshot(getScreenshotParams("http://localhost:1/wms"), SERVLET_URL);
+            fail("Screenshot should fail without its data layer");
+        } catch (Exception e) {
+            assertTrue(e instanceof EdalException);
+        }
+        assertEquals(0, catalogue.extractions.get());
+    }
+
+    /**
+     * Tests that a layer on this server is subject to the same limits as a
+     * GetMap request
+     */
+    @Test
+    public void testLocalMapLimits() throws EdalException {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("LAYERS", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("STYLES", new String[] { "default-scalar/default" });
+        params.put("VERSION", new String[] { "1.1.1" });
+        params.put("FORMAT", new String[] { "image/png" });
+        params.put("WIDTH", new String[] { "64" });
+        params.put("HEIGHT", new String[] { "32" });
+        params.put("BBOX", new String[] { "-180.0,-90.0,180.0,90.0" });
+        params.put("SRS", new String[] { "EPSG:4326" });
+        assertEquals(64, ScreenshotServlet.drawMap(new RequestParams(params), catalogue)
+                .getWidth());
+
+        /*
+         * The same limits as GetMap must be applied to in-process layers
+         */
+        params.put("WIDTH", new String[] { "2048" });
+        try {
+            ScreenshotServlet.drawMap(new RequestParams(params), catalogue);
+            fail("The test server only allows images up to 1024x1024");
+        } catch (EdalException e) {
+            assertTrue(e.getMessage().contains("exceeds the maximum"));
+        }
+
+        params.put("WIDTH", new String[] { "64" });
+        params.put("FORMAT", new String[] { "image/jpeg" });
+        params.put("TRANSPARENT", new String[] { "true" });
+        try {
+            ScreenshotServlet.drawMap(new RequestParams(params), catalogue);
+            fail("JPEG images cannot be transparent");
+        } catch (EdalException e) {
+            assertTrue(e.getMessage().contains("does not support fully-transparent"));
+        }
+    }
+
+    @Test
+    public void testIsLocalServer() {
+        assertTrue(ScreenshotServlet.isLocalServer(SERVLET_URL + "wms", SERVLET_URL));
+        assertTrue(ScreenshotServlet.isLocalServer("wms", SERVLET_URL));
+        assertTrue(ScreenshotServlet.isLocalServer("/edal/wms", SERVLET_URL));
+
+        assertFalse(ScreenshotServlet.isLocalServer(null, SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("http://localhost:1/wms", SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("//example.com/edal/wms", SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("/other/wms", SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("../other/wms", SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("http://localhost:8080/edalx/wms",
+                SERVLET_URL));
+        assertFalse(ScreenshotServlet.isLocalServer("not a url", SERVLET_URL));
+    }
+
+    /**
+     * Tests that the catalogue published by a {@link WmsServlet} in the same
+     * web application is used if none has been set
+     */
+    @Test
+    public void testCatalogueFromServletContext() throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        ServletContext context = (ServletContext) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { ServletContext.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setAttribute")) {
+                        attributes.put((String) args[0], args[1]);
+                    } else if (method.getName().equals("getAttribute")) {
+                        return attributes.get(args[0]);
+                    }
+                    return null;
+                });
+        ServletConfig config = (ServletConfig) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { ServletConfig.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getServletContext")) {
+                        return context;
+                    }
+                    return null;
+                });
+
+        ScreenshotServlet contextServlet = new ScreenshotServlet();
+        contextServlet.init(config);
+        try {
+            WmsServlet wmsServlet = new WmsServlet();
+            wmsServlet.setCatalogue(catalogue);
+            wmsServlet.init(config);
+            assertEquals(catalogue, attributes.get(WmsServlet.CATALOGUE_ATTRIBUTE));
+
+            BufferedImage screenshot = contextServlet
+                    .drawScreenshot(getScreenshotParams(SERVLET_URL + "wms"), SERVLET_URL);
+            assertTrue(catalogue.extractions.get() > 0);
+            checkScreenshot(screenshot);
+        } finally {
+            contextServlet.destroy();
+        }
+    }
+}
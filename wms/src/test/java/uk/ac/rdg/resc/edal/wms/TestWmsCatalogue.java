@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+
+import uk.ac.rdg.resc.edal.dataset.DataReadingStrategy;
+import uk.ac.rdg.resc.edal.dataset.Dataset;
+import uk.ac.rdg.resc.edal.dataset.GridDataSource;
+import uk.ac.rdg.resc.edal.dataset.GriddedDataset;
+import uk.ac.rdg.resc.edal.exceptions.DataReadingException;
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.feature.GridFeature;
+import uk.ac.rdg.resc.edal.graphics.utils.ColourPalette;
+import uk.ac.rdg.resc.edal.graphics.utils.EnhancedVariableMetadata;
+import uk.ac.rdg.resc.edal.graphics.utils.GraphicsUtils;
+import uk.ac.rdg.resc.edal.graphics.utils.LayerNameMapper;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
+import uk.ac.rdg.resc.edal.graphics.utils.PlottingStyleParameters;
+import uk.ac.rdg.resc.edal.graphics.utils.SimpleLayerNameMapper;
+import uk.ac.rdg.resc.edal.graphics.utils.SldTemplateStyleCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.StyleCatalogue;
+import uk.ac.rdg.resc.edal.grid.HorizontalGrid;
+import uk.ac.rdg.resc.edal.grid.RegularGridImpl;
+import uk.ac.rdg.resc.edal.metadata.GridVariableMetadata;
+import uk.ac.rdg.resc.edal.metadata.Parameter;
+import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.Array4D;
+import uk.ac.rdg.resc.edal.util.Extents;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+import uk.ac.rdg.resc.edal.wms.util.ContactInfo;
+import uk.ac.rdg.resc.edal.wms.util.ServerInfo;
+
+/**
+ * A {@link WmsCatalogue} containing a single in-memory gridded dataset with ID
+ * "test". This has one variable, "value", which varies smoothly between 0 and
+ * 1 across the globe. The number of times that features are extracted is
+ * counted.
+ */
+public class TestWmsCatalogue implements WmsCatalogue {
+    public static final String LAYER_NAME = "test/value";
+    static final HorizontalGrid GRID = new RegularGridImpl(-180, -90, 180, 90,
+            GISUtils.defaultGeographicCRS(), 360, 180);
+
+    final AtomicInteger extractions = new AtomicInteger(0);
+
+    private final TestDataset dataset = new TestDataset();
+    private final LayerNameMapper layerNameMapper = new SimpleLayerNameMapper();
+    private DateTime lastUpdateTime = new DateTime();
+
+    private static class TestDataset extends GriddedDataset {
+        private static final long serialVersionUID = 1L;
+
+        TestDataset() {
+            super("test", Arrays.asList(new GridVariableMetadata(
+                    new Parameter("value", "Value", "", "none", null), GRID, null, null, true)));
+        }
+
+        @Override
+        public GridFeature readFeature(String featureId) throws DataReadingException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected GridDataSource openDataSource() throws DataReadingException {
+            return new GridDataSource() {
+                @Override
+                public Array4D<Number> read(String variableId, int tmin, int tmax, int zmin,
+                        int zmax, int ymin, int ymax, int xmin, int xmax) {
+                    return new Array4D<Number>(1, 1, ymax - ymin + 1, xmax - xmin + 1) {
+                        @Override
+                        public Number get(int... coords) {
+                            return (xmin + coords[3]) * (ymin + coords[2])
+                                    / (double) (GRID.getXSize() * GRID.getYSize());
+                        }
+
+                        @Override
+                        public void set(Number value, int... coords) {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public void close() throws DataReadingException {
+                }
+            };
+        }
+
+        @Override
+        protected DataReadingStrategy getDataReadingStrategy() {
+            return DataReadingStrategy.BOUNDING_BOX;
+        }
+    }
+
+    /**
+     * Marks the catalogue as updated
+     */
+    public void update() {
+        lastUpdateTime = new DateTime(lastUpdateTime.getMillis() + 1);
+    }
+
+    @Override
+    public FeaturesAndMemberName getFeaturesForLayer(String layerName,
+            PlottingDomainParams params) throws EdalException {
+        extractions.incrementAndGet();
+        String variableId = layerNameMapper.getVariableIdFromLayerName(layerName);
+        return new FeaturesAndMemberName(
+                GraphicsUtils.extractGeneralMapFeatures(dataset, variableId, params), variableId);
+    }
+
+    @Override
+    public Collection<Dataset> getAllDatasets() {
+        return Collections.singleton(dataset);
+    }
+
+    @Override
+    public Dataset getDatasetFromId(String datasetId) {
+        return dataset.getId().equals(datasetId) ? dataset : null;
+    }
+
+    @Override
+    public EnhancedVariableMetadata getLayerMetadata(final VariableMetadata variableMetadata) {
+        return new EnhancedVariableMetadata() {
+            @Override
+            public String getId() {
+                return variableMetadata.getId();
+            }
+
+            @Override
+            public String getTitle() {
+                return variableMetadata.getParameter().getTitle();
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public String getCopyright() {
+                return null;
+            }
+
+            @Override
+            public String getMoreInfo() {
+                return null;
+            }
+
+            @Override
+            public PlottingStyleParameters getDefaultPlottingParameters() {
+                return new PlottingStyleParameters(Arrays.asList(Extents.newExtent(0f, 1f)),
+                        ColourPalette.DEFAULT_PALETTE_NAME, Color.black, Color.black,
+                        new Color(0, true), false, 250, 1f);
+            }
+
+            @Override
+            public boolean isQueryable() {
+                return true;
+            }
+
+            @Override
+            public boolean isDownloadable() {
+                return false;
+            }
+
+            @Override
+            public boolean isDisabled() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public DateTime getLastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+    @Override
+    public LayerNameMapper getLayerNameMapper() {
+        return layerNameMapper;
+    }
+
+    @Override
+    public StyleCatalogue getStyleCatalogue() {
+        return SldTemplateStyleCatalogue.getStyleCatalogue();
+    }
+
+    @Override
+    public ServerInfo getServerInfo() {
+        return new ServerInfo() {
+            @Override
+            public String getName() {
+                return "Test server";
+            }
+
+            @Override
+            public String getAbstract() {
+                return null;
+            }
+
+            @Override
+            public List<String> getKeywords() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public int getMaxSimultaneousLayers() {
+                return 1;
+            }
+
+            @Override
+            public int getMaxImageWidth() {
+                return 1024;
+            }
+
+            @Override
+            public int getMaxImageHeight() {
+                return 1024;
+            }
+
+            @Override
+            public boolean allowsFeatureInfo() {
+                return true;
+            }
+
+            @Override
+            public boolean allowsGlobalCapabilities() {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public ContactInfo getContactInfo() {
+        return null;
+    }
+
+    @Override
+    public String getDatasetTitle(String datasetId) {
+        return datasetId;
+    }
+
+    @Override
+    public boolean isDownloadable(String layerName) {
+        return false;
+    }
+
+    @Override
+    public boolean isQueryable(String layerName) {
+        return true;
+    }
+
+    @Override
+    public boolean isDisabled(String layerName) {
+        return false;
+    }
+}
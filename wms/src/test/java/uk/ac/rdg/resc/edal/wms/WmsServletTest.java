@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+
+/**
+ * Test class for {@link WmsServlet}.
+ */
+public class WmsServletTest {
+    private TestWmsCatalogue catalogue;
+    private WmsServlet servlet;
+
+    @Before
+    public void setUp() {
+        catalogue = new TestWmsCatalogue();
+        servlet = new WmsServlet();
+        servlet.setCatalogue(catalogue);
+    }
+
+    private static Map<String, String[]> getLegendParams() {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("REQUEST", new String[] { "GetLegendGraphic" });
+        params.put("LAYERS", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("STYLES", new String[] { "default-scalar/default" });
+        return params;
+    }
+
+    /*
+     * Makes a GetLegendGraphic request, and returns the headers of the
+     * response
+     */
+    private Map<String, String> getLegendHeaders(Map<String, String[]> params)
+            throws EdalException {
+        Map<String, String> headers = new HashMap<>();
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                content.write(b);
+            }
+        };
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setHeader")) {
+                        headers.put((String) args[0], (String) args[1]);
+                    } else if (method.getName().equals("getOutputStream")) {
+                        return out;
+                    } else if (method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return null;
+                });
+        servlet.getLegendGraphic(new RequestParams(params), null, response, catalogue);
+        assertNotEquals(0, content.size());
+        return headers;
+    }
+
+    @Test
+    public void testLegendCacheControl() throws EdalException {
+        Map<String, String[]> params = getLegendParams();
+        params.put("COLORSCALERANGE", new String[] { "0,1" });
+        assertEquals("public, max-age=86400", getLegendHeaders(params).get("Cache-Control"));
+
+        /*
+         * Legends which use the default or auto-scaled range can change with
+         * the server configuration, so must not be cached by clients
+         */
+        params.put("COLORSCALERANGE", new String[] { "auto" });
+        assertEquals("no-cache", getLegendHeaders(params).get("Cache-Control"));
+        params.put("COLORSCALERANGE", new String[] { "default" });
+        assertEquals("no-cache", getLegendHeaders(params).get("Cache-Control"));
+        params.remove("COLORSCALERANGE");
+        assertEquals("no-cache", getLegendHeaders(params).get("Cache-Control"));
+    }
+
+    @Test
+    public void testLegendIgnoresUnrelatedParameters() throws EdalException {
+        Map<String, String[]> params = getLegendParams();
+        params.put("COLORSCALERANGE", new String[] { "auto" });
+        String eTag = getLegendHeaders(params).get("ETag");
+
+        params.put("TIME", new String[] { "2000-01-01T00:00:00Z" });
+        params.put("BBOX", new String[] { "-10,-10,10,10" });
+        params.put("SERVICE", new String[] { "WMS" });
+        assertEquals(eTag, getLegendHeaders(params).get("ETag"));
+
+        params.put("NUMCOLORBANDS", new String[] { "10" });
+        assertNotEquals(eTag, getLegendHeaders(params).get("ETag"));
+    }
+
+    @Test
+    public void testLegendVersion() {
+        RequestParams params = new RequestParams(getLegendParams());
+        Object version = WmsServlet.getLegendVersion(params, catalogue);
+        assertEquals(version, WmsServlet.getLegendVersion(params, catalogue));
+
+        /*
+         * Cached legends are replaced when the catalogue changes
+         */
+        catalogue.update();
+        assertNotEquals(version, WmsServlet.getLegendVersion(params, catalogue));
+
+        /*
+         * Legends for layers which can't be found are never cached
+         */
+        Map<String, String[]> missingLayer = getLegendParams();
+        missingLayer.put("LAYERS", new String[] { "malformed" });
+        assertNull(WmsServlet.getLegendVersion(new RequestParams(missingLayer), catalogue));
+    }
+
+    @Test
+    public void testCanonicalStringOf() {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("PALETTE", new String[] { "default" });
+        params.put("COLORSCALERANGE", new String[] { "0,1" });
+        params.put("TIME", new String[] { "2000-01-01T00:00:00Z" });
+        assertEquals("colorscalerange=0,1&palette=default&",
+                new RequestParams(params).toCanonicalStringOf("palette", "colorscalerange",
+                        "width"));
+    }
+
+    /*
+     * Makes a request without a session from the given address, with the
+     * given X-Forwarded-For header
+     */
+    private static HttpServletRequest getRequest(String remoteAddress, String forwardedFor) {
+        return (HttpServletRequest) Proxy.newProxyInstance(WmsServletTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getRemoteAddr")) {
+                        return remoteAddress;
+                    } else if (method.getName().equals("getHeader")
+                            && "X-Forwarded-For".equalsIgnoreCase((String) args[0])) {
+                        return forwardedFor;
+                    }
+                    return null;
+                });
+    }
+
+    @Test
+    public void testClientIdIgnoresUntrustedForwardedFor() {
+        assertEquals("192.0.2.1", servlet.getClientId(getRequest("192.0.2.1", "198.51.100.7")));
+        assertEquals("192.0.2.1", servlet.getClientId(getRequest("192.0.2.1", null)));
+    }
+
+    @Test
+    public void testClientIdBehindTrustedProxy() {
+        servlet.setTrustedProxies(Arrays.asList("10.0.0.1", "10.0.0.2"));
+        assertEquals("198.51.100.7", servlet.getClientId(getRequest("10.0.0.1", "198.51.100.7")));
+        /*
+         * Only the addresses added by trusted proxies count - a client can't
+         * pretend to be someone else by sending its own header
+         */
+        assertEquals("198.51.100.7", servlet.getClientId(
+                getRequest("10.0.0.1", "203.0.113.5, 198.51.100.7, 10.0.0.2")));
+        assertEquals("10.0.0.1", servlet.getClientId(getRequest("10.0.0.1", null)));
+        assertEquals("192.0.2.1", servlet.getClientId(getRequest("192.0.2.1", "198.51.100.7")));
+    }
+}
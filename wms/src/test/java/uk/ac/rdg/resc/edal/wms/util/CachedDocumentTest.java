@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link CachedDocument}.
+ */
+public class CachedDocumentTest {
+    private static final String CONTENT = "<doc>Some content</doc>";
+
+    /*
+     * The status, headers and content of a response
+     */
+    private static class Response {
+        private int status = HttpServletResponse.SC_OK;
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+    }
+
+    /*
+     * Writes a document in response to a request with the given headers
+     */
+    private static Response write(CachedDocument document, Map<String, String> requestHeaders)
+            throws IOException {
+        Response response = new Response();
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                CachedDocumentTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("getHeader")) {
+                        return requestHeaders.get(args[0]);
+                    }
+                    return null;
+                });
+        ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                response.content.write(b);
+            }
+        };
+        HttpServletResponse httpResponse = (HttpServletResponse) Proxy.newProxyInstance(
+                CachedDocumentTest.class.getClassLoader(),
+                new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                    if (method.getName().equals("setHeader")) {
+                        response.headers.put((String) args[0], (String) args[1]);
+                    } else if (method.getName().equals("setStatus")) {
+                        response.status = (Integer) args[0];
+                    } else if (method.getName().equals("getOutputStream")) {
+                        return out;
+                    } else if (method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    return null;
+                });
+        document.write(request, httpResponse);
+        return response;
+    }
+
+    private static byte[] gunzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testEncodings() throws IOException {
+        CachedDocument document = CachedDocument.fromString(CONTENT, "text/xml");
+        byte[] expected = CONTENT.getBytes(StandardCharsets.UTF_8);
+
+        Map<String, String> headers = new HashMap<>();
+        Response identity = write(document, headers);
+        assertEquals(HttpServletResponse.SC_OK, identity.status);
+        assertEquals(document.getETag(), identity.headers.get("ETag"));
+        assertEquals("Accept-Encoding", identity.headers.get("Vary"));
+        assertEquals(null, identity.headers.get("Content-Encoding"));
+        assertArrayEquals(expected, identity.content.toByteArray());
+
+        headers.put("Accept-Encoding", "deflate, gzip");
+        Response gzipped = write(document, headers);
+        assertEquals(document.getGzipETag(), gzipped.headers.get("ETag"));
+        assertEquals("Accept-Encoding", gzipped.headers.get("Vary"));
+        assertEquals("gzip", gzipped.headers.get("Content-Encoding"));
+        assertArrayEquals(expected, gunzip(gzipped.content.toByteArray()));
+
+        /*
+         * The two representations must have different entity tags
+         */
+        assertNotEquals(document.getETag(), document.getGzipETag());
+
+        headers.put("Accept-Encoding", "gzip;q=0");
+        assertEquals(document.getETag(), write(document, headers).headers.get("ETag"));
+    }
+
+    @Test
+    public void testNotModified() throws IOException {
+        CachedDocument document = CachedDocument.fromString(CONTENT, "text/xml");
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", document.getETag());
+        Response response = write(document, headers);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, response.status);
+        assertEquals(0, response.content.size());
+
+        headers.put("If-None-Match", "\"other\", W/" + document.getETag());
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, write(document, headers).status);
+
+        /*
+         * A client which cached the identity representation must not be told
+         * that it can use it as the gzipped one, and vice versa
+         */
+        headers.put("Accept-Encoding", "gzip");
+        response = write(document, headers);
+        assertEquals(HttpServletResponse.SC_OK, response.status);
+        assertArrayEquals(CONTENT.getBytes(StandardCharsets.UTF_8),
+                gunzip(response.content.toByteArray()));
+        headers.put("If-None-Match", document.getGzipETag());
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, write(document, headers).status);
+        headers.remove("Accept-Encoding");
+        assertEquals(HttpServletResponse.SC_OK, write(document, headers).status);
+
+        /*
+         * A changed document has a different entity tag
+         */
+        headers.put("If-None-Match", document.getETag());
+        CachedDocument changed = CachedDocument.fromString(CONTENT + " ", "text/xml");
+        assertEquals(HttpServletResponse.SC_OK, write(changed, headers).status);
+    }
+
+    @Test
+    public void testUncompressedDocument() throws IOException {
+        byte[] png = new byte[] { (byte) 0x89, 'P', 'N', 'G' };
+        CachedDocument document = CachedDocument.fromBytes(png, "image/png");
+        assertEquals(document.getETag(), document.getGzipETag());
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip");
+        Response response = write(document, headers);
+        assertEquals(document.getETag(), response.headers.get("ETag"));
+        assertEquals(null, response.headers.get("Content-Encoding"));
+        assertEquals(null, response.headers.get("Vary"));
+        assertArrayEquals(png, response.content.toByteArray());
+    }
+}
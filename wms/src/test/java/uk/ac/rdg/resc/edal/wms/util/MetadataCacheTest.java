@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Test class for {@link MetadataCache}.
+ */
+public class MetadataCacheTest {
+    @Test
+    public void testDocumentVersions() {
+        MetadataCache<String> cache = new MetadataCache<>();
+        CachedDocument document = CachedDocument.fromString("<doc/>", "text/xml");
+        cache.putDocument("key", 1L, document);
+        assertSame(document, cache.getDocument("key", 1L));
+        assertNull(cache.getDocument("other", 1L));
+
+        /*
+         * A new version invalidates the document
+         */
+        assertNull(cache.getDocument("key", 2L));
+        assertNull(cache.getDocument("key", null));
+
+        /*
+         * Nothing is stored without a version
+         */
+        cache.putDocument("unversioned", null, document);
+        assertNull(cache.getDocument("unversioned", null));
+    }
+
+    @Test
+    public void testFragmentSources() {
+        MetadataCache<String> cache = new MetadataCache<>();
+        Object dataset = new Object();
+        cache.putFragment("dataset", Arrays.asList(dataset, 1L), "fragment");
+        /*
+         * Equal sources are the same version
+         */
+        assertSame("fragment", cache.getFragment("dataset", Arrays.asList(dataset, 1L)));
+        /*
+         * Changes to either part of the source invalidate the fragment
+         */
+        assertNull(cache.getFragment("dataset", Arrays.asList(dataset, 2L)));
+        assertNull(cache.getFragment("dataset", Arrays.asList(new Object(), 1L)));
+
+        cache.clear();
+        assertNull(cache.getFragment("dataset", Arrays.asList(dataset, 1L)));
+    }
+
+    @Test
+    public void testLruEviction() {
+        MetadataCache<String> cache = new MetadataCache<>(2, 2);
+        cache.putFragment("a", 1L, "a");
+        cache.putFragment("b", 1L, "b");
+        /*
+         * Using "a" makes "b" the least recently used
+         */
+        assertSame("a", cache.getFragment("a", 1L));
+        cache.putFragment("c", 1L, "c");
+        assertSame("a", cache.getFragment("a", 1L));
+        assertNull(cache.getFragment("b", 1L));
+        assertSame("c", cache.getFragment("c", 1L));
+    }
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.sis.metadata.iso.extent.DefaultGeographicBoundingBox;
+import org.junit.Test;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.geometry.BoundingBox;
+import uk.ac.rdg.resc.edal.util.GISUtils;
+
+/**
+ * Test class for {@link TileMatrixSet}.
+ */
+public class TileMatrixSetTest {
+    private static final double M = 20037508.3427892;
+    private static final double DELTA = 1e-6;
+
+    private static void assertBbox(double minX, double minY, double maxX, double maxY,
+            BoundingBox bbox) {
+        assertEquals(minX, bbox.getMinX(), DELTA);
+        assertEquals(minY, bbox.getMinY(), DELTA);
+        assertEquals(maxX, bbox.getMaxX(), DELTA);
+        assertEquals(maxY, bbox.getMaxY(), DELTA);
+    }
+
+    private static DefaultGeographicBoundingBox bbox(double west, double east, double south,
+            double north) {
+        return new DefaultGeographicBoundingBox(west, east, south, north);
+    }
+
+    @Test
+    public void testWebMercatorTiles() throws EdalException {
+        TileMatrixSet tms = TileMatrixSet.WebMercatorQuad;
+        assertEquals(1, tms.getMatrixWidth(0));
+        assertEquals(1, tms.getMatrixHeight(0));
+        assertEquals(8, tms.getMatrixWidth(3));
+        assertEquals(8, tms.getMatrixHeight(3));
+
+        assertBbox(-M, -M, M, M, tms.getTileBoundingBox(0, 0, 0));
+        assertBbox(0, 0, M, M, tms.getTileBoundingBox(1, 0, 1));
+        assertBbox(-M, -M, -M / 2, -M / 2, tms.getTileBoundingBox(2, 3, 0));
+        assertEquals(GISUtils.getCrs("EPSG:3857"),
+                tms.getTileBoundingBox(2, 3, 0).getCoordinateReferenceSystem());
+
+        /*
+         * Neighbouring tiles must share their edges exactly
+         */
+        assertEquals(tms.getTileBoundingBox(18, 1000, 2000).getMaxX(),
+                tms.getTileBoundingBox(18, 1000, 2001).getMinX(), 0.0);
+        assertEquals(tms.getTileBoundingBox(18, 1000, 2000).getMinY(),
+                tms.getTileBoundingBox(18, 1001, 2000).getMaxY(), 0.0);
+    }
+
+    @Test
+    public void testWorldCrs84Tiles() throws EdalException {
+        TileMatrixSet tms = TileMatrixSet.WorldCRS84Quad;
+        assertEquals(2, tms.getMatrixWidth(0));
+        assertEquals(1, tms.getMatrixHeight(0));
+        assertEquals(16, tms.getMatrixWidth(3));
+        assertEquals(8, tms.getMatrixHeight(3));
+
+        assertBbox(-180, -90, 0, 90, tms.getTileBoundingBox(0, 0, 0));
+        assertBbox(0, -90, 180, 90, tms.getTileBoundingBox(0, 0, 1));
+        assertBbox(90, -90, 180, 0, tms.getTileBoundingBox(1, 1, 3));
+        assertBbox(-180, 67.5, -157.5, 90, tms.getTileBoundingBox(3, 0, 0));
+    }
+
+    @Test
+    public void testTilesOutOfRange() {
+        int[][] tiles = new int[][] { { -1, 0, 0 }, { TileMatrixSet.NUM_LEVELS, 0, 0 },
+                { 1, 2, 0 }, { 1, 0, 4 }, { 1, -1, 0 }, { 1, 0, -1 } };
+        for (int[] tile : tiles) {
+            try {
+                TileMatrixSet.WorldCRS84Quad.getTileBoundingBox(tile[0], tile[1], tile[2]);
+                fail("Tile " + tile[0] + "/" + tile[1] + "/" + tile[2] + " should be rejected");
+            } catch (EdalException e) {
+                /*
+                 * Expected
+                 */
+            }
+        }
+    }
+
+    @Test
+    public void testFromIdentifier() throws EdalException {
+        assertEquals(TileMatrixSet.WebMercatorQuad,
+                TileMatrixSet.fromIdentifier("webmercatorquad"));
+        assertEquals(TileMatrixSet.WorldCRS84Quad,
+                TileMatrixSet.fromIdentifier("WorldCRS84Quad"));
+        try {
+            TileMatrixSet.fromIdentifier("GoogleMapsCompatible");
+            fail("Unknown tile matrix sets should be rejected");
+        } catch (EdalException e) {
+            /*
+             * Expected
+             */
+        }
+    }
+
+    @Test
+    public void testTileRangeGlobal() {
+        assertArrayEquals(new int[] { 0, 1, 0, 3 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(1, bbox(-180, 180, -90, 90)));
+        assertArrayEquals(new int[] { 0, 3, 0, 3 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(-180, 180, -90, 90)));
+        /*
+         * Edges which fall on tile boundaries don't bring in the next tile
+         */
+        assertArrayEquals(new int[] { 0, 0, 2, 2 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(1, bbox(0, 90, 0, 90)));
+        assertArrayEquals(new int[] { 0, 0, 1, 1 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(1, bbox(0, 180, 0, 90)));
+    }
+
+    @Test
+    public void testTileRangeAtAntimeridian() {
+        /*
+         * Level 2 of WorldCRS84Quad has 8 columns of 45 degrees
+         */
+        assertArrayEquals(new int[] { 1, 1, 7, 7 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(170, 180, 10, 20)));
+        assertArrayEquals(new int[] { 1, 1, 0, 0 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(-180, -170, 10, 20)));
+        assertArrayEquals(new int[] { 1, 1, 3, 3 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(170, 180, 10, 20)));
+
+        /*
+         * Boxes crossing the antimeridian are covered by every column
+         */
+        assertArrayEquals(new int[] { 1, 1, 0, 7 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(170, -170, 10, 20)));
+        assertArrayEquals(new int[] { 1, 1, 0, 7 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(0, 360, 10, 20)));
+        assertArrayEquals(new int[] { 1, 1, 0, 3 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(170, 190, 10, 20)));
+    }
+
+    @Test
+    public void testTileRangeAtPoles() {
+        /*
+         * Web Mercator stops short of the poles, so polar boxes are covered by
+         * the first or last row
+         */
+        assertArrayEquals(new int[] { 0, 0, 0, 3 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(-180, 180, 89, 90)));
+        assertArrayEquals(new int[] { 3, 3, 0, 3 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(-180, 180, -90, -89)));
+        assertArrayEquals(new int[] { 0, 3, 1, 1 },
+                TileMatrixSet.WebMercatorQuad.getTileRange(2, bbox(-80, -10, -90, 90)));
+
+        assertArrayEquals(new int[] { 0, 0, 0, 7 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(-180, 180, 89, 90)));
+        assertArrayEquals(new int[] { 3, 3, 0, 7 },
+                TileMatrixSet.WorldCRS84Quad.getTileRange(2, bbox(-180, 180, -90, -89)));
+    }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2026 The University of Reading
+ * All rights reserved.
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the University of Reading, nor the names of the
+ *    authors or contributors may be used to endorse or promote products
+ *    derived from this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ * OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+ * IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT
+ * NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF
+ * THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ ******************************************************************************/
+
+package uk.ac.rdg.resc.edal.wms.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import uk.ac.rdg.resc.edal.exceptions.EdalException;
+import uk.ac.rdg.resc.edal.wms.GetTileParameters;
+import uk.ac.rdg.resc.edal.wms.RequestParams;
+import uk.ac.rdg.resc.edal.wms.TestWmsCatalogue;
+
+/**
+ * Test class for {@link TileStore}.
+ */
+public class TileStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestWmsCatalogue catalogue;
+    private File root;
+    private TileStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        catalogue = new TestWmsCatalogue();
+        root = folder.newFolder("tiles");
+        store = new TileStore(root);
+    }
+
+    private GetTileParameters getTile(int row, int col, String... extraParams)
+            throws EdalException {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("LAYER", new String[] { TestWmsCatalogue.LAYER_NAME });
+        params.put("TILEMATRIXSET", new String[] { "WorldCRS84Quad" });
+        params.put("TILEMATRIX", new String[] { "1" });
+        params.put("TILEROW", new String[] { Integer.toString(row) });
+        params.put("TILECOL", new String[] { Integer.toString(col) });
+        for (int i = 0; i < extraParams.length; i += 2) {
+            params.put(extraParams[i], new String[] { extraParams[i + 1] });
+        }
+        return new GetTileParameters(new RequestParams(params), catalogue);
+    }
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        GetTileParameters tile = getTile(1, 3);
+        assertFalse(store.hasTile(tile));
+        assertNull(store.readTile(tile));
+
+        store.writeTile(tile, new byte[] { 1, 2, 3 });
+        assertTrue(store.hasTile(tile));
+        assertArrayEquals(new byte[] { 1, 2, 3 }, store.readTile(getTile(1, 3)));
+        assertFalse(store.hasTile(getTile(1, 2)));
+
+        /*
+         * Rewriting a tile replaces it, without leaving temporary files behind
+         */
+        store.writeTile(tile, new byte[] { 4, 5 });
+        assertArrayEquals(new byte[] { 4, 5 }, store.readTile(tile));
+        assertEquals(1, store.getTileFile(tile).getParentFile().list().length);
+    }
+
+    @Test
+    public void testNonStandardTilesRejected() throws Exception {
+        try {
+            store.writeTile(getTile(1, 3, "COLORSCALERANGE", "0,0.5"), new byte[] { 1 });
+            fail("Non-standard tiles should not be stored");
+        } catch (IllegalArgumentException e) {
+            /*
+             * Expected
+             */
+        }
+    }
+
+    @Test
+    public void testStampRollover() throws Exception {
+        GetTileParameters oldTile = getTile(1, 3);
+        store.writeTile(oldTile, new byte[] { 1 });
+        store.writeTile(getTile(0, 0), new byte[] { 2 });
+        File layerDir = new File(root, "test%2Fvalue");
+        assertEquals(1, layerDir.list().length);
+
+        /*
+         * When the data changes, stored tiles are out of date
+         */
+        catalogue.update();
+        GetTileParameters newTile = getTile(1, 3);
+        assertFalse(store.hasTile(newTile));
+        assertNull(store.readTile(newTile));
+        assertTrue(store.hasTile(oldTile));
+
+        /*
+         * Writing the first tile of the new stamp removes all of the old ones
+         */
+        store.writeTile(newTile, new byte[] { 3 });
+        assertArrayEquals(new String[] { Long.toHexString(newTile.getSourceStamp()) },
+                layerDir.list());
+        assertFalse(store.hasTile(oldTile));
+        assertNull(store.readTile(getTile(0, 0)));
+        assertArrayEquals(new byte[] { 3 }, store.readTile(newTile));
+
+        /*
+         * ...but later tiles of the same stamp don't
+         */
+        store.writeTile(getTile(0, 0), new byte[] { 4 });
+        assertArrayEquals(new byte[] { 3 }, store.readTile(newTile));
+    }
+
+    @Test
+    public void testPathElementsEscaped() throws Exception {
+        GetTileParameters tile = getTile(1, 3, "STYLE", "default-scalar/default", "FORMAT",
+                "image/jpeg");
+        store.writeTile(tile, new byte[] { 1 });
+        /*
+         * "/" and "." in names can't create or escape directories, and missing
+         * times and elevations have a placeholder
+         */
+        String expected = String.join(File.separator, "test%2Fvalue",
+                Long.toHexString(tile.getSourceStamp()), "default-scalar%2Fdefault",
+                "WorldCRS84Quad", "1", "-", "-", "1", "3.jpg");
+        assertEquals(new File(root, expected), store.getTileFile(tile));
+        assertTrue(new File(root, expected).isFile());
+
+        tile = getTile(1, 3, "TIME", "2020-01-01T00:00:00.000Z", "ELEVATION", "10.5");
+        assertEquals(new File(root, String.join(File.separator, "test%2Fvalue",
+                Long.toHexString(tile.getSourceStamp()), "default", "WorldCRS84Quad", "1",
+                "2020-01-01T00%3A00%3A00%2E000Z", "10%2E5", "1", "3.png")),
+                store.getTileFile(tile));
+    }
+}
@@ -28,6 +28,7 @@
 
 package uk.ac.rdg.resc.edal.catalogue;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
@@ -39,7 +40,12 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import javax.management.JMException;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
@@ -50,40 +56,44 @@ import org.slf4j.LoggerFactory;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
-import net.sf.ehcache.config.CacheConfiguration.TransactionalMode;
-import net.sf.ehcache.config.MemoryUnit;
-import net.sf.ehcache.config.PersistenceConfiguration;
-import net.sf.ehcache.config.PersistenceConfiguration.Strategy;
 import net.sf.ehcache.management.ManagementService;
-import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 import uk.ac.rdg.resc.edal.cache.EdalCache;
+import uk.ac.rdg.resc.edal.cache.FeatureWeigher;
+import uk.ac.rdg.resc.edal.cache.WeighedCache;
 import uk.ac.rdg.resc.edal.catalogue.jaxb.CacheInfo;
 import uk.ac.rdg.resc.edal.catalogue.jaxb.CatalogueConfig;
 import uk.ac.rdg.resc.edal.catalogue.jaxb.CatalogueConfig.DatasetStorage;
 import uk.ac.rdg.resc.edal.catalogue.jaxb.DatasetConfig;
 import uk.ac.rdg.resc.edal.catalogue.jaxb.VariableConfig;
 import uk.ac.rdg.resc.edal.dataset.Dataset;
+import uk.ac.rdg.resc.edal.dataset.GridOverviews;
+import uk.ac.rdg.resc.edal.dataset.GriddedDataset;
+import uk.ac.rdg.resc.edal.dataset.HorizontallyDiscreteDataset;
 import uk.ac.rdg.resc.edal.exceptions.EdalException;
 import uk.ac.rdg.resc.edal.feature.DiscreteFeature;
 import uk.ac.rdg.resc.edal.graphics.exceptions.EdalLayerNotFoundException;
 import uk.ac.rdg.resc.edal.graphics.utils.DatasetCatalogue;
+import uk.ac.rdg.resc.edal.graphics.utils.DatasetStatisticsIndex;
 import uk.ac.rdg.resc.edal.graphics.utils.EnhancedVariableMetadata;
 import uk.ac.rdg.resc.edal.graphics.utils.FeatureCatalogue;
 import uk.ac.rdg.resc.edal.graphics.utils.GraphicsUtils;
 import uk.ac.rdg.resc.edal.graphics.utils.LayerNameMapper;
 import uk.ac.rdg.resc.edal.graphics.utils.PlottingDomainParams;
 import uk.ac.rdg.resc.edal.metadata.VariableMetadata;
+import uk.ac.rdg.resc.edal.util.cdm.CdmUtils;
 
 /**
  * A catalogues which implements {@link DatasetCatalogue},
  * {@link DatasetStorage}, and {@link FeatureCatalogue}. Given a
- * {@link CacheConfiguration}, this is able to return {@link Dataset}s, and
+ * {@link CatalogueConfig}, this is able to return {@link Dataset}s, and
  * {@link Collection}s of {@link DiscreteFeature}s given a single {@link String}
  * layer identifier.
  * 
- * It also provides a cache of {@link DiscreteFeature}s for speed.
+ * It also provides a cache of {@link DiscreteFeature}s for speed. This is a
+ * {@link WeighedCache}, whose keys include a generation number for the
+ * dataset, so that reloading a dataset invalidates all of its cached features
+ * without having to search the cache.
  *
  * @author Guy Griffiths
  */
@@ -92,14 +102,52 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
 
     private static final String WMS_CACHE_CONFIG = "ehcache.config";
     private static final String CACHE_NAME = "featureCache";
+    private static final String FEATURE_CACHE_OBJECT_NAME = "uk.ac.rdg.resc.edal:type=WeighedCache,name="
+            + CACHE_NAME;
     private static final long CACHE_SIZE_MB = 512;
     private static final int LIFETIME_SECONDS = 0;
-    final MemoryStoreEvictionPolicy EVICTION_POLICY = MemoryStoreEvictionPolicy.LFU;
-    private static final Strategy PERSISTENCE_STRATEGY = Strategy.NONE;
-    private static final TransactionalMode TRANSACTIONAL_MODE = TransactionalMode.OFF;
-
-    private boolean cachingEnabled;
-    private Cache featureCache = null;
+    private static final String STATISTICS_DIR = "statistics";
+    private static final String OVERVIEWS_DIR = "overviews";
+
+    private volatile boolean cachingEnabled;
+    private volatile WeighedCache<CacheKey, Collection<? extends DiscreteFeature<?, ?>>> featureCache = null;
+    /*
+     * The generation of each dataset. This is incremented each time a dataset
+     * is (re)loaded, and forms part of the key for cached features.
+     */
+    private final Map<String, Long> datasetGenerations = new ConcurrentHashMap<>();
+    /*
+     * A stamp identifying the version of the source data of each dataset.
+     * Unlike the generation, this survives restarts and only changes when the
+     * data does, so it is used to check data derived from a dataset which is
+     * kept on disk.
+     */
+    private final Map<String, Long> datasetSourceStamps = new ConcurrentHashMap<>();
+    /*
+     * The IDs of datasets whose source files can't be found (e.g. remote
+     * datasets), so whose stamps change every time they are loaded
+     */
+    private final Set<String> changingDatasets = ConcurrentHashMap.newKeySet();
+    /*
+     * Incremented each time the config is changed and saved. Saves made when
+     * a dataset is loaded only record the dataset's variables, so they don't
+     * count as changes. Both are only changed whilst synchronized on the
+     * config, which it is whilst saving.
+     */
+    private volatile long configStamp = 0L;
+    private boolean savingLoadedDataset = false;
+    /*
+     * Precomputed value statistics for each dataset. These are built in the
+     * background after a dataset is loaded, on a single low-priority thread so
+     * that they don't compete with dataset loading or user requests.
+     */
+    private final Map<String, DatasetStatisticsIndex> statisticsIndices = new ConcurrentHashMap<>();
+    private final ExecutorService statisticsExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "statistics-index-builder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
     private static MBeanServer mBeanServer;
     private static ObjectName cacheManagerObjectName;
 
@@ -109,7 +157,7 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
 
     protected final LayerNameMapper layerNameMapper;
 
-    private DateTime lastUpdateTime = new DateTime();
+    private volatile DateTime lastUpdateTime = new DateTime();
 
     public DataCatalogue() {
         config = null;
@@ -136,6 +184,7 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
                 * 60);
 
         String ehcache_file = System.getProperty(WMS_CACHE_CONFIG);
+        long cacheSizeMB = config.getCacheSettings().getInMemorySizeMB();
         if (ehcache_file != null && !ehcache_file.isEmpty()) {
             /*
              * We want to load the caches from the XML file into the EDAL cache
@@ -144,66 +193,109 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
             log.debug("Loading cache definitions from file");
             CacheManager cacheManager = CacheManager.newInstance(System.getProperty(WMS_CACHE_CONFIG));
             for (String cacheName : cacheManager.getCacheNames()) {
+                CacheConfiguration cacheConfiguration = cacheManager.getCache(cacheName)
+                        .getCacheConfiguration();
+                if (CACHE_NAME.equals(cacheName)) {
+                    /*
+                     * The feature cache is not an ehcache, but we still honour
+                     * its size and lifetime if they are defined in the file.
+                     * Update cache params in the catalogue config.
+                     */
+                    long maxBytes = cacheConfiguration.getMaxBytesLocalHeap();
+                    if (maxBytes > 0) {
+                        cacheSizeMB = maxBytes / (1024 * 1024);
+                    } else {
+                        /*
+                         * The cache is sized by entry count. Features vary
+                         * hugely in size, so an entry count can't be turned
+                         * into a weight. Keep the configured size instead.
+                         */
+                        log.warn("The featureCache is limited by entry count in " + ehcache_file
+                                + ", but it can only be limited by size.  Using "
+                                + getCacheSizeMB(cacheSizeMB) + "MB instead");
+                    }
+                    cacheSizeMB = getCacheSizeMB(cacheSizeMB);
+                    cacheLifetimeSeconds = cacheConfiguration.getTimeToLiveSeconds();
+                    CacheInfo catalogueCacheInfo = config.getCacheSettings();
+                    catalogueCacheInfo.setInMemorySizeMB((int) cacheSizeMB);
+                    catalogueCacheInfo.setElementLifetimeMinutes(cacheLifetimeSeconds / 60f);
+                    catalogueCacheInfo.setEnabled(true);
+                    cachingEnabled = true;
+                    continue;
+                }
                 if(EdalCache.cacheManager.cacheExists(cacheName)) {
                     /*
                      * Remove any existing cache
                      */
                     EdalCache.cacheManager.removeCache(cacheName);
                 }
-                EdalCache.cacheManager.addCache(new Cache(cacheManager.getCache(cacheName).getCacheConfiguration()));
+                EdalCache.cacheManager.addCache(new Cache(cacheConfiguration));
             }
             cacheManager.shutdown();
         }
 
         if (cachingEnabled) {
-            if (EdalCache.cacheManager.cacheExists(CACHE_NAME)) {
-                /*
-                 * Use parameters for featureCache from ehcache.xml config file
-                 * if passed in as JVM parameter wmsCache.config - Update cache
-                 * params in NwcmsConfig
-                 */
-                featureCache = EdalCache.cacheManager.getCache(CACHE_NAME);
-                CacheInfo catalogueCacheInfo = config.getCacheSettings();
-                CacheConfiguration featureCacheConfiguration = featureCache.getCacheConfiguration();
-                catalogueCacheInfo.setInMemorySizeMB(
-                        (int) (featureCacheConfiguration.getMaxBytesLocalHeap() / (1024 * 1024)));
-                catalogueCacheInfo.setElementLifetimeMinutes(
-                        featureCacheConfiguration.getTimeToLiveSeconds() / 60);
-                catalogueCacheInfo.setEnabled(true);
-            } else {
-                /*
-                 * Either no ehcache.xml file is available, or it does not
-                 * define "featureCache". In this case, configure with values
-                 * from config.xml
-                 */
-                CacheConfiguration cacheConfig = new CacheConfiguration(CACHE_NAME, 0)
-                        .eternal(cacheLifetimeSeconds == 0).timeToLiveSeconds(cacheLifetimeSeconds)
-                        .maxBytesLocalHeap(config.getCacheSettings().getInMemorySizeMB(),
-                                MemoryUnit.MEGABYTES)
-                        .memoryStoreEvictionPolicy(EVICTION_POLICY)
-                        .persistence(new PersistenceConfiguration().strategy(PERSISTENCE_STRATEGY))
-                        .transactionalMode(TRANSACTIONAL_MODE);
-
-                featureCache = new Cache(cacheConfig);
-                EdalCache.cacheManager.addCache(featureCache);
-            }
+            featureCache = createFeatureCache(getCacheSizeMB(cacheSizeMB), cacheLifetimeSeconds);
+        }
 
-            /*
-             * Used to gather statistics about Ehcache
-             */
-            mBeanServer = ManagementFactory.getPlatformMBeanServer();
-            try {
-                cacheManagerObjectName = new ObjectName("net.sf.ehcache:type=CacheManager,name="
-                        + EdalCache.cacheManager.getName());
-            } catch (MalformedObjectNameException e) {
-                throw new EdalException("unable to form cacheManager ObjectName", e);
-            }
+        /*
+         * Used to gather statistics about Ehcache and the feature cache
+         */
+        mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            cacheManagerObjectName = new ObjectName("net.sf.ehcache:type=CacheManager,name="
+                    + EdalCache.cacheManager.getName());
+        } catch (MalformedObjectNameException e) {
+            throw new EdalException("unable to form cacheManager ObjectName", e);
+        }
+
+        if (!mBeanServer.isRegistered(cacheManagerObjectName)) {
+            ManagementService.registerMBeans(EdalCache.cacheManager, mBeanServer, true, true,
+                    true, true);
+        }
+    }
 
-            if (!mBeanServer.isRegistered(cacheManagerObjectName)) {
-                ManagementService.registerMBeans(EdalCache.cacheManager, mBeanServer, true, true,
-                        true, true);
+    /*
+     * A configured size of 0 means that no size has been set, rather than
+     * that nothing should be cached
+     */
+    private static long getCacheSizeMB(long configuredSizeMB) {
+        return configuredSizeMB > 0 ? configuredSizeMB : CACHE_SIZE_MB;
+    }
+
+    /*
+     * Creates a new feature cache, and registers it with JMX (replacing any
+     * previously-registered feature cache)
+     */
+    private WeighedCache<CacheKey, Collection<? extends DiscreteFeature<?, ?>>> createFeatureCache(
+            long cacheSizeMB, long lifetimeSeconds) {
+        log.debug("Creating featureCache, with maximum size " + cacheSizeMB + "MB");
+        WeighedCache<CacheKey, Collection<? extends DiscreteFeature<?, ?>>> cache = new WeighedCache<>(
+                CACHE_NAME, cacheSizeMB * 1024 * 1024, lifetimeSeconds, new FeatureWeigher());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(FEATURE_CACHE_OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
             }
+            server.registerMBean(cache, objectName);
+        } catch (JMException e) {
+            /*
+             * Statistics are not available through JMX, but the cache will
+             * still work
+             */
+            log.warn("Unable to register feature cache with JMX", e);
         }
+        return cache;
+    }
+
+    /**
+     * @return The cache used to store extracted features, or <code>null</code>
+     *         if caching is disabled. This can be used to obtain cache
+     *         statistics.
+     */
+    public WeighedCache<?, ?> getFeatureCache() {
+        return cachingEnabled ? featureCache : null;
     }
 
     public CatalogueConfig getConfig() {
@@ -211,6 +303,7 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
     }
 
     public void shutdown() {
+        statisticsExecutor.shutdownNow();
         CatalogueConfig.shutdown();
     }
 
@@ -222,99 +315,33 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
      *            <code>null</code>
      */
     public void setCache(CacheInfo cacheConfig) {
-        MemoryStoreEvictionPolicy memoryStoreEviction;
-        Strategy persistenceStrategy;
-        TransactionalMode transactionalMode;
-        long cacheSizeMB;
         long configCacheSizeMB = cacheConfig.getInMemorySizeMB();
-        long lifetimeSeconds;
         long configLifetimeSeconds = (long) (cacheConfig.getElementLifetimeMinutes() * 60);
 
-        if (featureCache != null && cachingEnabled == cacheConfig.isEnabled()
-                && configCacheSizeMB == featureCache.getCacheConfiguration().getMaxBytesLocalHeap()
-                        / (1024 * 1024)
-                && configLifetimeSeconds == featureCache.getCacheConfiguration()
-                        .getTimeToLiveSeconds()) {
-            /*
-             * We are not changing anything about the cache.
-             */
-            return;
-        }
-
         cachingEnabled = cacheConfig.isEnabled();
 
         if (cachingEnabled) {
-            if (EdalCache.cacheManager.cacheExists(CACHE_NAME)) {
+            if (featureCache != null) {
                 /*
                  * Update cache configuration
                  */
-                CacheConfiguration featureCacheConfig = featureCache.getCacheConfiguration();
-                featureCacheConfig.setTimeToLiveSeconds(configLifetimeSeconds);
-                featureCacheConfig.setMaxBytesLocalHeap(configCacheSizeMB * 1024 * 1024);
+                featureCache.setTimeToLiveSeconds(configLifetimeSeconds);
+                featureCache.setMaxWeight(getCacheSizeMB(configCacheSizeMB) * 1024 * 1024);
             } else {
-                /*-
-                 * Precedence:
-                 * - Admin config
-                 * - XML file "ehcache.config"
-                 * - Default values
-                 */
-
-                /*
-                 * Default values
-                 */
-                cacheSizeMB = CACHE_SIZE_MB;
-                lifetimeSeconds = LIFETIME_SECONDS;
-                memoryStoreEviction = EVICTION_POLICY;
-                persistenceStrategy = PERSISTENCE_STRATEGY;
-                transactionalMode = TRANSACTIONAL_MODE;
-
-                /*
-                 * XML config
-                 */
-                String ehcache_file = System.getProperty("ehcache.config");
-                if (ehcache_file != null && !ehcache_file.isEmpty()) {
-                    Cache tmpfeatureCache = EdalCache.cacheManager.getCache(CACHE_NAME);
-                    cacheSizeMB = tmpfeatureCache.getCacheConfiguration().getMaxBytesLocalHeap()
-                            / (1024 * 1024);
-                    lifetimeSeconds = tmpfeatureCache.getCacheConfiguration()
-                            .getTimeToLiveSeconds();
-                    memoryStoreEviction = tmpfeatureCache.getCacheConfiguration()
-                            .getMemoryStoreEvictionPolicy();
-                    persistenceStrategy = tmpfeatureCache.getCacheConfiguration()
-                            .getPersistenceConfiguration().getStrategy();
-                    transactionalMode = tmpfeatureCache.getCacheConfiguration()
-                            .getTransactionalMode();
-                }
-
-                /*
-                 * Admin
-                 */
-                if (cacheConfig.getInMemorySizeMB() != 0) {
-                    cacheSizeMB = configCacheSizeMB;
-                }
-                if (cacheConfig.getElementLifetimeMinutes() != 0) {
-                    lifetimeSeconds = configLifetimeSeconds;
-                }
-
                 /*
-                 * Configure and create cache
+                 * Use the admin config if set, and the defaults otherwise
                  */
-                CacheConfiguration config = new CacheConfiguration(CACHE_NAME, 0)
-                        .eternal(lifetimeSeconds == 0)
-                        .maxBytesLocalHeap(cacheSizeMB, MemoryUnit.MEGABYTES)
-                        .timeToLiveSeconds(lifetimeSeconds)
-                        .memoryStoreEvictionPolicy(memoryStoreEviction)
-                        .persistence(new PersistenceConfiguration().strategy(persistenceStrategy))
-                        .transactionalMode(transactionalMode);
-
-                featureCache = new Cache(config);
-                EdalCache.cacheManager.addCache(featureCache);
+                long cacheSizeMB = getCacheSizeMB(configCacheSizeMB);
+                long lifetimeSeconds = cacheConfig.getElementLifetimeMinutes() != 0
+                        ? configLifetimeSeconds
+                        : LIFETIME_SECONDS;
+                featureCache = createFeatureCache(cacheSizeMB, lifetimeSeconds);
             }
-        } else {
+        } else if (featureCache != null) {
             /*
-             * Remove existing cache to free up memory
+             * Empty the existing cache to free up memory
              */
-            EdalCache.cacheManager.removeCache(CACHE_NAME);
+            featureCache.clear();
         }
     }
 
@@ -327,6 +354,18 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
      */
     public void removeDataset(String id) {
         datasets.remove(id);
+        /*
+         * Only change the generation once the dataset has been removed, so
+         * that features read from it can't be cached under the new generation
+         */
+        datasetGenerations.merge(id, 1L, Long::sum);
+        datasetSourceStamps.remove(id);
+        changingDatasets.remove(id);
+        statisticsIndices.remove(id);
+        File statisticsFile = getStatisticsFile(id);
+        if (statisticsFile != null) {
+            statisticsFile.delete();
+        }
         config.removeDataset(config.getDatasetInfo(id));
     }
 
@@ -342,26 +381,25 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
     public void changeDatasetId(String oldId, String newId) {
         Dataset dataset = datasets.get(oldId);
         datasets.remove(oldId);
+        datasetGenerations.merge(oldId, 1L, Long::sum);
+        statisticsIndices.remove(oldId);
         datasets.put(newId, dataset);
+        datasetGenerations.merge(newId, 1L, Long::sum);
+        Long sourceStamp = datasetSourceStamps.remove(oldId);
+        if (sourceStamp != null) {
+            datasetSourceStamps.put(newId, sourceStamp);
+        }
+        if (changingDatasets.remove(oldId)) {
+            changingDatasets.add(newId);
+        }
+        if (dataset instanceof HorizontallyDiscreteDataset) {
+            buildStatisticsIndex((HorizontallyDiscreteDataset<?>) dataset);
+        }
         config.changeDatasetId(config.getDatasetInfo(oldId), newId);
     }
 
     @Override
     public synchronized void datasetLoaded(Dataset dataset, Collection<VariableConfig> variables) {
-        /*
-         * If we have any tiles in the cache with this dataset ID, we want to remove them.
-         */
-        if(cachingEnabled) {
-            @SuppressWarnings("rawtypes")
-            List keys = featureCache.getKeys();
-            for(Object key : keys) {
-                CacheKey cacheKey = (CacheKey) key;
-                String datasetId = layerNameMapper.getDatasetIdFromLayerName(cacheKey.layerName);
-                if(dataset.getId().equals(datasetId)) {
-                    featureCache.remove(cacheKey);
-                }
-            }
-        }
         /*
          * If we already have a dataset with this ID, it will be replaced. This
          * is exactly what we want.
@@ -397,10 +435,34 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
              */
         }
 
-        datasets = new LinkedHashMap<String, Dataset>();
+        Map<String, Dataset> sortedDatasets = new LinkedHashMap<String, Dataset>();
         for (Map.Entry<String, Dataset> entry : entryList) {
-            datasets.put(entry.getKey(), entry.getValue());
+            sortedDatasets.put(entry.getKey(), entry.getValue());
         }
+        datasets = sortedDatasets;
+        Long sourceStamp = calculateSourceStamp(dataset.getId());
+        if (sourceStamp != null) {
+            datasetSourceStamps.put(dataset.getId(), sourceStamp);
+            changingDatasets.remove(dataset.getId());
+        } else {
+            /*
+             * We can't tell when the data changes, so assume that it always
+             * has
+             */
+            datasetSourceStamps.put(dataset.getId(), System.currentTimeMillis());
+            changingDatasets.add(dataset.getId());
+        }
+
+        /*
+         * Any features in the cache for this dataset are now out-of-date.
+         * Incrementing the generation means that they will no longer be
+         * retrieved, and they will be evicted as the cache fills. This must
+         * happen once the new dataset is in place: a request which reads the
+         * old generation but extracts from the new dataset is harmless, but
+         * one which reads the new generation must never extract from the old
+         * dataset.
+         */
+        datasetGenerations.merge(dataset.getId(), 1L, Long::sum);
 
         /*
          * Now add the layer metadata to a map for future reference
@@ -415,11 +477,209 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
         /*
          * The config has changed, so we save it.
          */
-        try {
-            config.save();
-        } catch (IOException e) {
-            e.printStackTrace();
+        synchronized (config) {
+            savingLoadedDataset = true;
+            try {
+                config.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                savingLoadedDataset = false;
+            }
+        }
+
+        if (dataset instanceof HorizontallyDiscreteDataset) {
+            buildStatisticsIndex((HorizontallyDiscreteDataset<?>) dataset);
+        }
+        DatasetConfig datasetInfo = config.getDatasetInfo(dataset.getId());
+        if (dataset instanceof GriddedDataset && datasetInfo != null
+                && datasetInfo.isOverviews()) {
+            buildOverviews((GriddedDataset) dataset);
+        }
+    }
+
+    /**
+     * Attaches the overviews of a gridded dataset, and schedules the building
+     * of any which don't exist yet (e.g. for new timesteps). Overviews are
+     * built on the same low-priority thread as the statistics indices, and
+     * each is used as soon as it has been written.
+     */
+    private void buildOverviews(final GriddedDataset dataset) {
+        final String datasetId = dataset.getId();
+        File overviewsDir = getDatasetDataDir(OVERVIEWS_DIR, datasetId);
+        if (overviewsDir == null) {
+            return;
+        }
+        final GridOverviews overviews = new GridOverviews(overviewsDir,
+                getDatasetSourceStamp(datasetId));
+        dataset.setOverviews(overviews);
+        statisticsExecutor.submit(() -> {
+            if (datasets.get(datasetId) != dataset) {
+                return;
+            }
+            try {
+                overviews.build(dataset);
+            } catch (Exception e) {
+                log.error("Problem building overviews for " + datasetId, e);
+            }
+        });
+    }
+
+    /**
+     * Schedules the (re)building of the statistics index for a dataset. Any
+     * previously built index (either in memory or saved to disk) is used until
+     * the new one is available, and unchanged slices are reused from it.
+     */
+    private void buildStatisticsIndex(final HorizontallyDiscreteDataset<?> dataset) {
+        final String datasetId = dataset.getId();
+        if (changingDatasets.contains(datasetId)) {
+            /*
+             * We can't tell when the data changes, so any index would be out
+             * of date as soon as it was built
+             */
+            statisticsIndices.remove(datasetId);
+            return;
+        }
+        final File statisticsFile = getStatisticsFile(datasetId);
+        final long sourceStamp = getDatasetSourceStamp(datasetId);
+        if (!statisticsIndices.containsKey(datasetId) && statisticsFile != null
+                && statisticsFile.exists()) {
+            try {
+                DatasetStatisticsIndex index = DatasetStatisticsIndex.readFrom(statisticsFile);
+                if (index.getSourceStamp() == sourceStamp) {
+                    statisticsIndices.put(datasetId, index);
+                } else {
+                    log.debug("Statistics index for " + datasetId
+                            + " is out of date.  It will be rebuilt");
+                }
+            } catch (IOException e) {
+                log.warn("Could not read statistics index for " + datasetId
+                        + ".  It will be rebuilt", e);
+            }
+        }
+        statisticsExecutor.submit(() -> {
+            if (datasets.get(datasetId) != dataset) {
+                /*
+                 * This dataset has been replaced or removed since the build
+                 * was scheduled
+                 */
+                return;
+            }
+            try {
+                DatasetStatisticsIndex index = DatasetStatisticsIndex.build(dataset,
+                        sourceStamp, statisticsIndices.get(datasetId));
+                if (datasets.get(datasetId) != dataset) {
+                    return;
+                }
+                statisticsIndices.put(datasetId, index);
+                if (statisticsFile != null) {
+                    index.writeTo(statisticsFile);
+                }
+            } catch (Exception e) {
+                log.error("Problem building statistics index for " + datasetId, e);
+            }
+        });
+    }
+
+    private File getStatisticsFile(String datasetId) {
+        return getDatasetDataDir(STATISTICS_DIR, datasetId + ".stats");
+    }
+
+    /*
+     * Gets a file or directory for derived data about a dataset, which is
+     * stored in a subdirectory alongside the config file
+     */
+    private File getDatasetDataDir(String subdirectory, String name) {
+        if (config == null || config.getConfigFile() == null) {
+            return null;
+        }
+        File dir = new File(config.getConfigFile().getAbsoluteFile().getParentFile(),
+                subdirectory);
+        return new File(dir, name.replaceAll("[^A-Za-z0-9._-]", "_"));
+    }
+
+    @Override
+    public DatasetStatisticsIndex getStatisticsIndex(String datasetId) {
+        DatasetStatisticsIndex index = statisticsIndices.get(datasetId);
+        if (index == null || index.getSourceStamp() != getDatasetSourceStamp(datasetId)) {
+            /*
+             * Not built yet, or built from data which has since changed
+             */
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Gets a stamp identifying the version of the source data of a dataset.
+     * For datasets read from local files, this is calculated from the paths,
+     * sizes and modification times of the files when the dataset is loaded, so
+     * it only changes when the files do, and is the same after a restart. For
+     * remote datasets, it changes every time the dataset is loaded, and no
+     * statistics index is built.
+     * 
+     * @param datasetId
+     *            The ID of the dataset
+     * @return The stamp, or 0 if the dataset has not been loaded
+     */
+    @Override
+    public long getDatasetSourceStamp(String datasetId) {
+        return datasetSourceStamps.getOrDefault(datasetId, 0L);
+    }
+
+    /*
+     * Calculates the stamp of a dataset's source files, or returns null if
+     * they can't be found (e.g. for remote datasets)
+     */
+    private Long calculateSourceStamp(String datasetId) {
+        DatasetConfig datasetInfo = config.getDatasetInfo(datasetId);
+        String location = datasetInfo == null ? null : datasetInfo.getLocation();
+        if (location != null && location.startsWith("file:")) {
+            location = location.substring("file:".length());
+        }
+        if (location != null && !location.contains("://")) {
+            try {
+                List<File> files = new ArrayList<>(CdmUtils.expandGlobExpression(location));
+                if (!files.isEmpty()) {
+                    Collections.sort(files);
+                    long stamp = 17L;
+                    for (File file : files) {
+                        stamp = 31L * stamp + file.getAbsolutePath().hashCode();
+                        stamp = 31L * stamp + file.length();
+                        stamp = 31L * stamp + file.lastModified();
+                    }
+                    return stamp;
+                }
+            } catch (Exception e) {
+                log.debug("Could not find the files of dataset " + datasetId, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Marks the catalogue as updated whenever the config is saved, since the
+     * metadata of any layer may have changed
+     */
+    @Override
+    public void configSaved() {
+        synchronized (config) {
+            if (!savingLoadedDataset) {
+                configStamp++;
+            }
         }
+        lastUpdateTime = new DateTime();
+    }
+
+    /**
+     * Gets a stamp identifying the version of the config. Unlike the last
+     * update time, this does not change when datasets are loaded or
+     * reloaded, so metadata for one dataset is not invalidated whenever
+     * another dataset is loaded.
+     */
+    @Override
+    public long getConfigStamp() {
+        return configStamp;
     }
 
     @Override
@@ -457,6 +717,22 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
         return config.getDatasetInfo(datasetId);
     }
 
+    /**
+     * @param layerName
+     *            The name of the layer
+     * @return Whether features for the given layer may be extracted before
+     *         they are requested. This is only the case when feature caching
+     *         is enabled and the layer's dataset has not disabled prefetching.
+     */
+    public boolean isPrefetchable(String layerName) {
+        if (!cachingEnabled) {
+            return false;
+        }
+        DatasetConfig datasetInfo = config
+                .getDatasetInfo(layerNameMapper.getDatasetIdFromLayerName(layerName));
+        return datasetInfo != null && datasetInfo.isPrefetch();
+    }
+
     @Override
     public EnhancedVariableMetadata getLayerMetadata(final VariableMetadata variableMetadata)
             throws EdalLayerNotFoundException {
@@ -472,42 +748,38 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public FeaturesAndMemberName getFeaturesForLayer(String layerName, PlottingDomainParams params)
             throws EdalException {
+        return getFeatures(layerName, params, false);
+    }
+
+    @Override
+    public FeaturesAndMemberName getFeaturesForDrawing(String layerName,
+            PlottingDomainParams params) throws EdalException {
+        return getFeatures(layerName, params, true);
+    }
+
+    private FeaturesAndMemberName getFeatures(String layerName, PlottingDomainParams params,
+            boolean forDrawing) throws EdalException {
         String variable = layerNameMapper.getVariableIdFromLayerName(layerName);
         Collection<? extends DiscreteFeature<?, ?>> mapFeatures;
-        if (cachingEnabled) {
-            CacheKey key = new CacheKey(layerName, params);
-            Element element = featureCache.get(key);
-
-            if (element != null && element.getObjectValue() != null) {
-                /*
-                 * This is why we added the SuppressWarnings("unchecked").
-                 */
-                mapFeatures = (Collection<? extends DiscreteFeature<?, ?>>) element
-                        .getObjectValue();
-            } else {
-                mapFeatures = doExtraction(layerName, variable, params);
-                try {
-                    featureCache.put(new Element(key, mapFeatures));
-                } catch (Exception e) {
-                    log.error("Problem adding features to cache", e);
-                    /*
-                     * Just log and carry on - not caching isn't the end of the world
-                     */
-                }
-            }
+        WeighedCache<CacheKey, Collection<? extends DiscreteFeature<?, ?>>> cache = featureCache;
+        if (cachingEnabled && cache != null) {
+            String datasetId = layerNameMapper.getDatasetIdFromLayerName(layerName);
+            CacheKey key = new CacheKey(layerName, datasetGenerations.getOrDefault(datasetId, 0L),
+                    params, forDrawing);
+            mapFeatures = cache.get(key,
+                    () -> doExtraction(layerName, variable, params, forDrawing));
         } else {
-            mapFeatures = doExtraction(layerName, variable, params);
+            mapFeatures = doExtraction(layerName, variable, params, forDrawing);
         }
         return new FeaturesAndMemberName(mapFeatures, variable);
     }
 
     private Collection<? extends DiscreteFeature<?, ?>> doExtraction(String layerName,
-            String variable, PlottingDomainParams params) {
+            String variable, PlottingDomainParams params, boolean forDrawing) {
         Dataset dataset = getDatasetFromLayerName(layerName);
-        return GraphicsUtils.extractGeneralMapFeatures(dataset, variable, params);
+        return GraphicsUtils.extractGeneralMapFeatures(dataset, variable, params, forDrawing);
     }
 
     private Dataset getDatasetFromLayerName(String layerName) {
@@ -517,12 +789,17 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
     private static class CacheKey implements Serializable {
         private static final long serialVersionUID = 1L;
         final String layerName;
+        final long datasetGeneration;
         final PlottingDomainParams params;
+        final boolean forDrawing;
 
-        public CacheKey(String layerName, PlottingDomainParams params) {
+        public CacheKey(String layerName, long datasetGeneration, PlottingDomainParams params,
+                boolean forDrawing) {
             super();
             this.layerName = layerName;
+            this.datasetGeneration = datasetGeneration;
             this.params = params;
+            this.forDrawing = forDrawing;
         }
 
         @Override
@@ -530,7 +807,9 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
             final int prime = 31;
             int result = 1;
             result = prime * result + ((layerName == null) ? 0 : layerName.hashCode());
+            result = prime * result + Long.hashCode(datasetGeneration);
             result = prime * result + ((params == null) ? 0 : params.hashCode());
+            result = prime * result + (forDrawing ? 1231 : 1237);
             return result;
         }
 
@@ -543,6 +822,10 @@ public class DataCatalogue implements DatasetCatalogue, DatasetStorage, FeatureC
             if (getClass() != obj.getClass())
                 return false;
             CacheKey other = (CacheKey) obj;
+            if (datasetGeneration != other.datasetGeneration)
+                return false;
+            if (forDrawing != other.forDrawing)
+                return false;
             if (layerName == null) {
                 if (other.layerName != null)
                     return false;
@@ -167,6 +167,14 @@ public class CatalogueConfig {
         return cacheInfo;
     }
 
+    /**
+     * @return The file which this config is saved to, or <code>null</code> if
+     *         it is not backed by a file
+     */
+    public File getConfigFile() {
+        return configFile;
+    }
+
     public DatasetConfig getDatasetInfo(String datasetId) {
         return datasets.get(datasetId);
     }
@@ -235,6 +243,14 @@ public class CatalogueConfig {
         } catch (JAXBException e) {
             throw new IOException("Could not save file due to JAXB error", e);
         }
+
+        /*
+         * Saving is the point at which changes to the config (e.g. layer
+         * titles or disabled layers) take effect
+         */
+        if (datasetStorage != null) {
+            datasetStorage.configSaved();
+        }
     }
 
     public static void shutdown() {
@@ -336,5 +352,12 @@ public class CatalogueConfig {
          *            {@link Dataset}
          */
         public void datasetLoaded(Dataset dataset, Collection<VariableConfig> variables);
+
+        /**
+         * Called each time the config is saved. This default implementation
+         * does nothing.
+         */
+        public default void configSaved() {
+        }
     }
 }
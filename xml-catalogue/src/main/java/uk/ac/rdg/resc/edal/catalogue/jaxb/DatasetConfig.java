@@ -120,6 +120,20 @@ public class DatasetConfig {
     @XmlAttribute(name = "updateInterval")
     private int updateInterval = -1;
 
+    /*
+     * Set false to stop neighbouring timesteps/elevations of this dataset
+     * being speculatively extracted into the feature cache
+     */
+    @XmlAttribute(name = "prefetch")
+    private boolean prefetch = true;
+
+    /*
+     * Set true to build reduced-resolution overviews of gridded data, used for
+     * zoomed-out maps
+     */
+    @XmlAttribute(name = "overviews")
+    private boolean overviews = false;
+
     @XmlAttribute(name = "metadataUrl")
     private String metadataUrl = null;
 
@@ -372,6 +386,23 @@ public class DatasetConfig {
         return disabled;
     }
 
+    /**
+     * @return Whether neighbouring timesteps and elevations of the
+     *         {@link Dataset} being configured may be extracted ahead of being
+     *         requested
+     */
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * @return Whether reduced-resolution overviews of the {@link Dataset}
+     *         being configured should be built and used for zoomed-out maps
+     */
+    public boolean isOverviews() {
+        return overviews;
+    }
+
     /**
      * @return How often, in minutes the {@link Dataset} should be updated (i.e.
      *         have metadata re-read in case of changes)
@@ -550,6 +581,14 @@ public class DatasetConfig {
         this.disabled = disabled;
     }
 
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public void setOverviews(boolean overviews) {
+        this.overviews = overviews;
+    }
+
     public void setUpdateInterval(int updateInterval) {
         this.updateInterval = updateInterval;
     }